@@ -0,0 +1,133 @@
+package it.polimi.ingsw.am43.Benchmarks;
+
+import it.polimi.ingsw.am43.Model.CardCatalog;
+import it.polimi.ingsw.am43.Model.Cards.CardSide;
+import it.polimi.ingsw.am43.Model.Cards.PlayableCard;
+import it.polimi.ingsw.am43.Model.Enum.PawnColor;
+import it.polimi.ingsw.am43.Model.Player;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * A board measured by the benchmarks: a starting card plus a number of resource and gold cards of the
+ * {@link CardCatalog}, each placed on a random legal corner. Gold cards show their front when their
+ * requisites are met, their back otherwise. The placements are recorded, so that the board can be
+ * deployed again on any {@link Player}, and the same seed always gives the same board.
+ */
+public class BenchmarkBoard {
+
+    /**
+     * The number of cards, starting card excluded, of the boards of each size: about a quarter of a game,
+     * a whole game, and every resource and gold card of the catalogue.
+     */
+    public static final int SMALL = 10;
+    public static final int MEDIUM = 30;
+    public static final int LARGE = 80;
+
+    /**
+     * The starting {@link CardSide} of the board.
+     */
+    private final CardSide starting;
+
+    /**
+     * The deployed {@link CardSide}s, in order of placement.
+     */
+    private final List<CardSide> sides = new ArrayList<>();
+
+    /**
+     * The index of the covered {@link CardSide} and the corner of each placement.
+     */
+    private final List<int[]> slots = new ArrayList<>();
+
+    /**
+     * Constructor of the board.
+     *
+     * @param seed  the seed of the random choices
+     * @param cards the number of cards to place, starting card excluded
+     */
+    public BenchmarkBoard(long seed, int cards) {
+        Random random = new Random(seed);
+        CardCatalog catalog = CardCatalog.getInstance();
+
+        int[] startingIds = catalog.getIds("Starting");
+        starting = catalog.getPlayableCard(startingIds[random.nextInt(startingIds.length)]).getFrontside().copy();
+        Player player = new Player("benchmark", PawnColor.RED);
+        player.placeCardSide(starting, -1, 0);
+
+        List<Integer> ids = new ArrayList<>();
+        for (int id : catalog.getIds("Resource")) ids.add(id);
+        for (int id : catalog.getIds("Gold")) ids.add(id);
+        Collections.shuffle(ids, random);
+
+        for (int n = 0; n < cards && n < ids.size(); n++) {
+            List<int[]> available = new ArrayList<>();
+            boolean[][] placements = player.getAllAvailablePlacements();
+            for (int i = 0; i < placements.length; i++) {
+                for (int c = 0; c < 4; c++) {
+                    if (placements[i][c]) available.add(new int[]{i, c});
+                }
+            }
+            if (available.isEmpty()) break;
+
+            PlayableCard card = catalog.getPlayableCard(ids.get(n));
+            CardSide side = card.getFrontside().checkGoldRequisites(player.getRes_qty())
+                    ? card.getFrontside().copy()
+                    : card.getBackside().copy();
+            int[] slot = available.get(random.nextInt(available.size()));
+            player.placeCardSide(side, slot[0], slot[1]);
+            sides.add(side);
+            slots.add(slot);
+        }
+    }
+
+    /**
+     * A method that returns the number of cards of a board size.
+     *
+     * @param size "small", "medium" or "large"
+     * @return the number of cards, starting card excluded
+     */
+    public static int cardsOf(String size) {
+        return switch (size) {
+            case "small" -> SMALL;
+            case "medium" -> MEDIUM;
+            case "large" -> LARGE;
+            default -> throw new IllegalArgumentException("Unexpected board size: " + size);
+        };
+    }
+
+    /**
+     * A method that deploys the board on a new {@link Player}.
+     *
+     * @return the {@link Player} with the whole board deployed
+     */
+    public Player deploy() {
+        return deployOn(new Player("benchmark", PawnColor.RED));
+    }
+
+    /**
+     * A method that deploys the board on a {@link Player} with nothing deployed yet.
+     * The recorded {@link CardSide}s are reused: placing them again gives them the same coordinates.
+     *
+     * @param player the {@link Player}
+     * @return the same {@link Player}, with the whole board deployed
+     */
+    public Player deployOn(Player player) {
+        player.placeCardSide(starting, -1, 0);
+        for (int i = 0; i < sides.size(); i++) {
+            player.placeCardSide(sides.get(i), slots.get(i)[0], slots.get(i)[1]);
+        }
+        return player;
+    }
+
+    /**
+     * A method that returns the number of cards placed on the board, starting card excluded.
+     *
+     * @return the number of cards
+     */
+    public int size() {
+        return sides.size();
+    }
+}
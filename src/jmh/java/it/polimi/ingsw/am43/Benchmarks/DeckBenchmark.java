@@ -0,0 +1,36 @@
+package it.polimi.ingsw.am43.Benchmarks;
+
+import it.polimi.ingsw.am43.Model.Deck;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the creation of each {@link Deck}, shuffle included, and of drawing all its cards.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DeckBenchmark {
+
+    @Param({"Resource", "Gold", "Objective", "Starting"})
+    public String deckType;
+
+    @Benchmark
+    public Deck construction() {
+        return new Deck(deckType);
+    }
+
+    @Benchmark
+    public void drawAll(Blackhole blackhole) {
+        Deck deck = new Deck(deckType);
+        boolean objective = deckType.equals("Objective");
+        while (deck.size() > 0) {
+            blackhole.consume(objective ? deck.drawObjectiveCard() : deck.drawPlayableCard());
+        }
+    }
+}
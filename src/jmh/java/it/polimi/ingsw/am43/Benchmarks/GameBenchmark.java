@@ -0,0 +1,46 @@
+package it.polimi.ingsw.am43.Benchmarks;
+
+import it.polimi.ingsw.am43.Model.Enum.PawnColor;
+import it.polimi.ingsw.am43.Model.Game;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of the final scoring of a four players {@link Game}, on boards of every size.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GameBenchmark {
+
+    @Param({"small", "medium", "large"})
+    public String size;
+
+    private Game game;
+
+    /**
+     * Creates the game again at every iteration, since {@link Game#endGame()} adds the points of the
+     * objectives to the scores of the players.
+     */
+    @Setup(Level.Iteration)
+    public void setup() {
+        PawnColor[] colors = PawnColor.values();
+        game = new Game();
+        game.initializePlayers(4, "player0", colors[0]);
+        for (int i = 1; i < 4; i++) game.addPlayer("player" + i, colors[i]);
+        game.drawCommonObjectives();
+        for (int i = 0; i < 4; i++) {
+            new BenchmarkBoard(43 + i, BenchmarkBoard.cardsOf(size)).deployOn(game.getPlayers()[i]);
+            game.setPersonalObjective(i, game.drawPersonalObjectives()[0]);
+        }
+    }
+
+    @Benchmark
+    public int[][] endGame() {
+        return game.endGame();
+    }
+}
@@ -0,0 +1,53 @@
+package it.polimi.ingsw.am43.Benchmarks;
+
+import it.polimi.ingsw.am43.Model.Player;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the placement engine of the {@link Player}, on boards of every size.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PlayerBenchmark {
+
+    @Param({"small", "medium", "large"})
+    public String size;
+
+    private BenchmarkBoard board;
+    private Player player;
+
+    @Setup
+    public void setup() {
+        board = new BenchmarkBoard(43, BenchmarkBoard.cardsOf(size));
+        player = board.deploy();
+    }
+
+    /**
+     * Places the whole board, one {@link Player#placeCardSide} call per card, on a new {@link Player}.
+     */
+    @Benchmark
+    public Player placeCardSide() {
+        return board.deploy();
+    }
+
+    /**
+     * Checks the free corners of every deployed card, as the clients do after each turn.
+     */
+    @Benchmark
+    public void getAvailablePlacements(Blackhole blackhole) {
+        for (int i = 0; i <= board.size(); i++) blackhole.consume(player.getAvailablePlacements(i));
+    }
+
+    @Benchmark
+    public int[] computeResources() {
+        player.computeResources();
+        return player.getResources();
+    }
+}
@@ -0,0 +1,70 @@
+package it.polimi.ingsw.am43.Benchmarks;
+
+import it.polimi.ingsw.am43.Model.Enum.Kingdom;
+import it.polimi.ingsw.am43.Model.Enum.Symbol;
+import it.polimi.ingsw.am43.Model.Player;
+import it.polimi.ingsw.am43.Model.Points.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of every {@link PointsRule}, on boards of every size.
+ * The rules are the ones of the gold and objective cards of the catalogue.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PointsRulesBenchmark {
+
+    @Param({"small", "medium", "large"})
+    public String size;
+
+    private Player player;
+
+    private final PointsRule simple = new simplePoints(3);
+    private final PointsRule coveredCorners = new forEachCoveredCorner(2);
+    private final PointsRule resource = new forEachResourceSet(2, List.of(Symbol.FUNGI));
+    private final PointsRule objectSet = new forEachResourceSet(3, List.of(Symbol.INKWELL, Symbol.QUILL, Symbol.MANUSCRIPT));
+    private final PointsRule diagonal = new forEachDiagonalPattern(2, Kingdom.FUNGI, true);
+    private final PointsRule lPattern = new forEachLPattern(3, 2, new Kingdom[]{Kingdom.FUNGI, Kingdom.PLANT});
+
+    @Setup
+    public void setup() {
+        player = new BenchmarkBoard(43, BenchmarkBoard.cardsOf(size)).deploy();
+    }
+
+    @Benchmark
+    public int simplePoints() {
+        return simple.computePoints(player);
+    }
+
+    @Benchmark
+    public int forEachCoveredCorner() {
+        return coveredCorners.computePoints(player);
+    }
+
+    @Benchmark
+    public int forEachResource() {
+        return resource.computePoints(player);
+    }
+
+    @Benchmark
+    public int forEachObjectSet() {
+        return objectSet.computePoints(player);
+    }
+
+    @Benchmark
+    public int forEachDiagonalPattern() {
+        return diagonal.computePoints(player);
+    }
+
+    @Benchmark
+    public int forEachLPattern() {
+        return lPattern.computePoints(player);
+    }
+}
@@ -0,0 +1,72 @@
+package it.polimi.ingsw.am43.Benchmarks;
+
+import it.polimi.ingsw.am43.Model.Enum.PawnColor;
+import it.polimi.ingsw.am43.Model.Game;
+import it.polimi.ingsw.am43.Model.Player;
+import it.polimi.ingsw.am43.Model.Simulation;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of the {@link Simulation} of a four players {@link Game}: the copy of a state, with boards
+ * of every size, and a random rollout from the first turn to the end of the game.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SimulationBenchmark {
+
+    @Param({"small", "medium", "large"})
+    public String size;
+
+    private Simulation deployed;
+    private Simulation started;
+    private final Random random = new Random(43);
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Game game = newGame();
+        for (int i = 0; i < 4; i++) new BenchmarkBoard(43 + i, BenchmarkBoard.cardsOf(size)).deployOn(game.getPlayers()[i]);
+        deployed = new Simulation(game);
+
+        game = newGame();
+        for (Player player : game.getPlayers()) {
+            player.placeCardSide(player.getStartingCard().getFrontside().copy(), -1, 0);
+        }
+        started = new Simulation(game);
+    }
+
+    /**
+     * A method that creates a game of four players with their hands and objectives dealt.
+     *
+     * @return the game
+     */
+    private static Game newGame() {
+        PawnColor[] colors = PawnColor.values();
+        Game game = new Game();
+        game.initializePlayers(4, "player0", colors[0]);
+        for (int i = 1; i < 4; i++) game.addPlayer("player" + i, colors[i]);
+        game.dealStartingCards(game.getPlayers());
+        game.dealHands(game.getPlayers());
+        game.drawCommonObjectives();
+        for (int i = 0; i < 4; i++) game.setPersonalObjective(i, game.drawPersonalObjectives()[0]);
+        game.setFirst_player(0);
+        game.setLastPlayerID(3);
+        return game;
+    }
+
+    @Benchmark
+    public Simulation copy() {
+        return deployed.copy();
+    }
+
+    @Benchmark
+    public int[][] rollout() {
+        return started.copy().rollout(random);
+    }
+}
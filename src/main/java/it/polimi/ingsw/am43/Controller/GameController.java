@@ -1,17 +1,28 @@
 package it.polimi.ingsw.am43.Controller;
 
+import it.polimi.ingsw.am43.Model.CardCatalog;
+import it.polimi.ingsw.am43.Model.Cards.Card;
 import it.polimi.ingsw.am43.Model.Cards.CardSide;
 import it.polimi.ingsw.am43.Model.Cards.ObjectiveCard;
 import it.polimi.ingsw.am43.Model.Cards.PlayableCard;
 import it.polimi.ingsw.am43.Model.Enum.PawnColor;
 import it.polimi.ingsw.am43.Model.Game;
 import it.polimi.ingsw.am43.Model.Player;
+import it.polimi.ingsw.am43.Model.Simulation;
+import it.polimi.ingsw.am43.Model.SparseBoard;
+import it.polimi.ingsw.am43.Network.Message;
 import it.polimi.ingsw.am43.Network.Messages.toClientMessages.gameInfoMsg;
 import it.polimi.ingsw.am43.Network.Messages.toClientMessages.initialGameInfoMsg;
 import it.polimi.ingsw.am43.Network.Messages.toClientMessages.initialSituation;
+import it.polimi.ingsw.am43.Network.Messages.toClientMessages.placeableCardsMsg;
+import it.polimi.ingsw.am43.Network.Messages.toClientMessages.requiredDataMsg;
+import it.polimi.ingsw.am43.Network.Messages.toClientMessages.resyncMsg;
 
 import java.io.*;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.Executor;
+import java.util.function.LongConsumer;
 import java.util.stream.Stream;
 
 @SuppressWarnings("SpellCheckingInspection")
@@ -45,6 +56,46 @@ public class GameController implements Serializable {
      */
     private int lastPlayingPlayerID;
 
+    /**
+     * The deltas of the turns played, sent to the clients that rejoin knowing part of the match.
+     */
+    private GameEventLog eventLog = new GameEventLog();
+
+    /**
+     * The {@link GameSaver} that writes the saves of the game, created on the first save.
+     */
+    private transient GameSaver saver;
+
+    /**
+     * The persistence stage on which the saves are written, null to write them on the caller's thread.
+     */
+    private transient Executor persistenceStage;
+
+    /**
+     * The durability policy of the saves.
+     */
+    private GameSaver.Durability durability = GameSaver.Durability.SYNC;
+
+    /**
+     * The consumer of the time taken by each write of the saves, in nanoseconds, null if they are not measured.
+     */
+    private transient LongConsumer writeTimes;
+
+    /**
+     * The action run when a save fails in the background, null if failures are not counted.
+     */
+    private transient Runnable saveFailures;
+
+    /**
+     * The command of the last turn played and not saved yet, null if there is none.
+     */
+    private int[] pendingTurn;
+
+    /**
+     * The number of turns played when the last snapshot was taken, -1 if there is none.
+     */
+    private int snapshotTurn = -1;
+
     /**
      * Constructor of the class.
      */
@@ -183,13 +234,13 @@ public class GameController implements Serializable {
     }
 
     /**
-     * A method that returns all the placements matrix of
+     * A method that returns the placements board of
      * all the players of the game.
      *
      * @return the placements
      */
-    public int[][][] getAllPlacements() {
-        int [][][] placements = new int[getNumPlayers()][81][81];
+    public SparseBoard[] getAllPlacements() {
+        SparseBoard[] placements = new SparseBoard[getNumPlayers()];
         for(int i=0; i<getNumPlayers(); i++){
             placements[i] = game.getPlayers()[i].getPlacements();
         }
@@ -244,8 +295,61 @@ public class GameController implements Serializable {
      * @return a message containing the initial situation
      */
     public initialSituation getInitialSituation(int playerID) {
-        return new initialSituation(game.getPlayers()[playerID].getInHand(), game.getPlayers()[playerID].getStartingCard(),
-                game.getCommonObjectives(), playerID);
+        return new initialSituation(CardCatalog.idsOf(game.getPlayers()[playerID].getInHand()),
+                CardCatalog.idOf(game.getPlayers()[playerID].getStartingCard()),
+                CardCatalog.idsOf(game.getCommonObjectives()), playerID);
+    }
+
+    /**
+     * A method that returns all the data needed by a player who rejoins a loaded game.
+     *
+     * @param playerID the ID of the player
+     * @return a message containing the data of the game
+     */
+    public requiredDataMsg getRequiredData(int playerID) {
+        CardCatalog catalog = CardCatalog.getInstance();
+        int[][] deployed = new int[getNumPlayers()][];
+        int[][] coordinates = new int[getNumPlayers()][];
+        for (int i = 0; i < getNumPlayers(); i++) {
+            ArrayList<CardSide> sides = game.getPlayers()[i].getDeployed();
+            deployed[i] = catalog.getSideRefs(sides);
+            coordinates[i] = new int[2 * sides.size()];
+            for (int j = 0; j < sides.size(); j++) {
+                coordinates[i][2*j] = sides.get(j).getRelativeCoordinates()[0];
+                coordinates[i][2*j+1] = sides.get(j).getRelativeCoordinates()[1];
+            }
+        }
+        Player player = game.getPlayers()[playerID];
+        return new requiredDataMsg(game.getTurn(), CardCatalog.idsOf(player.getInHand()),
+                CardCatalog.idOf(player.getStartingCard()),
+                CardCatalog.idsOf(getOnGround()),
+                CardCatalog.idsOf(getCommonObjectives()),
+                CardCatalog.idOf(player.getPersonalObjective()),
+                getScores(),
+                getAllPlacements(),
+                deployed,
+                coordinates,
+                getUsersColors(),
+                getPlayerNames(),
+                getNumPlayers(),
+                getFirstPlayer());
+    }
+
+    /**
+     * A method that returns what a player who rejoins a loaded game needs to proceed the match.
+     * If the client knows the match up to a sequence number and the deltas that follow it are in the log,
+     * only those are sent, so the size of the message depends on the turns missed and not on the size of the game.
+     * Otherwise, or if the client has missed most of the match, all the data of the game is sent.
+     *
+     * @param playerID the ID of the player
+     * @param lastSeq the sequence number of the last game info known by the client, 0 if none
+     * @return a {@link resyncMsg} with the missed deltas, or a {@link requiredDataMsg} with the whole game
+     */
+    public Message getRejoinData(int playerID, int lastSeq) {
+        gameInfoMsg[] missed = lastSeq > 0 ? eventLog.since(lastSeq) : null;
+        if (missed == null || 2 * missed.length > eventLog.getLastSeq()) return getRequiredData(playerID);
+        Player player = game.getPlayers()[playerID];
+        return new resyncMsg(missed, CardCatalog.idsOf(player.getInHand()), CardCatalog.idOf(player.getPersonalObjective()));
     }
 
     /**
@@ -255,23 +359,28 @@ public class GameController implements Serializable {
      */
     public gameInfoMsg getGameInfo() {
         //if the player is the last to play in that turn and the match should finish: set index=-1
-        CardSide goldDeckBack, resDeckBack;
+        CardCatalog catalog = CardCatalog.getInstance();
         int index = game.getLastChangedOnGround();
         int lastPlayerID = game.getLastPlayerID();
         PlayableCard lastOnGround = game.getOnGround()[index];
         if (isLastTurn()&& lastPlayerID == lastPlayingPlayerID) index=-1;
-        if(game.getDeck(5).getTopCard() == null){
-            goldDeckBack = null;
-        } else {
-            goldDeckBack = ( (PlayableCard) game.getDeck(5).getTopCard()).getBackside();
-        }
-        if(game.getDeck(4).getTopCard() == null){
-            resDeckBack = null;
-        } else {
-            resDeckBack = ( (PlayableCard) game.getDeck(4).getTopCard()).getBackside();
-        }
+        CardSide placed = game.getLastPlacedSide();
 
-        return new gameInfoMsg(lastPlayerID, game.getScores(), lastOnGround, index, game.getLastPlacedSide(), goldDeckBack, resDeckBack);
+        return new gameInfoMsg(game.getTurn(), lastPlayerID, game.getScores(), CardCatalog.idOf(lastOnGround), index,
+                catalog.getSideRef(placed), placed == null ? 0 : placed.getDeployedID(),
+                placed == null ? null : placed.getRelativeCoordinates().clone(),
+                deckTopRef(5), deckTopRef(4));
+    }
+
+    /**
+     * A method that returns the reference of the backside of the card on top of a deck.
+     *
+     * @param deckIndex the index of the deck, 4 for the resource deck and 5 for the gold deck
+     * @return the reference of the backside, 0 if the deck is empty
+     */
+    private int deckTopRef(int deckIndex) {
+        Card top = game.getDeck(deckIndex).getTopCard();
+        return top == null ? 0 : -top.getId();
     }
 
     /**
@@ -282,21 +391,22 @@ public class GameController implements Serializable {
     public initialGameInfoMsg getInitialGameInfo() {
         PawnColor[] colors = Arrays.stream(game.getPlayers()).map(Player::getPawnColor).toArray(PawnColor[]::new);
         String[] usernames = Arrays.stream(game.getPlayers()).map(Player::getUsername).toArray(String[]::new);
-        CardSide goldenDeckTop = ( (PlayableCard) game.getDeck(5).getTopCard()).getBackside();
-        CardSide resourceDeckTop = ( (PlayableCard) game.getDeck(4).getTopCard()).getBackside();
-        return new initialGameInfoMsg(game.getStartingCardSides(), game.getOnGround(), game.getFirst_player(), usernames, colors, goldenDeckTop, resourceDeckTop);
+        int[] startingSides = CardCatalog.getInstance().getSideRefs(Arrays.asList(game.getStartingCardSides()));
+        return new initialGameInfoMsg(startingSides, CardCatalog.idsOf(game.getOnGround()), game.getFirst_player(),
+                usernames, colors, deckTopRef(5), deckTopRef(4));
     }
 
     /**
      * A method that places the starting card side of the player.
+     * As for every placement, a copy of the side is placed, since the cards are shared by all the games.
      *
      * @param side the side to be placed
      * @param playerID the ID of the player
      */
     public void placeStartingCardSide(int side, int playerID) {
         Player curr = game.getPlayers()[playerID];
-        if (side==0) curr.placeCardSide(curr.getStartingCard().getFrontside(),-1,0);
-        else curr.placeCardSide(curr.getStartingCard().getBackside(), -1, 0);
+        if (side==0) curr.placeCardSide(curr.getStartingCard().getFrontside().copy(),-1,0);
+        else curr.placeCardSide(curr.getStartingCard().getBackside().copy(), -1, 0);
     }
 
     /**
@@ -313,7 +423,8 @@ public class GameController implements Serializable {
 
         Player current = this.game.getPlayers()[playerID];
         PlayableCard toBePlaced = current.getInHand()[idToBePlaced/2];
-        CardSide toPlace = idToBePlaced%2==0 ? toBePlaced.getFrontside() : toBePlaced.getBackside();
+        // The cards are shared by all the games: the player places its own copy of the side
+        CardSide toPlace = (idToBePlaced%2==0 ? toBePlaced.getFrontside() : toBePlaced.getBackside()).copy();
 
         current.placeCardSide(toPlace, on, corner);
 
@@ -337,9 +448,31 @@ public class GameController implements Serializable {
         game.setLastPlayerID(playerID);
         game.setLastPlacedSide(toPlace);
         game.increaseTurn();
+        eventLog.append(getGameInfo());
+        pendingTurn = new int[]{game.getTurn(), playerID, idToBePlaced, on, corner, drawIndex};
         return drawn;
     }
 
+    /**
+     * A method that returns the ID of the player who plays the next turn.
+     *
+     * @return the ID of the current player
+     */
+    public int getCurrentPlayer() {
+        return (game.getLastPlayerID()+1)%getNumPlayers();
+    }
+
+    /**
+     * A method that returns a copy of the state of the game on which turns can be simulated
+     * without touching the game, with the cards still in the decks shuffled since their order is hidden.
+     *
+     * @param random the source of randomness of the shuffle
+     * @return the {@link Simulation} of the game
+     */
+    public Simulation getSimulation(Random random) {
+        return new Simulation(game, random);
+    }
+
     /**
      * A method that ends the game and returns the scores of the players.
      *
@@ -368,6 +501,20 @@ public class GameController implements Serializable {
         game.setPersonalObjective(player, obj);
     }
 
+    /**
+     * A method that sets the personal objective of the player by its id, as received from the client.
+     *
+     * @param player the ID of the player
+     * @param objID the id of the personal objective card
+     * @return true if the id is the one of an objective card, false otherwise
+     */
+    public boolean setPersonalObjective(int player, int objID) {
+        ObjectiveCard obj = CardCatalog.getInstance().getObjectiveCard(objID);
+        if (obj == null) return false;
+        game.setPersonalObjective(player, obj);
+        return true;
+    }
+
     /**
      * A method that returns the personal objective of the player.
      *
@@ -447,6 +594,19 @@ public class GameController implements Serializable {
                 .toArray(Boolean[]::new);
     }
 
+    /**
+     * A method that returns everything a player needs to choose a placement in one message:
+     * the placeable sides in hand and, for every deployed card, the available corners,
+     * read from the frontier of the player.
+     *
+     * @param playerID the ID of the player
+     * @return the {@link placeableCardsMsg} for the player
+     */
+    public placeableCardsMsg getPlaceableCards(int playerID) {
+        return new placeableCardsMsg(getInHandAvailableSides(playerID),
+                this.game.getPlayers()[playerID].getAllAvailablePlacements(), isResEmpty(), isGoldEmpty());
+    }
+
     /**
      *  A method that returns the names of the players.
      *
@@ -467,35 +627,160 @@ public class GameController implements Serializable {
         return names;
     }
 
+    /**
+     * A method that sets where and how the saves of the game are written.
+     * It must be called before the first save.
+     *
+     * @param stage the persistence stage on which the saves are written, null to write them on the caller's thread
+     * @param durability the durability policy of the saves
+     * @param writeTimes the consumer of the time taken by each write, in nanoseconds, null if they are not measured
+     * @param saveFailures the action run when a save fails in the background, null if failures are not counted
+     */
+    public void setPersistence(Executor stage, GameSaver.Durability durability, LongConsumer writeTimes, Runnable saveFailures) {
+        this.persistenceStage = stage;
+        this.durability = durability;
+        this.writeTimes = writeTimes;
+        this.saveFailures = saveFailures;
+    }
+
     /**
      * A method that saves the current game.
+     * Only the command of the last turn is appended to the {@link GameJournal}, while the whole game is saved
+     * as a snapshot when there is none yet or every {@link GameJournal#SNAPSHOT_INTERVAL} turns.
+     * The save is taken on the caller's thread, and written by the {@link GameSaver} according to its durability policy.
+     * Like every other change of the game, it is called from the game's loop only, so the saves never overlap.
+     * If a save fails, on the caller's thread or in the background, the next one is a snapshot,
+     * since the journal would miss the turns that were not saved.
      *
-     * @throws IOException if an I/O error occurs
+     * @throws IOException if the save is written on the caller's thread and an I/O error occurs
      */
     public void saveGame() throws IOException {
-        File saveFile = new File(homePath + File.separator + "CodexNaturalis" + File.separator + game.getId());
-        ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(saveFile));
-        oos.writeObject(this.game);
-        oos.flush();
-        oos.close();
+        try {
+            if (saver().clearFailure()) snapshotTurn = -1;
+            if (snapshotTurn < 0 || game.getTurn() - snapshotTurn >= GameJournal.SNAPSHOT_INTERVAL) {
+                saver().submit(takeSnapshot());
+            } else if (pendingTurn != null) {
+                saver().submit(GameSaver.Save.turn(pendingTurn));
+            }
+        } catch (IOException e) {
+            snapshotTurn = -1;
+            throw e;
+        } finally {
+            pendingTurn = null;
+        }
+    }
+
+    /**
+     * A method that takes a snapshot of the current game, serialized so that it can be written
+     * while the game goes on.
+     *
+     * @return the save of the snapshot
+     * @throws IOException if the game cannot be serialized
+     */
+    private GameSaver.Save takeSnapshot() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream oos = new ObjectOutputStream(bytes)) {
+            oos.writeObject(this.game);
+            oos.writeObject(this.eventLog);
+        }
+        snapshotTurn = game.getTurn();
+        pendingTurn = null;
+        return GameSaver.Save.snapshot(snapshotTurn, bytes.toByteArray());
     }
 
     /**
-     * A method that loads a game from a save file.
+     * A method that closes the saves of the game when it is torn down: if turns have been journaled
+     * since the last snapshot, a new snapshot is taken, so that loading the game needs no replay.
+     * Returns once every save is on the disk.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    public void closeSaves() throws IOException {
+        if (snapshotTurn >= 0 && game.getTurn() > snapshotTurn) saver().submit(takeSnapshot());
+        if (saver != null) saver.close();
+    }
+
+    /**
+     * A method that returns the {@link GameSaver} of the game, null if the game has never been saved.
+     *
+     * @return the saver of the game
+     */
+    public GameSaver getSaver() {
+        return saver;
+    }
+
+    /**
+     * A method that loads a game from a save file: the snapshot is read first,
+     * then the turns journaled after it are played again.
      *
      * @param gameID the ID of the game to load
      * @throws IOException if an I/O error occurs
      * @throws ClassNotFoundException if the class cannot be found
      */
     public void loadGame(String gameID) throws IOException, ClassNotFoundException {
-        File saveFile = new File(homePath + File.separator + "CodexNaturalis" + File.separator + gameID);
-        ObjectInputStream ois = new ObjectInputStream(new FileInputStream(saveFile));
-        this.game = (Game) ois.readObject();
-        ois.close();
+        try (ObjectInputStream ois = new ObjectInputStream(new BufferedInputStream(new FileInputStream(saveFile(gameID))))) {
+            this.game = (Game) ois.readObject();
+            try {
+                this.eventLog = (GameEventLog) ois.readObject();
+            } catch (EOFException e) {
+                // Saved before the deltas were logged: rejoining clients get the whole game
+                this.eventLog = new GameEventLog();
+            }
+        }
+        // The first player is the one following the last of each round
+        lastPlayingPlayerID = (game.getFirst_player() + getNumPlayers() - 1) % getNumPlayers();
+        snapshotTurn = game.getTurn();
+        try (GameJournal journal = new GameJournal(journalPath(saveFile(gameID)))) {
+            journal.replay((seq, playerID, idToBePlaced, on, corner, drawIndex) -> {
+                // Turns already in the snapshot, journaled before a crash could reset the journal
+                if (seq <= game.getTurn()) return true;
+                if (seq != game.getTurn() + 1) return false;
+                try {
+                    playTurn(playerID, idToBePlaced, on, corner, drawIndex);
+                    return true;
+                } catch (RuntimeException e) {
+                    return false;
+                }
+            });
+        }
+        pendingTurn = null;
         this.game.setLoaded(true);
         rejoinedPlayers.clear();
     }
 
+    /**
+     * A method that returns the saver of the game, creating it if needed.
+     *
+     * @return the {@link GameSaver} of the game
+     */
+    private GameSaver saver() {
+        if (saver == null) {
+            File saveFile = saveFile(String.valueOf(game.getId()));
+            saver = new GameSaver(saveFile.toPath(), journalPath(saveFile), persistenceStage, durability, writeTimes, saveFailures);
+        }
+        return saver;
+    }
+
+    /**
+     * A method that returns the journal file of a game.
+     *
+     * @param saveFile the snapshot file of the game
+     * @return the path of the journal
+     */
+    private static Path journalPath(File saveFile) {
+        return new File(saveFile.getPath() + ".journal").toPath();
+    }
+
+    /**
+     * A method that returns the snapshot file of a game.
+     *
+     * @param gameID the ID of the game
+     * @return the snapshot file
+     */
+    private File saveFile(String gameID) {
+        return new File(homePath + File.separator + "CodexNaturalis" + File.separator + gameID);
+    }
+
     /**
      * A method that returns if the game is loaded or not.
      *
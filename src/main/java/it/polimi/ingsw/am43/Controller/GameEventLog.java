@@ -0,0 +1,79 @@
+package it.polimi.ingsw.am43.Controller;
+
+import it.polimi.ingsw.am43.Network.Messages.toClientMessages.gameInfoMsg;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Class that keeps the history of a match as a sequence of deltas, one for each turn played.
+ * Each delta is the {@link gameInfoMsg} broadcast at the end of the turn: the card placed and its
+ * coordinates, the card that replaced the drawn one on the ground, the scores and the tops of the decks.
+ * Deltas are numbered by the turn they close, so their sequence numbers are monotonically increasing
+ * and a client that knows the match up to a sequence number only needs the deltas that follow it.
+ * Only the last {@link #CAPACITY} deltas are kept, since the log is written in every snapshot of the game:
+ * a client that missed more turns than the log holds is sent the whole game instead.
+ */
+public class GameEventLog implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 6310457761893120554L;
+
+    /**
+     * The number of deltas kept: the turns between two snapshots, plus a window for the clients that missed a few more.
+     */
+    public static final int CAPACITY = 4 * GameJournal.SNAPSHOT_INTERVAL;
+
+    /**
+     * The last deltas of the match, in order of sequence number.
+     */
+    private final List<gameInfoMsg> events = new ArrayList<>();
+
+    /**
+     * A method that appends the delta of a turn to the log.
+     * A delta whose sequence number is not greater than the last one is ignored, since it is already logged.
+     * The oldest deltas are dropped once the log holds more than {@link #CAPACITY} of them.
+     *
+     * @param event the delta of the turn
+     */
+    public void append(gameInfoMsg event) {
+        if (event.getSeq() <= getLastSeq()) return;
+        events.add(event);
+        if (events.size() > CAPACITY) events.subList(0, events.size() - CAPACITY).clear();
+    }
+
+    /**
+     * A method that returns the sequence number of the last delta in the log.
+     *
+     * @return the last sequence number, 0 if the log is empty
+     */
+    public int getLastSeq() {
+        return events.isEmpty() ? 0 : events.getLast().getSeq();
+    }
+
+    /**
+     * A method that returns the number of deltas in the log.
+     *
+     * @return the number of deltas
+     */
+    public int size() {
+        return events.size();
+    }
+
+    /**
+     * A method that returns the deltas that follow a sequence number.
+     *
+     * @param seq the last sequence number known by the client
+     * @return the deltas following seq, in order, or null if the log does not contain all of them
+     */
+    public gameInfoMsg[] since(int seq) {
+        if (seq < 0 || seq > getLastSeq()) return null;
+        if (seq == getLastSeq()) return new gameInfoMsg[0];
+        int first = events.getFirst().getSeq();
+        // Deltas are contiguous: the one following seq is at a known position
+        if (seq + 1 < first) return null;
+        return events.subList(seq + 1 - first, events.size()).toArray(new gameInfoMsg[0]);
+    }
+}
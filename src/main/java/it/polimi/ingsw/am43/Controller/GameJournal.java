@@ -0,0 +1,226 @@
+package it.polimi.ingsw.am43.Controller;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Class that appends the turns played in a game to a journal file, next to the snapshot of the game.
+ * Each turn is stored as the command that played it, a fixed-size record of a few integers,
+ * so saving a turn costs a few bytes instead of a full rewrite of the game.
+ * A loaded game is rebuilt by replaying on its snapshot the turns journaled after it:
+ * playing a turn only depends on the state of the game, decks included, hence the replay is exact.
+ * <p>
+ * Records are written to the operating system at every turn, which is enough to survive a crash
+ * of the server, while they are forced to the disk in batches of {@link #SYNC_BATCH} turns,
+ * and whenever the journal is reset or closed.
+ */
+public class GameJournal implements Closeable {
+
+    /**
+     * The number of turns after which a new snapshot is written and the journal is reset.
+     */
+    public static final int SNAPSHOT_INTERVAL = 16;
+
+    /**
+     * The number of records written before the journal is forced to the disk.
+     */
+    static final int SYNC_BATCH = 4;
+
+    /**
+     * The size of a record: sequence number, player, card placed, card placed on, corner and draw index.
+     */
+    static final int RECORD_SIZE = 6 * Integer.BYTES;
+
+    /**
+     * A functional interface used to replay the turns of the journal.
+     */
+    @FunctionalInterface
+    public interface TurnConsumer {
+
+        /**
+         * Replays a turn of the journal.
+         *
+         * @param seq          the sequence number of the turn, that is the number of turns played after it
+         * @param playerID     the ID of the player
+         * @param idToBePlaced the ID of the card placed
+         * @param on           the ID of the card on which the card has been placed
+         * @param corner       the corner on which the card has been placed
+         * @param drawIndex    the index of the drawn card
+         * @return true if the turn has been replayed, false to stop the replay
+         */
+        boolean accept(int seq, int playerID, int idToBePlaced, int on, int corner, int drawIndex);
+    }
+
+    /**
+     * The path of the journal file.
+     */
+    private final Path path;
+
+    /**
+     * The channel of the journal file, opened on the first write.
+     */
+    private FileChannel channel;
+
+    /**
+     * The buffer of the record being written.
+     */
+    private final ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+
+    /**
+     * The number of records written and not forced to the disk yet.
+     */
+    private int unsynced = 0;
+
+    /**
+     * Constructor of the journal.
+     *
+     * @param path the path of the journal file
+     */
+    public GameJournal(Path path) {
+        this.path = path;
+    }
+
+    /**
+     * A method that appends a turn to the journal.
+     *
+     * @param seq          the sequence number of the turn
+     * @param playerID     the ID of the player
+     * @param idToBePlaced the ID of the card placed
+     * @param on           the ID of the card on which the card has been placed
+     * @param corner       the corner on which the card has been placed
+     * @param drawIndex    the index of the drawn card
+     * @throws IOException if an I/O error occurs
+     */
+    public void append(int seq, int playerID, int idToBePlaced, int on, int corner, int drawIndex) throws IOException {
+        record.clear();
+        record.putInt(seq).putInt(playerID).putInt(idToBePlaced).putInt(on).putInt(corner).putInt(drawIndex);
+        record.flip();
+        FileChannel ch = channel();
+        while (record.hasRemaining()) ch.write(record);
+        if (++unsynced >= SYNC_BATCH) sync();
+    }
+
+    /**
+     * A method that appends many turns to the journal with a single write.
+     *
+     * @param turns the turns to append, each one made of the six values taken by
+     *              {@link #append(int, int, int, int, int, int)}
+     * @throws IOException if an I/O error occurs
+     */
+    public void appendAll(List<int[]> turns) throws IOException {
+        if (turns.isEmpty()) return;
+        ByteBuffer records = ByteBuffer.allocate(turns.size() * RECORD_SIZE);
+        for (int[] turn : turns) {
+            for (int i = 0; i < RECORD_SIZE / Integer.BYTES; i++) records.putInt(turn[i]);
+        }
+        records.flip();
+        FileChannel ch = channel();
+        while (records.hasRemaining()) ch.write(records);
+        unsynced += turns.size();
+        if (unsynced >= SYNC_BATCH) sync();
+    }
+
+    /**
+     * A method that returns the number of records written and not forced to the disk yet.
+     *
+     * @return the number of records that may be lost by a crash of the machine
+     */
+    public int getUnsynced() {
+        return unsynced;
+    }
+
+    /**
+     * A method that forces the records written so far to the disk.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    public void sync() throws IOException {
+        if (channel != null && unsynced > 0) {
+            channel.force(false);
+            unsynced = 0;
+        }
+    }
+
+    /**
+     * A method that empties the journal, once a snapshot containing all its turns has been written.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    public void reset() throws IOException {
+        FileChannel ch = channel();
+        ch.truncate(0);
+        ch.force(false);
+        unsynced = 0;
+    }
+
+    /**
+     * A method that replays the turns of the journal, in order, until the consumer stops the replay.
+     * A record cut short by a crash ends the replay. The journal is then cut after the last turn
+     * replayed, so that the next turns are appended right after it.
+     *
+     * @param consumer the {@link TurnConsumer} called for each turn
+     * @return the number of turns replayed
+     * @throws IOException if an I/O error occurs
+     */
+    public int replay(TurnConsumer consumer) throws IOException {
+        if (!Files.exists(path)) return 0;
+        ByteBuffer records = ByteBuffer.wrap(Files.readAllBytes(path));
+        int replayed = 0;
+        while (records.remaining() >= RECORD_SIZE) {
+            int start = records.position();
+            if (!consumer.accept(records.getInt(), records.getInt(), records.getInt(),
+                    records.getInt(), records.getInt(), records.getInt())) {
+                records.position(start);
+                break;
+            }
+            replayed++;
+        }
+        if (records.position() < records.limit()) {
+            channel().truncate(records.position());
+        }
+        return replayed;
+    }
+
+    /**
+     * A method that returns the channel of the journal file, opening it if needed.
+     *
+     * @return the channel, positioned at the end of the journal
+     * @throws IOException if an I/O error occurs
+     */
+    private FileChannel channel() throws IOException {
+        if (channel == null) {
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            channel.position(channel.size());
+        }
+        return channel;
+    }
+
+    /**
+     * A method that returns the path of the journal file.
+     *
+     * @return the path of the journal
+     */
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * A method that forces the pending records to the disk and closes the journal.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            sync();
+            channel.close();
+            channel = null;
+        }
+    }
+}
@@ -0,0 +1,380 @@
+package it.polimi.ingsw.am43.Controller;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongConsumer;
+
+/**
+ * Class that writes the saves of a game, taking the disk off the path of the turns.
+ * The {@link GameController} hands it immutable saves, either a snapshot of the whole game already
+ * serialized or the record of a turn, and the saver writes them to the snapshot file and the
+ * {@link GameJournal} of the game on a persistence stage shared by all the games.
+ * Saves queued while the stage is busy are written together: a snapshot makes the saves queued before
+ * it useless, and the records that follow it are appended with a single write.
+ * How soon a save reaches the disk depends on the {@link Durability} of the saver.
+ */
+public class GameSaver implements Closeable {
+
+    /**
+     * ANSI color codes for the messages printed by the saver
+     */
+    static String RESET = "\033[0m";
+    static String RED = "\033[0;31m"; // Used for ERROR
+
+    /**
+     * The policies that tell how soon a save reaches the disk.
+     */
+    public enum Durability {
+        /**
+         * Every save is written and forced to the disk before the turn goes on.
+         */
+        SYNC,
+        /**
+         * Saves are written in the background, and the journal is forced to the disk once for all the saves written together.
+         */
+        GROUP_COMMIT,
+        /**
+         * Saves are written in the background, and the journal is forced to the disk every few turns.
+         */
+        ASYNC
+    }
+
+    /**
+     * An immutable save of a game: a serialized snapshot of the whole game, or the record of a turn.
+     */
+    static final class Save {
+
+        /**
+         * The number of turns played when the save was taken.
+         */
+        final int turn;
+
+        /**
+         * The serialized game, null if the save is the record of a turn.
+         */
+        final byte[] snapshot;
+
+        /**
+         * The record of the turn, null if the save is a snapshot.
+         */
+        final int[] record;
+
+        private Save(int turn, byte[] snapshot, int[] record) {
+            this.turn = turn;
+            this.snapshot = snapshot;
+            this.record = record;
+        }
+
+        /**
+         * Creates the save of a snapshot.
+         *
+         * @param turn     the number of turns played
+         * @param snapshot the serialized game
+         * @return the save
+         */
+        static Save snapshot(int turn, byte[] snapshot) {
+            return new Save(turn, snapshot, null);
+        }
+
+        /**
+         * Creates the save of a turn.
+         *
+         * @param record the record of the turn, whose first value is its sequence number
+         * @return the save
+         */
+        static Save turn(int[] record) {
+            return new Save(record[0], null, record.clone());
+        }
+    }
+
+    /**
+     * The snapshot file of the game.
+     */
+    private final Path saveFile;
+
+    /**
+     * The journal of the game.
+     */
+    private final GameJournal journal;
+
+    /**
+     * The persistence stage, null to write the saves on the caller's thread.
+     */
+    private final Executor stage;
+
+    /**
+     * The durability policy of the saves.
+     */
+    private final Durability durability;
+
+    /**
+     * The consumer of the time taken by each write, null if writes are not measured.
+     */
+    private final LongConsumer writeTimes;
+
+    /**
+     * The action run when a write in the background fails, null if failures are not counted.
+     */
+    private final Runnable failures;
+
+    /**
+     * Whether a write in the background has failed since the {@link GameController} last asked:
+     * the journal may then miss turns, and the next save has to be a snapshot.
+     */
+    private final AtomicBoolean failed = new AtomicBoolean(false);
+
+    /**
+     * The saves waiting to be written, in order.
+     */
+    private final Queue<Save> pending = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Whether a task writing the pending saves is scheduled on the stage.
+     */
+    private final AtomicBoolean scheduled = new AtomicBoolean(false);
+
+    /**
+     * The lock that keeps a single writer on the files. A lock is used instead of a monitor,
+     * since writing may run on a virtual thread.
+     */
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    /**
+     * The number of turns of the last save handed to the saver.
+     */
+    private volatile int submittedTurn = -1;
+
+    /**
+     * The number of turns of the last save forced to the disk.
+     */
+    private volatile int durableTurn = -1;
+
+    /**
+     * The time of the oldest save not forced to the disk yet, in nanoseconds, 0 if there is none.
+     */
+    private volatile long lagSince = 0;
+
+    /**
+     * Constructor of the saver.
+     *
+     * @param saveFile   the snapshot file of the game
+     * @param journal    the path of the journal of the game
+     * @param stage      the persistence stage, null to write the saves on the caller's thread
+     * @param durability the durability policy of the saves
+     * @param writeTimes the consumer of the time taken by each write, in nanoseconds, null if writes are not measured
+     * @param failures   the action run when a write in the background fails, null if failures are not counted
+     */
+    public GameSaver(Path saveFile, Path journal, Executor stage, Durability durability, LongConsumer writeTimes, Runnable failures) {
+        this.saveFile = saveFile;
+        this.journal = new GameJournal(journal);
+        this.stage = stage;
+        this.durability = durability;
+        this.writeTimes = writeTimes;
+        this.failures = failures;
+    }
+
+    /**
+     * A method that hands a save to the saver. With {@link Durability#SYNC}, or without a stage,
+     * the save is on the disk when the method returns, otherwise it is written in the background.
+     *
+     * @param save the save to write
+     * @throws IOException if the save is written on the caller's thread and an I/O error occurs
+     */
+    void submit(Save save) throws IOException {
+        if (lagSince == 0) lagSince = System.nanoTime();
+        submittedTurn = save.turn;
+        if (stage == null || durability == Durability.SYNC) {
+            writeLock.lock();
+            try {
+                write(List.of(save));
+            } finally {
+                writeLock.unlock();
+            }
+            return;
+        }
+        pending.add(save);
+        schedule();
+    }
+
+    /**
+     * A method that schedules a task writing the pending saves on the stage, unless one is already scheduled.
+     */
+    private void schedule() {
+        if (!scheduled.compareAndSet(false, true)) return;
+        try {
+            stage.execute(this::drain);
+        } catch (RejectedExecutionException e) {
+            // The stage is shutting down: the saves are written when the saver is closed
+            scheduled.set(false);
+        }
+    }
+
+    /**
+     * A method that writes all the pending saves, run on the stage.
+     * A failed write is dropped, and remembered so that the next save of the game is a snapshot.
+     */
+    private void drain() {
+        writeLock.lock();
+        try {
+            writePending();
+        } catch (IOException e) {
+            System.err.println(RED + "[ERROR] Unable to save " + saveFile.getFileName() + ": " + e + RESET);
+            failed.set(true);
+            if (failures != null) failures.run();
+        } finally {
+            writeLock.unlock();
+            scheduled.set(false);
+        }
+        // A save may have been queued after the last poll but before the task was released
+        if (!pending.isEmpty()) schedule();
+    }
+
+    /**
+     * A method that writes all the pending saves, to be called holding the write lock.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    private void writePending() throws IOException {
+        List<Save> saves = new ArrayList<>();
+        Save save;
+        while ((save = pending.poll()) != null) saves.add(save);
+        if (!saves.isEmpty()) write(saves);
+    }
+
+    /**
+     * A method that writes saves in order, to be called holding the write lock.
+     * Only the last snapshot is written, followed by the records of the turns after it.
+     *
+     * @param saves the saves to write
+     * @throws IOException if an I/O error occurs
+     */
+    private void write(List<Save> saves) throws IOException {
+        long start = System.nanoTime();
+        int first = 0;
+        for (int i = 0; i < saves.size(); i++) {
+            if (saves.get(i).snapshot != null) first = i;
+        }
+        if (saves.get(first).snapshot != null) {
+            writeSnapshot(saves.get(first).snapshot);
+            first++;
+        }
+        List<int[]> records = new ArrayList<>(saves.size() - first);
+        for (int i = first; i < saves.size(); i++) records.add(saves.get(i).record);
+        journal.appendAll(records);
+        if (durability != Durability.ASYNC) journal.sync();
+        // Records are contiguous turns: the ones not forced yet are the last ones
+        durableTurn = saves.getLast().turn - journal.getUnsynced();
+        if (durableTurn >= submittedTurn) lagSince = 0;
+        if (writeTimes != null) writeTimes.accept(System.nanoTime() - start);
+    }
+
+    /**
+     * A method that writes a snapshot and empties the journal, whose turns it contains.
+     * The snapshot is written to a temporary file first, so that a crash never leaves a partial one,
+     * and both the file and its renaming are forced to the disk before the journal is emptied,
+     * whatever the {@link Durability}: otherwise a crash could lose the turns of the journal along with the snapshot.
+     *
+     * @param snapshot the serialized game
+     * @throws IOException if an I/O error occurs
+     */
+    private void writeSnapshot(byte[] snapshot) throws IOException {
+        Path tmpFile = saveFile.resolveSibling(saveFile.getFileName() + ".tmp");
+        try (FileChannel ch = FileChannel.open(tmpFile, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.wrap(snapshot);
+            while (buffer.hasRemaining()) ch.write(buffer);
+            ch.force(true);
+        }
+        Files.move(tmpFile, saveFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        forceDirectory(saveFile.toAbsolutePath().getParent());
+        journal.reset();
+    }
+
+    /**
+     * A method that forces the entries of a directory to the disk, so that a file just renamed in it survives a crash.
+     * Some platforms cannot open a directory: there the renaming is left to the file system.
+     *
+     * @param directory the directory to force
+     * @throws IOException if the directory is opened and an I/O error occurs while forcing it
+     */
+    private static void forceDirectory(Path directory) throws IOException {
+        FileChannel ch;
+        try {
+            ch = FileChannel.open(directory, StandardOpenOption.READ);
+        } catch (IOException e) {
+            return;
+        }
+        try (ch) {
+            ch.force(true);
+        }
+    }
+
+    /**
+     * A method that tells if a write in the background has failed since the last time it was called.
+     *
+     * @return true if the journal may miss turns, so that the next save has to be a snapshot
+     */
+    boolean clearFailure() {
+        return failed.getAndSet(false);
+    }
+
+    /**
+     * A method that returns how many turns handed to the saver are not on the disk yet.
+     *
+     * @return the number of turns that a crash of the machine would lose
+     */
+    public int getDurabilityLag() {
+        return Math.max(0, submittedTurn - durableTurn);
+    }
+
+    /**
+     * A method that returns for how long the oldest save not on the disk yet has been waiting.
+     *
+     * @return the time waited, in milliseconds, 0 if every save is on the disk
+     */
+    public long getDurabilityLagMillis() {
+        long since = lagSince;
+        return since == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - since);
+    }
+
+    /**
+     * A method that returns the durability policy of the saves.
+     *
+     * @return the durability policy
+     */
+    public Durability getDurability() {
+        return durability;
+    }
+
+    /**
+     * A method that writes the pending saves on the caller's thread, forces them to the disk and closes the journal.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void close() throws IOException {
+        writeLock.lock();
+        try {
+            writePending();
+            journal.close();
+            durableTurn = submittedTurn;
+            lagSince = 0;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+}
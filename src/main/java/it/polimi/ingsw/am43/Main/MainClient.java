@@ -14,8 +14,8 @@ public class MainClient {
 
     public static void main(String[] args) throws IOException, ClassNotFoundException, NotBoundException {
 
-        // Variables used for user input, such as server's IP and port,connection method and desired interface.
-        String inputIP, inputPORT, conn, interfaceType;
+        // Variables used for user input, such as server's IP and port, game ID, connection method and desired interface.
+        String inputIP, inputPORT, gameID, conn, interfaceType;
 
         // A scanner that reads user input.
         Scanner sc = new Scanner(System.in);
@@ -50,6 +50,19 @@ public class MainClient {
             inputPORT="1098";
         }
 
+        // Ask for the game to join and check if it's a valid game ID
+        do{
+            System.out.println("Insert the ID of the game to join or rejoin (leave empty to join any open game): ");
+            gameID = sc.nextLine().trim();
+            if(!gameID.isEmpty() && !gameID.matches("[0-9]{6}")){
+                cls();
+                System.out.println("Invalid game ID. Please provide a number between 100000 and 999999.");
+            }
+        } while (!gameID.isEmpty() && !gameID.matches("[0-9]{6}"));
+        if(gameID.isEmpty()) {
+            gameID = null;
+        }
+
         cls();
 
         // Ask for connection method, check if there are servers running on it and set it
@@ -83,10 +96,10 @@ public class MainClient {
         } while (!interfaceType.equals("1") && !interfaceType.equals("2"));
 
         if (interfaceType.equals("1")) {
-            new TUI(inputIP, parseInt(inputPORT), connectionIsSocket);
+            new TUI(inputIP, parseInt(inputPORT), connectionIsSocket, gameID);
         } else {
             // Initialize GUI
-            new GUI(inputIP, parseInt(inputPORT), connectionIsSocket);
+            new GUI(inputIP, parseInt(inputPORT), connectionIsSocket, gameID);
         }
     }
 
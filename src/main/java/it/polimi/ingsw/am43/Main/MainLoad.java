@@ -0,0 +1,24 @@
+package it.polimi.ingsw.am43.Main;
+
+import it.polimi.ingsw.am43.Network.Load.LoadConfig;
+import it.polimi.ingsw.am43.Network.Load.LoadGenerator;
+import it.polimi.ingsw.am43.Network.Load.LoadStats;
+
+import java.io.IOException;
+
+/**
+ * Headless load generator: plays many matches at once against a server on the same machine,
+ * embedded in this process by default, and reports the round-trip times, the errors and the
+ * resource use of the server. It is configured by the {@code codex.load.*} system properties,
+ * see {@link LoadConfig}, and the embedded server by the {@code codex.server.*} ones.
+ */
+public class MainLoad {
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        LoadConfig config = LoadConfig.fromSystemProperties();
+        if (config.isEmbedded()) MainServer.createGameDirectory();
+        LoadStats stats = new LoadGenerator(config).run();
+        // The clients keep non-daemon threads of RMI alive
+        System.exit(stats.getErrors() == 0 ? 0 : 1);
+    }
+}
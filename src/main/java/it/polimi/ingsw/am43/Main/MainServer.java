@@ -1,6 +1,6 @@
 package it.polimi.ingsw.am43.Main;
 
-import it.polimi.ingsw.am43.Network.GameServer;
+import it.polimi.ingsw.am43.Network.GameRegistry;
 import it.polimi.ingsw.am43.Network.Socket.SocketServer;
 
 import java.io.*;
@@ -15,14 +15,11 @@ import static java.lang.Integer.parseInt;
 @SuppressWarnings("SpellCheckingInspection")
 public class MainServer {
 
-    public static void main(String[] args) throws IOException, ClassNotFoundException {
+    public static void main(String[] args) throws IOException {
 
         // The two variables below are used to get the IP address and port on which the servers will listen.
         String inputIP, inputPort;
 
-        // The GameServer object used to start both Socket and RMI servers.
-        GameServer server;
-
         // The code below is used to get the IP address of the machine on which the server is running.
         InetAddress localIP = InetAddress.getLocalHost();
 
@@ -58,31 +55,19 @@ public class MainServer {
             inputPort = String.valueOf(SocketServer.PORT);
         }
 
-        System.out.println("Do you wanna create a new game or load an existing one?\n1) Create new game\n2) Load an existing game");
-        String choice = new Scanner(System.in).nextLine();
-        while(choice.trim().isEmpty() || !choice.matches("[1-2]")){
-            System.out.println("Invalid choice. Please try again");
-            choice = new Scanner(System.in).nextLine();
-        }
-        if(parseInt(choice) == 1){
-            cls();
-            // Creates and runs both Socket and RMI servers with a new Game
-            GameServer gameServer = new GameServer(inputIP, parseInt(inputPort));
-            gameServer.run();
-        } else {
-            System.out.println("Please insert the ID of the game you want to load:");
-            String gameID = new Scanner(System.in).nextLine();
-            while(gameID.isEmpty() || !gameID.matches("[0-9]{6}") || !existFile(gameID)) {
-                if(gameID.isEmpty() || !gameID.matches("[0-9]{6}")) {
-                    System.out.println("Invalid input. Please provide a number between 100000 and 999999:");
-                } else if (!existFile(gameID)) {
-                    System.out.println("No game with that ID. Please try again:");
-                }
-                gameID = new Scanner(System.in).nextLine();
+        cls();
+        // Starts both Socket and RMI servers, shared by all the hosted games
+        GameRegistry registry = new GameRegistry(inputIP, parseInt(inputPort));
+        registry.start();
+        // Tear all the games down when the server process is stopped
+        Runtime.getRuntime().addShutdownHook(new Thread(registry::stop));
+        System.out.println("New games are created as players join, saved games are loaded as soon as a player asks to rejoin them.");
+        System.out.println("Type \"metrics\" to print the metrics of the server, which are also exposed through JMX.");
+        Scanner console = new Scanner(System.in);
+        while (console.hasNextLine()) {
+            if (console.nextLine().trim().equalsIgnoreCase("metrics")) {
+                System.out.print(registry.getMetrics().dump());
             }
-            cls();
-            server= new GameServer(inputIP, parseInt(inputPort), gameID);
-            server.run();
         }
     }
 
@@ -104,7 +89,7 @@ public class MainServer {
      *
      * @throws         	RuntimeException	if an IOException occurs during the creation of the directory
      */
-    private static void createGameDirectory() {
+    static void createGameDirectory() {
         String homePath = System.getProperty("user.home");
         String path = homePath + File.separator + "CodexNaturalis";
         try {
@@ -117,18 +102,4 @@ public class MainServer {
             throw new RuntimeException(e);
         }
     }
-
-    /**
-     * Checks if a file with the given game ID exists in the "CodexNaturalis" directory
-     * at the user's home directory.
-     *
-     * @param  gameID  the ID of the file to check
-     * @return         true if the file exists, false otherwise
-     */
-    private static boolean existFile(String gameID) {
-        String homePath = System.getProperty("user.home");
-        String path = homePath + File.separator + "CodexNaturalis" + File.separator + gameID;
-        File file = new File(path);
-        return file.exists();
-    }
 }
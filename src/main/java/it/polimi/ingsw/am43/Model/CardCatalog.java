@@ -0,0 +1,489 @@
+package it.polimi.ingsw.am43.Model;
+
+import it.polimi.ingsw.am43.Model.Cards.*;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.JsonNode;
+import it.polimi.ingsw.am43.Model.Enum.CardType;
+import it.polimi.ingsw.am43.Model.Enum.Kingdom;
+import it.polimi.ingsw.am43.Model.Enum.Symbol;
+import it.polimi.ingsw.am43.Model.Points.*;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * A class that represents the catalog of all the {@link Card}s of the game.
+ * The JSON files are read only once, the first time the catalog is used, and the {@link Card}s
+ * are then shared by all the games hosted by the process: a {@link Deck} only stores the ids of its {@link Card}s.
+ * For this reason the {@link Card}s of the catalog must never be modified: the {@link CardSide}s
+ * are copied before being placed by a {@link Player}.
+ */
+public final class CardCatalog {
+
+    /**
+     * The types of deck, in the order used by {@link #idsByType}.
+     */
+    private static final String[] DECK_TYPES = {"Resource", "Gold", "Objective", "Starting"};
+
+    /**
+     * The {@link Card}s of the catalog, by id.
+     */
+    private final Map<Integer, Card> cards;
+
+    /**
+     * The ids of the {@link Card}s of each type of deck, in the order they are read from the JSON files.
+     */
+    private final int[][] idsByType;
+
+    /**
+     * The {@link CardSide}s of the {@link PlayableCard}s, by path of their image. The backs of cards of the
+     * same kingdom share their image and are equivalent, so the first one read is kept.
+     */
+    private final Map<String, CardSide> sidesByPath;
+
+    /**
+     * Holder of the single instance, so that the JSON files are read lazily and only once.
+     */
+    private static final class Holder {
+        private static final CardCatalog INSTANCE = new CardCatalog();
+    }
+
+    /**
+     * Constructor of the catalog, which reads all the JSON files.
+     */
+    private CardCatalog() {
+        this.cards = new HashMap<>();
+        this.idsByType = new int[DECK_TYPES.length][];
+        this.sidesByPath = new HashMap<>();
+        for (int t = 0; t < DECK_TYPES.length; t++) {
+            List<Card> read = new ArrayList<>();
+            switch (DECK_TYPES[t]) {
+                case "Resource" -> readResourceJSON(CardCatalog.class.getResourceAsStream("/it/polimi/ingsw/am43/JSONs/ResourceCards.json"), read);
+                case "Gold" -> readGoldJSON(CardCatalog.class.getResourceAsStream("/it/polimi/ingsw/am43/JSONs/GoldCards.json"), read);
+                case "Objective" -> readObjectiveJSON(CardCatalog.class.getResourceAsStream("/it/polimi/ingsw/am43/JSONs/ObjectiveCards.json"), read);
+                case "Starting" -> readStartingJSON(CardCatalog.class.getResourceAsStream("/it/polimi/ingsw/am43/JSONs/StartingCards.json"), read);
+            }
+            idsByType[t] = new int[read.size()];
+            for (int i = 0; i < read.size(); i++) {
+                idsByType[t][i] = read.get(i).getId();
+                cards.put(read.get(i).getId(), read.get(i));
+                if (read.get(i) instanceof PlayableCard card) {
+                    sidesByPath.putIfAbsent(card.getFrontside().getPngPath(), card.getFrontside());
+                    sidesByPath.putIfAbsent(card.getBackside().getPngPath(), card.getBackside());
+                }
+            }
+        }
+    }
+
+    /**
+     * A method that retrieves the catalog, reading the JSON files the first time.
+     *
+     * @return         the catalog of the {@link Card}s
+     */
+    public static CardCatalog getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    /**
+     * A method that retrieves a {@link Card} by its id.
+     *
+     * @param  id   the id of the {@link Card}
+     * @return      the {@link Card}, null if there is no {@link Card} with that id
+     */
+    public Card getCard(int id) {
+        return cards.get(id);
+    }
+
+    /**
+     * A method that retrieves a {@link CardSide} of a {@link PlayableCard} by the id of the card.
+     *
+     * @param  cardID  the id of the {@link PlayableCard}
+     * @param  front   true to retrieve the front of the card, false to retrieve its back
+     * @return         the {@link CardSide}, null if there is no {@link PlayableCard} with that id
+     */
+    public CardSide getSide(int cardID, boolean front) {
+        if (!(cards.get(cardID) instanceof PlayableCard card)) return null;
+        return front ? card.getFrontside() : card.getBackside();
+    }
+
+    /**
+     * A method that retrieves the {@link CardSide} of the catalog equivalent to the given one.
+     * Sides read from save files written before they knew their card are recognized by their image.
+     *
+     * @param  side    the {@link CardSide} to look for
+     * @return         the {@link CardSide} of the catalog, null if there is none
+     */
+    public CardSide findSide(CardSide side) {
+        if (side.getCardID() != 0) return getSide(side.getCardID(), side.isFront());
+        return sidesByPath.get(side.getPngPath());
+    }
+
+    /**
+     * A method that retrieves a {@link PlayableCard} by its id.
+     *
+     * @param  id   the id of the {@link PlayableCard}
+     * @return      the {@link PlayableCard}, null if there is no {@link PlayableCard} with that id
+     */
+    public PlayableCard getPlayableCard(int id) {
+        return cards.get(id) instanceof PlayableCard card ? card : null;
+    }
+
+    /**
+     * A method that retrieves an {@link ObjectiveCard} by its id.
+     *
+     * @param  id   the id of the {@link ObjectiveCard}
+     * @return      the {@link ObjectiveCard}, null if there is no {@link ObjectiveCard} with that id
+     */
+    public ObjectiveCard getObjectiveCard(int id) {
+        return cards.get(id) instanceof ObjectiveCard card ? card : null;
+    }
+
+    /**
+     * A method that retrieves the {@link PlayableCard}s with the given ids.
+     *
+     * @param  ids  the ids of the {@link PlayableCard}s, may be null
+     * @return      a new array with the {@link PlayableCard}s, null if the ids are null
+     */
+    public PlayableCard[] getPlayableCards(int[] ids) {
+        if (ids == null) return null;
+        PlayableCard[] found = new PlayableCard[ids.length];
+        for (int i = 0; i < ids.length; i++) found[i] = getPlayableCard(ids[i]);
+        return found;
+    }
+
+    /**
+     * A method that retrieves the {@link ObjectiveCard}s with the given ids.
+     *
+     * @param  ids  the ids of the {@link ObjectiveCard}s, may be null
+     * @return      a new array with the {@link ObjectiveCard}s, null if the ids are null
+     */
+    public ObjectiveCard[] getObjectiveCards(int[] ids) {
+        if (ids == null) return null;
+        ObjectiveCard[] found = new ObjectiveCard[ids.length];
+        for (int i = 0; i < ids.length; i++) found[i] = getObjectiveCard(ids[i]);
+        return found;
+    }
+
+    /**
+     * A method that retrieves a {@link CardSide} by its reference, see {@link #getSideRef(CardSide)}.
+     *
+     * @param  sideRef  the reference of the {@link CardSide}
+     * @return          the {@link CardSide} of the catalog, null if the reference is 0 or unknown
+     */
+    public CardSide getSide(int sideRef) {
+        if (sideRef == 0) return null;
+        return getSide(Math.abs(sideRef), sideRef > 0);
+    }
+
+    /**
+     * A method that retrieves a copy of a {@link CardSide} placed by a {@link Player}.
+     *
+     * @param  sideRef      the reference of the {@link CardSide}, see {@link #getSideRef(CardSide)}
+     * @param  deployedID   the deployedID of the {@link CardSide}
+     * @param  coordinates  the relative coordinates of the {@link CardSide}
+     * @return              a copy of the {@link CardSide} placed as given, null if the reference is 0 or unknown
+     */
+    public CardSide getDeployedSide(int sideRef, int deployedID, int[] coordinates) {
+        CardSide shared = getSide(sideRef);
+        if (shared == null) return null;
+        CardSide side = shared.copy();
+        side.setDeployedID(deployedID);
+        side.setRelativeCoordinates(coordinates.clone());
+        return side;
+    }
+
+    /**
+     * A method that returns the reference of a {@link CardSide} used by the messages: the id of its card,
+     * positive for a front and negative for a back.
+     *
+     * @param  side  the {@link CardSide}, may be null
+     * @return       the reference, 0 if the side is null or not in the catalog
+     */
+    public int getSideRef(CardSide side) {
+        if (side == null) return 0;
+        CardSide shared = findSide(side);
+        if (shared == null) return 0;
+        return shared.isFront() ? shared.getCardID() : -shared.getCardID();
+    }
+
+    /**
+     * A method that returns the references of some {@link CardSide}s, see {@link #getSideRef(CardSide)}.
+     *
+     * @param  sides  the {@link CardSide}s, may be null
+     * @return        a new array with the references, null if the sides are null
+     */
+    public int[] getSideRefs(List<CardSide> sides) {
+        if (sides == null) return null;
+        int[] refs = new int[sides.size()];
+        for (int i = 0; i < refs.length; i++) refs[i] = getSideRef(sides.get(i));
+        return refs;
+    }
+
+    /**
+     * A method that returns the id of a {@link Card}, as used by the messages.
+     *
+     * @param  card  the {@link Card}, may be null
+     * @return       the id of the {@link Card}, 0 if it is null
+     */
+    public static int idOf(Card card) {
+        return card == null ? 0 : card.getId();
+    }
+
+    /**
+     * A method that returns the ids of some {@link Card}s, as used by the messages.
+     *
+     * @param  cards  the {@link Card}s, may be null
+     * @return        a new array with the ids, 0 for every null {@link Card}, null if the cards are null
+     */
+    public static int[] idsOf(Card[] cards) {
+        if (cards == null) return null;
+        int[] ids = new int[cards.length];
+        for (int i = 0; i < cards.length; i++) ids[i] = idOf(cards[i]);
+        return ids;
+    }
+
+    /**
+     * A method that retrieves the ids of all the {@link Card}s of a type of deck.
+     *
+     * @param  deckType  A string indicating the type of the deck
+     * @return           a new array with the ids of the {@link Card}s
+     */
+    public int[] getIds(String deckType) {
+        for (int t = 0; t < DECK_TYPES.length; t++) {
+            if (DECK_TYPES[t].equals(deckType)) return idsByType[t].clone();
+        }
+        throw new IllegalStateException("Unexpected value: " + deckType);
+    }
+
+    /**
+     * A method that converts a string, read
+     * from the JSON file, to a list of {@link Symbol}.
+     *
+     * @param  input	String to be converted
+     * @return         	List of {@link Symbol}s
+     */
+    private static List<Symbol> stringToSymbol(String input){
+        List<Symbol> list = new ArrayList<>();
+        for(int i=0; i<input.length(); i++){
+            list.add(Symbol.toSymbol(Character.getNumericValue(input.charAt(i))));
+        }
+        return list;
+    }
+
+    /**
+     * A method that reads the ResourceCards JSON file
+     * and constructs the {@link PlayableCard}s, one by one, to add them
+     * to the catalog.
+     *
+     * @param  jsonFile  The JSON file to read
+     * @param  cards     The list to add the cards to
+     */
+    private static void readResourceJSON(InputStream jsonFile, List<Card> cards) {
+
+        // Initializes a search tree from the JSON file
+        JsonNode rootNode = null;
+        try{
+            ObjectMapper objMapper = new ObjectMapper();
+            rootNode = objMapper.readTree(jsonFile);
+        } catch (IOException e) {
+            System.err.println("Could not read JSON file: " + e.getMessage());
+        }
+
+        // Gets the data from the JSON file
+        if(rootNode != null) {
+            JsonNode root = rootNode.path("ResourceCards");
+            for(JsonNode entry : root) {
+                CardSide front, back;
+                Corner[] front_corners = new Corner[4];
+                Corner[] back_corners = new Corner[4];
+
+                // Construct both front and back corners of the card
+                front_corners[0] = new Corner(Symbol.toSymbol(entry.path("corner0").asInt()));
+                front_corners[1] = new Corner(Symbol.toSymbol(entry.path("corner1").asInt()));
+                front_corners[2] = new Corner(Symbol.toSymbol(entry.path("corner2").asInt()));
+                front_corners[3] = new Corner(Symbol.toSymbol(entry.path("corner3").asInt()));
+                for(int i=0; i<back_corners.length; i++) {
+                    back_corners[i] = new Corner(Symbol.toSymbol(entry.path("back_corners").asInt()));
+                }
+
+                // Set kingdom of the card and create its points rule
+                Kingdom kingdom = Kingdom.toKingdom(entry.path("perm_back").asInt());
+                PointsRule rule = new simplePoints(entry.path("points").asInt());
+
+                // Construct both CardSides of the card
+                front = new ResourceFrontSide(front_corners, kingdom, rule, "Images/ResourceCards/Front/"+entry.path("front_png").asText()+".png");
+                back = new BackSide(back_corners, kingdom, Collections.singletonList(Symbol.toSymbol(entry.path("perm_back").asInt())), "Images/ResourceCards/Back/"+entry.path("back_png").asText()+".png");
+
+                // Create the card and add it to the catalog
+                cards.add(new PlayableCard(entry.path("id").asInt(), front, back, CardType.RESOURCE, kingdom ));
+            }
+        }
+    }
+
+    /**
+     * A method that reads the GoldCards JSON file
+     * and constructs the {@link PlayableCard}s, one by one, to add them
+     * to the catalog.
+     *
+     * @param  jsonFile  The JSON file to read
+     * @param  cards     The list to add the cards to
+     */
+    private static void readGoldJSON(InputStream jsonFile, List<Card> cards){
+
+        // Initializes a search tree from the JSON file and gets the data from the JSON file
+        JsonNode rootNode = null;
+        try{
+            rootNode = new ObjectMapper().readTree(jsonFile);
+        } catch (IOException e) {
+            System.err.println("Could not read JSON file: " + e.getMessage());
+        }
+
+        // Gets the data from the JSON file
+        if(rootNode != null) {
+            JsonNode root = rootNode.path("GoldCards");
+            for (JsonNode entry : root) {
+                CardSide front, back;
+                PointsRule rule;
+                Corner[] front_corners = new Corner[4];
+                Corner[] back_corners = new Corner[4];
+
+                // Construct both front and back corners of the card
+                front_corners[0] = new Corner(Symbol.toSymbol(entry.path("corner0").asInt()));
+                front_corners[1] = new Corner(Symbol.toSymbol(entry.path("corner1").asInt()));
+                front_corners[2] = new Corner(Symbol.toSymbol(entry.path("corner2").asInt()));
+                front_corners[3] = new Corner(Symbol.toSymbol(entry.path("corner3").asInt()));
+                for(int i=0; i<back_corners.length; i++) {
+                    back_corners[i] = new Corner(Symbol.toSymbol(entry.path("back_corners").asInt()));
+                }
+
+                // Set kingdom of the card
+                Kingdom kingdom = Kingdom.toKingdom(entry.path("perm_back").asInt());
+
+                // Create the points rule
+                switch (entry.path("type").asText()) {
+                    case("object") -> rule = new forEachResourceSet(entry.path("points").asInt(), Collections.singletonList(Symbol.toSymbol(entry.path("required_object").asInt())));
+                    case("corners") -> rule = new forEachCoveredCorner(entry.path("points").asInt());
+                    case("simple") -> rule = new simplePoints(entry.path("points").asInt());
+                    default -> throw new IllegalStateException("Unexpected gold card rule type: " + entry.path("type").asText());
+                }
+
+                // Construct both CardSides of the card
+                front = new GoldFrontSide(front_corners, kingdom, stringToSymbol(entry.path("required_resources").asText()), rule, "Images/GoldCards/Front/"+entry.path("front_png").asText()+".png");
+                back = new BackSide(back_corners, kingdom, Collections.singletonList(Symbol.toSymbol(entry.path("perm_back").asInt())), "Images/GoldCards/Back/"+entry.path("back_png").asText()+".png");
+
+                // Create the card and add it to the catalog
+                cards.add(new PlayableCard(entry.path("id").asInt(), front, back, CardType.GOLD, kingdom));
+            }
+        }
+    }
+
+    /**
+     * A method that reads the ObjectiveCards JSON file
+     * and constructs the {@link ObjectiveCard}s, one by one, to add them
+     * to the catalog.
+     *
+     * @param  jsonFile  The JSON file to read
+     * @param  cards     The list to add the cards to
+     */
+    private static void readObjectiveJSON(InputStream jsonFile, List<Card> cards){
+
+        // Initializes a search tree from the JSON file
+        JsonNode rootNode = null;
+        try{
+            rootNode = new ObjectMapper().readTree(jsonFile);
+        } catch (IOException e) {
+            System.err.println("Could not read JSON file: " + e.getMessage());
+        }
+
+        // Gets the data from the JSON file
+        if(rootNode != null) {
+            JsonNode root = rootNode.path("ObjectiveCards");
+            for (JsonNode entry : root) {
+                PointsRule rule;
+                Kingdom[] resources = new Kingdom[2];
+
+                // Populate array
+                resources[0] = Kingdom.toKingdom(entry.path("kingdom").asInt());
+                resources[1] = Kingdom.toKingdom(entry.path("l_res").asInt());
+
+                // Create the points rule
+                switch (entry.path("type").asText()) {
+                    case("objects") -> rule = new forEachResourceSet(entry.path("points").asInt(), stringToSymbol(entry.path("req_res").asText()));
+                    case("res") -> rule = new forEachResourceSet(entry.path("points").asInt(), Collections.singletonList(Symbol.toSymbol(entry.path("req_res").asInt())));
+                    case("diag_TR") -> rule = new forEachDiagonalPattern(entry.path("points").asInt(), Kingdom.toKingdom(entry.path("kingdom").asInt()),false);
+                    case("diag_TL") -> rule = new forEachDiagonalPattern(entry.path("points").asInt(), Kingdom.toKingdom(entry.path("kingdom").asInt()),true);
+                    case("L_TR") -> rule = new forEachLPattern(entry.path("points").asInt(), 1, resources);
+                    case("L_TL") -> rule = new forEachLPattern(entry.path("points").asInt(), 0, resources);
+                    case("L_BR") -> rule = new forEachLPattern(entry.path("points").asInt(), 3, resources);
+                    case("L_BL") -> rule = new forEachLPattern(entry.path("points").asInt(), 2, resources);
+                    default -> throw new IllegalStateException("Unexpected value: " + entry.path("type").asText());
+                }
+
+                // Create the card and add it to the catalog
+                cards.add(new ObjectiveCard(entry.path("id").asInt(), "Images/ObjectiveCards/Front/"+entry.path("front_png").asText()+".png", Kingdom.toKingdom(entry.path("kingdom").asInt()), rule));
+            }
+        }
+    }
+
+    /**
+     * A method that reads the StartingCards JSON file
+     * and constructs the {@link PlayableCard}s, one by one, to add them
+     * to the catalog.
+     *
+     * @param  jsonFile  The JSON file to read
+     * @param  cards     The list to add the cards to
+     */
+    private static void readStartingJSON(InputStream jsonFile, List<Card> cards){
+
+        // Initializes a search tree from the JSON file
+        JsonNode rootNode = null;
+        try{
+            rootNode = new ObjectMapper().readTree(jsonFile);
+        } catch (IOException e) {
+            System.err.println("Could not read JSON file: " + e.getMessage());
+        }
+
+        // Gets the data from the JSON file
+        if(rootNode != null) {
+            JsonNode root = rootNode.path("StartingCards");
+            for(JsonNode entry : root) {
+                CardSide front, back;
+                Corner[] front_corners = new Corner[4];
+                Corner[] back_corners = new Corner[4];
+                List<Symbol> perm_back = new ArrayList<>();
+
+                // Construct both front and back corners of the card
+                front_corners[0] = new Corner(Symbol.toSymbol(entry.path("corner0").asInt()));
+                front_corners[1] = new Corner(Symbol.toSymbol(entry.path("corner1").asInt()));
+                front_corners[2] = new Corner(Symbol.toSymbol(entry.path("corner2").asInt()));
+                front_corners[3] = new Corner(Symbol.toSymbol(entry.path("corner3").asInt()));
+                back_corners[0] = new Corner(Symbol.toSymbol(entry.path("back_corner0").asInt()));
+                back_corners[1] = new Corner(Symbol.toSymbol(entry.path("back_corner1").asInt()));
+                back_corners[2] = new Corner(Symbol.toSymbol(entry.path("back_corner2").asInt()));
+                back_corners[3] = new Corner(Symbol.toSymbol(entry.path("back_corner3").asInt()));
+
+                // Set the kingdom
+                Kingdom kingdom = Kingdom.NONE;
+
+                // Construct the perm_back
+                if(entry.path("perm_back1").asInt() != -1) {
+                    perm_back.add(Symbol.toSymbol(entry.path("perm_back1").asInt()));
+                }
+                if(entry.path("perm_back2").asInt() != -1) {
+                    perm_back.add(Symbol.toSymbol(entry.path("perm_back2").asInt()));
+                }
+                if(entry.path("perm_back3").asInt() != -1) {
+                    perm_back.add(Symbol.toSymbol(entry.path("perm_back3").asInt()));
+                }
+
+                // Construct both CardSides of the card
+                front = new CardSide( front_corners, "Images/StartingCards/Front/"+entry.path("front_png").asText()+".png");
+                back = new BackSide( back_corners, kingdom, perm_back, "Images/StartingCards/Back/"+entry.path("back_png").asText()+".png");
+
+                // Create the card and add it to the catalog
+                cards.add(new PlayableCard(entry.path("id").asInt(), front, back, CardType.STARTING, kingdom));
+            }
+        }
+    }
+}
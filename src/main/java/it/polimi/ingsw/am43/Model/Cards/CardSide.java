@@ -16,7 +16,7 @@ import java.util.*;
  * It also contains the relative coordinates that the card-side
  * has, with respect to the starting card.
  */
-public class CardSide implements Serializable {
+public class CardSide implements Serializable, Cloneable {
 
     @Serial
     private static final long serialVersionUID = -4726145402960013686L;
@@ -26,6 +26,16 @@ public class CardSide implements Serializable {
      */
     private final String pngPath;
 
+    /**
+     * The ID of the {@link PlayableCard} the CardSide belongs to, 0 if unknown.
+     */
+    private int cardID;
+
+    /**
+     * True if the CardSide is the front of its {@link PlayableCard}, false if it is the back.
+     */
+    private boolean front;
+
     /**
      * The ID of the CardSide once deployed.
      */
@@ -61,6 +71,37 @@ public class CardSide implements Serializable {
         return pngPath;
     }
 
+    /**
+     * A function that returns the ID of the {@link PlayableCard} the CardSide belongs to.
+     * The ID identifies the CardSide, together with {@link #isFront()}, in the
+     * {@link it.polimi.ingsw.am43.Model.CardCatalog}.
+     *
+     * @return          the ID of the card, 0 if the CardSide does not belong to any card
+     */
+    public int getCardID() {
+        return cardID;
+    }
+
+    /**
+     * A function that tells if the CardSide is the front of its {@link PlayableCard}.
+     *
+     * @return          true if the CardSide is the front, false if it is the back
+     */
+    public boolean isFront() {
+        return front;
+    }
+
+    /**
+     * A function that binds the CardSide to the {@link PlayableCard} it belongs to.
+     *
+     * @param  cardID   the ID of the card
+     * @param  front    true if the CardSide is the front of the card, false if it is the back
+     */
+    void setCard(int cardID, boolean front) {
+        this.cardID = cardID;
+        this.front = front;
+    }
+
     /**
      * A function that returns the deployedID of the card.
      *
@@ -125,6 +166,23 @@ public class CardSide implements Serializable {
         this.relativeCoordinates = relativeCoordinates;
     }
 
+    /**
+     * A function that creates a copy of the CardSide, to be placed by a {@link Player}
+     * without modifying the CardSide shared by the {@link it.polimi.ingsw.am43.Model.CardCatalog}.
+     * The {@link Corner}s and the rules are immutable, hence they are shared with the copy.
+     *
+     * @return          the copy of the CardSide
+     */
+    public CardSide copy() {
+        try {
+            CardSide copy = (CardSide) super.clone();
+            copy.relativeCoordinates = relativeCoordinates.clone();
+            return copy;
+        } catch (CloneNotSupportedException e) {
+            throw new AssertionError(e);
+        }
+    }
+
     /**
      * A function that retrieves the status of each {@link Corner} of the CardSide.
      *
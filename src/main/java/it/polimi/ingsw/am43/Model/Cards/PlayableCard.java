@@ -50,6 +50,8 @@ public class PlayableCard extends Card implements Serializable {
         super(id);
         this.frontside = front;
         this.backside = back;
+        front.setCard(id, true);
+        back.setCard(id, false);
         this.type = type;
         this.kingdom = kingdom;
     }
@@ -0,0 +1,109 @@
+package it.polimi.ingsw.am43.Model;
+
+import it.polimi.ingsw.am43.Model.Cards.CardSide;
+import it.polimi.ingsw.am43.Model.Enum.Kingdom;
+import it.polimi.ingsw.am43.Model.Points.forEachDiagonalPattern;
+
+/**
+ * A class that keeps track, incrementally, of the diagonal runs of {@link CardSide}s
+ * of the same {@link Kingdom} deployed by a {@link Player}.
+ * A run is a maximal sequence of adjacent cards of the same {@link Kingdom} along a diagonal:
+ * since the {@link forEachDiagonalPattern} rule counts the non-overlapping triples of each run,
+ * the index only needs to know, for every run, its length.
+ * The length of a run is stored in its two endpoints, so that placing a card only requires
+ * looking at its two neighbours along each diagonal.
+ */
+public class DiagonalIndex {
+
+    /**
+     * The steps along the two diagonals: index 0 is the top-left diagonal
+     * (both coordinates increase), index 1 is the top-right one.
+     */
+    private static final int[][] STEPS = {{1, 1}, {1, -1}};
+
+    /**
+     * The ordinal of the {@link Kingdom} of each indexed cell.
+     */
+    private final SparseBoard kingdoms;
+
+    /**
+     * For each diagonal direction, the length of the run that ends in a cell.
+     * Only the values stored in the endpoints of a run are meaningful.
+     */
+    private final SparseBoard[] runs;
+
+    /**
+     * For each diagonal direction and {@link Kingdom}, the number of non-overlapping triples.
+     */
+    private final int[][] triples;
+
+    /**
+     * Constructor of an empty index.
+     */
+    public DiagonalIndex() {
+        this.kingdoms = new SparseBoard();
+        this.runs = new SparseBoard[]{new SparseBoard(), new SparseBoard()};
+        this.triples = new int[2][Kingdom.values().length];
+    }
+
+    /**
+     * Constructor that copies another index.
+     *
+     * @param other the index to copy
+     */
+    private DiagonalIndex(DiagonalIndex other) {
+        this.kingdoms = other.kingdoms.copy();
+        this.runs = new SparseBoard[]{other.runs[0].copy(), other.runs[1].copy()};
+        this.triples = new int[][]{other.triples[0].clone(), other.triples[1].clone()};
+    }
+
+    /**
+     * A method that adds a newly placed card to the index, merging the runs
+     * it touches along both diagonals.
+     *
+     * @param  x        the x coordinate of the card
+     * @param  y        the y coordinate of the card
+     * @param  kingdom  the {@link Kingdom} of the card
+     */
+    public void add(int x, int y, Kingdom kingdom) {
+        if (kingdom == null || kingdoms.contains(x, y)) return;
+        int k = kingdom.ordinal();
+
+        for (int d = 0; d < STEPS.length; d++) {
+            int dx = STEPS[d][0];
+            int dy = STEPS[d][1];
+
+            // The neighbours are endpoints of their runs, since this cell was empty
+            int before = kingdoms.get(x - dx, y - dy) == k ? runs[d].get(x - dx, y - dy) : 0;
+            int after = kingdoms.get(x + dx, y + dy) == k ? runs[d].get(x + dx, y + dy) : 0;
+            int length = before + 1 + after;
+
+            triples[d][k] += length / 3 - before / 3 - after / 3;
+            runs[d].put(x - before * dx, y - before * dy, length);
+            runs[d].put(x + after * dx, y + after * dy, length);
+        }
+        kingdoms.put(x, y, k);
+    }
+
+    /**
+     * A method that retrieves the number of non-overlapping triples of a {@link Kingdom}
+     * along a diagonal direction.
+     *
+     * @param  kingdom    the {@link Kingdom} of the triples
+     * @param  isTopLeft  the direction of the diagonal, as in {@link forEachDiagonalPattern}
+     * @return            the number of triples
+     */
+    public int countTriples(Kingdom kingdom, boolean isTopLeft) {
+        if (kingdom == null) return 0;
+        return triples[isTopLeft ? 0 : 1][kingdom.ordinal()];
+    }
+
+    /**
+     * A method that creates an independent copy of the index.
+     *
+     * @return     the copy of the index
+     */
+    public DiagonalIndex copy() {
+        return new DiagonalIndex(this);
+    }
+}
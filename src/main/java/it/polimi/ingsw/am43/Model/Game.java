@@ -460,6 +460,20 @@ a      * The {@link CardSide} that was last placed by a {@link Player}.
      * completed objectives.
      */
     public int[][] endGame() {
+        return rank(players, num_players, common_objective);
+    }
+
+    /**
+     * A method that awards the objectives to the {@link Player}s and ranks them,
+     * as at the end of a game.
+     *
+     * @param  players           the {@link Player}s to rank
+     * @param  num_players       the number of {@link Player}s
+     * @param  common_objective  the common {@link ObjectiveCard}s
+     * @return  Array of integers representing the {@link Player}'s rankings and
+     * completed objectives.
+     */
+    static int[][] rank(Player[] players, int num_players, ObjectiveCard[] common_objective) {
         // Evaluate objectives for each player
         //points[0] = index, points[1] = score, points[2] = satisfied_objectives
         int[][] points = new int[num_players][3];
@@ -0,0 +1,102 @@
+package it.polimi.ingsw.am43.Model;
+
+import it.polimi.ingsw.am43.Model.Cards.CardSide;
+import it.polimi.ingsw.am43.Model.Enum.Kingdom;
+import it.polimi.ingsw.am43.Model.Points.forEachLPattern;
+
+import java.util.Arrays;
+
+/**
+ * A class that keeps track, incrementally, of the {@link Kingdom} of the {@link CardSide}s deployed by a {@link Player}.
+ * It knows the {@link Kingdom} of the card in every cell and, for every {@link Kingdom}, the cells of its cards,
+ * so that the pattern rules such as {@link forEachLPattern} visit only the cards that are actually deployed,
+ * instead of scanning the placements.
+ */
+public class KingdomIndex {
+
+    /**
+     * The {@link Kingdom}s, by ordinal.
+     */
+    private static final Kingdom[] KINGDOMS = Kingdom.values();
+
+    /**
+     * The ordinal of the {@link Kingdom} of each indexed cell.
+     */
+    private final SparseBoard kingdoms;
+
+    /**
+     * For each {@link Kingdom}, the coordinates of its cards, packed as in {@link SparseBoard#pack(int, int)},
+     * and how many they are.
+     */
+    private final long[][] cells;
+    private final int[] counts;
+
+    /**
+     * Constructor of an empty index.
+     */
+    public KingdomIndex() {
+        this.kingdoms = new SparseBoard();
+        this.cells = new long[KINGDOMS.length][8];
+        this.counts = new int[KINGDOMS.length];
+    }
+
+    /**
+     * Constructor that copies another index.
+     *
+     * @param other the index to copy
+     */
+    private KingdomIndex(KingdomIndex other) {
+        this.kingdoms = other.kingdoms.copy();
+        this.cells = new long[KINGDOMS.length][];
+        for (int k = 0; k < KINGDOMS.length; k++) cells[k] = other.cells[k].clone();
+        this.counts = other.counts.clone();
+    }
+
+    /**
+     * A method that adds a newly placed card to the index.
+     *
+     * @param  x        the x coordinate of the card
+     * @param  y        the y coordinate of the card
+     * @param  kingdom  the {@link Kingdom} of the card
+     */
+    public void add(int x, int y, Kingdom kingdom) {
+        if (kingdom == null || kingdoms.contains(x, y)) return;
+        int k = kingdom.ordinal();
+        kingdoms.put(x, y, k);
+        if (counts[k] == cells[k].length) cells[k] = Arrays.copyOf(cells[k], 2 * counts[k]);
+        cells[k][counts[k]++] = SparseBoard.pack(x, y);
+    }
+
+    /**
+     * A method that retrieves the {@link Kingdom} of the card in a cell.
+     *
+     * @param  x   the x coordinate of the cell
+     * @param  y   the y coordinate of the cell
+     * @return     the {@link Kingdom} of the card, null if the cell is empty
+     */
+    public Kingdom getKingdom(int x, int y) {
+        int k = kingdoms.get(x, y);
+        return k == SparseBoard.EMPTY ? null : KINGDOMS[k];
+    }
+
+    /**
+     * A method that retrieves the cells of all the cards of a {@link Kingdom}, in the order they were placed.
+     *
+     * @param  kingdom  the {@link Kingdom} of the cards
+     * @return          the coordinates of the cells, packed as in {@link SparseBoard#pack(int, int)}
+     */
+    public long[] getCells(Kingdom kingdom) {
+        if (kingdom == null) return new long[0];
+        int k = kingdom.ordinal();
+        return Arrays.copyOf(cells[k], counts[k]);
+    }
+
+    /**
+     * A method that creates an independent copy of the index.
+     *
+     * @return     the copy of the index
+     */
+    public KingdomIndex copy() {
+        return new KingdomIndex(this);
+    }
+}
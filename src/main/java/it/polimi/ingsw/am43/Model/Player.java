@@ -22,7 +22,7 @@ import java.util.NoSuchElementException;
 public class Player implements Serializable {
 
     @Serial
-    private static final long serialVersionUID = 4739584014082362305L;
+    private static final long serialVersionUID = 4739584014082362306L;
 
     /**
      * Player's username.
@@ -54,13 +54,36 @@ public class Player implements Serializable {
     private ArrayList<CardSide> deployed;
 
     /**
-     * A matrix of {@link CardSide}s that represents the player's placements.
-     * The matrix is actually of integers, with every element being -1 if empty and
-     * an integer otherwise. The integer is the deployedID of a {@link CardSide}.
+     * A board of {@link CardSide}s that represents the player's placements.
+     * The board is actually of integers, indexed by the relative coordinates of the cells,
+     * with every cell being -1 if empty and an integer otherwise. The integer is the deployedID of a {@link CardSide}.
      * By doing so, the deployedIDs always increase, and it is possible to effortlessly
      * understand which card is on top of the other, the order of placement and much more.
+     * Only the occupied cells are stored, so the board grows with the cards placed and has no fixed bounds.
      */
-    private int[][] placements;
+    private SparseBoard placements;
+
+    /**
+     * The index of the diagonal runs of deployed {@link CardSide}s, kept up to date
+     * on each placement. It is derived from the placements, hence it is not saved and
+     * it is rebuilt when needed.
+     */
+    private transient DiagonalIndex diagonalIndex;
+
+    /**
+     * The index of the {@link it.polimi.ingsw.am43.Model.Enum.Kingdom} of the deployed {@link CardSide}s,
+     * kept up to date on each placement. Like the {@link DiagonalIndex}, it is derived from the placements
+     * and rebuilt when needed.
+     */
+    private transient KingdomIndex kingdomIndex;
+
+    /**
+     * The frontier of the placements: the empty cells on which a {@link CardSide} can be legally placed,
+     * each one with the number of deployed {@link CardSide}s it touches.
+     * It is kept up to date on each placement, so that checking a placement is a single lookup.
+     * Like the {@link DiagonalIndex}, it is derived from the placements and rebuilt when needed.
+     */
+    private transient SparseBoard frontier;
 
     /**
      * The player's secret objective.
@@ -79,9 +102,9 @@ public class Player implements Serializable {
     private int[] res_qty = {0,0,0,0,0,0,0};
 
     /**
-     * This value is used to compute the relative coordinates with ease.
-     * The starting card is assumed to be placed at the center of the matrix,
-     * in position (40,40).
+     * The number of steps from the starting card covered by the reference matrix scans
+     * of the pattern rules and by the matrix views of the placements.
+     * The placements themselves are not bounded.
      */
     public static final int OFFSET = 40;
 
@@ -95,18 +118,51 @@ public class Player implements Serializable {
         this.username = username;
         this.pawn_color = color;
 
-        // Initialize the matrix of placements with all empty cells (represented with a -1)
-        this.placements = new int[81][81];
-        for (int i=0; i<placements.length; i++)
-            for (int j=0; j<placements.length; j++)
-                placements[i][j] = -1;
+        // Initialize the board of placements with all empty cells (represented with a -1)
+        this.placements = new SparseBoard();
 
         this.score = 0;
         this.in_hand = new PlayableCard[3];
         this.deployed = new ArrayList<>();
+        this.diagonalIndex = new DiagonalIndex();
+        this.kingdomIndex = new KingdomIndex();
+        this.frontier = new SparseBoard();
         this.personal_objective = null;
     }
 
+    /**
+     * Constructor that copies another player.
+     * The placed {@link CardSide}s are never modified once deployed, and the cards in hand
+     * are shared by the {@link CardCatalog}, hence they are shared with the copy:
+     * only the containers and the boards are copied.
+     *
+     * @param other           the player to copy
+     */
+    private Player(Player other) {
+        this.username = other.username;
+        this.pawn_color = other.pawn_color;
+        this.startingCard = other.startingCard;
+        this.in_hand = other.in_hand.clone();
+        this.deployed = new ArrayList<>(other.deployed);
+        this.placements = other.placements.copy();
+        this.diagonalIndex = other.diagonalIndex == null ? null : other.diagonalIndex.copy();
+        this.kingdomIndex = other.kingdomIndex == null ? null : other.kingdomIndex.copy();
+        this.frontier = other.frontier == null ? null : other.frontier.copy();
+        this.personal_objective = other.personal_objective;
+        this.score = other.score;
+        this.res_qty = other.res_qty.clone();
+    }
+
+    /**
+     * A method that creates an independent copy of the player, which can place cards
+     * without modifying this one. Its cost grows with the cards deployed, not with the size of the board.
+     *
+     * @return         the copy of the player
+     */
+    public Player copy() {
+        return new Player(this);
+    }
+
     /**
      * A method that retrieves the list of deployed {@link CardSide}s.
      *
@@ -119,12 +175,63 @@ public class Player implements Serializable {
     /**
      * A method that retrieves the player's placements.
      *
-     * @return         Array of cards' placements
+     * @return         Board of cards' placements, indexed by relative coordinates
      */
-    public int[][] getPlacements() {
+    public SparseBoard getPlacements() {
         return placements;
     }
 
+    /**
+     * A method that retrieves the index of the diagonal runs of the player's
+     * deployed {@link CardSide}s, rebuilding it from the placements if needed.
+     *
+     * @return         the {@link DiagonalIndex} of the player
+     */
+    public DiagonalIndex getDiagonalIndex() {
+        if (diagonalIndex == null) {
+            DiagonalIndex index = new DiagonalIndex();
+            placements.forEach((x, y, id) -> index.add(x, y, deployed.get(id).getKingdom()));
+            diagonalIndex = index;
+        }
+        return diagonalIndex;
+    }
+
+    /**
+     * A method that retrieves the index of the {@link it.polimi.ingsw.am43.Model.Enum.Kingdom} of the player's
+     * deployed {@link CardSide}s, rebuilding it from the placements if needed.
+     *
+     * @return         the {@link KingdomIndex} of the player
+     */
+    public KingdomIndex getKingdomIndex() {
+        if (kingdomIndex == null) {
+            KingdomIndex index = new KingdomIndex();
+            placements.forEach((x, y, id) -> index.add(x, y, deployed.get(id).getKingdom()));
+            kingdomIndex = index;
+        }
+        return kingdomIndex;
+    }
+
+    /**
+     * A method that retrieves the frontier of the player's placements, that is the board
+     * of the empty cells on which a {@link CardSide} can be legally placed, rebuilding it if needed.
+     *
+     * @return         the frontier, indexed by relative coordinates
+     */
+    public SparseBoard getFrontier() {
+        if (frontier == null) {
+            SparseBoard slots = new SparseBoard();
+            placements.forEach((x, y, id) -> {
+                for (int i=0; i<4; i++) {
+                    int[] v = toVector(i);
+                    int touching = countTouchingIfLegal(x+v[0], y+v[1]);
+                    if (touching > 0) slots.put(x+v[0], y+v[1], touching);
+                }
+            });
+            frontier = slots;
+        }
+        return frontier;
+    }
+
     /**
      * A method that retrieves the list of {@link PlayableCard}s that
      * the player has in hand, ready to be deployed.
@@ -205,15 +312,21 @@ public class Player implements Serializable {
      */
     public void setDeployed(ArrayList<CardSide> deployed) {
         this.deployed = deployed;
+        this.diagonalIndex = null;
+        this.kingdomIndex = null;
+        this.frontier = null;
     }
 
     /**
-     * A method that sets the player's placements array.
+     * A method that sets the player's placements board.
      *
-     * @param  placements  Arrays of placements to set
+     * @param  placements  Board of placements to set, indexed by relative coordinates
      */
-    public void setPlacements(int[][] placements) {
+    public void setPlacements(SparseBoard placements) {
         this.placements = placements;
+        this.diagonalIndex = null;
+        this.kingdomIndex = null;
+        this.frontier = null;
     }
 
     /**
@@ -257,6 +370,7 @@ public class Player implements Serializable {
      * are available for a card's placement.
      * Given the index of a placed card, it returns a boolean array to identify what corners are
      * available for the placement (indexes: 0 for TL, 1 for TR, 2 for BR, 3 for BL).
+     * Each corner is available if the cell it points to is in the frontier.
      *
      * @param  index	index of a placed {@link CardSide}
      * @return          array of booleans to identify what {@link Corner}s are available for the placement
@@ -264,25 +378,69 @@ public class Player implements Serializable {
     public boolean[] getAvailablePlacements(int index){
         boolean[] result = {false,false,false,false};
 
-        int[] coord = new int[2];
-        for (int i=0; i<2;i++) coord[i] = this.deployed.get(index).getRelativeCoordinates()[i] + OFFSET;
+        int[] coord = this.deployed.get(index).getRelativeCoordinates();
+        SparseBoard slots = getFrontier();
 
         for (int i=0; i<4; i++){
             int[] v = toVector(i);
+            result[i] = slots.contains(coord[0]+v[0], coord[1]+v[1]);
+        }
+
+        return result;
+    }
+
+    /**
+     * A method that identifies, for every placed {@link CardSide}, which {@link Corner}s
+     * are available for a card's placement, as in {@link #getAvailablePlacements(int)}.
+     *
+     * @return          for each deployed index, the array of booleans of the available {@link Corner}s
+     */
+    public boolean[][] getAllAvailablePlacements(){
+        boolean[][] result = new boolean[deployed.size()][];
+        for (int i=0; i<result.length; i++) result[i] = getAvailablePlacements(i);
+        return result;
+    }
 
-            CardSide[] neighbours = retrieveNeighbours(coord, v);
-            int[] nIndexes = getInvertedCorners(i);
+    /**
+     * A method that checks if an empty cell is a legal placement: at least a deployed {@link CardSide}
+     * must touch it, and all of them must have the {@link Corner} that points to it.
+     *
+     * @param  x    the x coordinate of the cell
+     * @param  y    the y coordinate of the cell
+     * @return      the number of deployed {@link CardSide}s touching the cell if legal, 0 otherwise
+     */
+    private int countTouchingIfLegal(int x, int y){
+        if (placements.contains(x, y)) return 0;
 
-            // Check for free space, available corner on this card and corners on other cards nearby
-            if (this.placements[coord[0]+v[0]][coord[1]+v[1]]==-1)
-                if (this.deployed.get(index).getCornersStatus()[i] == 1)
-                    if (neighbours[0] == null || neighbours[0].getCornersStatus()[nIndexes[0]] == 1)
-                        if (neighbours[1] == null || neighbours[1].getCornersStatus()[nIndexes[1]] == 1)
-                            if (neighbours[2] == null || neighbours[2].getCornersStatus()[nIndexes[2]] == 1)
-                                result[i] = true;
+        int touching = 0;
+        for (int i=0; i<4; i++){
+            int[] v = toVector(i);
+            int cardIndex = placements.get(x+v[0], y+v[1]);
+            if (cardIndex != -1) {
+                // the corner of the neighbour that points back to the cell is the opposite one
+                if (deployed.get(cardIndex).getCorners()[3-i].getSymbol() == Symbol.NONEXISTING) return 0;
+                touching++;
+            }
         }
+        return touching;
+    }
 
-        return result;
+    /**
+     * A method that updates the frontier after a {@link CardSide} has been placed in a cell:
+     * the cell is not free anymore and the four cells around it may have become legal or illegal.
+     *
+     * @param  x    the x coordinate of the placed {@link CardSide}
+     * @param  y    the y coordinate of the placed {@link CardSide}
+     */
+    private void updateFrontier(int x, int y){
+        SparseBoard slots = getFrontier();
+        slots.remove(x, y);
+        for (int i=0; i<4; i++){
+            int[] v = toVector(i);
+            int touching = countTouchingIfLegal(x+v[0], y+v[1]);
+            if (touching > 0) slots.put(x+v[0], y+v[1], touching);
+            else slots.remove(x+v[0], y+v[1]);
+        }
     }
 
 
@@ -332,7 +490,7 @@ public class Player implements Serializable {
      * retrieves the "other 3 vertices of the square".
      * IN ORDER: moving along x, along y and diagonally
      *
-     * @param  coord	array of coordinates
+     * @param  coord	array of relative coordinates
      * @param  dir	    array of directions
      * @return         	an array of neighbours {@link CardSide}s
      */
@@ -341,16 +499,16 @@ public class Player implements Serializable {
         int cardIndex;
 
         //move along dirX
-        cardIndex = placements[coord[0]][coord[1]+2*dir[1]];
+        cardIndex = placements.get(coord[0], coord[1]+2*dir[1]);
         if (cardIndex!=-1) neighbours[0] = deployed.get(cardIndex);
 
         //move along dirY
-        cardIndex = placements[coord[0]+2*dir[0]][coord[1]];
+        cardIndex = placements.get(coord[0]+2*dir[0], coord[1]);
         if (cardIndex!=-1) neighbours[1] = deployed.get(cardIndex);
 
 
         //move along both
-        cardIndex = placements[coord[0]+2*dir[0]][coord[1]+2*dir[1]];
+        cardIndex = placements.get(coord[0]+2*dir[0], coord[1]+2*dir[1]);
         if (cardIndex!=-1) neighbours[2] = deployed.get(cardIndex);
 
 
@@ -374,7 +532,10 @@ public class Player implements Serializable {
             toBePlaced.setDeployedID(0);
             toBePlaced.setRelativeCoordinates(new int[]{0,0});
             this.deployed.add(toBePlaced);
-            this.placements[OFFSET][OFFSET] = 0;
+            this.placements.put(0, 0, 0);
+            getDiagonalIndex().add(0, 0, toBePlaced.getKingdom());
+            getKingdomIndex().add(0, 0, toBePlaced.getKingdom());
+            updateFrontier(0, 0);
             //this.updateResources(toBePlaced,new ArrayList<CardSide>(),new ArrayList<Integer>());
             for (Corner c : toBePlaced.getCorners()) {
                 int ind = c.getSymbol().toInt();
@@ -412,16 +573,19 @@ public class Player implements Serializable {
         deployed.add(toBePlaced);
 
         //add to placements
-        int absX, absY;
-        absX = deployed.get(index).getRelativeCoordinates()[0]+OFFSET;
-        absY = deployed.get(index).getRelativeCoordinates()[1]+OFFSET;
+        int x, y;
+        x = deployed.get(index).getRelativeCoordinates()[0];
+        y = deployed.get(index).getRelativeCoordinates()[1];
 
-        int[] coord = {absX, absY};
+        int[] coord = {x, y};
         int[] v = toVector(corner);
-        this.placements[absX+v[0]][absY+v[1]] = toBePlaced.getDeployedID();
+        this.placements.put(x+v[0], y+v[1], toBePlaced.getDeployedID());
 
         //set relativeCoordinates
-        toBePlaced.setRelativeCoordinates(new int[]{absX + v[0] - OFFSET, absY + v[1] - OFFSET});
+        toBePlaced.setRelativeCoordinates(new int[]{x + v[0], y + v[1]});
+        getDiagonalIndex().add(x + v[0], y + v[1], toBePlaced.getKingdom());
+        getKingdomIndex().add(x + v[0], y + v[1], toBePlaced.getKingdom());
+        updateFrontier(x + v[0], y + v[1]);
 
         //updates
         ArrayList<CardSide> covered_cards = new ArrayList<>();
@@ -487,29 +651,29 @@ public class Player implements Serializable {
                     res_qty[i]++;
 
 
-            int card_x = card.getRelativeCoordinates()[0] + OFFSET;
-            int card_y = card.getRelativeCoordinates()[1] + OFFSET;
+            int card_x = card.getRelativeCoordinates()[0];
+            int card_y = card.getRelativeCoordinates()[1];
 
-            //if   the corner does not exist or is not occupied or is occupied by some previously placed card ==> sum this card's resources
-            if (  !(    !(card_x==0 || card_y==80) && (placements[card_x-1][card_y+1] > card.getDeployedID())  )   ) {
+            //if   the corner is not occupied or is occupied by some previously placed card ==> sum this card's resources
+            if (  !(placements.get(card_x-1, card_y+1) > card.getDeployedID())  ) {
                 //get the symbol of corner 0 - TOP LEFT
                 if (card.getCorners()[0].getSymbol().toInt()!=-1 && card.getCorners()[0].getSymbol().toInt()!=7) {
                     res_qty[card.getCorners()[0].getSymbol().toInt()]++;
                 }
             }
-            if (  !(    !(card_x==80 || card_y==80) && (placements[card_x+1][card_y+1] > card.getDeployedID())  )   ) {
+            if (  !(placements.get(card_x+1, card_y+1) > card.getDeployedID())  ) {
                 //get the symbol of corner 1 - TOP RIGHT
                 if (card.getCorners()[1].getSymbol().toInt()!=-1 && card.getCorners()[1].getSymbol().toInt()!=7) {
                     res_qty[card.getCorners()[1].getSymbol().toInt()]++;
                 }
             }
-            if (  !(    !(card_x==0 || card_y==0) && (placements[card_x-1][card_y-1] > card.getDeployedID())  )   ) {
+            if (  !(placements.get(card_x-1, card_y-1) > card.getDeployedID())  ) {
                 //get the symbol of corner 2 - BOTTOM LEFT
                 if (card.getCorners()[2].getSymbol().toInt()!=-1 && card.getCorners()[2].getSymbol().toInt()!=7) {
                     res_qty[card.getCorners()[2].getSymbol().toInt()]++;
                 }
             }
-            if (  !(    !(card_x==80 || card_y==0) && (placements[card_x+1][card_y-1] > card.getDeployedID())  )   ) {
+            if (  !(placements.get(card_x+1, card_y-1) > card.getDeployedID())  ) {
                 //get the symbol of corner 3 - BOTTOM RIGHT
                 if (card.getCorners()[3].getSymbol().toInt()!=-1 && card.getCorners()[3].getSymbol().toInt()!=7) {
                     res_qty[card.getCorners()[3].getSymbol().toInt()]++;
@@ -529,7 +693,8 @@ public class Player implements Serializable {
      */
     public void updateHand(PlayableCard drawn_card, PlayableCard deployed_card) {
         for (int i=0; i<in_hand.length; i++) {
-            if (in_hand[i].equals(deployed_card) ){
+            // A slot is empty once the decks and the ground are
+            if (deployed_card.equals(in_hand[i])){
                 in_hand[i] = drawn_card;
                 break;
             }
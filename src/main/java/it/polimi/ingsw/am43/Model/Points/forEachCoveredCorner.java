@@ -52,13 +52,13 @@ public class forEachCoveredCorner implements PointsRule, Serializable {
     public int computePoints(Player p) {
         // Retrieves the coordinates of the last placed CardSide
         int[] last_deployed_coord = p.getDeployed().getLast().getRelativeCoordinates();
-        int x = last_deployed_coord[0]+Player.OFFSET;
-        int y = last_deployed_coord[1]+Player.OFFSET;
+        int x = last_deployed_coord[0];
+        int y = last_deployed_coord[1];
 
         // For each corner that is covered by the CardSide, increase the number of points and return them
-        return( ((p.getPlacements()[x-1][y-1] != -1)? 1 : 0) +
-                ((p.getPlacements()[x-1][y+1] != -1)? 1 : 0) +
-                ((p.getPlacements()[x+1][y-1] != -1)? 1 : 0) +
-                ((p.getPlacements()[x+1][y+1] != -1)? 1 : 0) ) * this.points;
+        return( (p.getPlacements().contains(x-1, y-1)? 1 : 0) +
+                (p.getPlacements().contains(x-1, y+1)? 1 : 0) +
+                (p.getPlacements().contains(x+1, y-1)? 1 : 0) +
+                (p.getPlacements().contains(x+1, y+1)? 1 : 0) ) * this.points;
     }
 }
@@ -2,8 +2,10 @@ package it.polimi.ingsw.am43.Model.Points;
 
 import it.polimi.ingsw.am43.Model.Cards.CardSide;
 import it.polimi.ingsw.am43.Model.Cards.ObjectiveCard;
+import it.polimi.ingsw.am43.Model.DiagonalIndex;
 import it.polimi.ingsw.am43.Model.Enum.Kingdom;
 import it.polimi.ingsw.am43.Model.Player;
+import it.polimi.ingsw.am43.Model.SparseBoard;
 
 import java.io.Serial;
 import java.io.Serializable;
@@ -85,16 +87,32 @@ public class forEachDiagonalPattern implements PointsRule, Serializable {
     }
 
     /**
-     * Computes the points for a {@link Player} based on the placements and deployed {@link CardSide}s,
-     * by checking if there are certain diagonal patterns.
+     * Computes the points for a {@link Player} based on the diagonal runs of his/her deployed
+     * {@link CardSide}s, kept up to date by the {@link DiagonalIndex} of the {@link Player}.
+     * Each run of adjacent {@link CardSide}s of the right {@link Kingdom} awards the points once
+     * for every 3 cards, exactly as the sweep in {@link #computePointsByScan(Player)}.
      *
      * @param  player   the {@link Player} for whom to compute the points
      * @return          the total points computed for the {@link Player}
      */
     @Override
     public int computePoints(Player player) {
+        return player.getDiagonalIndex().countTriples(kingdom, isTopLeft) * points;
+    }
+
+    /**
+     * Computes the points for a {@link Player} based on the placements and deployed {@link CardSide}s,
+     * by checking if there are certain diagonal patterns.
+     * This is the reference implementation, which sweeps every diagonal of the square of the placements
+     * within {@link Player#OFFSET} steps from the starting card.
+     *
+     * @param  player   the {@link Player} for whom to compute the points
+     * @return          the total points computed for the {@link Player}
+     */
+    public int computePointsByScan(Player player) {
         // Retrieves the matrix of placements and all the placed cards
-        int[][] placements = player.getPlacements();
+        SparseBoard placements = player.getPlacements();
+        int OFFSET = Player.OFFSET;
         ArrayList<CardSide> deployed = player.getDeployed();
         int SCORE = 0;
 
@@ -112,7 +130,7 @@ public class forEachDiagonalPattern implements PointsRule, Serializable {
 
                         //transitions:
                         //if desired card
-                        if (placements[i][j]>=0&&deployed.get(placements[i][j]).getKingdom().equals(kingdom)){
+                        if (placements.get(i-OFFSET, j-OFFSET)>=0&&deployed.get(placements.get(i-OFFSET, j-OFFSET)).getKingdom().equals(kingdom)){
                             count++;
                             if (count==3){
                                 SCORE += points;
@@ -130,7 +148,7 @@ public class forEachDiagonalPattern implements PointsRule, Serializable {
 
                         //transitions:
                         //if desired card
-                        if (placements[i][j]>=0&&deployed.get(placements[i][j]).getKingdom().equals(kingdom)){
+                        if (placements.get(i-OFFSET, j-OFFSET)>=0&&deployed.get(placements.get(i-OFFSET, j-OFFSET)).getKingdom().equals(kingdom)){
                             count++;
                             if (count==3){
                                 SCORE += points;
@@ -160,7 +178,7 @@ public class forEachDiagonalPattern implements PointsRule, Serializable {
 
                         //transitions:
                         //if desired card
-                        if (placements[i][j]>=0&&deployed.get(placements[i][j]).getKingdom().equals(kingdom)){
+                        if (placements.get(i-OFFSET, j-OFFSET)>=0&&deployed.get(placements.get(i-OFFSET, j-OFFSET)).getKingdom().equals(kingdom)){
                             count++;
                             if (count==3){
                                 SCORE += points;
@@ -178,7 +196,7 @@ public class forEachDiagonalPattern implements PointsRule, Serializable {
 
                         //transitions:
                         //if desired card
-                        if (placements[i][j]>=0&&deployed.get(placements[i][j]).getKingdom().equals(kingdom)){
+                        if (placements.get(i-OFFSET, j-OFFSET)>=0&&deployed.get(placements.get(i-OFFSET, j-OFFSET)).getKingdom().equals(kingdom)){
                             count++;
                             if (count==3){
                                 SCORE += points;
@@ -4,12 +4,15 @@ import it.polimi.ingsw.am43.Model.Cards.CardSide;
 import it.polimi.ingsw.am43.Model.Cards.Corner;
 import it.polimi.ingsw.am43.Model.Cards.ObjectiveCard;
 import it.polimi.ingsw.am43.Model.Cards.PlayableCard;
+import it.polimi.ingsw.am43.Model.KingdomIndex;
 import it.polimi.ingsw.am43.Model.Enum.Kingdom;
 import it.polimi.ingsw.am43.Model.Player;
+import it.polimi.ingsw.am43.Model.SparseBoard;
 
 import java.io.Serial;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
 
 /**
  * This class represents the rule present in some {@link ObjectiveCard}s.
@@ -80,17 +83,83 @@ public class forEachLPattern implements PointsRule, Serializable {
     }
 
     /**
-     * Computes the points for a {@link Player} based on the placements and deployed {@link CardSide}s,
-     * by checking if there are certain patterns of two
+     * Computes the points for a {@link Player} by checking if there are certain patterns of two
      * card "one above the other" and another one, of different {@link Kingdom}, on a specific {@link Corner}.
+     * Only the deployed {@link CardSide}s of the main {@link Kingdom} are visited, taken from the
+     * {@link KingdomIndex} of the {@link Player} and sorted column by column in the direction of the "L",
+     * so that the greedy matching gives the same points as {@link #computePointsByScan(Player)}.
      *
      * @param  player   the {@link Player} for whom to compute the points
      * @return          the total points computed for the {@link Player}
      */
     @Override
     public int computePoints(Player player) {
+        KingdomIndex index = player.getKingdomIndex();
+        int SCORE = 0;
+
+        // Set the search directions
+        int NS = this.direction/2;
+        int WE = (this.direction%2)*2 - 1;
+        int step = NS==1 ? 1 : -1;
+
+        // Rank the cells in scan order: column-wise, then top-down or bottom-up
+        long[] cells = index.getCells(res[0]);
+        long[] ranks = new long[cells.length];
+        for (int c=0; c<cells.length; c++)
+            ranks[c] = rank(SparseBoard.unpackY(cells[c]), step*SparseBoard.unpackX(cells[c]));
+        Arrays.sort(ranks);
+
+        int count = 0;
+        long next = 0;
+        for (int c=0; c<ranks.length; c++) {
+            long r = ranks[c];
+            int y = (int) (r >> 32);
+            int p = (int) ((r & 0xFFFFFFFFL) + Integer.MIN_VALUE);
+            int x = step*p;
+
+            //transitions: a gap means that a cell without the main kingdom was crossed
+            if (c==0 || r != next) count = 0;
+            count++;
+            if (count==2) {
+                Kingdom kingdom = index.getKingdom(x+step, y+WE);
+                if (kingdom != null && kingdom.equals(res[1])) {
+                    SCORE += points;
+                    count = 0;
+                } else count--;
+            }
+
+            // the next cell of the same column
+            next = rank(y, p+2);
+        }
+
+        return SCORE;
+    }
+
+    /**
+     * Computes the rank of a cell in the order of the scan: column first, then position along the column.
+     *
+     * @param  y   the column of the cell
+     * @param  p   the position of the cell along the column, in the direction of the scan
+     * @return     the rank of the cell
+     */
+    private static long rank(int y, int p) {
+        return ((long) y << 32) | ((p - (long) Integer.MIN_VALUE) & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Computes the points for a {@link Player} based on the placements and deployed {@link CardSide}s,
+     * by checking if there are certain patterns of two
+     * card "one above the other" and another one, of different {@link Kingdom}, on a specific {@link Corner}.
+     * This is the reference implementation, which scans the square of the placements
+     * within {@link Player#OFFSET} steps from the starting card.
+     *
+     * @param  player   the {@link Player} for whom to compute the points
+     * @return          the total points computed for the {@link Player}
+     */
+    public int computePointsByScan(Player player) {
         // Read the player's placements and deployed cards
-        int[][] placements = player.getPlacements();
+        SparseBoard placements = player.getPlacements();
+        int OFFSET = Player.OFFSET;
         ArrayList<CardSide> deployed = player.getDeployed();
         int SCORE = 0;
 
@@ -108,10 +177,10 @@ public class forEachLPattern implements PointsRule, Serializable {
                 for (i=j%2;i<80;i+=2){
 
                     //transitions
-                    if (placements[i][j]>=0 && deployed.get(placements[i][j]).getKingdom().equals(res[0])){
+                    if (placements.get(i-OFFSET, j-OFFSET)>=0 && deployed.get(placements.get(i-OFFSET, j-OFFSET)).getKingdom().equals(res[0])){
                         count++;
                         if (count==2) {
-                            if (placements[i+1][j+WE]>=0 && deployed.get(placements[i+1][j+WE]).getKingdom().equals(res[1])) {
+                            if (placements.get(i+1-OFFSET, j+WE-OFFSET)>=0 && deployed.get(placements.get(i+1-OFFSET, j+WE-OFFSET)).getKingdom().equals(res[1])) {
                                 SCORE += points;
                                 count = 0;
                             } else count--;
@@ -122,10 +191,10 @@ public class forEachLPattern implements PointsRule, Serializable {
                 for (i=80-(j%2);i>0;i-=2){
 
                     //transitions
-                    if (placements[i][j]>=0&&deployed.get(placements[i][j]).getKingdom().equals(res[0])){
+                    if (placements.get(i-OFFSET, j-OFFSET)>=0&&deployed.get(placements.get(i-OFFSET, j-OFFSET)).getKingdom().equals(res[0])){
                         count++;
                         if (count==2) {
-                            if (placements[i-1][j+WE] >= 0 && deployed.get(placements[i-1][j+WE]).getKingdom().equals(res[1])) {
+                            if (placements.get(i-1-OFFSET, j+WE-OFFSET) >= 0 && deployed.get(placements.get(i-1-OFFSET, j+WE-OFFSET)).getKingdom().equals(res[1])) {
                                 SCORE += points;
                                 count = 0;
                             } else count--;
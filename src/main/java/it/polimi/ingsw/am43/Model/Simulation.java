@@ -0,0 +1,362 @@
+package it.polimi.ingsw.am43.Model;
+
+import it.polimi.ingsw.am43.Model.Cards.CardSide;
+import it.polimi.ingsw.am43.Model.Cards.ObjectiveCard;
+import it.polimi.ingsw.am43.Model.Cards.PlayableCard;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * A class that represents a copy of a started {@link Game}, on which turns can be simulated
+ * without touching the live model, as needed by the search of the computer-controlled players.
+ * It only keeps what the turns change: the {@link Player}s, the two {@link Deck}s that are drawn from
+ * and the cards on the ground. A turn follows the same rules as the
+ * {@link it.polimi.ingsw.am43.Controller.GameController}, and the points are computed by the same
+ * rules of the cards, since the {@link Player}s are copies of the real ones.
+ * Copying a simulation only copies primitive arrays and the lists of deployed {@link CardSide}s,
+ * which are shared since they never change once placed, so that it can be done for every rollout.
+ * A simulation is not thread-safe: parallel rollouts must each work on their own {@link #copy()}.
+ * A move is an array {idToBePlaced, on, corner, drawIndex}, with the same meaning as the arguments
+ * of {@link it.polimi.ingsw.am43.Controller.GameController#playTurn(int, int, int, int, int)}.
+ */
+public class Simulation {
+
+    /**
+     * The vectors from a deployed card to the cell pointed by each of its {@link it.polimi.ingsw.am43.Model.Cards.Corner}s,
+     * by index of the corner, as used by {@link Player#placeCardSide(CardSide, int, int)}.
+     */
+    private static final int[][] CORNERS = {{-1, -1}, {-1, 1}, {1, -1}, {1, 1}};
+
+    /**
+     * The copies of the {@link Player}s of the game.
+     */
+    private final Player[] players;
+
+    /**
+     * The copies of the {@link Deck}s of resource and gold cards.
+     */
+    private final Deck deck_res;
+    private final Deck deck_gold;
+
+    /**
+     * The cards on the ground: the first two are resources, the last two are gold.
+     */
+    private final PlayableCard[] onGround;
+
+    /**
+     * The common objectives of the game, never modified.
+     */
+    private final ObjectiveCard[] common_objective;
+
+    /**
+     * The ID of the player who plays the last turn of each round.
+     */
+    private final int lastOfRound;
+
+    /**
+     * The ID of the last {@link Player} who played.
+     */
+    private int lastPlayerID;
+
+    /**
+     * The boolean value representing if it is the last round of turns.
+     */
+    private boolean lastTurn;
+
+    /**
+     * The number of the turns played.
+     */
+    private int turn;
+
+    /**
+     * Constructor of a simulation of a started game, with the decks in the same order as in the game.
+     * It must be called where the game is not being modified.
+     *
+     * @param game      the game to copy
+     */
+    public Simulation(Game game) {
+        int n = game.getNumPlayers();
+        this.players = new Player[n];
+        for (int i = 0; i < n; i++) players[i] = game.getPlayers()[i].copy();
+        this.deck_res = game.getDeck(4).copy();
+        this.deck_gold = game.getDeck(5).copy();
+        this.onGround = game.getOnGround().clone();
+        this.common_objective = game.getCommonObjectives().clone();
+        this.lastOfRound = (game.getFirst_player() + n - 1) % n;
+        this.lastPlayerID = game.getLastPlayerID();
+        this.lastTurn = game.isLastTurn();
+        this.turn = game.getTurn();
+    }
+
+    /**
+     * Constructor of a simulation of a started game, with the cards still in the decks shuffled,
+     * since their order is not known by the players.
+     * It must be called where the game is not being modified.
+     *
+     * @param game      the game to copy
+     * @param random    the source of randomness of the shuffle
+     */
+    public Simulation(Game game, Random random) {
+        this(game);
+        shuffleDecks(random);
+    }
+
+    /**
+     * Constructor that copies another simulation.
+     *
+     * @param other     the simulation to copy
+     */
+    private Simulation(Simulation other) {
+        this.players = new Player[other.players.length];
+        for (int i = 0; i < players.length; i++) players[i] = other.players[i].copy();
+        this.deck_res = other.deck_res.copy();
+        this.deck_gold = other.deck_gold.copy();
+        this.onGround = other.onGround.clone();
+        this.common_objective = other.common_objective;
+        this.lastOfRound = other.lastOfRound;
+        this.lastPlayerID = other.lastPlayerID;
+        this.lastTurn = other.lastTurn;
+        this.turn = other.turn;
+    }
+
+    /**
+     * A method that creates an independent copy of the simulation.
+     *
+     * @return      the copy of the simulation
+     */
+    public Simulation copy() {
+        return new Simulation(this);
+    }
+
+    /**
+     * A method that shuffles the cards still in the decks, so that every rollout of a search
+     * sees one of the orders the players cannot tell apart.
+     *
+     * @param  random   the source of randomness of the shuffle
+     */
+    public void shuffleDecks(Random random) {
+        deck_res.shuffle(random);
+        deck_gold.shuffle(random);
+    }
+
+    /**
+     * A method that retrieves the number of {@link Player}s.
+     *
+     * @return      the number of {@link Player}s
+     */
+    public int getNumPlayers() {
+        return players.length;
+    }
+
+    /**
+     * A method that retrieves the copy of a {@link Player}.
+     *
+     * @param  playerID     the ID of the {@link Player}
+     * @return              the copy of the {@link Player}
+     */
+    public Player getPlayer(int playerID) {
+        return players[playerID];
+    }
+
+    /**
+     * A method that retrieves the ID of the {@link Player} who plays the next turn.
+     *
+     * @return      the ID of the current {@link Player}
+     */
+    public int getCurrentPlayer() {
+        return (lastPlayerID + 1) % players.length;
+    }
+
+    /**
+     * A method that retrieves the number of turns played, including those of the game.
+     *
+     * @return      the number of turns
+     */
+    public int getTurn() {
+        return turn;
+    }
+
+    /**
+     * A method that retrieves the scores of all {@link Player}s.
+     *
+     * @return      an array of integers representing the scores of each {@link Player}
+     */
+    public int[] getScores() {
+        int[] scores = new int[players.length];
+        for (int i = 0; i < players.length; i++) scores[i] = players[i].getScore();
+        return scores;
+    }
+
+    /**
+     * A method that checks if the game is over: the last round has been played.
+     *
+     * @return      true if no turn is left, false otherwise
+     */
+    public boolean isOver() {
+        return lastTurn && lastPlayerID == lastOfRound;
+    }
+
+    /**
+     * A method that lists all the legal moves of the current {@link Player}.
+     * The placements on the same cell are equivalent, hence only one is listed for each cell.
+     *
+     * @return      the legal moves, empty if the game is over or the {@link Player} cannot place any card
+     */
+    public List<int[]> getMoves() {
+        List<int[]> moves = new ArrayList<>();
+        if (isOver()) return moves;
+        Player current = players[getCurrentPlayer()];
+        int[] sides = placeableSides(current);
+        int[][] placements = placements(current);
+        int[] draws = draws();
+        for (int side : sides) {
+            for (int[] placement : placements) {
+                for (int draw : draws) moves.add(new int[]{side, placement[0], placement[1], draw});
+            }
+        }
+        return moves;
+    }
+
+    /**
+     * A method that picks a legal move of the current {@link Player} at random,
+     * without listing all of them.
+     *
+     * @param  random   the source of randomness of the choice
+     * @return          the move, null if the game is over or the {@link Player} cannot place any card
+     */
+    public int[] randomMove(Random random) {
+        if (isOver()) return null;
+        Player current = players[getCurrentPlayer()];
+        int[] sides = placeableSides(current);
+        int[][] placements = placements(current);
+        if (sides.length == 0 || placements.length == 0) return null;
+        int[] draws = draws();
+        int[] placement = placements[random.nextInt(placements.length)];
+        return new int[]{sides[random.nextInt(sides.length)], placement[0], placement[1], draws[random.nextInt(draws.length)]};
+    }
+
+    /**
+     * A method that plays a turn of the current {@link Player}: it places a side of a card in hand,
+     * then draws a card from the ground or from a deck.
+     *
+     * @param  move     the move, as {idToBePlaced, on, corner, drawIndex}
+     * @return          true if the move was played, false if the placement is illegal, in which case nothing changes
+     */
+    public boolean play(int[] move) {
+        int playerID = getCurrentPlayer();
+        Player current = players[playerID];
+        PlayableCard toBePlaced = current.getInHand()[move[0]/2];
+        if (toBePlaced == null) return false;
+        // The cards are shared by all the games: the player places its own copy of the side
+        CardSide toPlace = (move[0]%2==0 ? toBePlaced.getFrontside() : toBePlaced.getBackside()).copy();
+
+        if (!current.placeCardSide(toPlace, move[1], move[2])) return false;
+
+        if (current.getScore()>=20) lastTurn = true;
+        PlayableCard drawn;
+
+        int drawIndex = move[3];
+        if (drawIndex<4){
+            drawn = onGround[drawIndex];
+            Deck refill = drawIndex<2 ? deck_res : deck_gold;
+            onGround[drawIndex] = refill.size()>0 ? refill.drawPlayableCard() : null;
+        } else {
+            Deck deck = drawIndex==4 ? deck_res : deck_gold;
+            drawn = deck.size()!=0 ? deck.drawPlayableCard() : null;
+            if (deck_res.size()==0 && deck_gold.size()==0) lastTurn = true;
+        }
+        current.updateHand(drawn, toBePlaced);
+        lastPlayerID = playerID;
+        turn++;
+        return true;
+    }
+
+    /**
+     * A method that plays random legal moves until the end of the game, then ranks the {@link Player}s.
+     * The game also ends if the current {@link Player} cannot place any card.
+     *
+     * @param  random   the source of randomness of the moves
+     * @return          the ranking, as in {@link Game#endGame()}
+     */
+    public int[][] rollout(Random random) {
+        int[] move = randomMove(random);
+        while (move != null) {
+            play(move);
+            move = randomMove(random);
+        }
+        return endGame();
+    }
+
+    /**
+     * A method that awards the objectives to the {@link Player}s and ranks them.
+     * It must be called only once, at the end of the simulation.
+     *
+     * @return          the ranking, as in {@link Game#endGame()}
+     */
+    public int[][] endGame() {
+        return Game.rank(players, players.length, common_objective);
+    }
+
+    /**
+     * A method that lists the sides in hand that a {@link Player} can place, as hand index * 2 + 1 for the backs.
+     *
+     * @param  player   the {@link Player}
+     * @return          the placeable sides
+     */
+    private int[] placeableSides(Player player) {
+        PlayableCard[] hand = player.getInHand();
+        int[] sides = new int[hand.length * 2];
+        int n = 0;
+        for (int i = 0; i < hand.length; i++) {
+            if (hand[i] == null) continue;
+            if (hand[i].getFrontside().checkGoldRequisites(player.getResources())) sides[n++] = i * 2;
+            sides[n++] = i * 2 + 1;
+        }
+        return Arrays.copyOf(sides, n);
+    }
+
+    /**
+     * A method that lists a placement for each legal cell of a {@link Player}, read from its frontier:
+     * any deployed card that touches the cell can be the one the new card is placed on.
+     *
+     * @param  player   the {@link Player}
+     * @return          the placements, as {on, corner}
+     */
+    private int[][] placements(Player player) {
+        SparseBoard placed = player.getPlacements();
+        SparseBoard frontier = player.getFrontier();
+        int[][] placements = new int[frontier.size()][];
+        int[] n = {0};
+        frontier.forEach((x, y, touching) -> {
+            for (int c = 0; c < CORNERS.length; c++) {
+                int on = placed.get(x - CORNERS[c][0], y - CORNERS[c][1]);
+                if (on != SparseBoard.EMPTY) {
+                    placements[n[0]++] = new int[]{on, c};
+                    return;
+                }
+            }
+        });
+        return placements;
+    }
+
+    /**
+     * A method that lists the places a card can be drawn from: the cards on the ground and the decks that are not empty.
+     * If there is none, the resource deck is listed anyway, and nothing will be drawn.
+     *
+     * @return          the draw indexes
+     */
+    private int[] draws() {
+        int[] draws = new int[6];
+        int n = 0;
+        for (int i = 0; i < onGround.length; i++) {
+            if (onGround[i] != null) draws[n++] = i;
+        }
+        if (deck_res.size() > 0) draws[n++] = 4;
+        if (deck_gold.size() > 0) draws[n++] = 5;
+        if (n == 0) draws[n++] = 4;
+        return Arrays.copyOf(draws, n);
+    }
+}
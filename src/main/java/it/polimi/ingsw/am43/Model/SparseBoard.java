@@ -0,0 +1,386 @@
+package it.polimi.ingsw.am43.Model;
+
+import java.io.*;
+import java.util.Arrays;
+
+/**
+ * A class that represents a sparse board of integer values.
+ * Each cell is identified by its (x,y) coordinates, which are packed in a single long
+ * and stored, together with the value of the cell, in an open-addressing hash table
+ * made of primitive arrays.
+ * Empty cells are not stored at all, and reading them returns -1. By doing so, the memory
+ * used (and the size of the serialized board) only grows with the number of cells in use.
+ */
+public class SparseBoard implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 2981374465092170631L;
+
+    /**
+     * The value returned when reading an empty cell.
+     */
+    public static final int EMPTY = -1;
+
+    /**
+     * The packed key that marks a free slot of the table. It can never be produced
+     * by {@link #pack(int, int)} with coordinates reachable in a game.
+     */
+    private static final long FREE = Long.MIN_VALUE;
+
+    /**
+     * The packed coordinates of the cells, {@link #FREE} if the slot is not used.
+     */
+    private transient long[] keys;
+
+    /**
+     * The values of the cells, in the same slot of their keys.
+     */
+    private transient int[] values;
+
+    /**
+     * The number of cells in use.
+     */
+    private transient int size;
+
+    /**
+     * The bounding box of all the cells ever written: minX, minY, maxX, maxY.
+     */
+    private transient int[] bounds;
+
+    /**
+     * A functional interface used to visit the cells in use.
+     */
+    @FunctionalInterface
+    public interface CellConsumer {
+
+        /**
+         * Visits a cell of the board.
+         *
+         * @param x     the x coordinate of the cell
+         * @param y     the y coordinate of the cell
+         * @param value the value stored in the cell
+         */
+        void accept(int x, int y, int value);
+    }
+
+    /**
+     * Constructor of an empty board.
+     */
+    public SparseBoard() {
+        this(16);
+    }
+
+    /**
+     * Constructor of an empty board, sized for the given number of cells.
+     *
+     * @param expectedCells the number of cells that the board is expected to hold
+     */
+    public SparseBoard(int expectedCells) {
+        init(tableSizeFor(expectedCells));
+    }
+
+    /**
+     * Constructor that copies another board.
+     *
+     * @param other the board to copy
+     */
+    private SparseBoard(SparseBoard other) {
+        this.keys = other.keys.clone();
+        this.values = other.values.clone();
+        this.size = other.size;
+        this.bounds = other.bounds.clone();
+    }
+
+    /**
+     * A method that packs two coordinates in a single long.
+     *
+     * @param  x   the x coordinate
+     * @param  y   the y coordinate
+     * @return     the packed coordinates
+     */
+    public static long pack(int x, int y) {
+        return ((long) x << 32) | (y & 0xFFFFFFFFL);
+    }
+
+    /**
+     * A method that retrieves the x coordinate from packed coordinates.
+     *
+     * @param  key  the packed coordinates
+     * @return      the x coordinate
+     */
+    public static int unpackX(long key) {
+        return (int) (key >> 32);
+    }
+
+    /**
+     * A method that retrieves the y coordinate from packed coordinates.
+     *
+     * @param  key  the packed coordinates
+     * @return      the y coordinate
+     */
+    public static int unpackY(long key) {
+        return (int) key;
+    }
+
+    /**
+     * A method that retrieves the value of a cell.
+     *
+     * @param  x   the x coordinate of the cell
+     * @param  y   the y coordinate of the cell
+     * @return     the value of the cell, {@link #EMPTY} if the cell is empty
+     */
+    public int get(int x, int y) {
+        int slot = find(pack(x, y));
+        return slot < 0 ? EMPTY : values[slot];
+    }
+
+    /**
+     * A method that checks if a cell is in use.
+     *
+     * @param  x   the x coordinate of the cell
+     * @param  y   the y coordinate of the cell
+     * @return     true if the cell is in use, false otherwise
+     */
+    public boolean contains(int x, int y) {
+        return find(pack(x, y)) >= 0;
+    }
+
+    /**
+     * A method that writes the value of a cell.
+     *
+     * @param  x       the x coordinate of the cell
+     * @param  y       the y coordinate of the cell
+     * @param  value   the value to write
+     */
+    public void put(int x, int y, int value) {
+        long key = pack(x, y);
+        int mask = keys.length - 1;
+        int slot = hash(key, mask);
+        while (keys[slot] != FREE) {
+            if (keys[slot] == key) {
+                values[slot] = value;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        size++;
+
+        if (x < bounds[0]) bounds[0] = x;
+        if (y < bounds[1]) bounds[1] = y;
+        if (x > bounds[2]) bounds[2] = x;
+        if (y > bounds[3]) bounds[3] = y;
+
+        // Keep the load factor under 1/2, so that probe sequences stay short
+        if (size * 2 > keys.length) resize(keys.length * 2);
+    }
+
+    /**
+     * A method that empties a cell.
+     *
+     * @param  x   the x coordinate of the cell
+     * @param  y   the y coordinate of the cell
+     * @return     the value the cell had, {@link #EMPTY} if it was already empty
+     */
+    public int remove(int x, int y) {
+        int slot = find(pack(x, y));
+        if (slot < 0) return EMPTY;
+        int old = values[slot];
+
+        // Backward shift deletion: move back the following entries of the cluster
+        int mask = keys.length - 1;
+        int hole = slot;
+        int next = (hole + 1) & mask;
+        while (keys[next] != FREE) {
+            int home = hash(keys[next], mask);
+            // Move the entry only if its home slot is not between the hole and its position
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                keys[hole] = keys[next];
+                values[hole] = values[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[hole] = FREE;
+        size--;
+        return old;
+    }
+
+    /**
+     * A method that retrieves the number of cells in use.
+     *
+     * @return     the number of cells in use
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * A method that checks if no cell is in use.
+     *
+     * @return     true if the board is empty, false otherwise
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * A method that retrieves the bounding box of all the cells ever written,
+     * as {minX, minY, maxX, maxY}. If nothing was ever written, min is greater than max.
+     *
+     * @return     the bounding box of the board
+     */
+    public int[] getBounds() {
+        return bounds.clone();
+    }
+
+    /**
+     * A method that visits all the cells in use, in no particular order.
+     *
+     * @param  consumer  the {@link CellConsumer} called for each cell
+     */
+    public void forEach(CellConsumer consumer) {
+        long[] k = keys;
+        int[] v = values;
+        for (int i = 0; i < k.length; i++) {
+            if (k[i] != FREE) consumer.accept(unpackX(k[i]), unpackY(k[i]), v[i]);
+        }
+    }
+
+    /**
+     * A method that creates an independent copy of the board.
+     *
+     * @return     the copy of the board
+     */
+    public SparseBoard copy() {
+        return new SparseBoard(this);
+    }
+
+    /**
+     * A method that empties the whole board.
+     */
+    public void clear() {
+        Arrays.fill(keys, FREE);
+        size = 0;
+        resetBounds();
+    }
+
+    /**
+     * A method that finds the slot of a key.
+     *
+     * @param  key   the packed coordinates to look for
+     * @return       the slot of the key, -1 if not present
+     */
+    private int find(long key) {
+        int mask = keys.length - 1;
+        int slot = hash(key, mask);
+        while (keys[slot] != FREE) {
+            if (keys[slot] == key) return slot;
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * A method that spreads packed coordinates over the table.
+     *
+     * @param  key   the packed coordinates
+     * @param  mask  the table size minus one
+     * @return       the home slot of the key
+     */
+    private static int hash(long key, int mask) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    /**
+     * A method that computes the table size needed for a number of cells.
+     *
+     * @param  cells  the expected number of cells
+     * @return        a power of two large enough to keep the load factor under 1/2
+     */
+    private static int tableSizeFor(int cells) {
+        int n = 8;
+        while (n < cells * 2) n <<= 1;
+        return n;
+    }
+
+    /**
+     * A method that allocates empty tables of the given size.
+     *
+     * @param  capacity  the size of the tables, a power of two
+     */
+    private void init(int capacity) {
+        keys = new long[capacity];
+        values = new int[capacity];
+        Arrays.fill(keys, FREE);
+        size = 0;
+        resetBounds();
+    }
+
+    /**
+     * A method that resets the bounding box.
+     */
+    private void resetBounds() {
+        bounds = new int[]{Integer.MAX_VALUE, Integer.MAX_VALUE, Integer.MIN_VALUE, Integer.MIN_VALUE};
+    }
+
+    /**
+     * A method that moves all the cells in a larger table.
+     *
+     * @param  capacity  the new size of the table
+     */
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new long[capacity];
+        values = new int[capacity];
+        Arrays.fill(keys, FREE);
+        int mask = capacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] == FREE) continue;
+            int slot = hash(oldKeys[i], mask);
+            while (keys[slot] != FREE) slot = (slot + 1) & mask;
+            keys[slot] = oldKeys[i];
+            values[slot] = oldValues[i];
+        }
+    }
+
+    /**
+     * Writes only the cells in use, so that the serialized board grows with them.
+     *
+     * @param  out   the stream to write to
+     * @throws IOException if an I/O error occurs
+     */
+    @Serial
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        out.writeInt(size);
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != FREE) {
+                out.writeLong(keys[i]);
+                out.writeInt(values[i]);
+            }
+        }
+    }
+
+    /**
+     * Reads the cells written by {@link #writeObject(ObjectOutputStream)} and rebuilds the table.
+     *
+     * @param  in    the stream to read from
+     * @throws IOException if an I/O error occurs
+     * @throws ClassNotFoundException if a class cannot be found
+     */
+    @Serial
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        int n = in.readInt();
+        if (n < 0) throw new InvalidObjectException("Negative board size: " + n);
+        init(tableSizeFor(n));
+        for (int i = 0; i < n; i++) {
+            long key = in.readLong();
+            put(unpackX(key), unpackY(key), in.readInt());
+        }
+    }
+}
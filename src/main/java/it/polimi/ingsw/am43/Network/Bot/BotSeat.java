@@ -0,0 +1,145 @@
+package it.polimi.ingsw.am43.Network.Bot;
+
+import it.polimi.ingsw.am43.Controller.GameController;
+import it.polimi.ingsw.am43.Model.Cards.ObjectiveCard;
+import it.polimi.ingsw.am43.Model.Simulation;
+import it.polimi.ingsw.am43.Network.GameServer;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Class that represents a seat of a game played by the server itself, given by the {@link GameServer}
+ * to a bot when a lobby is short of players or a player drops during a match.
+ * The bot takes the same steps as a client, straight on the {@link GameController}: it places its starting card,
+ * chooses its personal objective and, at each of its turns, plays the move chosen by a {@link MoveSearch}.
+ * The search runs on the fork-join pool of the {@link it.polimi.ingsw.am43.Network.GameRegistry}, on a
+ * {@link Simulation} taken when the turn starts, and the move is played on the {@link it.polimi.ingsw.am43.Network.GameLoop} of the game,
+ * so that neither the connections nor the other games wait for it.
+ * The bot knows the whole state of the game, including the hands and the objectives of the other players.
+ */
+public class BotSeat {
+
+    /**
+     * ANSI color codes for various messages printed from the server
+     */
+    static String RESET = "\033[0m";
+    static String RED = "\033[0;31m"; // Used for ERROR
+    static String GREEN = "\033[0;32m"; //Used for GAME messages
+
+    /**
+     * The {@link GameServer} of the game.
+     */
+    private final GameServer gameServer;
+
+    /**
+     * The {@link GameController} that manages the {@link it.polimi.ingsw.am43.Model.Game}.
+     */
+    private final GameController gameController;
+
+    /**
+     * The ID of the player of the seat.
+     */
+    private final int playerID;
+
+    /**
+     * The {@link MoveSearch} that chooses the moves.
+     */
+    private final MoveSearch search;
+
+    /**
+     * The time the search of a move can take, in nanoseconds.
+     */
+    private final long budgetNanos;
+
+    /**
+     * Constructor of a seat.
+     *
+     * @param gameServer        the {@link GameServer} of the game
+     * @param gameController    the {@link GameController} of the game
+     * @param playerID          the ID of the player of the seat
+     */
+    public BotSeat(GameServer gameServer, GameController gameController, int playerID) {
+        this.gameServer = gameServer;
+        this.gameController = gameController;
+        this.playerID = playerID;
+        this.search = new MoveSearch(gameServer.getRegistry().getBotPool(), gameServer.getRegistry().getMetrics());
+        this.budgetNanos = TimeUnit.MILLISECONDS.toNanos(gameServer.getRegistry().getConfig().getBotBudget());
+    }
+
+    /**
+     * A function that retrieves the ID of the player of the seat.
+     *
+     * @return  the ID of the player
+     */
+    public int getPlayerID() {
+        return playerID;
+    }
+
+    /**
+     * Takes the seat once the match has started, going on from where the player left it:
+     * the bot places the starting card and chooses the personal objective if they are missing,
+     * otherwise it plays if it is its turn. It must be called on the loop of the game.
+     */
+    public void takeOver() {
+        if (gameController.getPlayers()[playerID].getDeployed().isEmpty()) {
+            gameController.placeStartingCardSide(0, playerID);
+        }
+        if (gameController.getPersonalObjective(playerID) == null) {
+            ObjectiveCard[] drawn = gameController.drawPersonalObjectives();
+            // The objective worth more points, the first one if they are worth the same
+            ObjectiveCard chosen = drawn[0];
+            for (ObjectiveCard objective : drawn) {
+                if (objective.getRule().getPoints() > chosen.getRule().getPoints()) chosen = objective;
+            }
+            gameController.setPersonalObjective(playerID, chosen);
+            gameServer.incrementChosenObjectivesCounter();
+        } else if (gameServer.getChosenObjectivesCounter() == gameServer.getNumberOfPlayers()
+                && gameController.getCurrentPlayer() == playerID) {
+            play();
+        }
+    }
+
+    /**
+     * Starts a turn of the bot: the state of the game is copied at once, the move is searched on the pool of the bots
+     * and then played on the loop of the game, followed by the game information of the turn as for any player.
+     * It must be called on the loop of the game.
+     */
+    public void play() {
+        long start = System.nanoTime();
+        Simulation root = gameController.getSimulation(ThreadLocalRandom.current());
+        CompletableFuture.supplyAsync(() -> search.choose(root, budgetNanos), gameServer.getRegistry().getBotPool())
+                .thenAcceptAsync(move -> playTurn(move, start), gameServer.getLoop())
+                .exceptionally(e -> {
+                    // Searches still running when the game is torn down have nowhere to play
+                    if (!gameServer.isStopping()) {
+                        System.err.println(RED + "[ERROR] Bot of player " + playerID + " of game " + gameServer.getGameID() + " failed: " + e + RESET);
+                    }
+                    return null;
+                });
+    }
+
+    /**
+     * Plays the move chosen by the search and sends the game information of the turn.
+     *
+     * @param move  the move, as in {@link Simulation#play(int[])}
+     * @param start the time the turn started, in nanoseconds
+     */
+    private void playTurn(int[] move, long start) {
+        if (gameServer.isStopping()) return;
+        if (gameController.getCurrentPlayer() != playerID) {
+            System.err.println(RED + "[ERROR] Bot of player " + playerID + " of game " + gameServer.getGameID() + " tried to play out of turn" + RESET);
+            return;
+        }
+        if (move == null) {
+            System.err.println(RED + "[ERROR] Bot of player " + playerID + " of game " + gameServer.getGameID() + " cannot place any card" + RESET);
+            return;
+        }
+        gameController.playTurn(playerID, move[0], move[1], move[2], move[3]);
+        gameServer.getRegistry().getMetrics().recordBotDecision(System.nanoTime() - start);
+        System.out.println(GREEN + "[GAME " + gameServer.getGameID() + "] Bot of player " + playerID + " played in "
+                + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + "ms" + RESET);
+        gameServer.sendGameInfo();
+    }
+}
@@ -0,0 +1,245 @@
+package it.polimi.ingsw.am43.Network.Bot;
+
+import it.polimi.ingsw.am43.Model.Simulation;
+import it.polimi.ingsw.am43.Network.Metrics.ServerMetrics;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Class that searches the move of a bot on a {@link Simulation} of its game, within a time budget.
+ * The legal placements are first ranked greedily by the points they score at once, and only the best
+ * {@link #CANDIDATE_PLACEMENTS} are kept, each with every place a card can be drawn from. The whole budget is then
+ * spent on these candidates, in rounds of random rollouts played until the end of the game: a round runs
+ * {@link #BATCH} rollouts of every candidate in parallel on a fork-join pool, and the deadline is checked
+ * between rounds, so that a search never takes more than its budget and a round.
+ * The candidate with the best mean margin over the best opponent is chosen.
+ * Every rollout shuffles the decks again, since their order is hidden from the players.
+ */
+public class MoveSearch {
+
+    /**
+     * The number of placements kept by the greedy ranking, whose moves are searched by rollouts.
+     */
+    static final int CANDIDATE_PLACEMENTS = 4;
+
+    /**
+     * The number of rollouts of each candidate in a round.
+     */
+    static final int BATCH = 2;
+
+    /**
+     * The fork-join pool that runs the rollouts.
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * The {@link ServerMetrics} where the rollouts and the time of every search are recorded.
+     */
+    private final ServerMetrics metrics;
+
+    /**
+     * Constructor of the search.
+     *
+     * @param pool      the fork-join pool that runs the rollouts
+     * @param metrics   the {@link ServerMetrics} where the searches are recorded
+     */
+    public MoveSearch(ForkJoinPool pool, ServerMetrics metrics) {
+        this.pool = pool;
+        this.metrics = metrics;
+    }
+
+    /**
+     * A method that searches the best move of the current player of a simulation.
+     * The simulation is never modified, the rollouts are played on copies.
+     *
+     * @param  root         the simulation of the game, at the turn of the player
+     * @param  budgetNanos  the time the search can take, in nanoseconds
+     * @return              the move, as in {@link Simulation#play(int[])}, null if the player cannot place any card
+     */
+    public int[] choose(Simulation root, long budgetNanos) {
+        long start = System.nanoTime();
+        long deadline = start + budgetNanos;
+        List<int[]> moves = root.getMoves();
+        if (moves.isEmpty()) return null;
+        int playerID = root.getCurrentPlayer();
+        Candidate[] candidates = candidates(root, moves, playerID);
+        if (candidates.length == 1) return candidates[0].move;
+
+        long rollouts = 0;
+        do {
+            pool.invoke(new Round(candidates, 0, candidates.length, playerID));
+            rollouts += (long) candidates.length * BATCH;
+        } while (System.nanoTime() < deadline);
+        metrics.recordSearch(rollouts, System.nanoTime() - start);
+
+        Candidate best = candidates[0];
+        for (Candidate candidate : candidates) {
+            if (candidate.mean() > best.mean()) best = candidate;
+        }
+        return best.move;
+    }
+
+    /**
+     * A method that ranks the placements of the legal moves by the points they score at once,
+     * and keeps the moves of the best ones, each with the state that follows it.
+     *
+     * @param  root         the simulation of the game
+     * @param  moves        the legal moves, grouped by placement as listed by {@link Simulation#getMoves()}
+     * @param  playerID     the ID of the player who moves
+     * @return              the candidates of the search
+     */
+    private static Candidate[] candidates(Simulation root, List<int[]> moves, int playerID) {
+        int before = root.getScores()[playerID];
+        // The draws do not change the points of a turn: the first move of each placement stands for all of them
+        List<int[]> placements = new ArrayList<>();
+        List<Integer> gains = new ArrayList<>();
+        for (int[] move : moves) {
+            if (!placements.isEmpty() && samePlacement(placements.get(placements.size() - 1), move)) continue;
+            Simulation after = root.copy();
+            after.play(move);
+            placements.add(move);
+            gains.add(after.getScores()[playerID] - before);
+        }
+        List<Integer> order = new ArrayList<>();
+        for (int i = 0; i < placements.size(); i++) order.add(i);
+        order.sort(Comparator.comparing(gains::get, Comparator.reverseOrder()));
+
+        List<Candidate> candidates = new ArrayList<>();
+        for (int i = 0; i < Math.min(CANDIDATE_PLACEMENTS, order.size()); i++) {
+            int[] placement = placements.get(order.get(i));
+            for (int[] move : moves) {
+                if (!samePlacement(placement, move)) continue;
+                Simulation after = root.copy();
+                after.play(move);
+                candidates.add(new Candidate(move, after));
+            }
+        }
+        return candidates.toArray(new Candidate[0]);
+    }
+
+    /**
+     * A method that checks if two moves place the same side on the same cell.
+     *
+     * @param  a    the first move
+     * @param  b    the second move
+     * @return      true if only their draws differ, false otherwise
+     */
+    private static boolean samePlacement(int[] a, int[] b) {
+        return a[0] == b[0] && a[1] == b[1] && a[2] == b[2];
+    }
+
+    /**
+     * A method that computes the margin of a player over the best of the others, at the end of a game.
+     *
+     * @param  ranking      the ranking, as in {@link Simulation#endGame()}
+     * @param  playerID     the ID of the player
+     * @return              the points of the player minus the points of the best opponent
+     */
+    private static int margin(int[][] ranking, int playerID) {
+        int own = 0;
+        int best = Integer.MIN_VALUE;
+        for (int[] row : ranking) {
+            if (row[0] == playerID) own = row[1];
+            else best = Math.max(best, row[1]);
+        }
+        return best == Integer.MIN_VALUE ? own : own - best;
+    }
+
+    /**
+     * A move searched by rollouts, with the state that follows it and the results of its rollouts.
+     * Each candidate is only updated by the task that owns it during a round.
+     */
+    private static final class Candidate {
+
+        /**
+         * The move, as in {@link Simulation#play(int[])}.
+         */
+        private final int[] move;
+
+        /**
+         * The simulation after the move, copied by every rollout.
+         */
+        private final Simulation after;
+
+        /**
+         * The number of rollouts played and the sum of their margins.
+         */
+        private long visits;
+        private long total;
+
+        /**
+         * Constructor of a candidate.
+         *
+         * @param move      the move
+         * @param after     the simulation after the move
+         */
+        private Candidate(int[] move, Simulation after) {
+            this.move = move;
+            this.after = after;
+        }
+
+        /**
+         * A method that plays a rollout from the state after the move.
+         *
+         * @param playerID  the ID of the player who moves
+         */
+        private void rollout(int playerID) {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            Simulation simulation = after.copy();
+            simulation.shuffleDecks(random);
+            total += margin(simulation.rollout(random), playerID);
+            visits++;
+        }
+
+        /**
+         * A method that retrieves the mean margin of the rollouts.
+         *
+         * @return  the mean margin, the lowest value if no rollout has been played
+         */
+        private double mean() {
+            return visits == 0 ? -Double.MAX_VALUE : (double) total / visits;
+        }
+    }
+
+    /**
+     * A round of the search: {@link #BATCH} rollouts of a range of candidates, split in halves
+     * until each task owns a single candidate.
+     */
+    private static final class Round extends RecursiveAction {
+
+        private final Candidate[] candidates;
+        private final int from;
+        private final int to;
+        private final int playerID;
+
+        /**
+         * Constructor of a round.
+         *
+         * @param candidates    the candidates of the search
+         * @param from          the first candidate of the range, inclusive
+         * @param to            the last candidate of the range, exclusive
+         * @param playerID      the ID of the player who moves
+         */
+        private Round(Candidate[] candidates, int from, int to, int playerID) {
+            this.candidates = candidates;
+            this.from = from;
+            this.to = to;
+            this.playerID = playerID;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                for (int i = 0; i < BATCH; i++) candidates[from].rollout(playerID);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new Round(candidates, from, middle, playerID), new Round(candidates, middle, to, playerID));
+        }
+    }
+}
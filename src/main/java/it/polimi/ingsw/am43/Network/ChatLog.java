@@ -0,0 +1,179 @@
+package it.polimi.ingsw.am43.Network;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The chat of a game, as seen by the server: the last {@link #CAPACITY} messages, public and private, numbered in the order
+ * they were sent, and the unread positions of each player who fetches them instead of receiving them as they are sent.
+ * The messages are kept once in a ring, so the memory taken by the chat of a game never grows, while each player keeps
+ * in a ring of its own the sequence numbers of the messages addressed to it: a read only touches the messages of
+ * the player, never the private messages of the others, and appending a public message costs a position per player.
+ * A player who does not read for longer than the ring lasts misses the oldest messages, which are overwritten.
+ * The log is only used on the {@link GameLoop} of its game, hence it needs no lock.
+ */
+public class ChatLog {
+
+    /**
+     * The number of messages kept by the log of a game.
+     */
+    public static final int CAPACITY = 256;
+
+    /**
+     * The receiver of the public messages.
+     */
+    public static final int EVERYONE = -1;
+
+    /**
+     * The messages, each at the index given by its sequence number modulo the capacity.
+     */
+    private final Message[] ring;
+
+    /**
+     * The sequence number of the next message.
+     */
+    private long next = 0;
+
+    /**
+     * The positions of the messages each player has not read yet, by player ID.
+     */
+    private final Map<Integer, Unread> unread = new HashMap<>();
+
+    /**
+     * Constructor of the log.
+     *
+     * @param capacity the number of messages kept
+     */
+    public ChatLog(int capacity) {
+        if (capacity <= 0) throw new IllegalArgumentException("The capacity of the chat must be positive");
+        this.ring = new Message[capacity];
+    }
+
+    /**
+     * Adds a message to the log, overwriting the oldest one if the log is full.
+     *
+     * @param  senderID    the ID of the sender, who does not read its own public messages
+     * @param  receiverID  the ID of the receiver, or {@link #EVERYONE} for a public message
+     * @param  msg         the message, as it is delivered to the players
+     * @return             the sequence number of the message
+     */
+    public long append(int senderID, int receiverID, Message msg) {
+        long seq = next++;
+        ring[(int) (seq % ring.length)] = msg;
+        if (receiverID != EVERYONE) {
+            Unread positions = unread.get(receiverID);
+            if (positions != null) positions.add(seq);
+        } else {
+            unread.forEach((playerID, positions) -> {
+                if (playerID != senderID) positions.add(seq);
+            });
+        }
+        return seq;
+    }
+
+    /**
+     * Starts keeping the unread positions of a player, who will read the messages sent from now on.
+     *
+     * @param playerID the ID of the player
+     */
+    public void open(int playerID) {
+        unread.put(playerID, new Unread(ring.length));
+    }
+
+    /**
+     * Stops keeping the unread positions of a player.
+     *
+     * @param playerID the ID of the player
+     */
+    public void close(int playerID) {
+        unread.remove(playerID);
+    }
+
+    /**
+     * Returns the messages for a player sent since its last read, oldest first, and forgets their positions.
+     *
+     * @param  playerID  the ID of the player
+     * @return           the messages, empty if there are none or if the player's positions are not kept
+     */
+    public List<Message> read(int playerID) {
+        Unread positions = unread.get(playerID);
+        if (positions == null || positions.size == 0) return List.of();
+        List<Message> messages = new ArrayList<>(positions.size);
+        long oldest = getOldest();
+        while (positions.size > 0) {
+            long seq = positions.poll();
+            // The messages older than the ring have been overwritten
+            if (seq >= oldest) messages.add(ring[(int) (seq % ring.length)]);
+        }
+        return messages;
+    }
+
+    /**
+     * Returns the sequence number of the oldest message still in the log.
+     *
+     * @return the sequence number, equal to {@link #getNext()} if the log is empty
+     */
+    public long getOldest() {
+        return Math.max(0, next - ring.length);
+    }
+
+    /**
+     * Returns the sequence number the next message will have.
+     *
+     * @return the sequence number
+     */
+    public long getNext() {
+        return next;
+    }
+
+    /**
+     * The sequence numbers of the messages a player has not read yet, oldest first, in a ring as large as the log:
+     * when it is full, its oldest position is of a message already overwritten in the log, and is dropped.
+     */
+    private static final class Unread {
+
+        /**
+         * The sequence numbers, from the one at the head.
+         */
+        private final long[] seqs;
+
+        /**
+         * The index of the oldest position, and the number of positions kept.
+         */
+        private int head = 0;
+        private int size = 0;
+
+        /**
+         * Constructor of the positions.
+         *
+         * @param capacity the number of positions kept
+         */
+        private Unread(int capacity) {
+            this.seqs = new long[capacity];
+        }
+
+        /**
+         * Adds the position of a message, dropping the oldest one if the ring is full.
+         *
+         * @param seq the sequence number of the message
+         */
+        private void add(long seq) {
+            if (size == seqs.length) poll();
+            seqs[(head + size++) % seqs.length] = seq;
+        }
+
+        /**
+         * Removes the oldest position.
+         *
+         * @return the sequence number of the message
+         */
+        private long poll() {
+            long seq = seqs[head];
+            head = (head + 1) % seqs.length;
+            size--;
+            return seq;
+        }
+    }
+}
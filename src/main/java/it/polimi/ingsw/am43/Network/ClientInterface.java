@@ -1,5 +1,6 @@
 package it.polimi.ingsw.am43.Network;
 
+import java.io.IOException;
 import java.io.Serializable;
 import java.rmi.Remote;
 import java.rmi.RemoteException;
@@ -9,4 +10,11 @@ public interface ClientInterface extends Remote, Serializable {
     Message readNewMessage();
 
     void writeNewMessage(Message msg);
+
+    /**
+     * Closes the connection with the server for good. The loss of the connection is not reported afterwards.
+     *
+     * @throws IOException if an I/O error occurs while closing the connection
+     */
+    void killConnection() throws IOException;
 }
@@ -0,0 +1,289 @@
+package it.polimi.ingsw.am43.Network;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * The single writer of a game: every command that reads or modifies the {@link it.polimi.ingsw.am43.Controller.GameController}
+ * of the game, or the state kept by its {@link GameServer}, runs on the loop, one at a time and in the order it was submitted.
+ * The game is then never touched by two threads at once, without any lock, whichever transport the commands come from.
+ * The loop owns no thread: the commands are run by a task on the executor of the game, queued only while there are
+ * commands to run, so that idle games cost nothing and busy ones are spread over the cores.
+ * After each command that may modify the game the loop runs a hook, which the {@link GameServer} uses to publish
+ * a {@link GameSnapshot} for the threads that only read; the commands that only read, submitted through
+ * {@link #read(Supplier)} and {@link #executeReadOnly(Runnable)}, skip it, since the snapshot would not change.
+ */
+public class GameLoop implements Executor {
+
+    /**
+     * ANSI color codes for the messages printed by the loop
+     */
+    static String RESET = "\033[0m";
+    static String RED = "\033[0;31m"; // Used for ERROR
+
+    /**
+     * The executor that runs the loop.
+     */
+    private final Executor executor;
+
+    /**
+     * The action run after each command that may modify the game.
+     */
+    private final Runnable afterCommand;
+
+    /**
+     * The commands waiting to be run.
+     */
+    private final Queue<Runnable> commands = new ConcurrentLinkedQueue<>();
+
+    /**
+     * A flag that indicates if a task that runs the commands is queued or running.
+     */
+    private final AtomicBoolean draining = new AtomicBoolean(false);
+
+    /**
+     * The thread running the commands, null while the loop is idle.
+     */
+    private volatile Thread runner;
+
+    /**
+     * Constructor of the loop.
+     *
+     * @param executor      the executor that runs the loop
+     * @param afterCommand  the action run after each command that may modify the game, on the loop
+     */
+    public GameLoop(Executor executor, Runnable afterCommand) {
+        this.executor = executor;
+        this.afterCommand = afterCommand;
+    }
+
+    /**
+     * Submits a command, which is run after the ones already submitted.
+     *
+     * @param  command  the command
+     * @throws RejectedExecutionException if the game has been stopped
+     */
+    @Override
+    public void execute(Runnable command) {
+        commands.add(command);
+        schedule();
+    }
+
+    /**
+     * Submits a command that does not modify the game, which is run after the ones already submitted
+     * without running the hook.
+     *
+     * @param  command  the command
+     * @throws RejectedExecutionException if the game has been stopped
+     */
+    public void executeReadOnly(Runnable command) {
+        execute(new ReadOnly(command));
+    }
+
+    /**
+     * Runs a command on the loop and waits for its result. A command called from the loop itself is run at once,
+     * since waiting for it would never end.
+     *
+     * @param  command  the command
+     * @param  <T>      the type of the result
+     * @return          the result of the command
+     * @throws RejectedExecutionException if the game has been stopped
+     * @throws RuntimeException the exception thrown by the command, if any
+     * @throws Error the error thrown by the command, if any
+     */
+    public <T> T call(Supplier<T> command) {
+        return call(command, false);
+    }
+
+    /**
+     * Runs a command that does not modify the game on the loop and waits for its result, without running the hook.
+     * A command called from the loop itself is run at once.
+     *
+     * @param  query  the command
+     * @param  <T>    the type of the result
+     * @return        the result of the command
+     * @throws RejectedExecutionException if the game has been stopped
+     * @throws RuntimeException the exception thrown by the command, if any
+     * @throws Error the error thrown by the command, if any
+     */
+    public <T> T read(Supplier<T> query) {
+        return call(query, true);
+    }
+
+    /**
+     * Runs a command on the loop and waits for its result.
+     *
+     * @param  command   the command
+     * @param  readOnly  whether the command leaves the game unchanged, so that the hook is not run after it
+     * @param  <T>       the type of the result
+     * @return           the result of the command
+     */
+    private <T> T call(Supplier<T> command, boolean readOnly) {
+        if (inLoop()) return command.get();
+        Call<T> call = new Call<>(command, readOnly);
+        execute(call);
+        try {
+            return call.result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            if (e.getCause() instanceof Error cause) throw cause;
+            throw e;
+        }
+    }
+
+    /**
+     * Checks if the calling thread is the one running the commands.
+     *
+     * @return true if called by a command
+     */
+    public boolean inLoop() {
+        return runner == Thread.currentThread();
+    }
+
+    /**
+     * Queues the task that runs the commands, unless it is already queued or running.
+     */
+    private void schedule() {
+        if (commands.isEmpty() || !draining.compareAndSet(false, true)) return;
+        try {
+            executor.execute(this::drain);
+        } catch (RejectedExecutionException e) {
+            draining.set(false);
+            reject();
+            throw e;
+        }
+    }
+
+    /**
+     * Runs the commands until none is left. A command that fails is reported and does not stop the following ones.
+     * A command that throws an {@link Error} ends the task, but its caller is answered and the commands
+     * left are run by another task.
+     */
+    private void drain() {
+        runner = Thread.currentThread();
+        try {
+            Runnable command;
+            while ((command = commands.poll()) != null) {
+                try {
+                    try {
+                        command.run();
+                    } catch (RuntimeException e) {
+                        System.err.println(RED + "[ERROR] Game command failed: " + e + RESET);
+                        e.printStackTrace();
+                    }
+                    if (!(command instanceof ReadOnly) && !(command instanceof Call<?> call && call.readOnly)) afterCommand.run();
+                } finally {
+                    // A caller waiting for the command sees the snapshot published after it
+                    if (command instanceof Call<?> call) call.complete();
+                }
+            }
+        } finally {
+            runner = null;
+            draining.set(false);
+            try {
+                schedule();
+            } catch (RejectedExecutionException ignored) {
+                // The game has been stopped by the last command
+            }
+        }
+    }
+
+    /**
+     * Discards the commands left once the game has been stopped, failing the callers waiting for them.
+     */
+    private void reject() {
+        Runnable command;
+        while ((command = commands.poll()) != null) {
+            if (command instanceof Call<?> call) call.result.completeExceptionally(new RejectedExecutionException("The game has been stopped"));
+        }
+    }
+
+    /**
+     * A command that does not modify the game.
+     */
+    private static final class ReadOnly implements Runnable {
+
+        /**
+         * The command.
+         */
+        private final Runnable command;
+
+        /**
+         * Constructor of the read-only command.
+         *
+         * @param command the command
+         */
+        private ReadOnly(Runnable command) {
+            this.command = command;
+        }
+
+        @Override
+        public void run() {
+            command.run();
+        }
+    }
+
+    /**
+     * A command whose caller waits for its result.
+     *
+     * @param <T> the type of the result
+     */
+    private static final class Call<T> implements Runnable {
+
+        /**
+         * The command.
+         */
+        private final Supplier<T> command;
+
+        /**
+         * The result handed to the caller.
+         */
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+
+        /**
+         * Whether the command leaves the game unchanged.
+         */
+        private final boolean readOnly;
+
+        /**
+         * The value returned by the command and what it threw, kept until the hook has run.
+         */
+        private T value;
+        private Throwable failure;
+
+        /**
+         * Constructor of the call.
+         *
+         * @param command   the command
+         * @param readOnly  whether the command leaves the game unchanged
+         */
+        private Call(Supplier<T> command, boolean readOnly) {
+            this.command = command;
+            this.readOnly = readOnly;
+        }
+
+        @Override
+        public void run() {
+            try {
+                value = command.get();
+            } catch (Throwable e) {
+                // Even an error has to reach the caller, who would otherwise wait forever
+                failure = e;
+            }
+        }
+
+        /**
+         * Hands the outcome of the command to the caller.
+         */
+        private void complete() {
+            if (failure != null) result.completeExceptionally(failure);
+            else result.complete(value);
+        }
+    }
+}
@@ -0,0 +1,434 @@
+package it.polimi.ingsw.am43.Network;
+
+import it.polimi.ingsw.am43.Network.Metrics.ServerMetrics;
+import it.polimi.ingsw.am43.Network.RMI.RMILobby;
+import it.polimi.ingsw.am43.Network.Socket.NioSocketServer;
+import it.polimi.ingsw.am43.Network.Socket.SocketServer;
+import it.polimi.ingsw.am43.Network.Socket.SocketTransport;
+
+import java.io.File;
+import java.io.IOException;
+import java.rmi.RemoteException;
+import java.rmi.registry.LocateRegistry;
+import java.rmi.registry.Registry;
+import java.rmi.server.UnicastRemoteObject;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Class that hosts many concurrent games in the same server process.
+ * All the games share a single {@link SocketTransport}, listening on the server port,
+ * and a single RMI registry, listening on the following port, where a {@link RMILobby}
+ * is bound as the front door for RMI clients.
+ * Every new connection is routed to a {@link GameServer}: lobbies are created on demand,
+ * saved games are loaded when a player asks to rejoin them, and each game is removed
+ * from the registry as soon as it is torn down.
+ */
+public class GameRegistry {
+
+    /**
+     * ANSI color codes for various messages printed from the server
+     */
+    static String RESET = "\033[0m";
+    static String RED = "\033[0;31m"; // Used for ERROR
+    static String YELLOW = "\033[0;33m"; // Used for SERVER messages
+
+    /**
+     * The name under which the {@link RMILobby} is bound in the RMI registry.
+     */
+    public static final String RMI_LOBBY_NAME = "RMILobby";
+
+    /**
+     * Address of the servers
+     */
+    private final String addr;
+
+    /**
+     * Port of the servers
+     */
+    private final int port;
+
+    /**
+     * The hosted games, by game ID.
+     */
+    private final Map<String, GameServer> games = new LinkedHashMap<>();
+
+    /**
+     * The saved games being loaded, by game ID: the clients routed to a game while it is loaded wait for the same load.
+     */
+    private final Map<String, CompletableFuture<GameServer>> loading = new HashMap<>();
+
+    /**
+     * The lock that guards the hosted games and the ones being loaded. It is never held while a game is loaded
+     * from its file, so that routing to the other games does not wait for the disk.
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * The {@link SocketTransport} shared by all the games, blocking or non-blocking depending on the configuration.
+     */
+    private SocketTransport socketServer;
+
+    /**
+     * The RMI registry shared by all the games.
+     */
+    private Registry rmiRegistry;
+
+    /**
+     * The {@link RMILobby} bound in the RMI registry.
+     */
+    private RMILobby rmiLobby;
+
+    /**
+     * The {@link ServerConfig} of the threads and resources used by the server.
+     */
+    private final ServerConfig config;
+
+    /**
+     * Scheduler shared by all the games, to send and check heartbeats and to run delayed tasks.
+     */
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * Persistence stage shared by all the games, that writes their saves off the path of the turns.
+     */
+    private final ExecutorService persistenceStage;
+
+    /**
+     * Fork-join pool shared by all the games, that runs the searches of the bots.
+     */
+    private final ForkJoinPool botPool;
+
+    /**
+     * The {@link ServerMetrics} of all the games, exposed through JMX while the servers are running.
+     */
+    private final ServerMetrics metrics;
+
+    /**
+     * Constructor of the registry, configured through the system properties.
+     *
+     * @param a  address of the servers
+     * @param p  port of the socket server, the RMI registry listens on the following one
+     */
+    public GameRegistry(String a, int p) {
+        this(a, p, ServerConfig.fromSystemProperties());
+    }
+
+    /**
+     * Constructor of the registry.
+     *
+     * @param a       address of the servers
+     * @param p       port of the socket server, the RMI registry listens on the following one
+     * @param config  the {@link ServerConfig} of the threads and resources used by the server
+     */
+    public GameRegistry(String a, int p, ServerConfig config) {
+        this.addr = a;
+        this.port = p;
+        this.config = config;
+        this.scheduler = config.newScheduler();
+        this.persistenceStage = config.newPersistenceStage();
+        this.botPool = config.newBotPool();
+        this.metrics = new ServerMetrics(this);
+    }
+
+    /**
+     * Starts the shared {@link SocketTransport} and the RMI registry with the {@link RMILobby}.
+     *
+     * @throws IOException if one of the servers cannot be started
+     */
+    public void start() throws IOException {
+        System.out.println(YELLOW + "[SERVER] Servers starting on " + addr + ":" + port + "/" + (port+1) + RESET);
+        System.out.println(YELLOW + "[SERVER] Using " + config + RESET);
+        metrics.register(port);
+        System.out.println(YELLOW + "[SERVER] Starting RMI server..." + RESET);
+        rmiLobby = new RMILobby(this);
+        rmiRegistry = LocateRegistry.createRegistry(port + 1);
+        rmiRegistry.rebind(RMI_LOBBY_NAME, rmiLobby);
+        System.out.println(YELLOW + "[SERVER] RMI Server started." + RESET);
+        System.out.println(YELLOW + "[SERVER] Starting socket server..." + RESET);
+        socketServer = config.getTransport() == ServerConfig.Transport.NIO
+                ? new NioSocketServer(addr, port, this, config)
+                : new SocketServer(addr, port, this, config);
+        socketServer.start();
+    }
+
+    /**
+     * Stops all the hosted games and both the shared servers.
+     */
+    public void stop() {
+        System.out.println(YELLOW + "[SERVER] Stopping the servers..." + RESET);
+        List<GameServer> hosted;
+        lock.lock();
+        try {
+            hosted = new ArrayList<>(games.values());
+        } finally {
+            lock.unlock();
+        }
+        for (GameServer game : hosted) {
+            game.stop();
+        }
+        scheduler.shutdownNow();
+        botPool.shutdownNow();
+        // Stopped games have written their pending saves: nothing is left on the stage
+        persistenceStage.shutdown();
+        if (socketServer != null) socketServer.close();
+        try {
+            if (rmiRegistry != null) {
+                rmiRegistry.unbind(RMI_LOBBY_NAME);
+                UnicastRemoteObject.unexportObject(rmiLobby, true);
+                UnicastRemoteObject.unexportObject(rmiRegistry, true);
+            }
+        } catch (Exception e) {
+            System.err.println(RED + "[ERROR] RMI Server exception: " + e + RESET);
+        }
+        metrics.unregister();
+        System.out.println(YELLOW + "[SERVER] Servers successfully stopped!" + RESET);
+    }
+
+    /**
+     * Routes a new client to a game, reserving a slot for it.
+     * If no game ID is given, the client is routed to the first open lobby, or to a new one
+     * if none is open. Otherwise, the client is routed to the game with that ID,
+     * loading it from its save file if it is not hosted yet.
+     *
+     * @param  gameID  the ID of the game to join, null to join any open lobby
+     * @return         the {@link GameServer} of the game, null if no game can accept the client
+     */
+    public GameServer route(String gameID) {
+        if (gameID != null && !gameID.isEmpty()) return routeToSaved(gameID);
+        lock.lock();
+        try {
+            for (GameServer game : games.values()) {
+                if (!game.isLoaded() && game.reserveSlot()) return game;
+            }
+            GameServer game = createGame();
+            return game.reserveSlot() ? game : null;
+        } catch (IOException e) {
+            System.err.println(RED + "[ERROR] Unable to route client to a new game: " + e + RESET);
+            return null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Routes a new client to the game with the given ID, reserving a slot for it.
+     * If the game is not hosted yet, it is loaded from its save file by the first client that asks for it,
+     * outside the lock, while the clients asking for it meanwhile wait for the same load.
+     *
+     * @param  gameID  the ID of the game to join
+     * @return         the {@link GameServer} of the game, null if the game cannot accept the client
+     */
+    private GameServer routeToSaved(String gameID) {
+        // The ID is also used as a file name, never accept anything else than a game ID
+        if (!gameID.matches("[0-9]{6}")) return null;
+        CompletableFuture<GameServer> load;
+        boolean loader = false;
+        lock.lock();
+        try {
+            GameServer game = games.get(gameID);
+            if (game != null) return game.reserveSlot() ? game : null;
+            load = loading.get(gameID);
+            if (load == null) {
+                if (!existFile(gameID)) return null;
+                load = new CompletableFuture<>();
+                loading.put(gameID, load);
+                loader = true;
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (loader) loadGame(gameID, load);
+        try {
+            GameServer game = load.join();
+            return game.reserveSlot() ? game : null;
+        } catch (CompletionException e) {
+            System.err.println(RED + "[ERROR] Unable to route client to game " + gameID + ": " + e.getCause() + RESET);
+            return null;
+        }
+    }
+
+    /**
+     * Creates a new lobby, with an ID not used by any hosted or saved game.
+     *
+     * @return the {@link GameServer} of the new lobby
+     * @throws RemoteException if the RMI server of the game cannot be exported
+     */
+    private GameServer createGame() throws RemoteException {
+        GameServer game = new GameServer(this);
+        while (games.containsKey(game.getGameID()) || existFile(game.getGameID())) {
+            game.discard();
+            game = new GameServer(this);
+        }
+        host(game);
+        return game;
+    }
+
+    /**
+     * Loads a saved game outside the lock and hosts it, waiting for its players to rejoin.
+     *
+     * @param  gameID  the ID of the game to load
+     * @param  load    the load of the game, completed with the {@link GameServer} of the loaded game
+     *                 or with the exception that made the load fail
+     */
+    private void loadGame(String gameID, CompletableFuture<GameServer> load) {
+        GameServer game;
+        try {
+            game = new GameServer(this, gameID);
+        } catch (IOException | ClassNotFoundException | RuntimeException e) {
+            lock.lock();
+            try {
+                loading.remove(gameID);
+            } finally {
+                lock.unlock();
+            }
+            load.completeExceptionally(e);
+            return;
+        }
+        lock.lock();
+        try {
+            loading.remove(gameID);
+            host(game);
+        } finally {
+            lock.unlock();
+        }
+        load.complete(game);
+    }
+
+    /**
+     * Adds a game to the registry and starts it.
+     *
+     * @param  game  the {@link GameServer} of the game
+     */
+    private void host(GameServer game) {
+        games.put(game.getGameID(), game);
+        game.start();
+        System.out.println(YELLOW + "[SERVER] Number of hosted games: " + games.size() + RESET);
+    }
+
+    /**
+     * Removes a game that has been torn down from the registry.
+     *
+     * @param  game  the {@link GameServer} of the game
+     */
+    public void remove(GameServer game) {
+        lock.lock();
+        try {
+            if (games.remove(game.getGameID(), game)) {
+                System.out.println(YELLOW + "[SERVER] Number of hosted games: " + games.size() + RESET);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of hosted games.
+     *
+     * @return the number of hosted games
+     */
+    public int getGamesCount() {
+        lock.lock();
+        try {
+            return games.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of players connected to the hosted games.
+     *
+     * @return the number of players
+     */
+    public int getPlayersCount() {
+        lock.lock();
+        try {
+            int players = 0;
+            for (GameServer game : games.values()) players += game.getSnapshot().getClientsCounter();
+            return players;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the highest number of turns not on the disk yet among the hosted games.
+     *
+     * @return the highest durability lag, in turns
+     */
+    public int getMaxDurabilityLag() {
+        lock.lock();
+        try {
+            int lag = 0;
+            for (GameServer game : games.values()) lag = Math.max(lag, game.getDurabilityLag());
+            return lag;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the {@link ServerMetrics} of all the games.
+     *
+     * @return the metrics of the server
+     */
+    public ServerMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Returns the scheduler shared by all the games. Its tasks must never block.
+     *
+     * @return the shared scheduler
+     */
+    public ScheduledExecutorService getScheduler() {
+        return scheduler;
+    }
+
+    /**
+     * Returns the persistence stage shared by all the games.
+     *
+     * @return the persistence stage
+     */
+    public ExecutorService getPersistenceStage() {
+        return persistenceStage;
+    }
+
+    /**
+     * Returns the fork-join pool shared by all the games, that runs the searches of the bots.
+     *
+     * @return the pool of the bots
+     */
+    public ForkJoinPool getBotPool() {
+        return botPool;
+    }
+
+    /**
+     * Returns the {@link ServerConfig} of the threads and resources used by the server.
+     *
+     * @return the configuration of the server
+     */
+    public ServerConfig getConfig() {
+        return config;
+    }
+
+    /**
+     * Checks if a file with the given game ID exists in the "CodexNaturalis" directory
+     * at the user's home directory.
+     *
+     * @param  gameID  the ID of the file to check
+     * @return         true if the file exists, false otherwise
+     */
+    private static boolean existFile(String gameID) {
+        String homePath = System.getProperty("user.home");
+        String path = homePath + File.separator + "CodexNaturalis" + File.separator + gameID;
+        File file = new File(path);
+        return file.exists();
+    }
+}
@@ -1,22 +1,40 @@
 package it.polimi.ingsw.am43.Network;
 
 import it.polimi.ingsw.am43.Controller.GameController;
+import it.polimi.ingsw.am43.Controller.GameSaver;
+import it.polimi.ingsw.am43.Model.Enum.PawnColor;
+import it.polimi.ingsw.am43.Network.Bot.BotSeat;
 import it.polimi.ingsw.am43.Network.Messages.toClientMessages.endGameMsg;
 import it.polimi.ingsw.am43.Network.Messages.toClientMessages.gameInfoMsg;
 import it.polimi.ingsw.am43.Network.RMI.RMIServer;
 import it.polimi.ingsw.am43.Network.Messages.toClientMessages.privateChatMessageMsg;
 import it.polimi.ingsw.am43.Network.Messages.toClientMessages.publicChatMessageMsg;
-import it.polimi.ingsw.am43.Network.Socket.SocketServer;
+import it.polimi.ingsw.am43.Network.Socket.ClientConnection;
+import it.polimi.ingsw.am43.Network.Socket.SocketLobby;
+
 
 import java.io.IOException;
-import java.net.Socket;
+import java.rmi.NoSuchObjectException;
 import java.rmi.RemoteException;
-import java.rmi.registry.LocateRegistry;
-import java.rmi.registry.Registry;
+import java.rmi.server.UnicastRemoteObject;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
- * Class that unifies the RMI and Socket servers and runs both.
+ * Class that unifies the RMI and Socket sides of a single game.
+ * Many games run in the same process: the connections are accepted by the servers
+ * shared through the {@link GameRegistry}, which routes them to the GameServer of their game.
+ * Seats can also be given to {@link BotSeat}s, played by the server: the seats still free when a lobby
+ * times out, and the seats of the players who drop during a match, if the {@link ServerConfig} allows it.
+ * <p>
+ * The game and the state of the lobby are only touched by the {@link GameLoop} of the game: the socket handlers,
+ * the RMI calls, the bots and the scheduled checks all submit their work to it, so they need no lock.
+ * The threads that only read the lobby use the {@link GameSnapshot} published after every command.
  */
 public class GameServer {
 
@@ -29,39 +47,69 @@ public class GameServer {
     static String YELLOW = "\033[0;33m"; // Used for SERVER messages
 
     /**
-     * Address of the servers
+     * The maximum number of players of a game.
+     */
+    public static final int MAX_PLAYERS = 4;
+
+    /**
+     * The time a finished game is kept alive, so that all the clients can receive the results, in milliseconds.
+     */
+    private static final long END_GAME_TEARDOWN_DELAY = 60000;
+
+    /**
+     * The time after which filling a lobby with bots is tried again, while a client is still joining, in milliseconds.
      */
-    private final String addr;
+    private static final long LOBBY_FILL_RETRY = 1000;
 
     /**
-     * Port of the servers
+     * The time an RMI client routed to the game has to register, before its slot is released, in milliseconds.
      */
-    private final int port;
+    private static final long RMI_REGISTRATION_TIMEOUT = 10000;
 
     /**
-     * {@link SocketServer} for Socket communication.
+     * The {@link GameRegistry} that hosts the game.
      */
-    private SocketServer socketServer;
+    private final GameRegistry registry;
 
     /**
-     * List of RMI clients connected.
+     * {@link SocketLobby} for Socket communication.
      */
-    private final List<Integer> rmiClients = new ArrayList<>();
+    private final SocketLobby socketLobby;
 
     /**
      * Boolean flag that indicates if the RMI server is running.
      */
-    private boolean rmiRunning = false;
+    private volatile boolean rmiRunning = false;
+
+    /**
+     * Task, scheduled on the scheduler shared by all the games, that checks the heartbeats periodically.
+     */
+    private ScheduledFuture<?> heartbeatTask;
+
+    /**
+     * The executor that runs the {@link GameLoop} of the game.
+     */
+    private final ExecutorService executor;
 
     /**
-     * Timer that send a heartbeat periodically.
+     * The {@link GameLoop} that runs every command of the game, one at a time.
      */
-    private final Timer heartbeatTimer = new Timer();
+    private final GameLoop loop;
+
+    /**
+     * The last {@link GameSnapshot} published by the loop.
+     */
+    private volatile GameSnapshot snapshot;
+
+    /**
+     * The {@link ChatLog} from which the RMI players fetch the chat, only used on the loop.
+     */
+    private final ChatLog chatLog = new ChatLog(ChatLog.CAPACITY);
 
     /**
      * {@link RMIServer} for RMI communication.
      */
-    private RMIServer rmiServer;
+    private final RMIServer rmiServer;
 
     /**
      * The {@link GameController} that manages the {@link it.polimi.ingsw.am43.Model.Game}.
@@ -73,6 +121,18 @@ public class GameServer {
      */
     private int clientsCounter = 0;
 
+    /**
+     * A counter that keeps track of the slots reserved by the {@link GameRegistry} for routed clients.
+     * It is the only counter also modified outside the loop, by the threads that route the clients.
+     */
+    private final AtomicInteger reservedSlots = new AtomicInteger();
+
+    /**
+     * The deadlines of the slots reserved for the RMI clients routed to the game and not registered yet,
+     * oldest first, in nanoseconds. It is only used on the loop.
+     */
+    private final Deque<Long> rmiReservations = new ArrayDeque<>();
+
     /**
      * A counter that keeps track of the number of objectives chosen by the players.
      * It is used to understand when to start the game.
@@ -87,121 +147,284 @@ public class GameServer {
     /**
      * A map that keeps track of the connected clients (only Socket connection).
      */
-    private final Map<Integer, Socket> socketClients = new HashMap<>();
+    private final Map<Integer, ClientConnection> socketClients = new HashMap<>();
 
     /**
-     * A flag used to stop accepting new clients when the game has started.
+     * The seats played by bots, by player ID.
      */
-    private boolean acceptingNewClients = true;
+    private final Map<Integer, BotSeat> bots = new HashMap<>();
 
     /**
-     * A flag used by {@link it.polimi.ingsw.am43.Network.RMI.RMIClient}s to know if anything has changed.
+     * A flag that indicates if the initial situations have been dealt, hence if a bot can take its seat at once.
      */
-    private Boolean hasNewGameInfo;
+    private boolean matchStarted = false;
 
     /**
-     * A flag that indicates if the server is stopping.
+     * A flag used to stop accepting new clients when the game has started.
      */
-    private boolean isStopping = false;
+    private boolean acceptingNewClients = true;
 
     /**
-     * A hashmap used for RMI clients to notice changes in game.
+     * A flag that indicates if the server is stopping.
      */
-    private final HashMap<Integer, Boolean> gameInfoCounter = new HashMap<>();
+    private final AtomicBoolean isStopping = new AtomicBoolean(false);
 
     /**
      * A message used when the match has finished.
      */
     private endGameMsg endGameMsg = null;
 
-    /**
-     * A hashmap that keeps track of the messages sent to RMI clients.
-     */
-    private final HashMap<Integer, Stack<Message>> messagesToRMICounter = new HashMap<>();
-
     /**
      * A flag that indicates if the RMI server has to close and kick the clients.
      */
-    public boolean rmiHasToClose = false;
+    public volatile boolean rmiHasToClose = false;
 
     /**
-     * Constructor that starts both {@link SocketServer} and {@link RMIServer}.
+     * Constructor that creates both {@link SocketLobby} and {@link RMIServer}.
      * This is used when creating a new game.
      *
-     * @param a  address of the servers
-     * @param p  port of the servers
+     * @param registry  the {@link GameRegistry} that hosts the game
+     * @throws RemoteException if the {@link RMIServer} cannot be exported
      */
-    public GameServer(String a, int p)  {
+    public GameServer(GameRegistry registry) throws RemoteException {
+        this.registry = registry;
         this.gameController = new GameController();
-        addr = a;
-        port = p;
-        try {
-            socketServer = new SocketServer(addr, port, gameController, this);
-        } catch (IOException e) {
-            System.err.println(RED + "[SERVER] Error while starting servers: " + e.getMessage());
-            new Timer().schedule(new TimerTask() {
-                @Override
-                public void run() {
-                    System.exit(0);
-                }
-            }, 10000);
-        }
-        System.out.println(GREEN + "[GAME] Created game with ID: " + gameController.getGameID() + RESET);
+        gameController.setPersistence(registry.getPersistenceStage(), registry.getConfig().getDurability(),
+                registry.getMetrics()::recordSave, registry.getMetrics()::recordFailedSave);
+        this.socketLobby = new SocketLobby(gameController, this);
+        this.rmiServer = new RMIServer(this, gameController);
+        this.executor = registry.getConfig().newGameExecutor(getGameID());
+        this.loop = new GameLoop(executor, this::publishSnapshot);
+        publishSnapshot();
     }
 
     /**
-     * Constructor that starts both {@link SocketServer} and {@link RMIServer}.
+     * Constructor that creates both {@link SocketLobby} and {@link RMIServer}.
      * This is used when loading an existing game.
      *
-     * @param a  address of the servers
-     * @param p  port of the servers
-     * @param gameID  ID of the game
+     * @param registry  the {@link GameRegistry} that hosts the game
+     * @param gameID    ID of the game
+     * @throws IOException if an I/O error occurs while loading the game
+     * @throws ClassNotFoundException if the class of the saved game cannot be found
      */
-    public GameServer(String a, int p, String gameID) throws IOException, ClassNotFoundException {
+    public GameServer(GameRegistry registry, String gameID) throws IOException, ClassNotFoundException {
+        this.registry = registry;
         this.gameController = new GameController();
-        addr = a;
-        port = p;
         gameController.loadGame(gameID);
+        gameController.setPersistence(registry.getPersistenceStage(), registry.getConfig().getDurability(),
+                registry.getMetrics()::recordSave, registry.getMetrics()::recordFailedSave);
         this.numberOfPlayers = gameController.getNumPlayers();
-        try {
-            socketServer = new SocketServer(addr, port, gameController, this);
-        } catch (IOException e) {
-            throw new RuntimeException(e);
-        }
-        System.out.println(GREEN + "[GAME] Loaded game with ID: " + gameID + RESET);
+        this.socketLobby = new SocketLobby(gameController, this);
+        this.rmiServer = new RMIServer(this, gameController);
+        this.executor = registry.getConfig().newGameExecutor(getGameID());
+        this.loop = new GameLoop(executor, this::publishSnapshot);
+        publishSnapshot();
     }
 
     /**
-     * Method to run both {@link SocketServer} and {@link RMIServer}.
+     * Method to start the game, making its {@link RMIServer} available and starting the heartbeat checking.
      */
-    public void run() {
-        System.out.println(YELLOW + "[SERVER] Servers starting on " + addr + ":" + port + "/" + (port+1) + RESET);
-        startRMIServer();
-        // Starts a thread to constantly update the connected clients counter
-        new Thread(this::getConnectedClients).start();
-        // Starts the heartbeating function
+    public void start() {
+        setRmiRunning(true);
         startHeartbeatChecking();
-        System.out.println(YELLOW + "[SERVER] Starting socket server..." + RESET);
-        socketServer.start();
+        if (gameController.getLoaded()) {
+            System.out.println(GREEN + "[GAME] Loaded game with ID: " + getGameID() + RESET);
+        } else {
+            System.out.println(GREEN + "[GAME] Created game with ID: " + getGameID() + RESET);
+        }
     }
 
     /**
-     * A method that stops the servers by stopping the RMI server, stopping the heartbeat checking,
-     * and interrupting the socket server.
+     * A method that tears the game down by stopping the heartbeat checking, kicking all the clients,
+     * stopping the RMI server and closing the saves of the game, with a last snapshot if turns have been
+     * journaled since the previous one. The game is then removed from the {@link GameRegistry},
+     * while the other games keep running. Called from outside the loop, it waits for the loop to tear the game down.
      */
     public void stop() {
-        isStopping = true;
-        System.out.println(YELLOW + "[SERVER] Stopping the servers..." + RESET);
-        stopRMIServer();
+        if (!loop.inLoop()) {
+            try {
+                loop.call(() -> {
+                    stop();
+                    return null;
+                });
+            } catch (RejectedExecutionException ignored) {
+                // The game has already been stopped
+            }
+            return;
+        }
+        if (!isStopping.compareAndSet(false, true)) return;
+        System.out.println(YELLOW + "[SERVER] Stopping game " + getGameID() + "..." + RESET);
         stopHeartbeatChecking();
-        socketServer.interrupt();
         kickAll();
-        System.out.println(YELLOW + "[SERVER] Servers successfully stopped!" + RESET);
-        System.out.println(RED + "Press enter to exit..." + RESET);
-        Scanner scanner = new Scanner(System.in);
-        scanner.nextLine();
-        scanner.close();
-        System.exit(0);
+        stopRMIServer();
+        try {
+            gameController.closeSaves();
+        } catch (IOException e) {
+            System.err.println(RED + "[ERROR] Unable to save game " + getGameID() + ": " + e + RESET);
+        }
+        executor.shutdown();
+        registry.remove(this);
+        System.out.println(YELLOW + "[SERVER] Game " + getGameID() + " successfully stopped!" + RESET);
+    }
+
+    /**
+     * A method that releases the resources of a game that has never been started.
+     */
+    void discard() {
+        executor.shutdown();
+        try {
+            UnicastRemoteObject.unexportObject(rmiServer, true);
+        } catch (NoSuchObjectException ignored) {}
+    }
+
+    /**
+     * Returns the ID of the game.
+     *
+     * @return the ID of the game
+     */
+    public String getGameID() {
+        return String.valueOf(gameController.getGameID());
+    }
+
+    /**
+     * Returns if the game has been loaded from a save file.
+     *
+     * @return true if the game has been loaded, false otherwise
+     */
+    public boolean isLoaded() {
+        return gameController.getLoaded();
+    }
+
+    /**
+     * Returns the {@link RMIServer} of the game, handed to the RMI clients routed to it.
+     *
+     * @return the {@link RMIServer} of the game
+     */
+    public RMIServer getRMIServer() {
+        return rmiServer;
+    }
+
+    /**
+     * Reserves a slot for a client routed to the game, if the game can still accept it.
+     * It is called by the threads that route the clients, hence it never waits for the loop:
+     * the lobby is read from the last snapshot.
+     *
+     * @return true if the slot has been reserved, false if the game is full or not accepting clients
+     */
+    public boolean reserveSlot() {
+        GameSnapshot lobby = snapshot;
+        int capacity = lobby.getNumberOfPlayers() > 0 ? lobby.getNumberOfPlayers() : MAX_PLAYERS;
+        if (isStopping() || !lobby.isAcceptingNewClients()) return false;
+        int reserved;
+        do {
+            reserved = reservedSlots.get();
+            if (reserved >= capacity) return false;
+        } while (!reservedSlots.compareAndSet(reserved, reserved + 1));
+        return true;
+    }
+
+    /**
+     * Releases the slot reserved for a routed client that has not taken a seat in the game,
+     * so that the lobby does not look full and can still be filled with bots.
+     */
+    public void releaseSlot() {
+        reservedSlots.decrementAndGet();
+    }
+
+    /**
+     * Keeps the slot reserved for an RMI client routed to the game until the client registers,
+     * or releases it if the client has not registered within {@link #RMI_REGISTRATION_TIMEOUT}.
+     * It is called before the client gets the {@link RMIServer}, so the reservation is queued on the loop
+     * before the registration of the client.
+     */
+    public void expectRMIClient() {
+        try {
+            loop.execute(() -> rmiReservations.add(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(RMI_REGISTRATION_TIMEOUT)));
+        } catch (RejectedExecutionException e) {
+            // The game has been stopped: its slots do not matter anymore
+            return;
+        }
+        registry.getScheduler().schedule(() -> execute(this::expireRMIReservations), RMI_REGISTRATION_TIMEOUT, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Takes the slot reserved for an RMI client that is registering, on the loop.
+     * A client that registers after its reservation expired has to reserve a slot again.
+     *
+     * @return true if the client has a slot, false if the game cannot accept it anymore
+     */
+    public boolean claimRMISlot() {
+        if (rmiReservations.poll() != null) return true;
+        return reserveSlot();
+    }
+
+    /**
+     * Releases the slots of the RMI clients that have not registered in time, on the loop.
+     */
+    private void expireRMIReservations() {
+        long now = System.nanoTime();
+        while (!rmiReservations.isEmpty() && rmiReservations.peek() - now <= 0) {
+            rmiReservations.poll();
+            releaseSlot();
+        }
+    }
+
+    /**
+     * Hands a socket client routed to the game to its {@link SocketLobby}, on the loop.
+     *
+     * @param  client  the connection with the client
+     */
+    public void acceptSocketClient(ClientConnection client) {
+        try {
+            loop.execute(() -> socketLobby.addClient(client));
+        } catch (RejectedExecutionException e) {
+            releaseSlot();
+            client.close();
+        }
+    }
+
+    /**
+     * Returns the {@link GameLoop} that runs the commands of the game.
+     *
+     * @return the loop of the game
+     */
+    public GameLoop getLoop() {
+        return loop;
+    }
+
+    /**
+     * Returns the {@link ChatLog} of the game, which must only be used on the loop.
+     *
+     * @return the chat of the game
+     */
+    public ChatLog getChatLog() {
+        return chatLog;
+    }
+
+    /**
+     * Returns the last {@link GameSnapshot} of the lobby, for the threads that do not run on the loop.
+     *
+     * @return the last snapshot
+     */
+    public GameSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Publishes the state of the lobby after a command of the loop that may have modified it.
+     */
+    private void publishSnapshot() {
+        snapshot = new GameSnapshot(gameController.getPlayerNames(), gameController.getAvailablePawnColors(),
+                gameController.getRejoinedIndexes(), numberOfPlayers, clientsCounter, acceptingNewClients);
+    }
+
+    /**
+     * Returns the {@link GameRegistry} that hosts the game.
+     *
+     * @return the registry of the game
+     */
+    public GameRegistry getRegistry() {
+        return registry;
     }
 
     /**
@@ -210,96 +433,145 @@ public class GameServer {
      */
     private void startMatch(){
         gameController.startPreliminaryPhase();
-        socketServer.sendInitialSituations();
+        socketLobby.sendInitialSituations();
+        for (int playerID : rmiServer.getPlayerIDs()) {
+            rmiServer.deliver(playerID, gameController.getInitialSituation(playerID));
+        }
+        matchStarted = true;
+        for (BotSeat bot : new ArrayList<>(bots.values())) bot.takeOver();
+    }
+
+    /**
+     * A method that gives the seats still free in the lobby to bots and starts the match.
+     * While a client is still joining, the seat it will take is not known yet, hence it is tried again later.
+     */
+    private void fillWithBots() {
+        if (isStopping() || !acceptingNewClients) return;
+        // No more clients must be routed to the lobby once the seats left are taken by the bots
+        if (gameController.getNumPlayers() < clientsCounter || !reservedSlots.compareAndSet(clientsCounter, numberOfPlayers)) {
+            registry.getScheduler().schedule(() -> execute(this::fillWithBots), LOBBY_FILL_RETRY, TimeUnit.MILLISECONDS);
+            return;
+        }
+        List<String> names = Arrays.asList(gameController.getPlayerNames());
+        int suffix = 1;
+        while (gameController.getNumPlayers() < numberOfPlayers) {
+            while (names.contains("Bot " + suffix)) suffix++;
+            int playerID = gameController.getNumPlayers();
+            gameController.addPlayer("Bot " + suffix++, PawnColor.values()[gameController.getAvailablePawnColors()[0]]);
+            bots.put(playerID, new BotSeat(this, gameController, playerID));
+            clientsCounter++;
+            System.out.println(GREEN + "[GAME " + getGameID() + "] Lobby timed out, a bot takes seat " + playerID + RESET);
+        }
+        tryStartingMatch();
+    }
+
+    /**
+     * A method that gives the seat of a player who dropped during a match to a bot, if the {@link ServerConfig} allows it.
+     * Players who drop while the lobby is still filling, or from a loaded game, are never replaced.
+     * It must be called on the loop.
+     *
+     * @param  playerID  the ID of the player who dropped
+     * @return           true if a bot takes the seat, false if the game has to be shut down
+     */
+    public boolean replaceWithBot(int playerID) {
+        if (!registry.getConfig().isReplaceDropped() || isLoaded()) return false;
+        if (isStopping() || acceptingNewClients || endGameMsg != null) return false;
+        if (bots.containsKey(playerID)) return true;
+        BotSeat bot = new BotSeat(this, gameController, playerID);
+        bots.put(playerID, bot);
+        System.out.println(GREEN + "[GAME " + getGameID() + "] A bot takes the seat of player " + playerID + RESET);
+        // Otherwise the bot takes its seat when the match starts
+        if (matchStarted) execute(bot::takeOver);
+        return true;
+    }
+
+    /**
+     * A method that starts the turn of a player if its seat is played by a bot.
+     * It is called once the previous turn has been sent to the players, with the player read before sending it:
+     * the players who receive the turn may already be playing the following one.
+     *
+     * @param  playerID  the ID of the player whose turn starts
+     */
+    private void playBotTurn(int playerID) {
+        if (endGameMsg != null || isStopping()) return;
+        BotSeat bot = bots.get(playerID);
+        if (bot != null) bot.play();
     }
 
     /**
      * A method that sends the game information to all players.
      */
     public void sendGameInfo() {
+        long start = System.nanoTime();
+        int next = gameController.getCurrentPlayer();
         gameInfoMsg msg = gameController.getGameInfo();
-        hasNewGameInfo = true;
-        gameInfoCounter.replaceAll((k, v) -> false);
-        System.out.println(GREEN + "[GAME] Turn completed!\n[GAME] Sending game info for next turn..." + RESET);
-        socketServer.sendGameInfo(msg);
+        System.out.println(GREEN + "[GAME " + getGameID() + "] Turn completed!\n[GAME " + getGameID() + "] Sending game info for next turn..." + RESET);
+        socketLobby.sendGameInfo(msg);
+        deliverToRMI(msg);
 
         if (msg.getLastOnGroundIndex() == -1 && endGameMsg == null) {
             endGameMsg = new endGameMsg(gameController.endGame());
-            socketServer.sendEndGameInfo(endGameMsg);
+            socketLobby.sendEndGameInfo(endGameMsg);
+            deliverToRMI(endGameMsg);
+            // The game is finished: tear it down once every client has had the time to get the results
+            registry.getScheduler().schedule(this::stopAsync, END_GAME_TEARDOWN_DELAY, TimeUnit.MILLISECONDS);
         }
+        registry.getMetrics().recordBroadcast(System.nanoTime() - start);
         try {
             gameController.saveGame();
         } catch (IOException e) {
-            throw new RuntimeException(e);
+            // The turn stays in the durability lag of the game: the match goes on, and the next save is a snapshot
+            System.err.println(RED + "[ERROR] Unable to save game " + getGameID() + ": " + e + RESET);
+            registry.getMetrics().recordFailedSave();
         }
+        playBotTurn(next);
     }
 
     /**
      * A method that sends the initial game information to all players.
      */
     public void sendInitialGameInfo(){
-        System.out.println(GREEN + "[GAME] Sending initial game info to all players!" + RESET);
-        socketServer.sendInitialGameInfo();
-        for (int i = 0; i < numberOfPlayers; i++) {
-            gameInfoCounter.put(i, false);
-        }
+        int first = gameController.getCurrentPlayer();
+        System.out.println(GREEN + "[GAME " + getGameID() + "] Sending initial game info to all players!" + RESET);
+        socketLobby.sendInitialGameInfo();
+        deliverToRMI(gameController.getInitialGameInfo());
+        playBotTurn(first);
     }
 
     /**
-     * Starts the RMI server and binds it to the registry.
+     * A method that delivers a message to all the RMI players, through their outboxes.
+     *
+     * @param  msg  the message to deliver
      */
-    public void startRMIServer() {
-        try {
-            System.out.println(YELLOW + "[SERVER] Starting RMI server..." + RESET);
-            rmiServer = new RMIServer(this, gameController);
-            Registry registry = LocateRegistry.createRegistry(port + 1);
-            registry.rebind("RMIServer", rmiServer);
-            setRmiRunning(true);
-            System.out.println(YELLOW + "[SERVER] RMI Server started." + RESET);
-        } catch (RemoteException e) {
-            System.err.println(RED + "[ERROR] RMI Server exception: " + e);
-            new Timer().schedule(new TimerTask() {
-                @Override
-                public void run() {
-                    System.exit(0);
-                }
-            }, 10000);
+    private void deliverToRMI(Message msg) {
+        for (int playerID : rmiServer.getPlayerIDs()) {
+            rmiServer.deliver(playerID, msg);
         }
     }
 
     /**
-     * Stops the RMI server by unbinding it from the registry and setting the RMI server running flag to false.
+     * Stops the RMI server by unexporting it and setting the RMI server running flag to false.
+     * The RMI registry is shared by all the games, hence it is left untouched.
      */
     public void stopRMIServer() {
+        setRmiRunning(false);
         try {
-            System.out.println(YELLOW + "[SERVER] Stopping RMI server..." + RESET);
-            Registry registry = LocateRegistry.getRegistry();
-            registry.unbind("RMIServer");
-            setRmiRunning(false);
-            System.out.println(YELLOW + "[SERVER] RMI Server stopped." + RESET);
-        } catch (Exception e) {
-            System.err.println(RED + "[ERROR] RMI Server exception: " + e);
-            new Timer().schedule(new TimerTask() {
-                @Override
-                public void run() {
-                    System.exit(0);
-                }
-            }, 10000);
+            UnicastRemoteObject.unexportObject(rmiServer, true);
+        } catch (NoSuchObjectException e) {
+            System.err.println(RED + "[ERROR] RMI Server exception: " + e + RESET);
         }
     }
 
     /**
-     * Adds a new {@link it.polimi.ingsw.am43.Network.RMI.RMIClient} to the list of RMI clients if the {@link RMIServer} is running.
+     * Adds a new {@link it.polimi.ingsw.am43.Network.RMI.RMIClient} as a player if the {@link RMIServer} is running.
      *
-     * @param  hashCode  the hashCode of the client to be added
-     * @return           the index of the newly added client in the list of RMI clients,
+     * @return           the player ID of the newly added client,
      *                   or -1 if the RMI server is not running
      */
-    public int addRMIClient(int hashCode) {
+    public int addRMIClient() {
         if (isRmiRunning()) {
-            rmiClients.add(hashCode);
             clientsCounter++;
-            System.out.println(YELLOW + "[SERVER] RMI Client added: " + hashCode + RESET);
+            System.out.println(YELLOW + "[SERVER] RMI Client added to game " + getGameID() + " as player " + (clientsCounter-1) + RESET);
             return clientsCounter-1;
         } else {
             System.err.println("[ERROR] Unable to add client. RMI server is down.");
@@ -310,10 +582,10 @@ public class GameServer {
     /**
      * Adds a new {@link it.polimi.ingsw.am43.Network.Socket.SocketClient} to the list of socket clients.
      *
-     * @param  client  the socket client to be added
+     * @param  client  the connection with the socket client to be added
      * @return         the index of the newly added client in the list of socket clients
      */
-    public int addSocketClient(Socket client){
+    public int addSocketClient(ClientConnection client){
         socketClients.put(clientsCounter, client);
         clientsCounter++;
         return (clientsCounter-1);
@@ -324,9 +596,9 @@ public class GameServer {
      */
     public void tryStartingMatch(){
         if (gameController.getNumPlayers()==numberOfPlayers) {
-            System.out.println(GREEN + "[GAME] All players connected, starting match!" + RESET);
+            System.out.println(GREEN + "[GAME " + getGameID() + "] All players connected, starting match!" + RESET);
             this.acceptingNewClients = false;
-            new Thread(this::startMatch).start();
+            execute(this::startMatch);
         }
     }
 
@@ -335,12 +607,9 @@ public class GameServer {
      */
     public void tryRestartingMatch(){
         if (gameController.getRejoinedPlayers().size()==numberOfPlayers) {
-            System.out.println(GREEN + "[GAME] All players connected, restarting match!" + RESET);
+            System.out.println(GREEN + "[GAME " + getGameID() + "] All players connected, restarting match!" + RESET);
             this.acceptingNewClients = false;
-            for (int i = 0; i < numberOfPlayers; i++) {
-                gameInfoCounter.put(i, false);
-            }
-            new Thread(this::sendGameInfo).start();
+            execute(this::sendGameInfo);
         }
     }
 
@@ -349,14 +618,14 @@ public class GameServer {
      *  and sends initial game information if the counter reaches the number of players.
      */
     public void incrementChosenObjectivesCounter(){
-        this.chosenObjectivesCounter++;
-        if (chosenObjectivesCounter==numberOfPlayers){
+        if (++chosenObjectivesCounter==numberOfPlayers){
             sendInitialGameInfo();
         }
     }
 
     /**
-     * Returns the current value of the clientsCounter variable
+     * Returns the current value of the clientsCounter variable.
+     * It must be called on the loop, the other threads read it from {@link #getSnapshot()}.
      *
      * @return the current value of the clientsCounter variable
      */
@@ -364,6 +633,16 @@ public class GameServer {
         return clientsCounter;
     }
 
+    /**
+     * Returns how many turns of the game are not on the disk yet.
+     *
+     * @return the durability lag of the game, in turns
+     */
+    public int getDurabilityLag() {
+        GameSaver saver = gameController.getSaver();
+        return saver == null ? 0 : saver.getDurabilityLag();
+    }
+
     /**
      * Returns the number of players in the game.
      *
@@ -378,10 +657,15 @@ public class GameServer {
      */
     public void setNumberOfPlayers(int numberOfPlayers) {
         this.numberOfPlayers = numberOfPlayers;
+        int timeout = registry.getConfig().getLobbyTimeout();
+        if (timeout > 0 && !isLoaded()) {
+            registry.getScheduler().schedule(() -> execute(this::fillWithBots), timeout, TimeUnit.SECONDS);
+        }
     }
 
     /**
-     * Returns the current value of the acceptingNewClients variable
+     * Returns the current value of the acceptingNewClients variable.
+     * It must be called on the loop, the other threads read it from {@link #getSnapshot()}.
      *
      * @return the value of the flag acceptingNewClients
      */
@@ -395,7 +679,7 @@ public class GameServer {
      * @return true if the server is stopping, false otherwise
      */
     public boolean isStopping() {
-        return isStopping;
+        return isStopping.get();
     }
 
     /**
@@ -412,7 +696,7 @@ public class GameServer {
      *
      * @return true if the RMI server is running, false otherwise
      */
-    public synchronized boolean isRmiRunning() {
+    public boolean isRmiRunning() {
         return rmiRunning;
     }
 
@@ -421,7 +705,7 @@ public class GameServer {
      *
      * @param  serverRunning  the new value of the rmiRunning flag
      */
-    public synchronized void setRmiRunning(boolean serverRunning) {
+    public void setRmiRunning(boolean serverRunning) {
         this.rmiRunning = serverRunning;
     }
 
@@ -435,78 +719,73 @@ public class GameServer {
     }
 
     /**
-     * A method that checks if there are new game info for the player.
-     *
-     * @param playerId the ID of the player
-     * @return true if there are new info, false otherwise
-     */
-    public boolean hasNewInfo(int playerId) {
-        if (hasNewGameInfo != null) {
-            boolean hasNewInfoForYou = hasNewGameInfo && !gameInfoCounter.get(playerId);
-            if (hasNewInfoForYou) {
-                gameInfoCounter.put(playerId, true);
-            }
-            if (!gameInfoCounter.containsValue(false)) {
-                hasNewGameInfo = false;
-            }
-            return hasNewInfoForYou;
-        } else {
-            return false;
-        }
+     * A method that starts the heartbeat checking.
+     */
+    private void startHeartbeatChecking() {
+        // Check server status every 5 seconds
+        heartbeatTask = registry.getScheduler().scheduleAtFixedRate(() -> execute(this::checkHeartbeats), 0, 5, TimeUnit.SECONDS);
     }
 
     /**
-     * Retrieves the number of connected clients (with both RMI and socket) and
-     * continuously updates the count, every 5 seconds.
+     * A method that checks the status of the RMI server and the heartbeats of its clients.
+     * It is scheduled on the scheduler shared by all the games, but runs on the loop, since the seats of the lost clients
+     * may be given to bots.
      */
-    public void getConnectedClients() {
-        int lastNumClients = -1;
-
-        while (!rmiClients.isEmpty() || !socketClients.isEmpty()) {
-            int totalClients = rmiClients.size() + socketClients.size();
-            // If the number of clients has changed, print and update
-            if (totalClients != lastNumClients) {
-                System.out.println(YELLOW + "[SERVER] Number of connected clients: " + totalClients + RESET);
-                lastNumClients = totalClients;
+    private void checkHeartbeats() {
+        // The scheduler is shared by all the games: a failure must only stop this game
+        try {
+            // Perform server status check here
+            if (!isRmiRunning()) {
+                System.err.println("[ERROR] RMI Server of game " + getGameID() + " is down.");
+                stopAsync();
+                return;
             }
-            try {
-                Thread.sleep(5000); // Check every 5 seconds
-            } catch (InterruptedException ignored) {
-                break;
+            for (int pID : rmiServer.removeLostClients()) {
+                if (replaceWithBot(pID)) {
+                    System.out.println(RED + "Client " + pID + " disconnected.\nA bot takes its seat in game " + getGameID() + "." + RESET);
+                } else {
+                    System.err.println(RED + "Client " + pID + " disconnected.\nGame " + getGameID() + " shut down." + RESET);
+                    rmiServer.setServerRunning(false);
+                    stopAsync();
+                    return;
+                }
             }
+        } catch (Exception e) {
+            System.err.println(RED + "[ERROR] Heartbeat check of game " + getGameID() + " failed: " + e + RESET);
+            stopAsync();
         }
     }
 
     /**
-     * A method that starts the heartbeat checking.
+     * A method that tears the game down on the loop, without blocking the caller.
      */
-    private void startHeartbeatChecking() {
-        heartbeatTimer.scheduleAtFixedRate(new TimerTask() {
-            @Override
-            public void run() {
-                // Perform server status check here
-                if (!isRmiRunning()) {
-                    System.err.println("[ERROR] RMI Server is down.");
-                    stop();
-                }
-                try {
-                    rmiServer.checkClientHeartbeats();
-                } catch (RemoteException e) {
-                    throw new RuntimeException(e);
-                }
-            }
-        }, 0, 5000); // Check server status every 5 seconds
+    private void stopAsync() {
+        execute(this::stop);
+    }
+
+    /**
+     * A method that runs a task on the loop, unless the game has already been stopped.
+     *
+     * @param  task  the task to run
+     */
+    public void execute(Runnable task) {
+        try {
+            loop.execute(task);
+        } catch (RejectedExecutionException ignored) {
+            // The game has already been stopped
+        }
     }
 
     /**
      * A method that stops the heartbeat checking.
      */
     private void stopHeartbeatChecking() {
-        heartbeatTimer.cancel();
+        if (heartbeatTask != null) heartbeatTask.cancel(false);
     }
 
     /**
      * Sends a public chat message from the sender to all connected clients.
+     * The socket clients receive it at once, while the RMI players are told to fetch it from the {@link ChatLog}.
      *
      * @param  sender   the sender of the message
      * @param  senderID the ID of the sender
@@ -514,21 +793,16 @@ public class GameServer {
      */
     public void sendPublicChat(String sender, int senderID, String msg) {
         // Socket
-        socketServer.sendPublicChat(sender, senderID, msg);
+        socketLobby.sendPublicChat(sender, senderID, msg);
         // RMI
-        for (int i = 0; i < numberOfPlayers; i++) {
-            if (i == senderID) continue;
-            Stack<Message> stack = messagesToRMICounter.get(i);
-            if (stack == null) {
-                stack = new Stack<>();
-            }
-            stack.push(new publicChatMessageMsg(sender, msg));
-            messagesToRMICounter.put(i, stack);
+        chatLog.append(senderID, ChatLog.EVERYONE, new publicChatMessageMsg(sender, msg));
+        for (int playerID : rmiServer.getPlayerIDs()) {
+            if (playerID != senderID) rmiServer.chatReady(playerID);
         }
     }
 
     /**
-     * Sends a private chat message from the sender to the receiver.
+     * Sends a private chat message from the sender to the receiver, through the {@link ChatLog} if the receiver uses RMI.
      *
      * @param  sender     the sender of the message
      * @param  receiver   the receiver of the message
@@ -537,30 +811,12 @@ public class GameServer {
      */
     public void sendPrivateChat(String sender, String receiver, int receiverID, String msg) {
         // Socket
-        socketServer.sendPrivateChat(sender, receiver, receiverID, msg);
+        socketLobby.sendPrivateChat(sender, receiver, receiverID, msg);
         // RMI
-        Stack<Message> stack = messagesToRMICounter.get(receiverID);
-        if (stack == null) {
-            stack = new Stack<>();
-        }
-        stack.push(new privateChatMessageMsg(sender, receiver, msg));
-        messagesToRMICounter.put(receiverID, stack);
-    }
-
-    /**
-     * A method used to retrieve a message from a specific client.
-     *
-     * @param receiverID the ID of the client that receives the message
-     * @return the message
-     */
-    public Message getMessage(int receiverID) {
-        if (messagesToRMICounter.get(receiverID) != null) {
-            Stack<Message> stack = messagesToRMICounter.get(receiverID);
-            if (!stack.isEmpty()) {
-                return stack.pop();
-            }
+        if (rmiServer.getPlayerIDs().contains(receiverID)) {
+            chatLog.append(ChatLog.EVERYONE, receiverID, new privateChatMessageMsg(sender, receiver, msg));
+            rmiServer.chatReady(receiverID);
         }
-        return null;
     }
 
     /**
@@ -569,19 +825,10 @@ public class GameServer {
      */
     public void kickAll() {
         try {
-            socketServer.closeClients();
+            socketLobby.closeClients();
         } catch (IOException e) {
-            throw new RuntimeException(e);
+            System.err.println(RED + "[ERROR] " + e.getMessage() + RESET);
         }
         rmiHasToClose = true;
     }
-
-    /**
-     * A method used to retrieve the engGameMsg variable.
-     *
-     * @return the endGameMsg
-     */
-    public Message getEndGameInfo() {
-        return endGameMsg;
-    }
-}
\ No newline at end of file
+}
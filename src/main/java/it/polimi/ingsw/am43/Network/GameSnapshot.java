@@ -0,0 +1,116 @@
+package it.polimi.ingsw.am43.Network;
+
+import java.util.List;
+
+/**
+ * An immutable view of the lobby of a game, published by its {@link GameServer} after every command of its {@link GameLoop}.
+ * The threads that only need to read, such as the RMI clients looking for a free name or colour, the routing of the
+ * {@link GameRegistry} and the metrics, read the last snapshot instead of waiting for the loop or touching the game.
+ * A snapshot may be one command behind the game, but it is always consistent with itself.
+ */
+public class GameSnapshot {
+
+    /**
+     * The names of the players, null if the game has not been set up yet.
+     */
+    private final String[] playerNames;
+
+    /**
+     * The pawn colours still free, as ordinals of {@link it.polimi.ingsw.am43.Model.Enum.PawnColor}.
+     */
+    private final int[] availablePawnColors;
+
+    /**
+     * The indexes of the players who rejoined a loaded game.
+     */
+    private final List<Integer> rejoinedIndexes;
+
+    /**
+     * The number of players the game is set up for, 0 if not set yet.
+     */
+    private final int numberOfPlayers;
+
+    /**
+     * The number of clients and bots that took a seat.
+     */
+    private final int clientsCounter;
+
+    /**
+     * Whether the game still accepts clients.
+     */
+    private final boolean acceptingNewClients;
+
+    /**
+     * Constructor of the snapshot, which keeps its own copies of the arrays and of the list.
+     *
+     * @param playerNames          the names of the players, null if the game has not been set up yet
+     * @param availablePawnColors  the pawn colours still free
+     * @param rejoinedIndexes      the indexes of the players who rejoined
+     * @param numberOfPlayers      the number of players of the game, 0 if not set yet
+     * @param clientsCounter       the number of clients and bots that took a seat
+     * @param acceptingNewClients  whether the game still accepts clients
+     */
+    public GameSnapshot(String[] playerNames, int[] availablePawnColors, List<Integer> rejoinedIndexes, int numberOfPlayers,
+                        int clientsCounter, boolean acceptingNewClients) {
+        this.playerNames = playerNames == null ? null : playerNames.clone();
+        this.availablePawnColors = availablePawnColors.clone();
+        this.rejoinedIndexes = List.copyOf(rejoinedIndexes);
+        this.numberOfPlayers = numberOfPlayers;
+        this.clientsCounter = clientsCounter;
+        this.acceptingNewClients = acceptingNewClients;
+    }
+
+    /**
+     * Returns the names of the players.
+     *
+     * @return a copy of the names, null if the game has not been set up yet
+     */
+    public String[] getPlayerNames() {
+        return playerNames == null ? null : playerNames.clone();
+    }
+
+    /**
+     * Returns the pawn colours still free.
+     *
+     * @return a copy of the ordinals of the colours
+     */
+    public int[] getAvailablePawnColors() {
+        return availablePawnColors.clone();
+    }
+
+    /**
+     * Returns the indexes of the players who rejoined a loaded game.
+     *
+     * @return the indexes, as an unmodifiable list
+     */
+    public List<Integer> getRejoinedIndexes() {
+        return rejoinedIndexes;
+    }
+
+    /**
+     * Returns the number of players the game is set up for.
+     *
+     * @return the number of players, 0 if not set yet
+     */
+    public int getNumberOfPlayers() {
+        return numberOfPlayers;
+    }
+
+    /**
+     * Returns the number of clients and bots that took a seat.
+     *
+     * @return the number of seats taken
+     */
+    public int getClientsCounter() {
+        return clientsCounter;
+    }
+
+    /**
+     * Returns whether the game still accepts clients.
+     *
+     * @return true if clients can still join
+     */
+    public boolean isAcceptingNewClients() {
+        return acceptingNewClients;
+    }
+}
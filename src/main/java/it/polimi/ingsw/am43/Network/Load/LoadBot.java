@@ -0,0 +1,349 @@
+package it.polimi.ingsw.am43.Network.Load;
+
+import it.polimi.ingsw.am43.Network.ClientInterface;
+import it.polimi.ingsw.am43.Network.ConnectionType;
+import it.polimi.ingsw.am43.Network.Message;
+import it.polimi.ingsw.am43.Network.Messages.controllerMessages.*;
+import it.polimi.ingsw.am43.Network.Messages.toClientMessages.*;
+import it.polimi.ingsw.am43.Network.RMI.RMIClient;
+import it.polimi.ingsw.am43.Network.Socket.SocketClient;
+
+import java.io.IOException;
+import java.rmi.NotBoundException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A headless player, that plays a whole match through a {@link SocketClient} or a {@link RMIClient}
+ * exchanging the same messages as the views. Every choice is random among the legal ones offered
+ * by the server: the starting side, the personal objective, the card to place, its corner and the card to draw.
+ * The round-trip times it sees and the errors it meets are recorded in the {@link LoadStats} of the run.
+ */
+public class LoadBot implements Runnable {
+
+    /**
+     * The settings of the run.
+     */
+    private final LoadConfig config;
+
+    /**
+     * The results of the run.
+     */
+    private final LoadStats stats;
+
+    /**
+     * The username of the player, unique in the run.
+     */
+    private final String username;
+
+    /**
+     * The position of the player in its match, also used as its color.
+     */
+    private final int seat;
+
+    /**
+     * The connection of the player.
+     */
+    private final ConnectionType connectionType;
+
+    /**
+     * Counted down by every player of the match once it has seen the end of the match,
+     * so that no connection is closed while the others still wait for the ranking.
+     */
+    private final CountDownLatch matchEnded;
+
+    /**
+     * Counted down when the player has been offered to join the match, and when the match has started.
+     */
+    private final CountDownLatch joined = new CountDownLatch(1);
+    private final CountDownLatch started = new CountDownLatch(1);
+
+    /**
+     * The source of the random choices of the player.
+     */
+    private final Random random = new Random();
+
+    /**
+     * The connection with the server, null until {@link #connect()}.
+     */
+    private volatile ClientInterface client;
+
+    /**
+     * The ID of the player in the match, and the number of players.
+     */
+    private int playerID;
+    private int numPlayers;
+
+    /**
+     * The IDs of the cards on the ground, 0 for an empty slot.
+     */
+    private int[] onGround;
+
+    /**
+     * The time the player connected, and sent its last request of the placeable cards and of a turn, in nanoseconds.
+     */
+    private long connectedAt;
+    private long playSentAt;
+    private long turnSentAt;
+
+    /**
+     * Whether the player has seen the end of the match, and whether it has stopped playing.
+     */
+    private volatile boolean ended = false;
+    private volatile boolean done = false;
+
+    /**
+     * A flag that makes the closing of the connection happen only once.
+     */
+    private final AtomicBoolean closed = new AtomicBoolean(false);
+
+    /**
+     * Constructor of the player.
+     *
+     * @param config          the settings of the run
+     * @param stats           the results of the run
+     * @param username        the username of the player, unique in the run
+     * @param seat            the position of the player in its match
+     * @param matchEnded      the latch counted down by every player of the match at its end
+     */
+    public LoadBot(LoadConfig config, LoadStats stats, String username, int seat, CountDownLatch matchEnded) {
+        this.config = config;
+        this.stats = stats;
+        this.username = username;
+        this.seat = seat;
+        this.connectionType = config.getConnections().of(seat);
+        this.matchEnded = matchEnded;
+    }
+
+    /**
+     * A method that connects the player to the server, which routes it to an open lobby.
+     *
+     * @throws IOException if the server cannot be reached
+     * @throws NotBoundException if the RMI lobby is not bound on the server
+     */
+    public void connect() throws IOException, NotBoundException {
+        connectedAt = System.nanoTime();
+        client = connectionType == ConnectionType.SOCKET
+                ? new SocketClient(config.getHost(), config.getPort())
+                : new RMIClient(config.getHost(), config.getRmiPort());
+    }
+
+    /**
+     * Plays the match, one message of the server at a time, until its end or the loss of the connection.
+     */
+    @Override
+    public void run() {
+        try {
+            while (!done) {
+                Message message = client.readNewMessage();
+                if (message == null) {
+                    if (!done) stats.error(LoadStats.Error.DISCONNECTED);
+                    break;
+                }
+                handle(message);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            System.err.println("[ERROR] Player " + username + " failed: " + e);
+            stats.error(LoadStats.Error.FAILED);
+        } finally {
+            close();
+        }
+    }
+
+    /**
+     * Handles a message of the server, answering it as a view would.
+     *
+     * @param message the message
+     * @throws InterruptedException if the player is stopped while waiting
+     */
+    private void handle(Message message) throws InterruptedException {
+        switch (message.getType()) {
+            case FIRSTPLAYER -> {
+                client.writeNewMessage(new SCMsgFirstPlayerJoins(username, seat, config.getPlayers()));
+                joined.countDown();
+            }
+            case GENERALPLAYER -> join(((generalPlayerMsg) message).getNicknames(), ((generalPlayerMsg) message).getRemaining());
+            case CHECK_FIRST -> join(((checkFirstMsg) message).getNicknames(), ((checkFirstMsg) message).getRemaining());
+            case NICKNAME_ALREADY_USED -> {
+                stats.error(LoadStats.Error.REJECTED);
+                int[] colors = ((nickOrColorAlreadyUsedMsg) message).getColors();
+                client.writeNewMessage(new SCMsgGeneralPlayerJoins(username, colors[random.nextInt(colors.length)]));
+            }
+            case INITIAL_SITUATION -> {
+                playerID = ((initialSituation) message).getPlayerID();
+                stats.recordJoin(System.nanoTime() - connectedAt);
+                started.countDown();
+                client.writeNewMessage(new SCMsgDrawPersonalObjectives(random.nextInt(2)));
+            }
+            case PERSONALOBJECTIVES -> {
+                int[] objectives = ((personalObjectivesMsg) message).getPersonalObjectiveIDs();
+                client.writeNewMessage(new SCMsgPersonalObjective(objectives[random.nextInt(objectives.length)]));
+            }
+            case INITIALGAMEINFO -> {
+                initialGameInfoMsg info = (initialGameInfoMsg) message;
+                numPlayers = info.getUsernames().length;
+                onGround = info.getOnGroundIDs().clone();
+                if (info.getFirst() == playerID) play();
+            }
+            case PLEACABLECARDS -> {
+                stats.recordPlay(System.nanoTime() - playSentAt);
+                playTurn((placeableCardsMsg) message);
+            }
+            case GAMEINFO -> gameInfo((gameInfoMsg) message);
+            case ENDGAME -> endGame();
+            default -> {
+                // Heartbeats, new cards in hand and chat messages need no answer
+            }
+        }
+    }
+
+    /**
+     * Joins the match with the color of the seat of the player, or asks again later if the first player
+     * is still setting the match up.
+     *
+     * @param nicknames the usernames of the players already in the match, null or empty if the match is not set up yet
+     * @param remaining the colors still available
+     * @throws InterruptedException if the player is stopped while waiting
+     */
+    private void join(String[] nicknames, int[] remaining) throws InterruptedException {
+        joined.countDown();
+        if (nicknames == null || nicknames.length == 0 || nicknames[0] == null) {
+            TimeUnit.MILLISECONDS.sleep(20);
+            client.writeNewMessage(new SCMsgFirstStillJoining());
+            return;
+        }
+        int color = seat;
+        boolean available = false;
+        for (int c : remaining) available |= c == color;
+        if (!available) color = remaining[random.nextInt(remaining.length)];
+        client.writeNewMessage(new SCMsgGeneralPlayerJoins(username, color));
+    }
+
+    /**
+     * Starts the turn of the player, asking for the placeable cards after the configured delay.
+     *
+     * @throws InterruptedException if the player is stopped while waiting
+     */
+    private void play() throws InterruptedException {
+        TimeUnit.MILLISECONDS.sleep(config.getTurnDelay());
+        playSentAt = System.nanoTime();
+        client.writeNewMessage(new SCMsgPlay());
+    }
+
+    /**
+     * Plays a random legal turn: a placeable side of a card in hand on a free corner, drawing from a deck
+     * that is not empty or from a slot of the ground that is not empty.
+     *
+     * @param message the placeable cards and the available placements of the player
+     */
+    private void playTurn(placeableCardsMsg message) {
+        Boolean[] placeable = message.getPlaceableCards();
+        List<Integer> sides = new ArrayList<>();
+        for (int i = 0; i < placeable.length; i++) {
+            if (Boolean.TRUE.equals(placeable[i])) sides.add(i);
+        }
+        boolean[][] placements = message.getAllAvailablePlacements();
+        List<int[]> corners = new ArrayList<>();
+        for (int i = 0; i < placements.length; i++) {
+            for (int c = 0; c < placements[i].length; c++) {
+                if (placements[i][c]) corners.add(new int[]{i, c});
+            }
+        }
+        if (sides.isEmpty() || corners.isEmpty()) {
+            stats.error(LoadStats.Error.NO_LEGAL_MOVE);
+            done = true;
+            return;
+        }
+
+        List<Integer> draws = new ArrayList<>();
+        for (int i = 0; i < onGround.length; i++) {
+            if (onGround[i] != 0) draws.add(i);
+        }
+        if (!message.isResEmpty()) draws.add(4);
+        if (!message.isGoldEmpty()) draws.add(5);
+        int draw = draws.isEmpty() ? 4 : draws.get(random.nextInt(draws.size()));
+
+        int[] corner = corners.get(random.nextInt(corners.size()));
+        turnSentAt = System.nanoTime();
+        client.writeNewMessage(new SCMsgPlayTurn(sides.get(random.nextInt(sides.size())), corner[0], corner[1], draw));
+    }
+
+    /**
+     * Applies the game information of a turn, and starts the turn of the player if it is the next one.
+     *
+     * @param message the game information of the turn
+     * @throws InterruptedException if the player is stopped while waiting
+     */
+    private void gameInfo(gameInfoMsg message) throws InterruptedException {
+        if (message.getPlayerID() == playerID) stats.recordTurn(System.nanoTime() - turnSentAt);
+        int index = message.getLastOnGroundIndex();
+        // The end of the match follows
+        if (index == -1) return;
+        onGround[index] = message.getLastOnGroundID();
+        if ((message.getPlayerID() + 1) % numPlayers == playerID) play();
+    }
+
+    /**
+     * Stops playing at the end of the match, once all the players of the match have seen it.
+     *
+     * @throws InterruptedException if the player is stopped while waiting
+     */
+    private void endGame() throws InterruptedException {
+        if (ended) return;
+        ended = true;
+        if (seat == 0) stats.matchCompleted();
+        matchEnded.countDown();
+        matchEnded.await(10, TimeUnit.SECONDS);
+        done = true;
+    }
+
+    /**
+     * A method that waits until the player has been offered to join the match.
+     *
+     * @param millis the longest time to wait, in milliseconds
+     * @return true if the player has been offered to join, false if the time elapsed
+     * @throws InterruptedException if the wait is interrupted
+     */
+    public boolean awaitJoined(long millis) throws InterruptedException {
+        return joined.await(millis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * A method that waits until the match of the player has started.
+     *
+     * @param millis the longest time to wait, in milliseconds
+     * @return true if the match has started, false if the time elapsed
+     * @throws InterruptedException if the wait is interrupted
+     */
+    public boolean awaitStarted(long millis) throws InterruptedException {
+        return started.await(millis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * A method that returns whether the player has seen the end of its match.
+     *
+     * @return true if the match has ended for the player, false otherwise
+     */
+    public boolean hasEnded() {
+        return ended;
+    }
+
+    /**
+     * A method that stops the player and closes its connection. Only the first call has effect.
+     */
+    public void close() {
+        done = true;
+        if (client == null || !closed.compareAndSet(false, true)) return;
+        try {
+            client.killConnection();
+        } catch (IOException e) {
+            // Already closed
+        }
+    }
+}
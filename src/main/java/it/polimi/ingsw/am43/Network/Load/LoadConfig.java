@@ -0,0 +1,294 @@
+package it.polimi.ingsw.am43.Network.Load;
+
+import it.polimi.ingsw.am43.Network.ConnectionType;
+import it.polimi.ingsw.am43.Network.GameServer;
+import it.polimi.ingsw.am43.Network.Socket.SocketServer;
+
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * Class that holds the settings of the {@link LoadGenerator}.
+ * The settings are read from system properties (e.g. {@code -Dcodex.load.matches=100}),
+ * falling back to the defaults when a property is missing or not valid:
+ * <ul>
+ *     <li>{@code codex.load.host}: address of the server (default localhost)</li>
+ *     <li>{@code codex.load.port}: socket port of the server, the RMI registry listens on the following one (default {@link SocketServer#PORT})</li>
+ *     <li>{@code codex.load.matches}: number of matches played at the same time (default 10)</li>
+ *     <li>{@code codex.load.players}: number of players of each match, from 2 to 4 (default 2)</li>
+ *     <li>{@code codex.load.connections}: how the players connect, {@code socket}, {@code rmi} or {@code mixed},
+ *     alternating the two in every match (default mixed)</li>
+ *     <li>{@code codex.load.turnDelay}: time each player waits before playing its turn, in milliseconds (default 100)</li>
+ *     <li>{@code codex.load.timeout}: time after which the matches still running are abandoned, in seconds (default 600)</li>
+ *     <li>{@code codex.load.reportPeriod}: period of the progress reports, in seconds (default 5)</li>
+ *     <li>{@code codex.load.embedded}: start the server in the same process, configured by the {@code codex.server.*}
+ *     properties (default true)</li>
+ *     <li>{@code codex.load.jmxPort}: JMX port of a server started in another process, to read its resource use
+ *     (default none, the server must be started with {@code -Dcom.sun.management.jmxremote.port})</li>
+ * </ul>
+ */
+public class LoadConfig {
+
+    /**
+     * How the players of the matches connect to the server.
+     */
+    public enum Connections {
+        SOCKET, RMI, MIXED;
+
+        /**
+         * Returns the connection of a player.
+         *
+         * @param seat the position of the player in its match
+         * @return the connection of the player
+         */
+        public ConnectionType of(int seat) {
+            return switch (this) {
+                case SOCKET -> ConnectionType.SOCKET;
+                case RMI -> ConnectionType.RMI;
+                case MIXED -> seat % 2 == 0 ? ConnectionType.SOCKET : ConnectionType.RMI;
+            };
+        }
+    }
+
+    /**
+     * Prefix of all the system properties read by the configuration.
+     */
+    private static final String PREFIX = "codex.load.";
+
+    /**
+     * The address and the socket port of the server.
+     */
+    private final String host;
+    private final int port;
+
+    /**
+     * The number of matches played at the same time, and of players of each match.
+     */
+    private final int matches;
+    private final int players;
+
+    /**
+     * How the players connect to the server.
+     */
+    private final Connections connections;
+
+    /**
+     * The time each player waits before playing its turn, in milliseconds.
+     */
+    private final long turnDelay;
+
+    /**
+     * The time after which the matches still running are abandoned, in seconds.
+     */
+    private final long timeout;
+
+    /**
+     * The period of the progress reports, in seconds.
+     */
+    private final long reportPeriod;
+
+    /**
+     * Whether the server is started in the same process.
+     */
+    private final boolean embedded;
+
+    /**
+     * The JMX port of a server started in another process, 0 if unknown.
+     */
+    private final int jmxPort;
+
+    /**
+     * Constructor of the configuration.
+     *
+     * @param host          the address of the server
+     * @param port          the socket port of the server
+     * @param matches       the number of matches played at the same time
+     * @param players       the number of players of each match
+     * @param connections   how the players connect to the server
+     * @param turnDelay     the time each player waits before playing its turn, in milliseconds
+     * @param timeout       the time after which the matches still running are abandoned, in seconds
+     * @param reportPeriod  the period of the progress reports, in seconds
+     * @param embedded      whether the server is started in the same process
+     * @param jmxPort       the JMX port of a server started in another process, 0 if unknown
+     */
+    public LoadConfig(String host, int port, int matches, int players, Connections connections, long turnDelay,
+                      long timeout, long reportPeriod, boolean embedded, int jmxPort) {
+        if (matches < 1 || timeout < 1 || reportPeriod < 1 || turnDelay < 0 || jmxPort < 0) {
+            throw new IllegalArgumentException("Load limits must be positive");
+        }
+        if (players < 2 || players > GameServer.MAX_PLAYERS) {
+            throw new IllegalArgumentException("A match has from 2 to " + GameServer.MAX_PLAYERS + " players");
+        }
+        this.host = Objects.requireNonNull(host);
+        this.port = port;
+        this.matches = matches;
+        this.players = players;
+        this.connections = Objects.requireNonNull(connections);
+        this.turnDelay = turnDelay;
+        this.timeout = timeout;
+        this.reportPeriod = reportPeriod;
+        this.embedded = embedded;
+        this.jmxPort = jmxPort;
+    }
+
+    /**
+     * Creates the configuration from the system properties.
+     *
+     * @return the configuration
+     */
+    public static LoadConfig fromSystemProperties() {
+        int players = intProperty("players", 2);
+        return new LoadConfig(
+                System.getProperty(PREFIX + "host", "localhost"),
+                intProperty("port", SocketServer.PORT),
+                intProperty("matches", 10),
+                players <= GameServer.MAX_PLAYERS ? players : 2,
+                connectionsProperty(),
+                intProperty("turnDelay", 100),
+                intProperty("timeout", 600),
+                intProperty("reportPeriod", 5),
+                Boolean.parseBoolean(System.getProperty(PREFIX + "embedded", "true")),
+                intProperty("jmxPort", 0));
+    }
+
+    /**
+     * Reads the connections system property.
+     *
+     * @return the connections, {@link Connections#MIXED} if the property is missing or not valid
+     */
+    private static Connections connectionsProperty() {
+        String value = System.getProperty(PREFIX + "connections");
+        if (value == null) return Connections.MIXED;
+        try {
+            return Connections.valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            System.err.println("[ERROR] Invalid value for " + PREFIX + "connections: " + value);
+            return Connections.MIXED;
+        }
+    }
+
+    /**
+     * Reads a positive integer system property.
+     *
+     * @param  name          the name of the property, without prefix
+     * @param  defaultValue  the value used if the property is missing or not valid
+     * @return               the value of the property
+     */
+    private static int intProperty(String name, int defaultValue) {
+        String value = System.getProperty(PREFIX + name);
+        if (value == null) return defaultValue;
+        try {
+            int parsed = Integer.parseInt(value.trim());
+            return parsed > 0 ? parsed : defaultValue;
+        } catch (NumberFormatException e) {
+            System.err.println("[ERROR] Invalid value for " + PREFIX + name + ": " + value);
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Returns the address of the server.
+     *
+     * @return the address
+     */
+    public String getHost() {
+        return host;
+    }
+
+    /**
+     * Returns the socket port of the server.
+     *
+     * @return the socket port
+     */
+    public int getPort() {
+        return port;
+    }
+
+    /**
+     * Returns the port of the RMI registry of the server, the one following the socket port.
+     *
+     * @return the RMI port
+     */
+    public int getRmiPort() {
+        return port + 1;
+    }
+
+    /**
+     * Returns the number of matches played at the same time.
+     *
+     * @return the number of matches
+     */
+    public int getMatches() {
+        return matches;
+    }
+
+    /**
+     * Returns the number of players of each match.
+     *
+     * @return the number of players
+     */
+    public int getPlayers() {
+        return players;
+    }
+
+    /**
+     * Returns how the players connect to the server.
+     *
+     * @return the connections of the players
+     */
+    public Connections getConnections() {
+        return connections;
+    }
+
+    /**
+     * Returns the time each player waits before playing its turn.
+     *
+     * @return the delay, in milliseconds
+     */
+    public long getTurnDelay() {
+        return turnDelay;
+    }
+
+    /**
+     * Returns the time after which the matches still running are abandoned.
+     *
+     * @return the timeout, in seconds
+     */
+    public long getTimeout() {
+        return timeout;
+    }
+
+    /**
+     * Returns the period of the progress reports.
+     *
+     * @return the period, in seconds
+     */
+    public long getReportPeriod() {
+        return reportPeriod;
+    }
+
+    /**
+     * Returns whether the server is started in the same process.
+     *
+     * @return true if the server is embedded, false otherwise
+     */
+    public boolean isEmbedded() {
+        return embedded;
+    }
+
+    /**
+     * Returns the JMX port of a server started in another process.
+     *
+     * @return the JMX port, 0 if unknown
+     */
+    public int getJmxPort() {
+        return jmxPort;
+    }
+
+    @Override
+    public String toString() {
+        return matches + " matches of " + players + " players on " + host + ":" + port + ", "
+                + connections.name().toLowerCase(Locale.ROOT) + " connections, turns every " + turnDelay + "ms, "
+                + (embedded ? "embedded server" : "external server") + ", timeout " + timeout + "s";
+    }
+}
@@ -0,0 +1,234 @@
+package it.polimi.ingsw.am43.Network.Load;
+
+import it.polimi.ingsw.am43.Network.GameRegistry;
+import it.polimi.ingsw.am43.Network.Metrics.ServerMetricsMXBean;
+import it.polimi.ingsw.am43.Network.ServerConfig;
+
+import java.io.IOException;
+import java.rmi.NotBoundException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * Class that produces load on a server running on the same machine, to plan its capacity.
+ * It plays the configured number of matches at the same time, each with a {@link LoadBot} per player
+ * connected through sockets, RMI or both. The matches are set up one after the other, since the server
+ * routes every new client to the first open lobby, and then played concurrently until their end.
+ * While they run, and at the end, it reports the round-trip times seen by the players, the errors
+ * and the resource use of the server read by a {@link ServerProbe}.
+ */
+public class LoadGenerator {
+
+    /**
+     * ANSI color codes for the messages printed by the generator
+     */
+    static String RESET = "\033[0m";
+    static String CYAN = "\033[0;36m"; // Used for LOAD messages
+    static String RED = "\033[0;31m"; // Used for ERROR
+
+    /**
+     * The longest time a match may take to be set up, in milliseconds.
+     */
+    private static final long SETUP_TIMEOUT = 10000;
+
+    /**
+     * The settings of the run.
+     */
+    private final LoadConfig config;
+
+    /**
+     * The results of the run.
+     */
+    private final LoadStats stats = new LoadStats();
+
+    /**
+     * The players of all the matches.
+     */
+    private final List<LoadBot> bots = new ArrayList<>();
+
+    /**
+     * The highest heap used and number of threads of the server seen during the run.
+     */
+    private long peakHeap = 0;
+    private int peakThreads = 0;
+
+    /**
+     * Constructor of the generator.
+     *
+     * @param config the settings of the run
+     */
+    public LoadGenerator(LoadConfig config) {
+        this.config = config;
+    }
+
+    /**
+     * A method that runs the load: starts the embedded server if configured, plays all the matches
+     * and prints the report. The embedded server is stopped at the end.
+     *
+     * @return the results of the run
+     * @throws IOException if the embedded server cannot be started
+     * @throws InterruptedException if the run is interrupted
+     */
+    public LoadStats run() throws IOException, InterruptedException {
+        GameRegistry registry = null;
+        if (config.isEmbedded()) {
+            registry = new GameRegistry(config.getHost(), config.getPort(), ServerConfig.fromSystemProperties());
+            registry.start();
+        }
+        System.out.println(CYAN + "[LOAD] " + config + RESET);
+        try (ServerProbe probe = openProbe()) {
+            long cpuAtStart = probe == null ? -1 : probe.getProcessCpuTime();
+            long start = System.nanoTime();
+            ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor(
+                    Thread.ofPlatform().name("load-report").daemon(true).factory());
+            reporter.scheduleAtFixedRate(() -> progress(probe, start), config.getReportPeriod(),
+                    config.getReportPeriod(), TimeUnit.SECONDS);
+            try {
+                play();
+            } finally {
+                reporter.shutdownNow();
+            }
+            report(probe, start, cpuAtStart);
+        } finally {
+            if (registry != null) registry.stop();
+        }
+        return stats;
+    }
+
+    /**
+     * A method that opens the probe of the server: the platform MBean server for the embedded one,
+     * a remote JMX connection for an external one, if its JMX port is known.
+     *
+     * @return the probe, null if the resource use of the server cannot be read
+     */
+    private ServerProbe openProbe() {
+        if (config.isEmbedded()) return ServerProbe.local();
+        if (config.getJmxPort() == 0) return null;
+        try {
+            return ServerProbe.remote(config.getHost(), config.getJmxPort());
+        } catch (IOException e) {
+            System.err.println(RED + "[ERROR] Unable to read the resource use of the server: " + e + RESET);
+            return null;
+        }
+    }
+
+    /**
+     * A method that sets the matches up one after the other, plays them concurrently and waits for their end,
+     * abandoning the matches still running after the timeout. Every player has its own platform thread, as a
+     * real client: the clients block in monitors and RMI calls, which would pin the carriers of virtual threads
+     * and starve an embedded server.
+     *
+     * @throws InterruptedException if the run is interrupted
+     */
+    private void play() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(config.getTimeout());
+        ExecutorService players = Executors.newThreadPerTaskExecutor(
+                Thread.ofPlatform().name("load-player-", 0).daemon(true).factory());
+        try {
+            for (int m = 0; m < config.getMatches(); m++) {
+                if (!setUp(m, players)) stats.error(LoadStats.Error.TIMED_OUT);
+            }
+            players.shutdown();
+            long left = deadline - System.nanoTime();
+            if (!players.awaitTermination(Math.max(left, 0), TimeUnit.NANOSECONDS)) {
+                for (LoadBot bot : bots) {
+                    if (!bot.hasEnded()) stats.error(LoadStats.Error.TIMED_OUT);
+                }
+            }
+        } finally {
+            for (LoadBot bot : bots) bot.close();
+            players.shutdownNow();
+        }
+    }
+
+    /**
+     * A method that connects the players of a match, one at a time so that they all land in the same lobby,
+     * and waits until the match has started.
+     *
+     * @param match   the number of the match
+     * @param players the executor that runs the players
+     * @return true if the match has started, false if it could not be set up in time
+     * @throws InterruptedException if the run is interrupted
+     */
+    private boolean setUp(int match, ExecutorService players) throws InterruptedException {
+        CountDownLatch matchEnded = new CountDownLatch(config.getPlayers());
+        List<LoadBot> seats = new ArrayList<>();
+        for (int seat = 0; seat < config.getPlayers(); seat++) {
+            LoadBot bot = new LoadBot(config, stats, "bot" + match + "_" + seat, seat, matchEnded);
+            try {
+                bot.connect();
+            } catch (IOException | NotBoundException e) {
+                System.err.println(RED + "[ERROR] Unable to connect a player: " + e + RESET);
+                stats.error(LoadStats.Error.DISCONNECTED);
+                seats.forEach(LoadBot::close);
+                return false;
+            }
+            bots.add(bot);
+            seats.add(bot);
+            players.execute(bot);
+            if (!bot.awaitJoined(SETUP_TIMEOUT)) {
+                seats.forEach(LoadBot::close);
+                return false;
+            }
+        }
+        for (LoadBot bot : seats) {
+            if (!bot.awaitStarted(SETUP_TIMEOUT)) {
+                seats.forEach(LoadBot::close);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * A method that prints the progress of the run, and samples the resource use of the server.
+     *
+     * @param probe the probe of the server, null if not available
+     * @param start the time the run started, in nanoseconds
+     */
+    private void progress(ServerProbe probe, long start) {
+        double seconds = (System.nanoTime() - start) / 1e9;
+        StringBuilder line = new StringBuilder(String.format("[LOAD] %.0fs: matches %d/%d, turns %d (%.1f/s), turn p99 %.1fms, errors %d",
+                seconds, stats.getMatches(), config.getMatches(), stats.getTurns(), stats.getTurns() / seconds,
+                stats.getTurnTimes().getValueAtPercentile(99) / 1e6, stats.getErrors()));
+        if (probe != null) {
+            long heap = probe.getHeapUsed();
+            int threads = probe.getThreads();
+            peakHeap = Math.max(peakHeap, heap);
+            peakThreads = Math.max(peakThreads, threads);
+            line.append(String.format(", server heap %d MB, threads %d", heap >> 20, threads));
+        }
+        System.out.println(CYAN + line + RESET);
+    }
+
+    /**
+     * A method that prints the report of the run: the round-trip times and the errors, and the resource use
+     * and the metrics of the server.
+     *
+     * @param probe      the probe of the server, null if not available
+     * @param start      the time the run started, in nanoseconds
+     * @param cpuAtStart the CPU time used by the server process when the run started, in nanoseconds
+     */
+    private void report(ServerProbe probe, long start, long cpuAtStart) {
+        long elapsed = System.nanoTime() - start;
+        StringBuilder out = new StringBuilder();
+        out.append(String.format("[LOAD] %d/%d matches completed in %.1fs, %d turns (%.1f/s)%n", stats.getMatches(),
+                config.getMatches(), elapsed / 1e9, stats.getTurns(), stats.getTurns() / (elapsed / 1e9)));
+        out.append(stats.summary());
+        if (probe == null) {
+            out.append("server resource use not available: start it with -Dcom.sun.management.jmxremote.port and set codex.load.jmxPort")
+                    .append(System.lineSeparator());
+        } else {
+            peakHeap = Math.max(peakHeap, probe.getHeapUsed());
+            peakThreads = Math.max(peakThreads, probe.getThreads());
+            long cpu = probe.getProcessCpuTime();
+            String cores = cpu < 0 || cpuAtStart < 0 ? "n/a" : String.format("%.2f", (double) (cpu - cpuAtStart) / elapsed);
+            out.append(String.format("server: %s cores used on average, heap peak %d MB, threads peak %d%s%n", cores,
+                    peakHeap >> 20, peakThreads, config.isEmbedded() ? " (embedded: the players are included)" : ""));
+            ServerMetricsMXBean metrics = probe.getServerMetrics();
+            if (metrics != null) out.append(metrics.dump());
+        }
+        System.out.print(CYAN + out + RESET);
+    }
+}
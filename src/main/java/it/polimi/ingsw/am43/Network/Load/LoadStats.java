@@ -0,0 +1,184 @@
+package it.polimi.ingsw.am43.Network.Load;
+
+import it.polimi.ingsw.am43.Network.Metrics.LatencyHistogram;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The results of a load run, recorded by all the {@link LoadBot}s at the same time:
+ * the round-trip times seen by the players, the turns and matches completed and the errors.
+ */
+public class LoadStats {
+
+    /**
+     * The kinds of errors met by the players.
+     */
+    public enum Error {
+        /**
+         * The connection was closed before the end of the match.
+         */
+        DISCONNECTED,
+        /**
+         * The server refused the nickname or the color of a player.
+         */
+        REJECTED,
+        /**
+         * The server offered no legal placement to a player.
+         */
+        NO_LEGAL_MOVE,
+        /**
+         * The match did not start or end in time.
+         */
+        TIMED_OUT,
+        /**
+         * An exception was thrown while playing.
+         */
+        FAILED
+    }
+
+    /**
+     * The time from the connection of a player to the start of its match.
+     */
+    private final LatencyHistogram joins = new LatencyHistogram();
+
+    /**
+     * The time from the request of the placeable cards to the answer.
+     */
+    private final LatencyHistogram plays = new LatencyHistogram();
+
+    /**
+     * The time from the request of a turn to the game information of that turn.
+     */
+    private final LatencyHistogram turns = new LatencyHistogram();
+
+    /**
+     * The number of matches completed.
+     */
+    private final LongAdder matches = new LongAdder();
+
+    /**
+     * The number of errors of each kind.
+     */
+    private final Map<Error, LongAdder> errors = new EnumMap<>(Error.class);
+
+    /**
+     * Constructor of the results.
+     */
+    public LoadStats() {
+        // Every kind is present from the start, so that the map is never modified while recording
+        for (Error error : Error.values()) errors.put(error, new LongAdder());
+    }
+
+    /**
+     * A method that records the time taken by a player to join a match.
+     *
+     * @param nanos the time taken, in nanoseconds
+     */
+    public void recordJoin(long nanos) {
+        joins.record(nanos);
+    }
+
+    /**
+     * A method that records the round-trip time of a request of the placeable cards.
+     *
+     * @param nanos the round-trip time, in nanoseconds
+     */
+    public void recordPlay(long nanos) {
+        plays.record(nanos);
+    }
+
+    /**
+     * A method that records the round-trip time of a turn.
+     *
+     * @param nanos the round-trip time, in nanoseconds
+     */
+    public void recordTurn(long nanos) {
+        turns.record(nanos);
+    }
+
+    /**
+     * A method that counts a completed match.
+     */
+    public void matchCompleted() {
+        matches.increment();
+    }
+
+    /**
+     * A method that counts an error.
+     *
+     * @param error the kind of the error
+     */
+    public void error(Error error) {
+        errors.get(error).increment();
+    }
+
+    /**
+     * A method that returns the number of turns played.
+     *
+     * @return the number of turns
+     */
+    public long getTurns() {
+        return turns.getCount();
+    }
+
+    /**
+     * A method that returns the number of matches completed.
+     *
+     * @return the number of matches
+     */
+    public long getMatches() {
+        return matches.sum();
+    }
+
+    /**
+     * A method that returns the number of errors of a kind.
+     *
+     * @param error the kind of the errors
+     * @return the number of errors
+     */
+    public long getErrors(Error error) {
+        return errors.get(error).sum();
+    }
+
+    /**
+     * A method that returns the number of errors of all kinds.
+     *
+     * @return the number of errors
+     */
+    public long getErrors() {
+        long total = 0;
+        for (LongAdder count : errors.values()) total += count.sum();
+        return total;
+    }
+
+    /**
+     * A method that returns the round-trip times of the turns.
+     *
+     * @return the histogram of the turns
+     */
+    public LatencyHistogram getTurnTimes() {
+        return turns;
+    }
+
+    /**
+     * A method that returns the latencies, in microseconds, and the errors as plain text.
+     *
+     * @return the summary of the results
+     */
+    public String summary() {
+        StringBuilder out = new StringBuilder();
+        out.append(String.format("%-26s %8s %9s %9s %9s %9s %9s%n", "round trip (us)", "count", "mean", "p50", "p90", "p99", "max"));
+        out.append(String.format("%-26s %s%n", "join", joins.summary()));
+        out.append(String.format("%-26s %s%n", "placeable cards", plays.summary()));
+        out.append(String.format("%-26s %s%n", "turn", turns.summary()));
+        StringJoiner kinds = new StringJoiner(", ");
+        errors.forEach((error, count) -> {
+            if (count.sum() > 0) kinds.add(error.name() + " " + count.sum());
+        });
+        out.append("errors: ").append(kinds.length() == 0 ? "none" : kinds.toString()).append(System.lineSeparator());
+        return out.toString();
+    }
+}
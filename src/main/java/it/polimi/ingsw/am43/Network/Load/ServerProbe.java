@@ -0,0 +1,138 @@
+package it.polimi.ingsw.am43.Network.Load;
+
+import it.polimi.ingsw.am43.Network.Metrics.ServerMetricsMXBean;
+
+import javax.management.*;
+import javax.management.openmbean.CompositeData;
+import javax.management.remote.JMXConnector;
+import javax.management.remote.JMXConnectorFactory;
+import javax.management.remote.JMXServiceURL;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.Set;
+
+/**
+ * Reads the resource use of the server through JMX: the CPU time and the heap of its process,
+ * its threads and the {@link ServerMetricsMXBean} it registers. The server is either the one
+ * embedded in the process of the {@link LoadGenerator}, read from the platform MBean server,
+ * or one started in another process with remote JMX enabled.
+ */
+public class ServerProbe implements AutoCloseable {
+
+    /**
+     * The connection with the MBean server of the server process.
+     */
+    private final MBeanServerConnection connection;
+
+    /**
+     * The remote JMX connection, null for the platform MBean server.
+     */
+    private final JMXConnector connector;
+
+    /**
+     * Constructor of the probe.
+     *
+     * @param connection the connection with the MBean server of the server process
+     * @param connector  the remote JMX connection, null for the platform MBean server
+     */
+    private ServerProbe(MBeanServerConnection connection, JMXConnector connector) {
+        this.connection = connection;
+        this.connector = connector;
+    }
+
+    /**
+     * A method that creates a probe of the server embedded in this process.
+     *
+     * @return the probe
+     */
+    public static ServerProbe local() {
+        return new ServerProbe(ManagementFactory.getPlatformMBeanServer(), null);
+    }
+
+    /**
+     * A method that creates a probe of a server started in another process with remote JMX enabled.
+     *
+     * @param host    the address of the server
+     * @param jmxPort the JMX port of the server
+     * @return the probe
+     * @throws IOException if the JMX port cannot be reached
+     */
+    public static ServerProbe remote(String host, int jmxPort) throws IOException {
+        JMXServiceURL url = new JMXServiceURL("service:jmx:rmi:///jndi/rmi://" + host + ":" + jmxPort + "/jmxrmi");
+        JMXConnector connector = JMXConnectorFactory.connect(url);
+        return new ServerProbe(connector.getMBeanServerConnection(), connector);
+    }
+
+    /**
+     * A method that returns the CPU time used by the server process.
+     *
+     * @return the CPU time, in nanoseconds, -1 if the JVM does not measure it
+     */
+    public long getProcessCpuTime() {
+        Object value = attribute(ManagementFactory.OPERATING_SYSTEM_MXBEAN_NAME, "ProcessCpuTime");
+        return value instanceof Long time ? time : -1;
+    }
+
+    /**
+     * A method that returns the heap used by the server process.
+     *
+     * @return the used heap, in bytes, -1 if it cannot be read
+     */
+    public long getHeapUsed() {
+        Object value = attribute(ManagementFactory.MEMORY_MXBEAN_NAME, "HeapMemoryUsage");
+        return value instanceof CompositeData usage ? (Long) usage.get("used") : -1;
+    }
+
+    /**
+     * A method that returns the number of live platform threads of the server process.
+     *
+     * @return the number of threads, -1 if it cannot be read
+     */
+    public int getThreads() {
+        Object value = attribute(ManagementFactory.THREAD_MXBEAN_NAME, "ThreadCount");
+        return value instanceof Integer count ? count : -1;
+    }
+
+    /**
+     * A method that returns the metrics registered by the server.
+     *
+     * @return a proxy of the metrics, null if the server has not registered them
+     */
+    public ServerMetricsMXBean getServerMetrics() {
+        try {
+            Set<ObjectName> names = connection.queryNames(new ObjectName("it.polimi.ingsw.am43:type=ServerMetrics,*"), null);
+            if (names.isEmpty()) return null;
+            return JMX.newMXBeanProxy(connection, names.iterator().next(), ServerMetricsMXBean.class);
+        } catch (IOException | MalformedObjectNameException e) {
+            return null;
+        }
+    }
+
+    /**
+     * A method that reads an attribute of an MBean of the server process.
+     *
+     * @param name      the name of the MBean
+     * @param attribute the name of the attribute
+     * @return the value of the attribute, null if it cannot be read
+     */
+    private Object attribute(String name, String attribute) {
+        try {
+            return connection.getAttribute(new ObjectName(name), attribute);
+        } catch (JMException | IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Closes the remote JMX connection, if any.
+     */
+    @Override
+    public void close() {
+        if (connector == null) return;
+        try {
+            connector.close();
+        } catch (IOException e) {
+            // Already closed
+        }
+    }
+}
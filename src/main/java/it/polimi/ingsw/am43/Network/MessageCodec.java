@@ -0,0 +1,531 @@
+package it.polimi.ingsw.am43.Network;
+
+import it.polimi.ingsw.am43.Model.Enum.PawnColor;
+import it.polimi.ingsw.am43.Model.SparseBoard;
+import it.polimi.ingsw.am43.Network.Messages.MessageType;
+import it.polimi.ingsw.am43.Network.Messages.controllerMessages.*;
+import it.polimi.ingsw.am43.Network.Messages.toClientMessages.*;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+
+/**
+ * A class that turns {@link Message}s into frames exchangeable through a socket connection, and back.
+ * A frame is made of the length of its payload, as a 4 bytes big-endian integer, followed by the payload.
+ * Since every frame carries its own length, frames can be read by blocking streams as well as
+ * by non-blocking channels, which accumulate bytes until a whole frame is available.
+ * The payload starts with the {@link MessageType} of the message, which selects the layout of the fields
+ * that follow, written by {@link WireOutput}. Cards travel as their ids and are resolved through the
+ * {@link it.polimi.ingsw.am43.Model.CardCatalog} on the other side, so no class descriptor nor object graph
+ * is ever sent.
+ */
+public final class MessageCodec {
+
+    /**
+     * The size of the length that precedes every payload.
+     */
+    public static final int HEADER_SIZE = Integer.BYTES;
+
+    /**
+     * The maximum size of a payload. Longer frames are rejected, so that a broken or malicious
+     * client cannot make the server allocate arbitrary amounts of memory.
+     */
+    public static final int MAX_FRAME_SIZE = 1 << 20;
+
+    /**
+     * The initial capacity of the buffer of a frame, enough for all the messages but the biggest ones.
+     */
+    private static final int INITIAL_CAPACITY = 128;
+
+    /**
+     * The message types, by ordinal.
+     */
+    private static final MessageType[] TYPES = MessageType.values();
+
+    /**
+     * The frame of a heartbeat, the same for every connection: a payload made only of its type.
+     */
+    private static final byte[] HEARTBEAT_FRAME = {0, 0, 0, 1, (byte) MessageType.HEARTBEAT.ordinal()};
+
+    /**
+     * The size of the frame of a heartbeat.
+     */
+    public static final int HEARTBEAT_FRAME_SIZE = HEARTBEAT_FRAME.length;
+
+    /**
+     * The heartbeat returned by every decoded heartbeat frame, since it has no fields.
+     */
+    private static final SCMsgHeartbeat HEARTBEAT = new SCMsgHeartbeat();
+
+    private MessageCodec() {
+    }
+
+    /**
+     * Encodes a {@link Message} in a payload.
+     *
+     * @param  msg  the {@link Message} to encode
+     * @return      the payload
+     * @throws IOException if the message has no binary layout
+     */
+    public static byte[] encode(Message msg) throws IOException {
+        WireOutput out = new WireOutput(INITIAL_CAPACITY);
+        write(out, msg);
+        return out.toByteArray();
+    }
+
+    /**
+     * Decodes a {@link Message} from a payload.
+     *
+     * @param  payload  the bytes containing the payload
+     * @param  offset   the index of the first byte of the payload
+     * @param  length   the length of the payload
+     * @return          the decoded {@link Message}
+     * @throws IOException if the payload does not contain a valid {@link Message}
+     */
+    public static Message decode(byte[] payload, int offset, int length) throws IOException {
+        WireInput in = new WireInput(payload, offset, length);
+        Message msg = read(in);
+        if (in.remaining() != 0) {
+            throw new StreamCorruptedException(in.remaining() + " bytes left after " + msg.getType());
+        }
+        return msg;
+    }
+
+    /**
+     * Encodes a {@link Message} in a whole frame, ready to be written on a channel.
+     *
+     * @param  msg  the {@link Message} to encode
+     * @return      a buffer containing the frame, positioned at its beginning
+     * @throws IOException if the message has no binary layout or is too long
+     */
+    public static ByteBuffer encodeFrame(Message msg) throws IOException {
+        WireOutput out = new WireOutput(INITIAL_CAPACITY);
+        // Leave room for the header, so that the payload is never copied
+        for (int i = 0; i < HEADER_SIZE; i++) out.writeByte(0);
+        write(out, msg);
+        int length = out.size() - HEADER_SIZE;
+        checkLength(length);
+        ByteBuffer frame = ByteBuffer.wrap(out.array(), 0, out.size());
+        frame.putInt(0, length);
+        return frame;
+    }
+
+    /**
+     * Encodes a {@link Message} in a frame shared by all the connections it is broadcast to, so that it is encoded
+     * only once whatever the number of recipients. The frame is read-only: every connection writes its own
+     * {@link ByteBuffer#duplicate()} of it, hence the same bytes are never copied before reaching the channels.
+     *
+     * @param  msg  the {@link Message} to encode
+     * @return      a read-only buffer containing the frame, positioned at its beginning
+     * @throws IOException if the message has no binary layout or is too long
+     */
+    public static ByteBuffer encodeSharedFrame(Message msg) throws IOException {
+        return encodeFrame(msg).asReadOnlyBuffer();
+    }
+
+    /**
+     * Writes a {@link Message} as a frame on a stream. The stream is not flushed.
+     *
+     * @param  out  the stream to write to
+     * @param  msg  the {@link Message} to write
+     * @throws IOException if an I/O error occurs or the message is too long
+     */
+    public static void writeFrame(DataOutputStream out, Message msg) throws IOException {
+        WireOutput payload = new WireOutput(INITIAL_CAPACITY);
+        write(payload, msg);
+        checkLength(payload.size());
+        out.writeInt(payload.size());
+        out.write(payload.array(), 0, payload.size());
+    }
+
+    /**
+     * Returns the frame of a heartbeat, ready to be written on a channel.
+     * The frame is never encoded: every call returns a new view of the same bytes.
+     *
+     * @return a read-only buffer containing the frame, positioned at its beginning
+     */
+    public static ByteBuffer heartbeatFrame() {
+        return ByteBuffer.wrap(HEARTBEAT_FRAME).asReadOnlyBuffer();
+    }
+
+    /**
+     * Writes the frame of a heartbeat on a stream. The stream is not flushed.
+     *
+     * @param  out  the stream to write to
+     * @throws IOException if an I/O error occurs
+     */
+    public static void writeHeartbeat(DataOutputStream out) throws IOException {
+        out.write(HEARTBEAT_FRAME);
+    }
+
+    /**
+     * Reads a frame from a stream, blocking until it is complete.
+     *
+     * @param  in   the stream to read from
+     * @return      the {@link Message} contained in the frame
+     * @throws IOException if an I/O error occurs or the frame is not valid
+     */
+    public static Message readFrame(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        checkLength(length);
+        byte[] payload = new byte[length];
+        in.readFully(payload);
+        return decode(payload, 0, length);
+    }
+
+    /**
+     * Checks the length of a payload.
+     *
+     * @param  length  the length of the payload
+     * @throws StreamCorruptedException if the length is negative or greater than {@link #MAX_FRAME_SIZE}
+     */
+    public static void checkLength(int length) throws StreamCorruptedException {
+        if (length < 0 || length > MAX_FRAME_SIZE) {
+            throw new StreamCorruptedException("Invalid frame length: " + length);
+        }
+    }
+
+    /**
+     * Writes the type and the fields of a {@link Message}.
+     *
+     * @param  out  the output to write to
+     * @param  msg  the {@link Message} to write
+     * @throws IOException if the message has no binary layout
+     */
+    private static void write(WireOutput out, Message msg) throws IOException {
+        out.writeByte(msg.getType().ordinal());
+        switch (msg.getType()) {
+            // to server messages
+            case HEARTBEAT, PLAY, FIRST_STILL_JOINING, FIRSTPLAYER -> {}
+            case JOIN_GAME -> out.writeString(((SCMsgJoinGame) msg).getGameID());
+            case FIRSTPLAYERJOINS -> {
+                SCMsgFirstPlayerJoins m = (SCMsgFirstPlayerJoins) msg;
+                out.writeString(m.getUsername());
+                out.writeInt(m.getColor());
+                out.writeInt(m.getNumPlayers());
+            }
+            case GENERALPLAYERJOINS -> {
+                SCMsgGeneralPlayerJoins m = (SCMsgGeneralPlayerJoins) msg;
+                out.writeString(m.getUsername());
+                out.writeInt(m.getColor());
+            }
+            case DRAW_PERSONAL_OBJECTIVES -> out.writeInt(((SCMsgDrawPersonalObjectives) msg).getSide());
+            case PERSONAL_OBJECTIVE_CHOICE -> out.writeInt(((SCMsgPersonalObjective) msg).getObjID());
+            case COUPLECARDS -> out.writeInt(((SCMsgCardCouple) msg).getDeployedIndex());
+            case PLAYTURN -> {
+                SCMsgPlayTurn m = (SCMsgPlayTurn) msg;
+                out.writeInt(m.getHandIndex());
+                out.writeInt(m.getDeployedIndex());
+                out.writeInt(m.getCorner());
+                out.writeInt(m.getDrawn());
+            }
+            case PLAYER_REJOINS -> {
+                SCMsgPlayerRejoins m = (SCMsgPlayerRejoins) msg;
+                out.writeInt(m.getPick());
+                out.writeInt(m.getLastSeq());
+            }
+            case GENERAL_MSG -> {
+                publicChatMessageMsg m = (publicChatMessageMsg) msg;
+                out.writeString(m.getSender());
+                out.writeString(m.getMessage());
+            }
+            case PRIVATE_MSG -> {
+                privateChatMessageMsg m = (privateChatMessageMsg) msg;
+                out.writeString(m.getSender());
+                out.writeString(m.getReceiver());
+                out.writeString(m.getMessage());
+            }
+            // to client messages
+            case GENERALPLAYER -> {
+                generalPlayerMsg m = (generalPlayerMsg) msg;
+                out.writeInts(m.getRemaining());
+                out.writeStrings(m.getNicknames());
+            }
+            case NICKNAME_ALREADY_USED -> {
+                nickOrColorAlreadyUsedMsg m = (nickOrColorAlreadyUsedMsg) msg;
+                out.writeStrings(m.getNicknames());
+                out.writeInts(m.getColors());
+            }
+            case CHECK_FIRST -> {
+                checkFirstMsg m = (checkFirstMsg) msg;
+                out.writeStrings(m.getNicknames());
+                out.writeInts(m.getRemaining());
+            }
+            case REJOIN_PLAYER -> out.writeStrings(((rejoinPlayerMsg) msg).getPlayers());
+            case CANNOT_REJOIN -> {
+                cannotRejoinMsg m = (cannotRejoinMsg) msg;
+                out.writeIntList(m.getInvalid());
+                out.writeStrings(m.getPlayers());
+            }
+            case INITIAL_SITUATION -> {
+                initialSituation m = (initialSituation) msg;
+                out.writeInts(m.getInHandIDs());
+                out.writeInt(m.getStartingCardID());
+                out.writeInts(m.getCommonObjectiveIDs());
+                out.writeInt(m.getPlayerID());
+            }
+            case PERSONALOBJECTIVES -> out.writeInts(((personalObjectivesMsg) msg).getPersonalObjectiveIDs());
+            case INITIALGAMEINFO -> {
+                initialGameInfoMsg m = (initialGameInfoMsg) msg;
+                out.writeInts(m.getStartingSideRefs());
+                out.writeInts(m.getOnGroundIDs());
+                out.writeInt(m.getFirst());
+                out.writeStrings(m.getUsernames());
+                writeColors(out, m.getColors());
+                out.writeInt(m.getGoldenDeckTopRef());
+                out.writeInt(m.getResourceDeckTopRef());
+            }
+            case GAMEINFO -> writeGameInfo(out, (gameInfoMsg) msg);
+            case PLEACABLECARDS -> {
+                placeableCardsMsg m = (placeableCardsMsg) msg;
+                out.writeBooleanObjects(m.getPlaceableCards());
+                boolean[][] placements = m.getAllAvailablePlacements();
+                out.writeInt(placements == null ? -1 : placements.length);
+                if (placements != null) for (boolean[] p : placements) out.writeBooleans(p);
+                out.writeBoolean(m.isResEmpty());
+                out.writeBoolean(m.isGoldEmpty());
+            }
+            case AVAILABLEPLACEMENTS -> {
+                availablePlacementsMsg m = (availablePlacementsMsg) msg;
+                out.writeBooleans(m.getAvailablePlacements());
+                out.writeBoolean(m.isResEmpty());
+                out.writeBoolean(m.isGoldEmpty());
+            }
+            case NEWINHAND -> out.writeInt(((newInHandMsg) msg).getDrawnID());
+            case REQUIRED_DATA -> {
+                requiredDataMsg m = (requiredDataMsg) msg;
+                out.writeInt(m.getSeq());
+                out.writeInts(m.getInHandIDs());
+                out.writeInt(m.getStartingCardID());
+                out.writeInts(m.getOnGroundIDs());
+                out.writeInts(m.getCommonObjectiveIDs());
+                out.writeInt(m.getPersonalObjectiveID());
+                out.writeInts(m.getScores());
+                SparseBoard[] boards = m.getPlacements();
+                out.writeInt(boards == null ? -1 : boards.length);
+                if (boards != null) for (SparseBoard b : boards) out.writeBoard(b);
+                writeIntArrays(out, m.getDeployedRefs());
+                writeIntArrays(out, m.getDeployedCoordinates());
+                writeColors(out, m.getColors());
+                out.writeStrings(m.getUsernames());
+                out.writeInt(m.getNumPlayers());
+                out.writeInt(m.getFirstPlayer());
+            }
+            case RESYNC -> {
+                resyncMsg m = (resyncMsg) msg;
+                out.writeInt(m.getMissed().length);
+                for (gameInfoMsg event : m.getMissed()) writeGameInfo(out, event);
+                out.writeInts(m.getInHandIDs());
+                out.writeInt(m.getPersonalObjectiveID());
+            }
+            case ENDGAME -> writeIntArrays(out, ((endGameMsg) msg).getRanking());
+            default -> throw new NotSerializableException("No binary layout for " + msg.getType());
+        }
+    }
+
+    /**
+     * Reads the type and the fields of a {@link Message}.
+     *
+     * @param  in   the input to read from
+     * @return      the {@link Message} read
+     * @throws IOException if the payload does not contain a valid {@link Message}
+     */
+    private static Message read(WireInput in) throws IOException {
+        int ordinal = in.readByte();
+        if (ordinal >= TYPES.length) throw new InvalidObjectException("Unknown message type: " + ordinal);
+        MessageType type = TYPES[ordinal];
+        return switch (type) {
+            // to server messages
+            case HEARTBEAT -> HEARTBEAT;
+            case PLAY -> new SCMsgPlay();
+            case FIRST_STILL_JOINING -> new SCMsgFirstStillJoining();
+            case JOIN_GAME -> new SCMsgJoinGame(in.readString());
+            case FIRSTPLAYERJOINS -> new SCMsgFirstPlayerJoins(in.readString(), in.readInt(), in.readInt());
+            case GENERALPLAYERJOINS -> new SCMsgGeneralPlayerJoins(in.readString(), in.readInt());
+            case DRAW_PERSONAL_OBJECTIVES -> new SCMsgDrawPersonalObjectives(in.readInt());
+            case PERSONAL_OBJECTIVE_CHOICE -> new SCMsgPersonalObjective(in.readInt());
+            case COUPLECARDS -> new SCMsgCardCouple(in.readInt());
+            case PLAYTURN -> new SCMsgPlayTurn(in.readInt(), in.readInt(), in.readInt(), in.readInt());
+            case PLAYER_REJOINS -> new SCMsgPlayerRejoins(String.valueOf(in.readInt()), in.readInt());
+            case GENERAL_MSG -> new publicChatMessageMsg(in.readString(), in.readString());
+            case PRIVATE_MSG -> new privateChatMessageMsg(in.readString(), in.readString(), in.readString());
+            // to client messages
+            case FIRSTPLAYER -> new firstPlayerMsg();
+            case GENERALPLAYER -> new generalPlayerMsg(in.readInts(), in.readStrings());
+            case NICKNAME_ALREADY_USED -> new nickOrColorAlreadyUsedMsg(in.readStrings(), in.readInts());
+            case CHECK_FIRST -> new checkFirstMsg(in.readStrings(), in.readInts());
+            case REJOIN_PLAYER -> new rejoinPlayerMsg(in.readStrings());
+            case CANNOT_REJOIN -> new cannotRejoinMsg(in.readIntList(), in.readStrings());
+            case INITIAL_SITUATION -> new initialSituation(in.readInts(), in.readInt(), in.readInts(), in.readInt());
+            case PERSONALOBJECTIVES -> new personalObjectivesMsg(in.readInts());
+            case INITIALGAMEINFO -> new initialGameInfoMsg(in.readInts(), in.readInts(), in.readInt(),
+                    in.readStrings(), readColors(in), in.readInt(), in.readInt());
+            case GAMEINFO -> readGameInfo(in);
+            case PLEACABLECARDS -> {
+                Boolean[] placeable = in.readBooleanObjects();
+                boolean[][] placements = null;
+                int length = in.readInt();
+                if (length >= 0) {
+                    placements = new boolean[checkCount(in, length)][];
+                    for (int i = 0; i < length; i++) placements[i] = in.readBooleans();
+                }
+                yield new placeableCardsMsg(placeable, placements, in.readBoolean(), in.readBoolean());
+            }
+            case AVAILABLEPLACEMENTS -> new availablePlacementsMsg(in.readBooleans(), in.readBoolean(), in.readBoolean());
+            case NEWINHAND -> new newInHandMsg(in.readInt());
+            case REQUIRED_DATA -> {
+                var seq = in.readInt();
+                var inHand = in.readInts();
+                var startingCard = in.readInt();
+                var onGround = in.readInts();
+                var commonObjectives = in.readInts();
+                var personalObjective = in.readInt();
+                var scores = in.readInts();
+                SparseBoard[] boards = null;
+                int length = in.readInt();
+                if (length >= 0) {
+                    boards = new SparseBoard[checkCount(in, length)];
+                    for (int i = 0; i < length; i++) boards[i] = in.readBoard();
+                }
+                int[][] deployed = readIntArrays(in);
+                int[][] coordinates = readIntArrays(in);
+                checkDeployed(deployed, coordinates);
+                yield new requiredDataMsg(seq, inHand, startingCard, onGround, commonObjectives, personalObjective, scores,
+                        boards, deployed, coordinates, readColors(in), in.readStrings(), in.readInt(), in.readInt());
+            }
+            case RESYNC -> {
+                int count = in.readInt();
+                if (count < 0) throw new StreamCorruptedException("Invalid length: " + count);
+                gameInfoMsg[] missed = new gameInfoMsg[checkCount(in, count)];
+                for (int i = 0; i < missed.length; i++) missed[i] = readGameInfo(in);
+                yield new resyncMsg(missed, in.readInts(), in.readInt());
+            }
+            case ENDGAME -> new endGameMsg(readIntArrays(in));
+            default -> throw new InvalidObjectException("No binary layout for " + type);
+        };
+    }
+
+    /**
+     * Writes the fields of a {@link gameInfoMsg}, the delta of a turn.
+     *
+     * @param  out  the output to write to
+     * @param  msg  the {@link gameInfoMsg} to write
+     */
+    private static void writeGameInfo(WireOutput out, gameInfoMsg msg) {
+        out.writeInt(msg.getSeq());
+        out.writeInt(msg.getPlayerID());
+        out.writeInts(msg.getScores());
+        out.writeInt(msg.getLastOnGroundID());
+        out.writeInt(msg.getLastOnGroundIndex());
+        out.writeInt(msg.getPlacedCardSideRef());
+        out.writeInt(msg.getPlacedDeployedID());
+        out.writeInts(msg.getPlacedCoordinates());
+        out.writeInt(msg.getGoldenDeckTopRef());
+        out.writeInt(msg.getResourceDeckTopRef());
+    }
+
+    /**
+     * Reads the fields of a {@link gameInfoMsg} written by {@link #writeGameInfo(WireOutput, gameInfoMsg)}.
+     *
+     * @param  in   the input to read from
+     * @return      the {@link gameInfoMsg} read
+     * @throws IOException if the payload is not valid
+     */
+    private static gameInfoMsg readGameInfo(WireInput in) throws IOException {
+        return new gameInfoMsg(in.readInt(), in.readInt(), in.readInts(), in.readInt(), in.readInt(),
+                in.readInt(), in.readInt(), in.readInts(), in.readInt(), in.readInt());
+    }
+
+    /**
+     * Writes an array of {@link PawnColor}s as their ordinals.
+     *
+     * @param  out     the output to write to
+     * @param  colors  the colors to write, may be null
+     */
+    private static void writeColors(WireOutput out, PawnColor[] colors) {
+        if (colors == null) {
+            out.writeInts(null);
+            return;
+        }
+        int[] ordinals = new int[colors.length];
+        for (int i = 0; i < colors.length; i++) ordinals[i] = colors[i] == null ? -1 : colors[i].ordinal();
+        out.writeInts(ordinals);
+    }
+
+    /**
+     * Reads an array of {@link PawnColor}s written by {@link #writeColors(WireOutput, PawnColor[])}.
+     *
+     * @param  in   the input to read from
+     * @return      the colors read, may be null
+     * @throws IOException if a color is not valid
+     */
+    private static PawnColor[] readColors(WireInput in) throws IOException {
+        int[] ordinals = in.readInts();
+        if (ordinals == null) return null;
+        PawnColor[] all = PawnColor.values();
+        PawnColor[] colors = new PawnColor[ordinals.length];
+        for (int i = 0; i < ordinals.length; i++) {
+            if (ordinals[i] < -1 || ordinals[i] >= all.length) throw new InvalidObjectException("Unknown color: " + ordinals[i]);
+            colors[i] = ordinals[i] == -1 ? null : all[ordinals[i]];
+        }
+        return colors;
+    }
+
+    /**
+     * Writes an array of arrays of integers.
+     *
+     * @param  out     the output to write to
+     * @param  arrays  the arrays to write, may be null
+     */
+    private static void writeIntArrays(WireOutput out, int[][] arrays) {
+        out.writeInt(arrays == null ? -1 : arrays.length);
+        if (arrays != null) for (int[] a : arrays) out.writeInts(a);
+    }
+
+    /**
+     * Reads an array of arrays of integers written by {@link #writeIntArrays(WireOutput, int[][])}.
+     *
+     * @param  in   the input to read from
+     * @return      the arrays read, may be null
+     * @throws IOException if the payload is not valid
+     */
+    private static int[][] readIntArrays(WireInput in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) return null;
+        int[][] arrays = new int[checkCount(in, length)][];
+        for (int i = 0; i < length; i++) arrays[i] = in.readInts();
+        return arrays;
+    }
+
+    /**
+     * Checks that every deployed card read from a payload has its two coordinates.
+     *
+     * @param  deployed     the references of the deployed cards of each player
+     * @param  coordinates  the coordinates of the deployed cards of each player
+     * @throws InvalidObjectException if some coordinates are missing
+     */
+    private static void checkDeployed(int[][] deployed, int[][] coordinates) throws InvalidObjectException {
+        if (deployed == null && coordinates == null) return;
+        if (deployed == null || coordinates == null || deployed.length != coordinates.length) {
+            throw new InvalidObjectException("Deployed cards and coordinates do not match");
+        }
+        for (int i = 0; i < deployed.length; i++) {
+            if (deployed[i] == null || coordinates[i] == null || coordinates[i].length != 2 * deployed[i].length) {
+                throw new InvalidObjectException("Deployed cards and coordinates do not match");
+            }
+        }
+    }
+
+    /**
+     * Checks the number of elements of an array read from a payload, which all take at least one byte.
+     *
+     * @param  in     the input being read
+     * @param  count  the number of elements
+     * @return        the number of elements
+     * @throws StreamCorruptedException if the payload cannot contain that many elements
+     */
+    private static int checkCount(WireInput in, int count) throws StreamCorruptedException {
+        if (count > in.remaining()) throw new StreamCorruptedException("Invalid length: " + count);
+        return count;
+    }
+}
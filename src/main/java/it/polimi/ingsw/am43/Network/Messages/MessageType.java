@@ -14,6 +14,7 @@ public enum MessageType {
     PLAYTURN,
     PLAY,
     PLAYER_REJOINS,
+    JOIN_GAME,
 
     //to client messages
     GENERAL,
@@ -36,6 +37,7 @@ public enum MessageType {
     REJOIN_PLAYER,
     CANNOT_REJOIN,
     REQUIRED_DATA,
+    RESYNC,
     GENERAL_MSG,
     PRIVATE_MSG,
     ENDGAME;
@@ -61,6 +63,7 @@ public enum MessageType {
             case GENERALPLAYERJOINS -> "GENERALPLAYERJOINS";
             case LOAD_GAME -> "LOAD_GAME";
             case PLAYER_REJOINS -> "PLAYER_REJOINS";
+            case JOIN_GAME -> "JOIN_GAME";
 
             //to client messages
             case GENERAL -> "GENERAL";
@@ -80,6 +83,7 @@ public enum MessageType {
             case REJOIN_PLAYER -> "REJOIN_PLAYER";
             case CANNOT_REJOIN -> "CANNOT_REJOIN";
             case REQUIRED_DATA -> "REQUIRED_DATA";
+            case RESYNC -> "RESYNC";
             case GENERAL_MSG -> "GENERAL_MSG";
             case PRIVATE_MSG -> "PRIVATE_MSG";
             case ENDGAME -> "ENDGAME";
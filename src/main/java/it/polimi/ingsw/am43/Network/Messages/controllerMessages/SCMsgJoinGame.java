@@ -0,0 +1,42 @@
+package it.polimi.ingsw.am43.Network.Messages.controllerMessages;
+
+import it.polimi.ingsw.am43.Network.Message;
+import it.polimi.ingsw.am43.Network.Messages.MessageType;
+
+import java.io.Serial;
+
+/**
+ * This message is the first one sent from the client to the server through a socket
+ * connection. It tells the server which game the client wants to join, so that the
+ * connection can be handed to that game. If no game ID is specified, the client
+ * joins any open lobby, or a new one if none is open.
+ */
+public class SCMsgJoinGame extends Message {
+
+    @Serial
+    private static final long serialVersionUID = -3550911582846920147L;
+
+    /**
+     * The ID of the game to join, null to join any open lobby.
+     */
+    private final String gameID;
+
+    /**
+     * Constructor of the message.
+     *
+     * @param gameID  the ID of the game to join, null to join any open lobby
+     */
+    public SCMsgJoinGame(String gameID) {
+        super(MessageType.JOIN_GAME);
+        this.gameID = gameID;
+    }
+
+    /**
+     * Returns the ID of the game to join.
+     *
+     * @return  the ID of the game, null to join any open lobby
+     */
+    public String getGameID() {
+        return gameID;
+    }
+}
@@ -17,26 +17,26 @@ public class SCMsgPersonalObjective extends Message {
     private static final long serialVersionUID = 3634247213541669554L;
 
     /**
-     * The {@link ObjectiveCard} chosen by the player.
+     * The id of the {@link ObjectiveCard} chosen by the player.
      */
-    private final ObjectiveCard obj;
+    private final int objID;
 
     /**
      * Constructor of the message.
      *
-     * @param obj the {@link ObjectiveCard} chosen by the player.
+     * @param objID the id of the {@link ObjectiveCard} chosen by the player.
      */
-    public SCMsgPersonalObjective(ObjectiveCard obj) {
+    public SCMsgPersonalObjective(int objID) {
         super(MessageType.PERSONAL_OBJECTIVE_CHOICE);
-        this.obj = obj;
+        this.objID = objID;
     }
 
     /**
-     * Returns the chosen {@link ObjectiveCard}.
+     * Returns the id of the chosen {@link ObjectiveCard}.
      *
-     * @return the chosen {@link ObjectiveCard}
+     * @return the id of the chosen {@link ObjectiveCard}
      */
-    public ObjectiveCard getObj() {
-        return obj;
+    public int getObjID() {
+        return objID;
     }
 }
@@ -9,7 +9,9 @@ import java.io.Serial;
  * This message is sent from the client to the server when
  * a player wants to rejoin a game that has been loaded.
  * The message contains the player's pick, meaning what username
- * the player states to have chosen when first joining the game.
+ * the player states to have chosen when first joining the game,
+ * and the sequence number of the last {@link it.polimi.ingsw.am43.Network.Messages.toClientMessages.gameInfoMsg}
+ * known by the client, so that only the missed turns have to be sent.
  */
 public class SCMsgPlayerRejoins extends Message {
 
@@ -25,13 +27,29 @@ public class SCMsgPlayerRejoins extends Message {
     private final int pick;
 
     /**
-     * Constructor of the message.
+     * The sequence number of the last game info known by the client, 0 if it does not know the match.
+     */
+    private final int lastSeq;
+
+    /**
+     * Constructor of the message, used by a client that does not know the match.
      *
      * @param pick  Index of the username chosen by the player
      */
     public SCMsgPlayerRejoins(String pick) {
+        this(pick, 0);
+    }
+
+    /**
+     * Constructor of the message.
+     *
+     * @param pick     Index of the username chosen by the player
+     * @param lastSeq  The sequence number of the last game info known by the client, 0 if none
+     */
+    public SCMsgPlayerRejoins(String pick, int lastSeq) {
         super(MessageType.PLAYER_REJOINS);
         this.pick = Integer.parseInt(pick);
+        this.lastSeq = lastSeq;
     }
 
     /**
@@ -42,4 +60,13 @@ public class SCMsgPlayerRejoins extends Message {
     public int getPick() {
         return pick;
     }
+
+    /**
+     * Returns the sequence number of the last game info known by the client.
+     *
+     * @return  The sequence number, 0 if the client does not know the match
+     */
+    public int getLastSeq() {
+        return lastSeq;
+    }
 }
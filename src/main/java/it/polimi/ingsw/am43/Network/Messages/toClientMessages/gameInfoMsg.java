@@ -1,5 +1,6 @@
 package it.polimi.ingsw.am43.Network.Messages.toClientMessages;
 
+import it.polimi.ingsw.am43.Model.CardCatalog;
 import it.polimi.ingsw.am43.Model.Cards.CardSide;
 import it.polimi.ingsw.am43.Model.Cards.PlayableCard;
 import it.polimi.ingsw.am43.Network.Message;
@@ -12,12 +13,20 @@ import java.io.Serial;
  * when the game state has changed. In particular, after a turn
  * has been played or after a game has been loaded successfully and
  * all the players have rejoined.
+ * Each message is the delta of a turn, numbered by the turn it closes:
+ * a client that knows the match up to a sequence number can be brought up to date
+ * with the messages that follow it, see {@link resyncMsg}.
  */
 public class gameInfoMsg extends Message {
 
     @Serial
     private static final long serialVersionUID = 5964149010500931661L;
 
+    /**
+     * The sequence number of the message, that is the number of turns played.
+     */
+    private final int seq;
+
     /**
      * The ID of the player that has played the last turn.
      */
@@ -29,9 +38,9 @@ public class gameInfoMsg extends Message {
     private final int[] scores;
 
     /**
-     * The new card on the ground.
+     * The id of the new card on the ground, 0 if there is none.
      */
-    private final PlayableCard lastOnGround;
+    private final int lastOnGround;
 
     /**
      * The index of the new card on the ground.
@@ -39,42 +48,70 @@ public class gameInfoMsg extends Message {
     private final int lastOnGroundIndex;
 
     /**
-     * The {@link CardSide} that has been placed by the player.
+     * The reference of the {@link CardSide} that has been placed by the player,
+     * see {@link CardCatalog#getSideRef(CardSide)}.
      */
-    private final CardSide placedCardSide;
+    private final int placedCardSide;
 
     /**
-     * The backside of the card on top of the gold deck.
+     * The deployedID of the {@link CardSide} that has been placed by the player.
      */
-    private final CardSide goldenDeckTop;
+    private final int placedDeployedID;
 
     /**
-     * The backside of the card on top of the resource deck.
+     * The relative coordinates of the {@link CardSide} that has been placed by the player.
      */
-    private final CardSide resourceDeckTop;
+    private final int[] placedCoordinates;
 
     /**
-     * Constructor of the message.
+     * The reference of the backside of the card on top of the gold deck, 0 if the deck is empty.
+     */
+    private final int goldenDeckTop;
+
+    /**
+     * The reference of the backside of the card on top of the resource deck, 0 if the deck is empty.
+     */
+    private final int resourceDeckTop;
+
+    /**
+     * Constructor of the message. Cards are referenced by their id and resolved by the client
+     * through its own {@link CardCatalog}.
      *
+     * @param seq the sequence number of the message, that is the number of turns played
      * @param playerID the ID of the player who last played
      * @param scores the scores of all the players
-     * @param onGround the new card on the ground
+     * @param onGround the id of the new card on the ground, 0 if there is none
      * @param lastOnGroundIndex the index of the new card on the ground
-     * @param placedCardSide the {@link CardSide} that has been placed by the player
-     * @param goldenDeckTop the backside of the card on top of the gold deck
-     * @param resourceDeckTop the backside of the card on top of the resource deck
+     * @param placedCardSide the reference of the {@link CardSide} that has been placed by the player
+     * @param placedDeployedID the deployedID of the {@link CardSide} that has been placed by the player
+     * @param placedCoordinates the relative coordinates of the {@link CardSide} that has been placed by the player
+     * @param goldenDeckTop the reference of the backside of the card on top of the gold deck
+     * @param resourceDeckTop the reference of the backside of the card on top of the resource deck
      */
-    public gameInfoMsg(int playerID, int[] scores, PlayableCard onGround, int lastOnGroundIndex, CardSide placedCardSide, CardSide goldenDeckTop, CardSide resourceDeckTop) {
+    public gameInfoMsg(int seq, int playerID, int[] scores, int onGround, int lastOnGroundIndex, int placedCardSide,
+                       int placedDeployedID, int[] placedCoordinates, int goldenDeckTop, int resourceDeckTop) {
         super(MessageType.GAMEINFO);
+        this.seq = seq;
         this.playerID = playerID;
         this.scores = scores;
         this.lastOnGround = onGround;
         this.lastOnGroundIndex = lastOnGroundIndex;
         this.placedCardSide = placedCardSide;
+        this.placedDeployedID = placedDeployedID;
+        this.placedCoordinates = placedCoordinates;
         this.goldenDeckTop = goldenDeckTop;
         this.resourceDeckTop = resourceDeckTop;
     }
 
+    /**
+     * A method that returns the sequence number of the message.
+     *
+     * @return the number of turns played
+     */
+    public int getSeq() {
+        return seq;
+    }
+
     /**
      * A method that returns the ID of the player who last played.
      *
@@ -94,20 +131,57 @@ public class gameInfoMsg extends Message {
     }
 
     /**
-     * A method that returns the new card on the ground.
+     * A method that returns a copy of the {@link CardSide} placed by the player, with its deployedID and coordinates.
      *
-     * @return the new card
+     * @return the placed {@link CardSide}, null if it is unknown
      */
     public CardSide getPlacedCardSide() {
+        if (placedCoordinates == null) return null;
+        return CardCatalog.getInstance().getDeployedSide(placedCardSide, placedDeployedID, placedCoordinates);
+    }
+
+    /**
+     * A method that returns the reference of the {@link CardSide} placed by the player.
+     *
+     * @return the reference of the placed {@link CardSide}
+     */
+    public int getPlacedCardSideRef() {
         return placedCardSide;
     }
 
     /**
-     * A method that returns the index of the new card on the ground.
+     * A method that returns the deployedID of the {@link CardSide} placed by the player.
      *
-     * @return the index of the new card
+     * @return the deployedID of the placed {@link CardSide}
+     */
+    public int getPlacedDeployedID() {
+        return placedDeployedID;
+    }
+
+    /**
+     * A method that returns the relative coordinates of the {@link CardSide} placed by the player.
+     *
+     * @return the coordinates of the placed {@link CardSide}
+     */
+    public int[] getPlacedCoordinates() {
+        return placedCoordinates;
+    }
+
+    /**
+     * A method that returns the new card on the ground.
+     *
+     * @return the new card
      */
     public PlayableCard getLastOnGround() {
+        return CardCatalog.getInstance().getPlayableCard(lastOnGround);
+    }
+
+    /**
+     * A method that returns the id of the new card on the ground.
+     *
+     * @return the id of the new card, 0 if there is none
+     */
+    public int getLastOnGroundID() {
         return lastOnGround;
     }
 
@@ -126,6 +200,15 @@ public class gameInfoMsg extends Message {
      * @return the backside of the card
      */
     public CardSide getGoldenDeckTop() {
+        return CardCatalog.getInstance().getSide(goldenDeckTop);
+    }
+
+    /**
+     * A method that returns the reference of the backside of the card on top of the gold deck.
+     *
+     * @return the reference of the backside of the card
+     */
+    public int getGoldenDeckTopRef() {
         return goldenDeckTop;
     }
 
@@ -135,6 +218,15 @@ public class gameInfoMsg extends Message {
      * @return the backside of the card
      */
     public CardSide getResourceDeckTop() {
+        return CardCatalog.getInstance().getSide(resourceDeckTop);
+    }
+
+    /**
+     * A method that returns the reference of the backside of the card on top of the resource deck.
+     *
+     * @return the reference of the backside of the card
+     */
+    public int getResourceDeckTopRef() {
         return resourceDeckTop;
     }
 }
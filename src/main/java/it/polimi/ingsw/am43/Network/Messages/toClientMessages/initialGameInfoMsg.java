@@ -1,5 +1,6 @@
 package it.polimi.ingsw.am43.Network.Messages.toClientMessages;
 
+import it.polimi.ingsw.am43.Model.CardCatalog;
 import it.polimi.ingsw.am43.Model.Cards.CardSide;
 import it.polimi.ingsw.am43.Model.Cards.PlayableCard;
 import it.polimi.ingsw.am43.Network.Message;
@@ -19,15 +20,15 @@ public class initialGameInfoMsg extends Message {
     private static final long serialVersionUID = -8282704599079438755L;
 
     /**
-     * The sides of the starting card, which the player has to choose in order
-     * to place one.
+     * The references of the starting sides placed by the players,
+     * see {@link CardCatalog#getSideRef(CardSide)}.
      */
-    private final CardSide[] startingSides;
+    private final int[] startingSides;
 
     /**
-     * The cards on the ground.
+     * The ids of the cards on the ground.
      */
-    private final PlayableCard[] onGround;
+    private final int[] onGround;
 
     /**
      * The first player playing its turn.
@@ -45,27 +46,28 @@ public class initialGameInfoMsg extends Message {
     private final PawnColor[] colors;
 
     /**
-     * The backside of the card on top of the golden deck.
+     * The reference of the backside of the card on top of the golden deck.
      */
-    private final CardSide goldenDeckTop;
+    private final int goldenDeckTop;
 
     /**
-     * The backside of the card on top of the resource deck.
+     * The reference of the backside of the card on top of the resource deck.
      */
-    private final CardSide resourceDeckTop;
+    private final int resourceDeckTop;
 
     /**
-     * Constructor of the message.
+     * Constructor of the message. Cards are referenced by their id and resolved by the client
+     * through its own {@link CardCatalog}.
      *
-     * @param startingSides the sides of the starting card
-     * @param onGround the cards on the ground
+     * @param startingSides the references of the starting sides placed by the players
+     * @param onGround the ids of the cards on the ground
      * @param first the first player
      * @param usernames the usernames
      * @param colors the colors
-     * @param goldenDeckTop the backside of the card on top of the golden deck
-     * @param resourceDeckTop the backside of the card on top of the resource deck
+     * @param goldenDeckTop the reference of the backside of the card on top of the golden deck
+     * @param resourceDeckTop the reference of the backside of the card on top of the resource deck
      */
-    public initialGameInfoMsg(CardSide[] startingSides, PlayableCard[] onGround, int first, String[] usernames, PawnColor[] colors, CardSide goldenDeckTop, CardSide resourceDeckTop) {
+    public initialGameInfoMsg(int[] startingSides, int[] onGround, int first, String[] usernames, PawnColor[] colors, int goldenDeckTop, int resourceDeckTop) {
         super(MessageType.INITIALGAMEINFO);
         this.startingSides = startingSides;
         this.onGround = onGround;
@@ -77,11 +79,25 @@ public class initialGameInfoMsg extends Message {
     }
 
     /**
-     * A method that returns the sides of the starting card.
+     * A method that returns copies of the starting sides placed by the players, each one at the origin of its board.
      *
-     * @return the sides of the starting card
+     * @return the starting sides
      */
     public CardSide[] getStartingSides() {
+        if (startingSides == null) return null;
+        CardSide[] sides = new CardSide[startingSides.length];
+        for (int i = 0; i < sides.length; i++) {
+            sides[i] = CardCatalog.getInstance().getDeployedSide(startingSides[i], 0, new int[]{0, 0});
+        }
+        return sides;
+    }
+
+    /**
+     * A method that returns the references of the starting sides placed by the players.
+     *
+     * @return the references of the starting sides
+     */
+    public int[] getStartingSideRefs() {
         return startingSides;
     }
 
@@ -91,6 +107,15 @@ public class initialGameInfoMsg extends Message {
      * @return the cards on the ground
      */
     public PlayableCard[] getOnGround() {
+        return CardCatalog.getInstance().getPlayableCards(onGround);
+    }
+
+    /**
+     * A method that returns the ids of the cards on the ground.
+     *
+     * @return the ids of the cards on the ground
+     */
+    public int[] getOnGroundIDs() {
         return onGround;
     }
 
@@ -127,6 +152,15 @@ public class initialGameInfoMsg extends Message {
      * @return the backside of the card on top of the golden deck
      */
     public CardSide getGoldenDeckTop() {
+        return CardCatalog.getInstance().getSide(goldenDeckTop);
+    }
+
+    /**
+     * A method that returns the reference of the backside of the card on top of the golden deck.
+     *
+     * @return the reference of the backside of the card on top of the golden deck
+     */
+    public int getGoldenDeckTopRef() {
         return goldenDeckTop;
     }
 
@@ -136,6 +170,15 @@ public class initialGameInfoMsg extends Message {
      * @return the backside of the card on top of the resource deck
      */
     public CardSide getResourceDeckTop() {
+        return CardCatalog.getInstance().getSide(resourceDeckTop);
+    }
+
+    /**
+     * A method that returns the reference of the backside of the card on top of the resource deck.
+     *
+     * @return the reference of the backside of the card on top of the resource deck
+     */
+    public int getResourceDeckTopRef() {
         return resourceDeckTop;
     }
 }
@@ -1,5 +1,6 @@
 package it.polimi.ingsw.am43.Network.Messages.toClientMessages;
 
+import it.polimi.ingsw.am43.Model.CardCatalog;
 import it.polimi.ingsw.am43.Model.Cards.ObjectiveCard;
 import it.polimi.ingsw.am43.Model.Cards.PlayableCard;
 import it.polimi.ingsw.am43.Network.Message;
@@ -17,19 +18,19 @@ public class initialSituation extends Message {
     private static final long serialVersionUID = 7250248927382549888L;
 
     /**
-     * The player's hand.
+     * The ids of the cards in the player's hand.
      */
-    private final PlayableCard[] inHand;
+    private final int[] inHand;
 
     /**
-     * The starting card of the player.
+     * The id of the starting card of the player.
      */
-    private final PlayableCard startingCard;
+    private final int startingCard;
 
     /**
-     * The common objective cards.
+     * The ids of the common objective cards.
      */
-    private final ObjectiveCard[] commonObjectives;
+    private final int[] commonObjectives;
 
     /**
      * The ID of the player.
@@ -37,14 +38,15 @@ public class initialSituation extends Message {
     private final int playerID;
 
     /**
-     * Constructor of the message.
+     * Constructor of the message. Cards are referenced by their id and resolved by the client
+     * through its own {@link CardCatalog}.
      *
-     * @param inHand the player's hand
-     * @param startingCard the player's starting card
-     * @param commonObjectives the common objective cards
+     * @param inHand the ids of the cards in the player's hand
+     * @param startingCard the id of the player's starting card
+     * @param commonObjectives the ids of the common objective cards
      * @param playerID the ID of the player
      */
-    public initialSituation(PlayableCard[] inHand, PlayableCard startingCard, ObjectiveCard[] commonObjectives, int playerID) {
+    public initialSituation(int[] inHand, int startingCard, int[] commonObjectives, int playerID) {
         super(MessageType.INITIAL_SITUATION);
         this.inHand = inHand;
         this.startingCard = startingCard;
@@ -58,6 +60,15 @@ public class initialSituation extends Message {
      * @return the player's hand
      */
     public PlayableCard[] getInHand() {
+        return CardCatalog.getInstance().getPlayableCards(inHand);
+    }
+
+    /**
+     * A method that returns the ids of the cards in the player's hand.
+     *
+     * @return the ids of the cards in the player's hand
+     */
+    public int[] getInHandIDs() {
         return inHand;
     }
 
@@ -67,6 +78,15 @@ public class initialSituation extends Message {
      * @return the player's starting card
      */
     public PlayableCard getStartingCard() {
+        return CardCatalog.getInstance().getPlayableCard(startingCard);
+    }
+
+    /**
+     * A method that returns the id of the player's starting card.
+     *
+     * @return the id of the player's starting card
+     */
+    public int getStartingCardID() {
         return startingCard;
     }
 
@@ -76,6 +96,15 @@ public class initialSituation extends Message {
      * @return the common objective cards
      */
     public ObjectiveCard[] getCommonObjectives() {
+        return CardCatalog.getInstance().getObjectiveCards(commonObjectives);
+    }
+
+    /**
+     * A method that returns the ids of the common objective cards.
+     *
+     * @return the ids of the common objective cards
+     */
+    public int[] getCommonObjectiveIDs() {
         return commonObjectives;
     }
 
@@ -1,5 +1,6 @@
 package it.polimi.ingsw.am43.Network.Messages.toClientMessages;
 
+import it.polimi.ingsw.am43.Model.CardCatalog;
 import it.polimi.ingsw.am43.Model.Cards.PlayableCard;
 import it.polimi.ingsw.am43.Network.Message;
 import it.polimi.ingsw.am43.Network.Messages.MessageType;
@@ -16,16 +17,16 @@ public class newInHandMsg extends Message {
     private static final long serialVersionUID = -4468386818890774037L;
 
     /**
-     * The card drawn from the ground or the deck.
+     * The id of the card drawn from the ground or the deck, 0 if no card was drawn.
      */
-    private final PlayableCard drawn;
+    private final int drawn;
 
     /**
      * Constructor of the message.
      *
-     * @param drawn the drawn card
+     * @param drawn the id of the drawn card, 0 if no card was drawn
      */
-    public newInHandMsg(PlayableCard drawn) {
+    public newInHandMsg(int drawn) {
         super(MessageType.NEWINHAND);
         this.drawn = drawn;
     }
@@ -36,6 +37,15 @@ public class newInHandMsg extends Message {
      * @return the drawn card
      */
     public PlayableCard getDrawn() {
+        return CardCatalog.getInstance().getPlayableCard(drawn);
+    }
+
+    /**
+     * A method that returns the id of the drawn card.
+     *
+     * @return the id of the drawn card, 0 if no card was drawn
+     */
+    public int getDrawnID() {
         return drawn;
     }
 }
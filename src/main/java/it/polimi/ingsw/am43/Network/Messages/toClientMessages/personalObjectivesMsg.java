@@ -1,5 +1,6 @@
 package it.polimi.ingsw.am43.Network.Messages.toClientMessages;
 
+import it.polimi.ingsw.am43.Model.CardCatalog;
 import it.polimi.ingsw.am43.Model.Cards.ObjectiveCard;
 import it.polimi.ingsw.am43.Network.Message;
 import it.polimi.ingsw.am43.Network.Messages.MessageType;
@@ -17,16 +18,16 @@ public class personalObjectivesMsg extends Message {
     private static final long serialVersionUID = -150176765787099494L;
 
     /**
-     * The two objective cards to choose from.
+     * The ids of the two objective cards to choose from.
      */
-    private final ObjectiveCard[] personalObjectives;
+    private final int[] personalObjectives;
 
     /**
      * Constructor of the message.
      *
-     * @param personalObjectives    The two possible objective cards.
+     * @param personalObjectives    The ids of the two possible objective cards.
      */
-    public personalObjectivesMsg(ObjectiveCard[] personalObjectives) {
+    public personalObjectivesMsg(int[] personalObjectives) {
         super(MessageType.PERSONALOBJECTIVES);
         this.personalObjectives = personalObjectives;
     }
@@ -37,6 +38,15 @@ public class personalObjectivesMsg extends Message {
      * @return   The two potential personal objectives.
      */
     public ObjectiveCard[] getPersonalObjectives() {
+        return CardCatalog.getInstance().getObjectiveCards(personalObjectives);
+    }
+
+    /**
+     * A method that returns the ids of the two potential personal objectives.
+     *
+     * @return   The ids of the two potential personal objectives.
+     */
+    public int[] getPersonalObjectiveIDs() {
         return personalObjectives;
     }
 }
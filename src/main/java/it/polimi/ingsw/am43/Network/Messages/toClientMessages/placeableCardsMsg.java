@@ -5,15 +5,47 @@ import it.polimi.ingsw.am43.Network.Messages.MessageType;
 
 import java.io.Serial;
 
+/**
+ * This message is sent from the server to the client at the beginning
+ * of the player's turn. It contains the card sides in hand that can be placed
+ * and, for every deployed card, the corners on which a placement is possible,
+ * so that the client can show the available placements without asking again.
+ * It also contains two booleans stating if the Resource and Gold decks are empty or not.
+ */
 public class placeableCardsMsg extends Message {
     @Serial
     private static final long serialVersionUID = 2556183498557243198L;
     private final Boolean[] placeableCards;
 
+    /**
+     * For each deployed card, the boolean array stating if a corner is ok to place on or not
+     */
+    private final boolean[][] availablePlacements;
 
-    public placeableCardsMsg(Boolean[] placeableCards) {
+    /**
+     * Boolean stating if the resource deck is empty
+     */
+    private final boolean resEmpty;
+
+    /**
+     * Boolean stating if the gold deck is empty
+     */
+    private final boolean goldEmpty;
+
+    /**
+     * Constructor of the message.
+     *
+     * @param placeableCards       the card sides in hand that can be placed
+     * @param availablePlacements  for each deployed card, the corners on which placement is possible
+     * @param resEmpty             boolean stating if the resource deck is empty
+     * @param goldEmpty            boolean stating if the gold deck is empty
+     */
+    public placeableCardsMsg(Boolean[] placeableCards, boolean[][] availablePlacements, boolean resEmpty, boolean goldEmpty) {
         super(MessageType.PLEACABLECARDS);
         this.placeableCards = placeableCards;
+        this.availablePlacements = availablePlacements;
+        this.resEmpty = resEmpty;
+        this.goldEmpty = goldEmpty;
     }
 
 
@@ -21,5 +53,43 @@ public class placeableCardsMsg extends Message {
         return placeableCards;
     }
 
+    /**
+     * A method that returns the message with the corners of a deployed card
+     * on which placement is possible, as if it were sent by the server.
+     *
+     * @param deployedIndex  the index of the deployed card
+     * @return the {@link availablePlacementsMsg} of the deployed card
+     */
+    public availablePlacementsMsg getAvailablePlacements(int deployedIndex) {
+        return new availablePlacementsMsg(availablePlacements[deployedIndex], resEmpty, goldEmpty);
+    }
+
+    /**
+     * A method that returns, for each deployed card, the corners on which placement is possible.
+     *
+     * @return the available placements of all the deployed cards
+     */
+    public boolean[][] getAllAvailablePlacements() {
+        return availablePlacements;
+    }
+
+    /**
+     * A method that returns if the resource deck is empty.
+     *
+     * @return true if the resource deck is empty, false otherwise
+     */
+    public boolean isResEmpty() {
+        return resEmpty;
+    }
+
+    /**
+     * A method that returns if the gold deck is empty.
+     *
+     * @return true if the gold deck is empty, false otherwise
+     */
+    public boolean isGoldEmpty() {
+        return goldEmpty;
+    }
+
 
 }
@@ -1,9 +1,11 @@
 package it.polimi.ingsw.am43.Network.Messages.toClientMessages;
 
+import it.polimi.ingsw.am43.Model.CardCatalog;
 import it.polimi.ingsw.am43.Model.Cards.CardSide;
 import it.polimi.ingsw.am43.Model.Cards.ObjectiveCard;
 import it.polimi.ingsw.am43.Model.Cards.PlayableCard;
 import it.polimi.ingsw.am43.Model.Enum.PawnColor;
+import it.polimi.ingsw.am43.Model.SparseBoard;
 import it.polimi.ingsw.am43.Network.Message;
 import it.polimi.ingsw.am43.Network.Messages.MessageType;
 
@@ -14,36 +16,43 @@ import java.util.ArrayList;
  * This message is sent from the server to the client when
  * the game has been loaded and all the players have rejoined.
  * It contains all the necessary information to proceed the match.
+ * It is sent when the client does not know the match or when the deltas
+ * it has missed are not available, otherwise a {@link resyncMsg} is sent instead.
  */
 public class requiredDataMsg extends Message {
 
     @Serial
-    private static final long serialVersionUID = 1523264094922365647L;
+    private static final long serialVersionUID = 1523264094922365648L;
 
     /**
-     * The player's hand.
+     * The sequence number of the last {@link gameInfoMsg} included in the data.
      */
-    private final PlayableCard[] inHand;
+    private final int seq;
 
     /**
-     * The player's starting card.
+     * The ids of the cards in the player's hand.
      */
-    private final PlayableCard startingCard;
+    private final int[] inHand;
 
     /**
-     * The cards on the ground.
+     * The id of the player's starting card.
      */
-    private final PlayableCard[] onGround;
+    private final int startingCard;
 
     /**
-     * The common objective cards.
+     * The ids of the cards on the ground.
      */
-    private final ObjectiveCard[] commonObjectives;
+    private final int[] onGround;
 
     /**
-     * The player's secret objective.
+     * The ids of the common objective cards.
      */
-    private final ObjectiveCard personalObjective;
+    private final int[] commonObjectives;
+
+    /**
+     * The id of the player's secret objective.
+     */
+    private final int personalObjective;
 
     /**
      * The scores of all the players.
@@ -53,12 +62,18 @@ public class requiredDataMsg extends Message {
     /**
      * The placements of all the players.
      */
-    private final int[][][] placements;
+    private final SparseBoard[] placements;
+
+    /**
+     * The references of the deployed cards of all the players, in order of deployedID,
+     * see {@link CardCatalog#getSideRef(CardSide)}.
+     */
+    private final int[][] deployed;
 
     /**
-     * The deployed cards of all the players.
+     * The relative coordinates of the deployed cards of all the players, two for each card.
      */
-    private final ArrayList<CardSide>[] deployed;
+    private final int[][] coordinates;
 
     /**
      * The colors chosen by the players.
@@ -81,27 +96,31 @@ public class requiredDataMsg extends Message {
     private final int firstPlayer;
 
     /**
-     * Constructor of the message.
+     * Constructor of the message. Cards are referenced by their id and resolved by the client
+     * through its own {@link CardCatalog}.
      *
-     * @param inHand            the player's hand
-     * @param startingCard      the player's starting card
-     * @param onGround          the cards on the ground
-     * @param commonObjectives  the common objective cards
-     * @param personalObjective the player's secret objective
+     * @param seq               the sequence number of the last {@link gameInfoMsg} included in the data
+     * @param inHand            the ids of the cards in the player's hand
+     * @param startingCard      the id of the player's starting card
+     * @param onGround          the ids of the cards on the ground
+     * @param commonObjectives  the ids of the common objective cards
+     * @param personalObjective the id of the player's secret objective
      * @param scores            the scores of all the players
      * @param placements        the placements of all the players
-     * @param deployed          the deployed cards of all the players
+     * @param deployed          the references of the deployed cards of all the players, in order of deployedID
+     * @param coordinates       the relative coordinates of the deployed cards of all the players, two for each card
      * @param colors            the colors chosen by the players
      * @param usernames         the usernames of all the players
      * @param num_players       the number of players
      * @param firstPlayer       the first player index
      */
-    public requiredDataMsg(PlayableCard[] inHand, PlayableCard startingCard,
-                           PlayableCard[] onGround, ObjectiveCard[] commonObjectives,
-                           ObjectiveCard personalObjective, int[] scores, int[][][] placements,
-                           ArrayList<CardSide>[] deployed, PawnColor[] colors,
+    public requiredDataMsg(int seq, int[] inHand, int startingCard,
+                           int[] onGround, int[] commonObjectives,
+                           int personalObjective, int[] scores, SparseBoard[] placements,
+                           int[][] deployed, int[][] coordinates, PawnColor[] colors,
                            String[] usernames, int num_players, int firstPlayer) {
         super(MessageType.REQUIRED_DATA);
+        this.seq = seq;
         this.inHand = inHand;
         this.startingCard = startingCard;
         this.onGround = onGround;
@@ -110,18 +129,37 @@ public class requiredDataMsg extends Message {
         this.scores = scores;
         this.placements = placements;
         this.deployed = deployed;
+        this.coordinates = coordinates;
         this.colors = colors;
         this.usernames = usernames;
         this.num_players = num_players;
         this.firstPlayer = firstPlayer;
     }
 
+    /**
+     * A method that returns the sequence number of the last {@link gameInfoMsg} included in the data.
+     *
+     * @return the sequence number
+     */
+    public int getSeq() {
+        return seq;
+    }
+
     /**
      * A method that returns the player's hand.
      *
      * @return the player's hand
      */
     public PlayableCard[] getInHand() {
+        return CardCatalog.getInstance().getPlayableCards(inHand);
+    }
+
+    /**
+     * A method that returns the ids of the cards in the player's hand.
+     *
+     * @return the ids of the cards in the player's hand
+     */
+    public int[] getInHandIDs() {
         return inHand;
     }
 
@@ -131,6 +169,15 @@ public class requiredDataMsg extends Message {
      * @return the player's starting card
      */
     public PlayableCard getStartingCard() {
+        return CardCatalog.getInstance().getPlayableCard(startingCard);
+    }
+
+    /**
+     * A method that returns the id of the player's starting card.
+     *
+     * @return the id of the player's starting card
+     */
+    public int getStartingCardID() {
         return startingCard;
     }
 
@@ -140,6 +187,15 @@ public class requiredDataMsg extends Message {
      * @return the cards on the ground
      */
     public PlayableCard[] getOnGround() {
+        return CardCatalog.getInstance().getPlayableCards(onGround);
+    }
+
+    /**
+     * A method that returns the ids of the cards on the ground.
+     *
+     * @return the ids of the cards on the ground
+     */
+    public int[] getOnGroundIDs() {
         return onGround;
     }
 
@@ -149,6 +205,15 @@ public class requiredDataMsg extends Message {
      * @return the common objective cards
      */
     public ObjectiveCard[] getCommonObjectives() {
+        return CardCatalog.getInstance().getObjectiveCards(commonObjectives);
+    }
+
+    /**
+     * A method that returns the ids of the common objective cards.
+     *
+     * @return the ids of the common objective cards
+     */
+    public int[] getCommonObjectiveIDs() {
         return commonObjectives;
     }
 
@@ -158,6 +223,15 @@ public class requiredDataMsg extends Message {
      * @return the player's secret objective
      */
     public ObjectiveCard getPersonalObjective() {
+        return CardCatalog.getInstance().getObjectiveCard(personalObjective);
+    }
+
+    /**
+     * A method that returns the id of the player's secret objective.
+     *
+     * @return the id of the player's secret objective
+     */
+    public int getPersonalObjectiveID() {
         return personalObjective;
     }
 
@@ -175,17 +249,46 @@ public class requiredDataMsg extends Message {
      *
      * @return the placements of all the players
      */
-    public int[][][] getPlacements() {
+    public SparseBoard[] getPlacements() {
     	return placements;
     }
 
     /**
-     * A method that returns the deployed cards of all the players.
+     * A method that returns copies of the deployed cards of all the players,
+     * with their deployedID and coordinates.
      *
      * @return the deployed cards of all the players
      */
+    @SuppressWarnings("unchecked")
     public ArrayList<CardSide>[] getDeployed() {
-    	return deployed;
+        if (deployed == null) return null;
+        ArrayList<CardSide>[] sides = new ArrayList[deployed.length];
+        for (int p = 0; p < deployed.length; p++) {
+            sides[p] = new ArrayList<>(deployed[p].length);
+            for (int i = 0; i < deployed[p].length; i++) {
+                int[] coordinate = {coordinates[p][2*i], coordinates[p][2*i+1]};
+                sides[p].add(CardCatalog.getInstance().getDeployedSide(deployed[p][i], i, coordinate));
+            }
+        }
+    	return sides;
+    }
+
+    /**
+     * A method that returns the references of the deployed cards of all the players, in order of deployedID.
+     *
+     * @return the references of the deployed cards
+     */
+    public int[][] getDeployedRefs() {
+        return deployed;
+    }
+
+    /**
+     * A method that returns the relative coordinates of the deployed cards of all the players, two for each card.
+     *
+     * @return the coordinates of the deployed cards
+     */
+    public int[][] getDeployedCoordinates() {
+        return coordinates;
     }
 
     /**
@@ -0,0 +1,96 @@
+package it.polimi.ingsw.am43.Network.Messages.toClientMessages;
+
+import it.polimi.ingsw.am43.Model.CardCatalog;
+import it.polimi.ingsw.am43.Model.Cards.ObjectiveCard;
+import it.polimi.ingsw.am43.Model.Cards.PlayableCard;
+import it.polimi.ingsw.am43.Network.Message;
+import it.polimi.ingsw.am43.Network.Messages.MessageType;
+
+import java.io.Serial;
+
+/**
+ * This message is sent from the server to a client that rejoins a loaded game
+ * and already knows the match up to a sequence number.
+ * Instead of the whole game, as in {@link requiredDataMsg}, it only contains the
+ * {@link gameInfoMsg}s the client has missed, in order, together with the player's
+ * hand and secret objective, which are not part of the broadcast deltas.
+ */
+public class resyncMsg extends Message {
+
+    @Serial
+    private static final long serialVersionUID = -2879346250167493814L;
+
+    /**
+     * The deltas missed by the client, in order of sequence number.
+     */
+    private final gameInfoMsg[] missed;
+
+    /**
+     * The ids of the cards in the player's hand.
+     */
+    private final int[] inHand;
+
+    /**
+     * The id of the player's secret objective.
+     */
+    private final int personalObjective;
+
+    /**
+     * Constructor of the message.
+     *
+     * @param missed            the deltas missed by the client, in order of sequence number
+     * @param inHand            the ids of the cards in the player's hand
+     * @param personalObjective the id of the player's secret objective
+     */
+    public resyncMsg(gameInfoMsg[] missed, int[] inHand, int personalObjective) {
+        super(MessageType.RESYNC);
+        this.missed = missed;
+        this.inHand = inHand;
+        this.personalObjective = personalObjective;
+    }
+
+    /**
+     * A method that returns the deltas missed by the client.
+     *
+     * @return the missed deltas, in order of sequence number
+     */
+    public gameInfoMsg[] getMissed() {
+        return missed;
+    }
+
+    /**
+     * A method that returns the player's hand.
+     *
+     * @return the player's hand
+     */
+    public PlayableCard[] getInHand() {
+        return CardCatalog.getInstance().getPlayableCards(inHand);
+    }
+
+    /**
+     * A method that returns the ids of the cards in the player's hand.
+     *
+     * @return the ids of the cards
+     */
+    public int[] getInHandIDs() {
+        return inHand;
+    }
+
+    /**
+     * A method that returns the player's secret objective.
+     *
+     * @return the secret objective
+     */
+    public ObjectiveCard getPersonalObjective() {
+        return CardCatalog.getInstance().getObjectiveCard(personalObjective);
+    }
+
+    /**
+     * A method that returns the id of the player's secret objective.
+     *
+     * @return the id of the secret objective
+     */
+    public int getPersonalObjectiveID() {
+        return personalObjective;
+    }
+}
@@ -0,0 +1,209 @@
+package it.polimi.ingsw.am43.Network.Metrics;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The traffic of a socket connection, counted by the connection itself as frames are read and written.
+ * It is created by {@link ServerMetrics#openConnection(String)} and must be closed with the connection,
+ * so that its totals are kept by the {@link ServerMetrics} once it is gone.
+ */
+public class ConnectionMetrics {
+
+    /**
+     * The {@link ServerMetrics} that tracks the connection.
+     */
+    private final ServerMetrics owner;
+
+    /**
+     * The address of the client.
+     */
+    private final String address;
+
+    /**
+     * The bytes and frames received from the client.
+     */
+    private final AtomicLong bytesIn = new AtomicLong();
+    private final AtomicLong framesIn = new AtomicLong();
+
+    /**
+     * The bytes and frames sent to the client.
+     */
+    private final AtomicLong bytesOut = new AtomicLong();
+    private final AtomicLong framesOut = new AtomicLong();
+
+    /**
+     * The frames not sent because the client was too far behind.
+     */
+    private final AtomicLong framesShed = new AtomicLong();
+
+    /**
+     * The messages received from the client and not yet handled by its game.
+     */
+    private final AtomicInteger inboundDepth = new AtomicInteger();
+
+    /**
+     * A flag that makes the closing of the metrics happen only once.
+     */
+    private final AtomicBoolean closed = new AtomicBoolean(false);
+
+    /**
+     * Constructor of the metrics.
+     *
+     * @param owner   the {@link ServerMetrics} that tracks the connection
+     * @param address the address of the client
+     */
+    ConnectionMetrics(ServerMetrics owner, String address) {
+        this.owner = owner;
+        this.address = address;
+    }
+
+    /**
+     * A method that counts a frame received from the client.
+     *
+     * @param bytes the size of the frame, header included
+     */
+    public void received(int bytes) {
+        bytesIn.addAndGet(bytes);
+        framesIn.incrementAndGet();
+    }
+
+    /**
+     * A method that counts bytes received from the client, when frames are not known yet.
+     *
+     * @param bytes the number of bytes
+     */
+    public void receivedBytes(int bytes) {
+        bytesIn.addAndGet(bytes);
+    }
+
+    /**
+     * A method that counts a frame decoded from the bytes already counted by {@link #receivedBytes(int)}.
+     */
+    public void receivedFrame() {
+        framesIn.incrementAndGet();
+    }
+
+    /**
+     * A method that counts a frame sent to the client.
+     *
+     * @param bytes the size of the frame, header included
+     */
+    public void sent(int bytes) {
+        bytesOut.addAndGet(bytes);
+        framesOut.incrementAndGet();
+    }
+
+    /**
+     * A method that counts a frame dropped because the client was too far behind.
+     */
+    public void shed() {
+        framesShed.incrementAndGet();
+        owner.recordShed();
+    }
+
+    /**
+     * A method that counts the disconnection of the client because it did not read the frames sent to it.
+     */
+    public void overflow() {
+        owner.recordSlowConsumer();
+    }
+
+    /**
+     * A method that counts a message queued for the game of the client.
+     */
+    public void queuedInbound() {
+        owner.recordInboundDepth(inboundDepth.incrementAndGet());
+    }
+
+    /**
+     * A method that counts a batch of messages handled by the game of the client.
+     *
+     * @param count the number of messages of the batch
+     */
+    public void handledInbound(int count) {
+        inboundDepth.addAndGet(-count);
+        owner.recordInboundBatch(count);
+    }
+
+    /**
+     * A method that counts the messages discarded because the connection was closed before they were handled.
+     *
+     * @param count the number of messages
+     */
+    public void discardedInbound(int count) {
+        inboundDepth.addAndGet(-count);
+    }
+
+    /**
+     * A method that returns the address of the client.
+     *
+     * @return the address of the client
+     */
+    public String getAddress() {
+        return address;
+    }
+
+    /**
+     * A method that returns the bytes received from the client.
+     *
+     * @return the number of bytes
+     */
+    public long getBytesIn() {
+        return bytesIn.get();
+    }
+
+    /**
+     * A method that returns the bytes sent to the client.
+     *
+     * @return the number of bytes
+     */
+    public long getBytesOut() {
+        return bytesOut.get();
+    }
+
+    /**
+     * A method that returns the frames received from the client.
+     *
+     * @return the number of frames
+     */
+    public long getFramesIn() {
+        return framesIn.get();
+    }
+
+    /**
+     * A method that returns the frames sent to the client.
+     *
+     * @return the number of frames
+     */
+    public long getFramesOut() {
+        return framesOut.get();
+    }
+
+    /**
+     * A method that returns the frames dropped because the client was too far behind.
+     *
+     * @return the number of frames
+     */
+    public long getFramesShed() {
+        return framesShed.get();
+    }
+
+    /**
+     * A method that returns the messages received from the client and not yet handled.
+     *
+     * @return the number of messages
+     */
+    public int getInboundDepth() {
+        return inboundDepth.get();
+    }
+
+    /**
+     * A method that stops tracking the connection, adding its traffic to the totals of the server.
+     * Only the first call has effect.
+     */
+    public void close() {
+        if (closed.compareAndSet(false, true)) owner.closeConnection(this);
+    }
+}
@@ -0,0 +1,167 @@
+package it.polimi.ingsw.am43.Network.Metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A histogram of durations, recorded without locks by any number of threads.
+ * As in HDR histograms, buckets are log-linear: every power of two is split in {@link #SUB_BUCKETS}
+ * buckets of the same width, so that any value is known within about 6% whatever its magnitude,
+ * with a fixed and small amount of memory. Durations longer than {@link #MAX_VALUE} are recorded as it.
+ */
+public class LatencyHistogram {
+
+    /**
+     * The number of bits of a value that select its bucket within its power of two.
+     */
+    private static final int SUB_BUCKET_BITS = 4;
+
+    /**
+     * The number of buckets of each power of two.
+     */
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    /**
+     * The highest power of two tracked by the histogram, about 18 minutes in nanoseconds.
+     */
+    private static final int MAX_EXPONENT = 40;
+
+    /**
+     * The longest duration that can be recorded, in nanoseconds.
+     */
+    public static final long MAX_VALUE = (1L << (MAX_EXPONENT + 1)) - 1;
+
+    /**
+     * The number of recorded durations in each bucket.
+     */
+    private final AtomicLongArray counts = new AtomicLongArray(bucketOf(MAX_VALUE) + 1);
+
+    /**
+     * The number of recorded durations.
+     */
+    private final AtomicLong count = new AtomicLong();
+
+    /**
+     * The sum of the recorded durations, in nanoseconds.
+     */
+    private final AtomicLong total = new AtomicLong();
+
+    /**
+     * The longest recorded duration, in nanoseconds.
+     */
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * A method that records a duration.
+     *
+     * @param nanos the duration, in nanoseconds
+     */
+    public void record(long nanos) {
+        long value = Math.clamp(nanos, 0, MAX_VALUE);
+        counts.incrementAndGet(bucketOf(value));
+        count.incrementAndGet();
+        total.addAndGet(value);
+        max.accumulateAndGet(value, Math::max);
+    }
+
+    /**
+     * A method that returns the bucket of a value. Values lower than {@link #SUB_BUCKETS} have a bucket each,
+     * the others share the bucket of their power of two selected by their highest bits.
+     *
+     * @param value the value, between 0 and {@link #MAX_VALUE}
+     * @return the index of the bucket
+     */
+    static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) return (int) value;
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    /**
+     * A method that returns the highest value of a bucket.
+     *
+     * @param bucket the index of the bucket
+     * @return the highest value that falls in the bucket
+     */
+    static long highestValueOf(int bucket) {
+        if (bucket < SUB_BUCKETS) return bucket;
+        int shift = bucket / SUB_BUCKETS - 1;
+        long lowest = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+
+    /**
+     * A method that returns the number of recorded durations.
+     *
+     * @return the number of durations
+     */
+    public long getCount() {
+        return count.get();
+    }
+
+    /**
+     * A method that returns the longest recorded duration.
+     *
+     * @return the longest duration, in nanoseconds, 0 if none has been recorded
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * A method that returns the mean of the recorded durations.
+     *
+     * @return the mean, in nanoseconds, 0 if none has been recorded
+     */
+    public double getMean() {
+        long n = count.get();
+        return n == 0 ? 0 : (double) total.get() / n;
+    }
+
+    /**
+     * A method that returns the duration below which a percentage of the recorded durations falls.
+     * Durations recorded while the method runs may or may not be taken into account.
+     *
+     * @param percentile the percentage, between 0 and 100
+     * @return the highest duration of the bucket of the percentile, in nanoseconds, 0 if none has been recorded
+     */
+    public long getValueAtPercentile(double percentile) {
+        long[] snapshot = new long[counts.length()];
+        long n = 0;
+        for (int i = 0; i < snapshot.length; i++) {
+            snapshot[i] = counts.get(i);
+            n += snapshot[i];
+        }
+        if (n == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(Math.clamp(percentile, 0, 100) / 100 * n));
+        long seen = 0;
+        for (int i = 0; i < snapshot.length; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) return Math.min(highestValueOf(i), max.get());
+        }
+        return max.get();
+    }
+
+    /**
+     * A method that returns the summary of the histogram, with durations in microseconds.
+     *
+     * @return the count, the mean, the 50th, 90th and 99th percentiles and the maximum
+     */
+    public String summary() {
+        return String.format("%8d %9.1f %9d %9d %9d %9d", getCount(), getMean() / 1000,
+                micros(getValueAtPercentile(50)), micros(getValueAtPercentile(90)),
+                micros(getValueAtPercentile(99)), micros(getMax()));
+    }
+
+    /**
+     * A method that converts a duration to microseconds.
+     *
+     * @param nanos the duration, in nanoseconds
+     * @return the duration, in microseconds
+     */
+    private static long micros(long nanos) {
+        return TimeUnit.NANOSECONDS.toMicros(nanos);
+    }
+}
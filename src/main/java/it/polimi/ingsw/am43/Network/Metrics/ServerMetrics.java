@@ -0,0 +1,439 @@
+package it.polimi.ingsw.am43.Network.Metrics;
+
+import it.polimi.ingsw.am43.Network.GameRegistry;
+import it.polimi.ingsw.am43.Network.Messages.MessageType;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Class that collects the metrics of a server: the time taken to handle each {@link MessageType},
+ * to write the saves, to broadcast the turns and by the bots to decide their moves, the rollouts of the bots, the traffic of every socket connection,
+ * the frames shed for slow clients, the messages waiting to be handled and the
+ * number of games, players and threads. Recording a metric costs a few atomic operations and never
+ * blocks, so it is done on the path of every message. The metrics are exposed through JMX, as a
+ * {@link ServerMetricsMXBean}, and as plain text by {@link #dump()}.
+ */
+public class ServerMetrics implements ServerMetricsMXBean {
+
+    /**
+     * ANSI color codes for the messages printed by the metrics
+     */
+    static String RESET = "\033[0m";
+    static String RED = "\033[0;31m"; // Used for ERROR
+
+    /**
+     * The {@link GameRegistry} whose games are measured.
+     */
+    private final GameRegistry registry;
+
+    /**
+     * The handling time of each message type.
+     */
+    private final Map<MessageType, LatencyHistogram> handling = new EnumMap<>(MessageType.class);
+
+    /**
+     * The time taken to write a save.
+     */
+    private final LatencyHistogram saves = new LatencyHistogram();
+
+    /**
+     * The time taken to broadcast the game information of a turn.
+     */
+    private final LatencyHistogram broadcasts = new LatencyHistogram();
+
+    /**
+     * The saves that failed, on the game's loop or in the background.
+     */
+    private final AtomicLong failedSaves = new AtomicLong();
+
+    /**
+     * The time taken by a bot to decide and play a move, from the start of its turn.
+     */
+    private final LatencyHistogram botDecisions = new LatencyHistogram();
+
+    /**
+     * The rollouts simulated by the bots, and the time spent by their searches.
+     */
+    private final AtomicLong rollouts = new AtomicLong();
+    private final AtomicLong searchNanos = new AtomicLong();
+
+    /**
+     * The open socket connections.
+     */
+    private final Set<ConnectionMetrics> connections = ConcurrentHashMap.newKeySet();
+
+    /**
+     * The bytes exchanged by the socket connections already closed.
+     */
+    private final AtomicLong closedBytesIn = new AtomicLong();
+    private final AtomicLong closedBytesOut = new AtomicLong();
+
+    /**
+     * The frames shed by the socket connections, and the clients disconnected because they did not read.
+     */
+    private final AtomicLong shedFrames = new AtomicLong();
+    private final AtomicLong slowConsumers = new AtomicLong();
+
+    /**
+     * The highest number of messages a socket client had waiting to be handled, the batches in which the messages
+     * were handled and the messages they held.
+     */
+    private final AtomicInteger inboundPeak = new AtomicInteger();
+    private final AtomicLong inboundBatches = new AtomicLong();
+    private final AtomicLong inboundMessages = new AtomicLong();
+
+    /**
+     * The name under which the metrics are registered in the platform MBean server, null if they are not.
+     */
+    private ObjectName name;
+
+    /**
+     * Constructor of the metrics.
+     *
+     * @param registry the {@link GameRegistry} whose games are measured
+     */
+    public ServerMetrics(GameRegistry registry) {
+        this.registry = registry;
+        // Every type is present from the start, so that the map is never modified while recording
+        for (MessageType type : MessageType.values()) handling.put(type, new LatencyHistogram());
+    }
+
+    /**
+     * A method that records the time taken to handle a message.
+     *
+     * @param type  the type of the message
+     * @param nanos the handling time, in nanoseconds
+     */
+    public void recordHandling(MessageType type, long nanos) {
+        handling.get(type).record(nanos);
+    }
+
+    /**
+     * A method that records the time taken to write a save.
+     *
+     * @param nanos the time taken, in nanoseconds
+     */
+    public void recordSave(long nanos) {
+        saves.record(nanos);
+    }
+
+    /**
+     * A method that records a save that failed, on the game's loop or in the background.
+     */
+    public void recordFailedSave() {
+        failedSaves.incrementAndGet();
+    }
+
+    /**
+     * A method that records the time taken to broadcast the game information of a turn.
+     *
+     * @param nanos the time taken, in nanoseconds
+     */
+    public void recordBroadcast(long nanos) {
+        broadcasts.record(nanos);
+    }
+
+    /**
+     * A method that records the time taken by a bot to decide and play a move.
+     *
+     * @param nanos the time taken, in nanoseconds
+     */
+    public void recordBotDecision(long nanos) {
+        botDecisions.record(nanos);
+    }
+
+    /**
+     * A method that records a search of a bot.
+     *
+     * @param count the number of rollouts simulated
+     * @param nanos the time taken by the search, in nanoseconds
+     */
+    public void recordSearch(long count, long nanos) {
+        rollouts.addAndGet(count);
+        searchNanos.addAndGet(nanos);
+    }
+
+    /**
+     * A method that records a frame dropped because its client was too far behind.
+     */
+    void recordShed() {
+        shedFrames.incrementAndGet();
+    }
+
+    /**
+     * A method that records a client disconnected because it did not read the frames sent to it.
+     */
+    void recordSlowConsumer() {
+        slowConsumers.incrementAndGet();
+    }
+
+    /**
+     * A method that records the number of messages a client has waiting to be handled.
+     *
+     * @param depth the number of messages
+     */
+    void recordInboundDepth(int depth) {
+        inboundPeak.accumulateAndGet(depth, Math::max);
+    }
+
+    /**
+     * A method that records a batch of messages of a client handled by its game.
+     *
+     * @param count the number of messages of the batch
+     */
+    void recordInboundBatch(int count) {
+        if (count == 0) return;
+        inboundBatches.incrementAndGet();
+        inboundMessages.addAndGet(count);
+    }
+
+    /**
+     * A method that starts tracking the traffic of a socket connection.
+     *
+     * @param address the address of the client
+     * @return the metrics of the connection, to be closed with it
+     */
+    public ConnectionMetrics openConnection(String address) {
+        ConnectionMetrics connection = new ConnectionMetrics(this, address);
+        connections.add(connection);
+        return connection;
+    }
+
+    /**
+     * A method that stops tracking the traffic of a socket connection, keeping its totals.
+     *
+     * @param connection the metrics of the connection
+     */
+    void closeConnection(ConnectionMetrics connection) {
+        if (connections.remove(connection)) {
+            closedBytesIn.addAndGet(connection.getBytesIn());
+            closedBytesOut.addAndGet(connection.getBytesOut());
+        }
+    }
+
+    /**
+     * A method that returns the handling times of a message type.
+     *
+     * @param type the type of the message
+     * @return the histogram of the handling times
+     */
+    public LatencyHistogram getHandling(MessageType type) {
+        return handling.get(type);
+    }
+
+    /**
+     * A method that returns the times taken to write the saves.
+     *
+     * @return the histogram of the save times
+     */
+    public LatencyHistogram getSaves() {
+        return saves;
+    }
+
+    /**
+     * A method that returns the times taken to broadcast the turns.
+     *
+     * @return the histogram of the broadcast times
+     */
+    public LatencyHistogram getBroadcasts() {
+        return broadcasts;
+    }
+
+    /**
+     * A method that returns the times taken by the bots to decide their moves.
+     *
+     * @return the histogram of the decision times
+     */
+    public LatencyHistogram getBotDecisions() {
+        return botDecisions;
+    }
+
+    /**
+     * A method that registers the metrics in the platform MBean server, under a name that contains the port of the server.
+     * A failure is only reported, since the server works without them.
+     *
+     * @param port the port of the socket server
+     */
+    public void register(int port) {
+        try {
+            ObjectName objectName = new ObjectName("it.polimi.ingsw.am43:type=ServerMetrics,port=" + port);
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+            name = objectName;
+        } catch (JMException e) {
+            System.err.println(RED + "[ERROR] Unable to register the metrics: " + e + RESET);
+        }
+    }
+
+    /**
+     * A method that removes the metrics from the platform MBean server, if they were registered.
+     */
+    public void unregister() {
+        if (name == null) return;
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            server.unregisterMBean(name);
+        } catch (JMException ignored) {
+            // Already unregistered
+        }
+        name = null;
+    }
+
+    @Override
+    public int getActiveGames() {
+        return registry.getGamesCount();
+    }
+
+    @Override
+    public int getPlayers() {
+        return registry.getPlayersCount();
+    }
+
+    @Override
+    public int getThreads() {
+        return ManagementFactory.getThreadMXBean().getThreadCount();
+    }
+
+    @Override
+    public int getOpenConnections() {
+        return connections.size();
+    }
+
+    @Override
+    public long getBytesIn() {
+        long bytes = closedBytesIn.get();
+        for (ConnectionMetrics connection : connections) bytes += connection.getBytesIn();
+        return bytes;
+    }
+
+    @Override
+    public long getBytesOut() {
+        long bytes = closedBytesOut.get();
+        for (ConnectionMetrics connection : connections) bytes += connection.getBytesOut();
+        return bytes;
+    }
+
+    @Override
+    public Map<String, Double> getHandlingP99Millis() {
+        Map<String, Double> p99 = new TreeMap<>();
+        handling.forEach((type, histogram) -> {
+            if (histogram.getCount() > 0) p99.put(type.name(), millis(histogram.getValueAtPercentile(99)));
+        });
+        return p99;
+    }
+
+    @Override
+    public double getSaveP99Millis() {
+        return millis(saves.getValueAtPercentile(99));
+    }
+
+    @Override
+    public double getBroadcastP99Millis() {
+        return millis(broadcasts.getValueAtPercentile(99));
+    }
+
+    @Override
+    public int getMaxDurabilityLag() {
+        return registry.getMaxDurabilityLag();
+    }
+
+    @Override
+    public long getFailedSaves() {
+        return failedSaves.get();
+    }
+
+    @Override
+    public double getBotDecisionP99Millis() {
+        return millis(botDecisions.getValueAtPercentile(99));
+    }
+
+    @Override
+    public long getBotRollouts() {
+        return rollouts.get();
+    }
+
+    @Override
+    public double getBotRolloutsPerSecond() {
+        long nanos = searchNanos.get();
+        return nanos == 0 ? 0 : rollouts.get() * 1e9 / nanos;
+    }
+
+    @Override
+    public long getShedFrames() {
+        return shedFrames.get();
+    }
+
+    @Override
+    public long getSlowConsumers() {
+        return slowConsumers.get();
+    }
+
+    @Override
+    public int getInboundQueued() {
+        int queued = 0;
+        for (ConnectionMetrics connection : connections) queued += connection.getInboundDepth();
+        return queued;
+    }
+
+    @Override
+    public int getInboundPeak() {
+        return inboundPeak.get();
+    }
+
+    @Override
+    public double getInboundMessagesPerBatch() {
+        long batches = inboundBatches.get();
+        return batches == 0 ? 0 : (double) inboundMessages.get() / batches;
+    }
+
+    @Override
+    public String dump() {
+        StringBuilder out = new StringBuilder();
+        out.append(String.format("games %d, players %d, platform threads %d, connections %d%n",
+                getActiveGames(), getPlayers(), getThreads(), getOpenConnections()));
+        out.append(String.format("bytes in %d, out %d, durability lag %d turns%n",
+                getBytesIn(), getBytesOut(), getMaxDurabilityLag()));
+        out.append(String.format("%-26s %8s %9s %9s %9s %9s %9s%n", "latency (us)", "count", "mean", "p50", "p90", "p99", "max"));
+        handling.forEach((type, histogram) -> {
+            if (histogram.getCount() > 0) out.append(String.format("%-26s %s%n", type.name(), histogram.summary()));
+        });
+        out.append(String.format("%-26s %s%n", "save", saves.summary()));
+        if (getFailedSaves() > 0) out.append(String.format("failed saves %d%n", getFailedSaves()));
+        out.append(String.format("%-26s %s%n", "broadcast", broadcasts.summary()));
+        if (botDecisions.getCount() > 0) {
+            out.append(String.format("%-26s %s%n", "bot decision", botDecisions.summary()));
+            out.append(String.format("bot rollouts %d, %.0f per second of search%n", getBotRollouts(), getBotRolloutsPerSecond()));
+        }
+        if (getShedFrames() > 0 || getSlowConsumers() > 0) {
+            out.append(String.format("shed frames %d, slow consumers disconnected %d%n", getShedFrames(), getSlowConsumers()));
+        }
+        if (inboundBatches.get() > 0) {
+            out.append(String.format("inbound queued %d, peak %d, %.2f messages per batch%n",
+                    getInboundQueued(), getInboundPeak(), getInboundMessagesPerBatch()));
+        }
+        List<ConnectionMetrics> open = new ArrayList<>(connections);
+        open.sort(Comparator.comparingLong(ConnectionMetrics::getBytesOut).reversed());
+        for (ConnectionMetrics connection : open) {
+            out.append(String.format("connection %s: in %d B (%d frames, %d queued), out %d B (%d frames, %d shed)%n", connection.getAddress(),
+                    connection.getBytesIn(), connection.getFramesIn(), connection.getInboundDepth(), connection.getBytesOut(), connection.getFramesOut(),
+                    connection.getFramesShed()));
+        }
+        return out.toString();
+    }
+
+    /**
+     * A method that converts a duration to milliseconds.
+     *
+     * @param nanos the duration, in nanoseconds
+     * @return the duration, in milliseconds
+     */
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+}
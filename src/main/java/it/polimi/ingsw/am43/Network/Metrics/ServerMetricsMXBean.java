@@ -0,0 +1,110 @@
+package it.polimi.ingsw.am43.Network.Metrics;
+
+import java.util.Map;
+
+/**
+ * The management interface of the {@link ServerMetrics}, through which they are exposed by JMX.
+ * Durations are in milliseconds, as JMX consoles expect.
+ */
+public interface ServerMetricsMXBean {
+
+    /**
+     * @return the number of hosted games.
+     */
+    int getActiveGames();
+
+    /**
+     * @return the number of players connected to the hosted games.
+     */
+    int getPlayers();
+
+    /**
+     * @return the number of live platform threads of the server.
+     */
+    int getThreads();
+
+    /**
+     * @return the number of open socket connections.
+     */
+    int getOpenConnections();
+
+    /**
+     * @return the bytes received from the socket clients since the server started.
+     */
+    long getBytesIn();
+
+    /**
+     * @return the bytes sent to the socket clients since the server started.
+     */
+    long getBytesOut();
+
+    /**
+     * @return the 99th percentile of the handling time of each message type received at least once.
+     */
+    Map<String, Double> getHandlingP99Millis();
+
+    /**
+     * @return the 99th percentile of the time taken to write a save.
+     */
+    double getSaveP99Millis();
+
+    /**
+     * @return the 99th percentile of the time taken to broadcast the game information of a turn.
+     */
+    double getBroadcastP99Millis();
+
+    /**
+     * @return the highest number of turns not on the disk yet among the hosted games.
+     */
+    int getMaxDurabilityLag();
+
+    /**
+     * @return the saves that could not be taken or written, on the game's loop or in the background, since the server started.
+     */
+    long getFailedSaves();
+
+    /**
+     * @return the 99th percentile of the time taken by a bot to decide and play a move.
+     */
+    double getBotDecisionP99Millis();
+
+    /**
+     * @return the rollouts simulated by the bots since the server started.
+     */
+    long getBotRollouts();
+
+    /**
+     * @return the rollouts simulated by the bots per second spent searching, by all the threads of the bots together.
+     */
+    double getBotRolloutsPerSecond();
+
+    /**
+     * @return the frames not sent to socket clients because they were too far behind, since the server started.
+     */
+    long getShedFrames();
+
+    /**
+     * @return the socket clients disconnected because they did not read the frames sent to them, since the server started.
+     */
+    long getSlowConsumers();
+
+    /**
+     * @return the messages received from the socket clients and not yet handled by their games.
+     */
+    int getInboundQueued();
+
+    /**
+     * @return the highest number of messages a socket client had waiting to be handled, since the server started.
+     */
+    int getInboundPeak();
+
+    /**
+     * @return the mean number of messages of a socket client handled by a single command of its game.
+     */
+    double getInboundMessagesPerBatch();
+
+    /**
+     * @return all the metrics, as plain text.
+     */
+    String dump();
+}
@@ -1,11 +1,10 @@
 package it.polimi.ingsw.am43.Network.RMI;
 
-import it.polimi.ingsw.am43.Model.Cards.ObjectiveCard;
-import it.polimi.ingsw.am43.Model.Cards.PlayableCard;
 import it.polimi.ingsw.am43.Model.Enum.PawnColor;
 import it.polimi.ingsw.am43.Network.*;
 import it.polimi.ingsw.am43.Network.Messages.controllerMessages.*;
 import it.polimi.ingsw.am43.Network.Messages.toClientMessages.*;
+import it.polimi.ingsw.am43.Network.Socket.Heartbeat.HeartbeatScheduler;
 
 import java.io.IOException;
 import java.rmi.ConnectException;
@@ -13,95 +12,101 @@ import java.rmi.NotBoundException;
 import java.rmi.RemoteException;
 import java.rmi.registry.LocateRegistry;
 import java.util.*;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class RMIClient implements ClientInterface {
     static String RED = "\033[0;31m"; // Used for ERROR
     static String GREEN = "\033[0;32m"; //Used for GAME messages
 
-    private static final long HEARTBEAT_INTERVAL = 2500; // Heartbeat interval in milliseconds
+    private static final long HEARTBEAT_INTERVAL = 2500; // Connection check interval in milliseconds
 
     private int playerID;
 
     private final RMIServerInterface server;
 
-    private final Stack<Message> pendingMessagesToView = new Stack<>();
+    /**
+     * The messages waiting to be read by the view, oldest first.
+     */
+    private final BlockingQueue<Message> pendingMessagesToView = new LinkedBlockingQueue<>();
 
-    private it.polimi.ingsw.am43.Network.Messages.toClientMessages.initialSituation initialSituation;
+    /**
+     * The time the last call to {@link RMIServerInterface#receive(int)} returned, in nanoseconds.
+     */
+    private volatile long lastReceived = System.nanoTime();
 
-    private ObjectiveCard personalObjective;
+    /**
+     * The check of the connection, run by the {@link HeartbeatScheduler} shared by all the clients.
+     */
+    private ScheduledFuture<?> connectionCheck;
 
-    private initialGameInfoMsg initialGameInfo;
+    /**
+     * A flag that makes the loss of the connection be handled only once.
+     */
+    private final AtomicBoolean lost = new AtomicBoolean(false);
 
-    private boolean hasRejoined = false;
+    /**
+     * The thread that receives the messages of the game.
+     */
+    private Thread receiver;
 
     public RMIClient(String address, int port) throws IOException, NotBoundException {
+        this(address, port, null);
+    }
+
+    /**
+     * Looks the {@link RMILobby} up and asks it to join a game.
+     * @param address is the address of the RMI registry.
+     * @param port is the port of the RMI registry.
+     * @param gameID is the ID of the game to join, null to join any open lobby.
+     */
+    public RMIClient(String address, int port, String gameID) throws IOException, NotBoundException {
+        RMIServerInterface joined = null;
         try {
-            LocateRegistry.getRegistry(address, port).lookup("RMIServer");
+            RMILobbyInterface lobby = (RMILobbyInterface) LocateRegistry.getRegistry(address, port).lookup(GameRegistry.RMI_LOBBY_NAME);
+            joined = lobby.join(gameID);
         } catch (ConnectException e) {
             System.err.println(RED + "Server appears to be down. Try again later.");
             System.exit(0);
+        } catch (RemoteException e) {
+            System.err.println(RED + "Unable to join the game: " + (e.getCause() != null ? e.getCause() : e).getMessage());
+            System.exit(0);
         }
-        server = (RMIServerInterface) LocateRegistry.getRegistry(address, port).lookup("RMIServer");
+        server = joined;
         run();
     }
 
     /**
-     * Main method of the Client. Once joined, starts a new {@link Thread} that checks for new inputs
-     * every time interval, equal to 5 seconds.
-     * Game setup:
-     * First, if the player has rejoined an existing game, gets the game information.
-     * Else it receives the {@link initialSituation} if not already received.
-     * If the {@link personalObjectivesMsg} has not been chosen, receives the request to assign one
-     * Lastly, if the {@link initialGameInfoMsg} has not been received, it saves the message.
-     * Game operation:
-     * It tries to fetch new game info from the {@link RMIServer}.
-     * It listens for new chat messages from the {@link GameServer}.
+     * Main method of the Client. Once joined, starts a new {@link Thread} that receives the messages
+     * produced by the game as soon as they are available, and hands them to the view in order.
+     * Each call to {@link RMIServerInterface#receive(int)} waits on the server until there is something
+     * to deliver, so there is no polling interval and the thread is idle while nothing happens.
+     * These calls are also the heartbeats of the client: if one fails, the connection is lost.
+     * The thread is started only once the client has a seat: a client turned away by a full game
+     * is told so and never calls the server again, since it has no player ID of its own.
      */
     private void run() {
         try {
-            join();
-            new Thread(() -> {
-                while (!Thread.interrupted()) {
+            if (!join()) {
+                System.err.println(RED + "The game is full. Try again later.");
+                System.exit(0);
+            }
+            receiver = new Thread(() -> {
+                while (!Thread.currentThread().isInterrupted()) {
                     try {
-                        if (hasRejoined) {
-                            try {
-                                handleGameInfo(server.getGameInfo(playerID));
-                            } catch (Exception ignored) {}
-                        }
-                        if (this.initialSituation == null && !hasRejoined) {
-                            try {
-                                initialSituation msg = (initialSituation) server.getInitialSituation(playerID);
-                                pendingMessagesToView.add(msg);
-                                this.initialSituation = msg;
-                            } catch (Exception ignored) {}
-                        }
-                        if (this.personalObjective == null) {
-                            try {
-                                this.personalObjective = server.getPersonalObjective(playerID);
-                            } catch (Exception ignored) {
-                            }
-                        }
-                        if (this.initialGameInfo == null) {
-                            try {
-                                initialGameInfoMsg msg = (initialGameInfoMsg) server.getInitialGameInfo();
-                                pendingMessagesToView.add(msg);
-                                this.initialGameInfo = msg;
-                            } catch (Exception ignored) {
-                            }
-                        }
-                        if (initialSituation != null) {
-                            try {
-                                handleGameInfo(server.getGameInfo(playerID));
-                            } catch (Exception ignored) {}
-                        }
-                        try {
-                            Message msg = server.receiveChat(playerID);
-                            pendingMessagesToView.add(msg);
-                        } catch (Exception ignored) {}
-                        Thread.sleep(HEARTBEAT_INTERVAL * 2);
-                    } catch (InterruptedException ignored) {}
+                        pendingMessagesToView.addAll(Arrays.asList(server.receive(playerID)));
+                        lastReceived = System.nanoTime();
+                    } catch (RemoteException e) {
+                        connectionLost();
+                        return;
+                    }
                 }
-            }).start();
+            }, "rmi-receiver");
+            receiver.setDaemon(true);
+            receiver.start();
         } catch (Exception e) {
             System.err.println(RED + "Client exception: " + e);
         }
@@ -109,44 +114,59 @@ public class RMIClient implements ClientInterface {
 
     /**
      * Checks if the {@link GameServer} is accepting new clients.
-     * Starts sending heartbeats and registers as a new player.
+     * Registers as a new player and, once it has a seat, starts checking the connection.
      * Then, if the game is new, sends a {@link firstPlayerMsg} if it's the first player, or a
      * {@link generalPlayerMsg} if it's not.
      * If the game is loaded from an existing one, sends a {@link rejoinPlayerMsg}.
+     * @return true if the client has been given a seat, false if the game is full.
      * @throws IOException on a {@link IOException} from client registration.
      */
-    private void join() throws IOException {
-        if (server.isAcceptingNewClients()) {
-            playerID = server.registerClient(this);
-            startHeartbeatChecker();
-            if (!server.getLoaded()) {
-                if (server.getClientsCounter() == 1) {
-                    pendingMessagesToView.add(new firstPlayerMsg());
-                } else {
-                    pendingMessagesToView.add(new generalPlayerMsg(
-                            server.getAvailablePawnColors(),
-                            server.getPlayerNames()
-                    ));
-                }
+    private boolean join() throws IOException {
+        if (!server.isAcceptingNewClients()) return false;
+        int pID = server.registerClient();
+        if (pID == -1) return false;
+        playerID = pID;
+        startConnectionCheck();
+        if (!server.getLoaded()) {
+            if (server.getClientsCounter() == 1) {
+                pendingMessagesToView.add(new firstPlayerMsg());
             } else {
-                pendingMessagesToView.add(new rejoinPlayerMsg(server.getPlayerNames()));
+                pendingMessagesToView.add(new generalPlayerMsg(
+                        server.getAvailablePawnColors(),
+                        server.getPlayerNames()
+                ));
             }
+        } else {
+            pendingMessagesToView.add(new rejoinPlayerMsg(server.getPlayerNames()));
         }
+        return true;
     }
 
     /**
-     * Constantly checks for new messages to display to the view.
-     * @return a {@link Message} to display.
+     * Waits for the next message to display to the view.
+     * @return the oldest {@link Message} not displayed yet, null if the wait is interrupted.
      */
     @Override
     public Message readNewMessage()  {
-        while (true) {
-            if (!pendingMessagesToView.isEmpty()) {
-                return pendingMessagesToView.pop();
-            }
+        try {
+            return pendingMessagesToView.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
         }
     }
 
+    /**
+     * Stops receiving the messages of the game and checking the connection.
+     * The server notices that the client has left when its heartbeats stop.
+     */
+    @Override
+    public void killConnection() {
+        lost.set(true);
+        if (connectionCheck != null) connectionCheck.cancel(false);
+        if (receiver != null) receiver.interrupt();
+    }
+
     /**
      * Handles new messages coming from the view.
      * @param msg is the message received.
@@ -229,15 +249,15 @@ public class RMIClient implements ClientInterface {
      * @throws RemoteException on an exception from server.
      */
     private void setPersonalObjective(SCMsgPersonalObjective msg) throws RemoteException {
-        server.setPersonalObjective(playerID, msg.getObj());
+        server.setPersonalObjective(playerID, msg.getObjID());
     }
 
     /**
-     * Handles the request to view the cards in hand for this player.
+     * Handles the request to view the cards in hand for this player, together with all the available placements.
      * @throws RemoteException on an exception from server.
      */
     private void getAvailableInHand() throws RemoteException {
-        pendingMessagesToView.add(new placeableCardsMsg(server.getInHandAvailableSides(playerID)));
+        pendingMessagesToView.add(server.getPlaceableCards(playerID));
     }
 
     /**
@@ -255,7 +275,7 @@ public class RMIClient implements ClientInterface {
      * @throws RemoteException on an exception from server.
      */
     private void playTurn(SCMsgPlayTurn msg) throws RemoteException {
-        PlayableCard drawn = server.playTurn(playerID, msg.getHandIndex(), msg.getDeployedIndex(), msg.getCorner(), msg.getDrawn());
+        int drawn = server.playTurn(playerID, msg.getHandIndex(), msg.getDeployedIndex(), msg.getCorner(), msg.getDrawn());
         pendingMessagesToView.add(new newInHandMsg(drawn));
         server.sendGameInfo();
     }
@@ -277,8 +297,7 @@ public class RMIClient implements ClientInterface {
         final String uName = server.isAlreadyTaken(msg.getPick());
         if (uName != null) {
             server.rejoinPlayer(msg.getPick());
-            hasRejoined = true;
-            pendingMessagesToView.add(server.getRequiredData(msg.getPick()));
+            pendingMessagesToView.add(server.getRejoinData(msg.getPick(), msg.getLastSeq()));
             server.tryRestartingMatch();
         } else {
             pendingMessagesToView.add(new cannotRejoinMsg(server.getRejoinedIndexes(), server.getPlayerNames()));
@@ -304,9 +323,11 @@ public class RMIClient implements ClientInterface {
     }
 
     /**
-     * Handles exceptions in connection. It starts a 10-second {@link Timer} after which the execution is stopped.
+     * Handles the loss of the connection, only once. It starts a 10-second {@link Timer} after which the execution is stopped.
      */
-    private static void killConnection() {
+    private void connectionLost() {
+        if (!lost.compareAndSet(false, true)) return;
+        if (connectionCheck != null) connectionCheck.cancel(false);
         System.err.println(RED + "Connection to server lost!\nGame window will close in 10 seconds.");
         new Timer().schedule(new TimerTask() {
             @Override
@@ -317,34 +338,15 @@ public class RMIClient implements ClientInterface {
     }
 
     /**
-     * Commences the check of heartbeats, both client-to-server and server-to-client, every 2 seconds
-     * On any exception, the connection is closed.
+     * Commences the check of the connection every {@link #HEARTBEAT_INTERVAL} milliseconds, on the scheduler
+     * shared by all the clients. No remote call is made: the calls to {@link RMIServerInterface#receive(int)}
+     * return at least every {@link RMIServer#RECEIVE_TIMEOUT} milliseconds, so the connection is lost if
+     * none has returned for longer, as when the server hangs without closing the connection.
      */
-    private void startHeartbeatChecker() {
-        Timer timer = new Timer();
-        timer.scheduleAtFixedRate(new TimerTask() {
-            @Override
-            public void run() {
-                try {
-                    server.sendHeartbeat();
-                    server.heartbeat(playerID);
-                } catch (Exception e) {
-                    timer.cancel();
-                    killConnection();
-                }
-            }
-        }, 0, HEARTBEAT_INTERVAL); // Check heartbeat every 2 seconds
-    }
-
-    /**
-     * Handles the reception of {@link gameInfoMsg}. If a {@link endGameMsg} is sent together with it, the end game
-     * sequence is made to start.
-     * @param output contains the request responses from the {@link RMIServer}.
-     */
-    private void handleGameInfo(Message[] output) {
-        pendingMessagesToView.add(output[0]);
-        if (output.length == 2) {
-            pendingMessagesToView.add(output[1]);
-        }
+    private void startConnectionCheck() {
+        long timeout = TimeUnit.MILLISECONDS.toNanos(RMIServer.RECEIVE_TIMEOUT + HEARTBEAT_INTERVAL);
+        connectionCheck = HeartbeatScheduler.scheduleAtFixedRate(() -> {
+            if (System.nanoTime() - lastReceived > timeout) connectionLost();
+        }, HEARTBEAT_INTERVAL);
     }
-}
\ No newline at end of file
+}
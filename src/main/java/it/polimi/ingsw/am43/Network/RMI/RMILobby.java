@@ -0,0 +1,39 @@
+package it.polimi.ingsw.am43.Network.RMI;
+
+import it.polimi.ingsw.am43.Network.GameRegistry;
+import it.polimi.ingsw.am43.Network.GameServer;
+
+import java.rmi.RemoteException;
+import java.rmi.server.UnicastRemoteObject;
+
+/**
+ * The front door of the RMI registry shared by all the games hosted by a {@link GameRegistry}.
+ * It routes every {@link RMIClient} to a game and hands it the {@link RMIServer} of that game.
+ */
+public class RMILobby extends UnicastRemoteObject implements RMILobbyInterface {
+
+    private final GameRegistry registry;
+
+    public RMILobby(GameRegistry registry) throws RemoteException {
+        super();
+        this.registry = registry;
+    }
+
+    /**
+     * Routes the client to a game through the {@link GameRegistry}.
+     * The slot reserved for the client is kept until it registers, or released if it does not register in time.
+     *
+     * @param gameID is the ID of the game to join, null to join any open lobby.
+     * @return the {@link RMIServer} of the game.
+     * @throws RemoteException if no game can accept the client.
+     */
+    @Override
+    public RMIServerInterface join(String gameID) throws RemoteException {
+        GameServer game = registry.route(gameID);
+        if (game == null) {
+            throw new RemoteException(gameID == null ? "No game available" : "No game available with ID " + gameID);
+        }
+        game.expectRMIClient();
+        return game.getRMIServer();
+    }
+}
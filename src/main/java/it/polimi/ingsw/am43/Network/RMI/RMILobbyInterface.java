@@ -0,0 +1,8 @@
+package it.polimi.ingsw.am43.Network.RMI;
+
+import java.rmi.Remote;
+import java.rmi.RemoteException;
+
+public interface RMILobbyInterface extends Remote {
+    RMIServerInterface join(String gameID) throws RemoteException;
+}
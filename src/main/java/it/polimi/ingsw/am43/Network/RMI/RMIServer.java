@@ -1,26 +1,68 @@
 package it.polimi.ingsw.am43.Network.RMI;
 
 import it.polimi.ingsw.am43.Controller.GameController;
-import it.polimi.ingsw.am43.Model.Cards.ObjectiveCard;
-import it.polimi.ingsw.am43.Model.Cards.PlayableCard;
+import it.polimi.ingsw.am43.Model.CardCatalog;
 import it.polimi.ingsw.am43.Model.Enum.PawnColor;
-import it.polimi.ingsw.am43.Network.ClientInterface;
+import it.polimi.ingsw.am43.Network.ChatLog;
+import it.polimi.ingsw.am43.Network.GameLoop;
 import it.polimi.ingsw.am43.Network.GameServer;
+import it.polimi.ingsw.am43.Network.GameSnapshot;
 import it.polimi.ingsw.am43.Network.Message;
+import it.polimi.ingsw.am43.Network.Messages.MessageType;
 import it.polimi.ingsw.am43.Network.Messages.toClientMessages.*;
 
 import java.rmi.RemoteException;
 import java.rmi.server.UnicastRemoteObject;
 import java.util.*;
-
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * The RMI side of a single game. Clients call its methods to act on the game, and receive the messages
+ * produced by the game through {@link #receive(int)}: each player has an ordered outbox, filled by the
+ * {@link GameServer} as soon as a message is produced, and drained by a call that waits for it.
+ * Since the client is the one calling, the server never has to connect back to it.
+ * The chat is not copied in the outboxes: it is kept in the {@link ChatLog} of the game, and a player with unread messages
+ * only has a marker in its outbox, replaced by all its unread messages when the outbox is drained.
+ * The calls to {@link #receive(int)} are also the heartbeats of the clients, and their failure tells the
+ * clients that the server is down, so no call is made only to check the connection.
+ * The calls that act on the game are run on the {@link GameLoop} of the game, and the RMI thread waits for them,
+ * while the questions about the lobby are answered from the last {@link GameSnapshot}.
+ */
 public class RMIServer extends UnicastRemoteObject implements RMIServerInterface {
     static String RED = "\033[0;31m"; // Used for ERROR
 
+    /**
+     * The longest time a call to {@link #receive(int)} waits for a message, in milliseconds.
+     * It is shorter than {@link #HEARTBEAT_TIMEOUT}, so that an idle client calls again before being considered lost.
+     */
+    static final long RECEIVE_TIMEOUT = 2000;
+
     private final GameServer gameServer;
     private final GameController gameController;
-    private boolean serverRunning;
+    private volatile boolean serverRunning;
     private final Map<Integer, Long> clientHeartbeats;
 
+    /**
+     * The messages waiting to be received by each RMI player, by player ID.
+     */
+    private final Map<Integer, BlockingQueue<Message>> outboxes = new ConcurrentHashMap<>();
+
+    /**
+     * The marker queued in the outbox of a player who has unread chat messages.
+     */
+    private static final Message CHAT_READY = new Message(MessageType.GENERAL_MSG) {};
+
+    /**
+     * A flag for each RMI player, by player ID, that indicates if a {@link #CHAT_READY} marker is in its outbox.
+     */
+    private final Map<Integer, AtomicBoolean> chatPending = new ConcurrentHashMap<>();
+
 
     long HEARTBEAT_TIMEOUT = 3000;
 
@@ -29,49 +71,60 @@ public class RMIServer extends UnicastRemoteObject implements RMIServerInterface
         this.gameServer = gameServer;
         this.gameController = controller;
         this.serverRunning = true; // Assume server is initially running
-        this.clientHeartbeats = new HashMap<>();
+        this.clientHeartbeats = new ConcurrentHashMap<>();
     }
 
     /**
-     * Registers the client and its heartbeats, and adds it as a new player for the {@link GameServer}.
+     * Registers the client and its heartbeats, creates its outbox and adds it as a new player for the {@link GameServer}.
      *
-     * @param clientCallback is the remote instance of the client.
      * @return the player ID if registration is successful, -1 otherwise.
      */
     @Override
-    public synchronized int registerClient(ClientInterface clientCallback) throws RemoteException {
-        if (isServerRunning()) {
-            final int pID = gameServer.addRMIClient(clientCallback.hashCode());
-            clientHeartbeats.put(pID, System.currentTimeMillis());
-            return pID;
-        } else {
-            // Handle registration when server is not running
-            System.out.println(RED +  "RMI Server is down. Unable to register client.");
-        }
-        return -1;
+    public int registerClient() throws RemoteException {
+        // The outbox is created by the same command that gives the seat, so that no message for the player is lost
+        return call(() -> {
+            if (!gameServer.claimRMISlot()) return -1;
+            if (isServerRunning()) {
+                final int pID = gameServer.addRMIClient();
+                if (pID == -1) {
+                    gameServer.releaseSlot();
+                    return -1;
+                }
+                clientHeartbeats.put(pID, System.currentTimeMillis());
+                gameServer.getChatLog().open(pID);
+                chatPending.put(pID, new AtomicBoolean(false));
+                outboxes.put(pID, new LinkedBlockingQueue<>());
+                return pID;
+            } else {
+                // Handle registration when server is not running
+                System.out.println(RED +  "RMI Server is down. Unable to register client.");
+            }
+            gameServer.releaseSlot();
+            return -1;
+        });
     }
 
     /**
-     * Logs a new heartbeat for a player.
+     * Logs a new heartbeat for a player. The players already considered lost are not brought back.
      *
      * @param pID is the player ID that sends the heartbeat
      */
     @Override
-    public synchronized void heartbeat(int pID) throws RemoteException {
-        clientHeartbeats.put(pID, System.currentTimeMillis());
+    public void heartbeat(int pID) throws RemoteException {
+        clientHeartbeats.replace(pID, System.currentTimeMillis());
     }
 
     /**
      * @return if server is running
      */
-    public synchronized boolean isServerRunning() {
+    public boolean isServerRunning() {
         return serverRunning;
     }
 
     /**
      * set server as running or not.
      */
-    public synchronized void setServerRunning(boolean serverRunning) {
+    public void setServerRunning(boolean serverRunning) {
         this.serverRunning = serverRunning;
     }
 
@@ -80,7 +133,7 @@ public class RMIServer extends UnicastRemoteObject implements RMIServerInterface
      */
     @Override
     public boolean isAcceptingNewClients() throws RemoteException {
-        return gameServer.isAcceptingNewClients();
+        return gameServer.getSnapshot().isAcceptingNewClients();
 
     }
 
@@ -88,7 +141,7 @@ public class RMIServer extends UnicastRemoteObject implements RMIServerInterface
      * @return the number of clients in the {@link GameServer}.
      */
     public int getClientsCounter() throws RemoteException {
-        return gameServer.getClientsCounter();
+        return gameServer.getSnapshot().getClientsCounter();
     }
 
     /**
@@ -96,7 +149,7 @@ public class RMIServer extends UnicastRemoteObject implements RMIServerInterface
      */
     @Override
     public void setNumberOfPlayers(int numberOfPlayers) throws RemoteException {
-        gameServer.setNumberOfPlayers(numberOfPlayers);
+        run(() -> gameServer.setNumberOfPlayers(numberOfPlayers));
     }
 
     /**
@@ -104,7 +157,7 @@ public class RMIServer extends UnicastRemoteObject implements RMIServerInterface
      */
     @Override
     public void tryStartingMatch() throws RemoteException {
-        gameServer.tryStartingMatch();
+        run(gameServer::tryStartingMatch);
     }
 
     /**
@@ -112,7 +165,7 @@ public class RMIServer extends UnicastRemoteObject implements RMIServerInterface
      */
     @Override
     public void tryRestartingMatch() throws RemoteException {
-        gameServer.tryRestartingMatch();
+        run(gameServer::tryRestartingMatch);
     }
 
     /**
@@ -120,27 +173,17 @@ public class RMIServer extends UnicastRemoteObject implements RMIServerInterface
      */
     @Override
     public void sendGameInfo() throws RemoteException {
-        gameServer.sendGameInfo();
+        run(gameServer::sendGameInfo);
     }
 
     /**
      * @param pick is the playerID picked by the player.
-     * @return all the initial data to start a loaded game.
+     * @param lastSeq is the sequence number of the last game info known by the client, 0 if none.
+     * @return the turns missed by the client if they are available, all the initial data to start a loaded game otherwise.
      */
     @Override
-    public requiredDataMsg getRequiredData(int pick) throws RemoteException {
-        return new requiredDataMsg(gameController.getPlayers()[pick].getInHand(),
-                gameController.getPlayers()[pick].getStartingCard(),
-                gameController.getOnGround(),
-                gameController.getCommonObjectives(),
-                gameController.getPlayers()[pick].getPersonalObjective(),
-                gameController.getScores(),
-                gameController.getAllPlacements(),
-                gameController.getAllDeployed(),
-                gameController.getUsersColors(),
-                gameController.getPlayerNames(),
-                gameController.getNumPlayers(),
-                gameController.getFirstPlayer());
+    public Message getRejoinData(int pick, int lastSeq) throws RemoteException {
+        return read(() -> gameController.getRejoinData(pick, lastSeq));
     }
 
     /**
@@ -148,7 +191,7 @@ public class RMIServer extends UnicastRemoteObject implements RMIServerInterface
      */
     @Override
     public void rejoinPlayer(int pick) throws RemoteException {
-        gameController.rejoinPlayer(pick);
+        run(() -> gameController.rejoinPlayer(pick));
     }
 
     /**
@@ -156,33 +199,13 @@ public class RMIServer extends UnicastRemoteObject implements RMIServerInterface
      */
     @Override
     public String isAlreadyTaken(int pick) throws RemoteException {
-        String username = gameController.getPlayerNames()[pick];
-        if (!gameController.getRejoinedPlayers().contains(username)) {
-            return username;
+        GameSnapshot lobby = gameServer.getSnapshot();
+        if (!lobby.getRejoinedIndexes().contains(pick)) {
+            return lobby.getPlayerNames()[pick];
         }
         return null;
     }
 
-    /**
-     * Tries to fetch game info for the {@param playerID} from the {@link GameController}.
-     *
-     * @return a {@link gameInfoMsg} if there's new info,
-     * with also a {@link endGameMsg} if the game is in the final turn.
-     * @throws RemoteException if there's no new info.
-     */
-    // Se non sta finendo il gioco manda solo gameInfo, altrimenti manda sia gameInfo che endGame
-    public Message[] getGameInfo(int playerID) throws RemoteException {
-        if (gameServer.hasNewInfo(playerID)) {
-            gameInfoMsg gameInfo = gameController.getGameInfo();
-            if (gameInfo.getLastOnGroundIndex() == -1) {
-                return new Message[]{gameInfo, gameServer.getEndGameInfo()};
-            }
-            return new Message[]{gameInfo};
-        } else {
-            throw new RemoteException("Game not updated yet");
-        }
-    }
-
     /**
      * @return whether the game is loaded from an existing one or was created new.
      */
@@ -192,79 +215,104 @@ public class RMIServer extends UnicastRemoteObject implements RMIServerInterface
     }
 
     /**
-     * Checks if the game has started.
+     * Adds a message to the outbox of an RMI player. Players that joined through a socket have no outbox
+     * and are ignored, so the {@link GameServer} can offer every message to every player.
      *
-     * @return the {@link initialSituation} for {@param playerId} if the game has started.
-     * @throws Exception otherwise.
+     * @param playerID is the ID of the receiver.
+     * @param msg      is the message to deliver.
      */
-    @Override
-    public Message getInitialSituation(int playerID) throws Exception {
-        if (!gameServer.isAcceptingNewClients() && gameController.getGame().getCommonObjectives()[1] != null) {
-            return gameController.getInitialSituation(playerID);
-        } else {
-            throw new Exception("Game not started yet");
-        }
+    public void deliver(int playerID, Message msg) {
+        BlockingQueue<Message> outbox = outboxes.get(playerID);
+        if (outbox != null) outbox.add(msg);
     }
 
     /**
-     * @return the Personal objective for {@param playerID}.
+     * Tells an RMI player that it has unread messages in the {@link ChatLog}, unless it has already been told
+     * and has not fetched them yet.
+     *
+     * @param playerID is the ID of the receiver.
      */
-    @Override
-    public ObjectiveCard getPersonalObjective(int playerID) throws RemoteException {
-        return gameController.getPersonalObjective(playerID);
+    public void chatReady(int playerID) {
+        AtomicBoolean pending = chatPending.get(playerID);
+        if (pending != null && pending.compareAndSet(false, true)) deliver(playerID, CHAT_READY);
     }
 
     /**
-     * Sends a new public chat message.
-     *
-     * @param sender   is the sender username.
-     * @param senderId is the sender's ID.
-     * @param message  is the text message.
+     * @return the IDs of the players that joined through RMI.
      */
-    @Override
-    public void sendPublicChat(String sender, int senderId, String message) throws RemoteException {
-        gameServer.sendPublicChat(sender, senderId, message);
+    public Set<Integer> getPlayerIDs() {
+        return outboxes.keySet();
     }
 
     /**
-     * Sends a new private chat message
+     * Waits for the messages produced for {@param playerID} and returns all of them, oldest first.
+     * The unread chat messages are fetched from the {@link ChatLog} on the loop, where the marker was queued.
+     * The call counts as a heartbeat of the player, both when it starts and when it returns, so that the time spent
+     * waiting on the server is not taken from the time the client has to call again.
      *
-     * @param msg contains the sender's username, the receiver's username and ID, and the text message.
+     * @return the messages, empty if none has been produced within {@link #RECEIVE_TIMEOUT}.
+     * @throws RemoteException if the player has no outbox, or if the server is closing.
      */
     @Override
-    public void sendPrivateChat(Message msg) throws RemoteException {
-        privateChatMessageMsg pvtChat = (privateChatMessageMsg) msg;
-        int receiverID = gameController.getPlayerID(pvtChat.getReceiver());
-        gameServer.sendPrivateChat(pvtChat.getSender(), pvtChat.getReceiver(), receiverID, pvtChat.getMessage());
+    public Message[] receive(int playerID) throws RemoteException {
+        if (gameServer.rmiHasToClose) throw new RemoteException("Server is down");
+        BlockingQueue<Message> outbox = outboxes.get(playerID);
+        if (outbox == null) throw new RemoteException("Unknown player " + playerID);
+        heartbeat(playerID);
+        try {
+            Message first = outbox.poll(RECEIVE_TIMEOUT, TimeUnit.MILLISECONDS);
+            if (first == null) return new Message[0];
+            List<Message> drained = new ArrayList<>();
+            drained.add(first);
+            outbox.drainTo(drained);
+            List<Message> received = new ArrayList<>(drained.size());
+            for (Message msg : drained) {
+                if (msg != CHAT_READY) {
+                    received.add(msg);
+                    continue;
+                }
+                // Cleared before reading, so that a message sent meanwhile queues a new marker
+                AtomicBoolean pending = chatPending.get(playerID);
+                if (pending != null) pending.set(false);
+                received.addAll(read(() -> gameServer.getChatLog().read(playerID)));
+            }
+            return received.toArray(new Message[0]);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RemoteException("Interrupted while waiting for messages");
+        } finally {
+            heartbeat(playerID);
+        }
     }
 
     /**
-     * Fetches for new messages for {@param playerID}
+     * Sends a new public chat message.
      *
-     * @return the oldest unread message.
+     * @param sender   is the sender username.
+     * @param senderId is the sender's ID.
+     * @param message  is the text message.
      */
     @Override
-    public Message receiveChat(int playerID) throws Exception {
-        Message msg = gameServer.getMessage(playerID);
-        if (msg == null) {
-            throw new Exception("No message received");
-        }
-        return msg;
+    public void sendPublicChat(String sender, int senderId, String message) throws RemoteException {
+        long start = System.nanoTime();
+        run(() -> gameServer.sendPublicChat(sender, senderId, message));
+        recordHandling(MessageType.GENERAL_MSG, start);
     }
 
     /**
-     * Checks if the game has started.
+     * Sends a new private chat message
      *
-     * @return the {@link initialGameInfoMsg} if the game has started.
-     * @throws Exception otherwise.
+     * @param msg contains the sender's username, the receiver's username and ID, and the text message.
      */
     @Override
-    public Message getInitialGameInfo() throws Exception {
-        if (gameServer.getChosenObjectivesCounter() == gameServer.getNumberOfPlayers()) {
-            return gameController.getInitialGameInfo();
-        } else {
-            throw new Exception("Game not started yet");
-        }
+    public void sendPrivateChat(Message msg) throws RemoteException {
+        long start = System.nanoTime();
+        privateChatMessageMsg pvtChat = (privateChatMessageMsg) msg;
+        run(() -> {
+            int receiverID = gameController.getPlayerID(pvtChat.getReceiver());
+            gameServer.sendPrivateChat(pvtChat.getSender(), pvtChat.getReceiver(), receiverID, pvtChat.getMessage());
+        });
+        recordHandling(MessageType.PRIVATE_MSG, start);
     }
 
     /**
@@ -276,7 +324,7 @@ public class RMIServer extends UnicastRemoteObject implements RMIServerInterface
      */
     @Override
     public void initializePlayers(int n, String username, PawnColor color) throws RemoteException {
-        gameController.initializePlayers(n, username, color);
+        run(() -> gameController.initializePlayers(n, username, color));
     }
 
     /**
@@ -284,14 +332,14 @@ public class RMIServer extends UnicastRemoteObject implements RMIServerInterface
      */
     @Override
     public String[] getPlayerNames() throws RemoteException {
-        return gameController.getPlayerNames();
+        return gameServer.getSnapshot().getPlayerNames();
     }
 
     /**
      * @return the indexes of the players already rejoined.
      */
     public List<Integer> getRejoinedIndexes() throws RemoteException {
-        return gameController.getRejoinedIndexes();
+        return new ArrayList<>(gameServer.getSnapshot().getRejoinedIndexes());
     }
 
     /**
@@ -299,7 +347,7 @@ public class RMIServer extends UnicastRemoteObject implements RMIServerInterface
      */
     @Override
     public int[] getAvailablePawnColors() throws RemoteException {
-        return gameController.getAvailablePawnColors();
+        return gameServer.getSnapshot().getAvailablePawnColors();
     }
 
     /**
@@ -307,7 +355,7 @@ public class RMIServer extends UnicastRemoteObject implements RMIServerInterface
      */
     @Override
     public void addPlayer(String username, PawnColor playerColor) throws RemoteException {
-        gameController.addPlayer(username, playerColor);
+        run(() -> gameController.addPlayer(username, playerColor));
     }
 
     /**
@@ -315,24 +363,29 @@ public class RMIServer extends UnicastRemoteObject implements RMIServerInterface
      */
     @Override
     public void placeStartingCardSide(int side, int playerID) throws RemoteException {
-        gameController.placeStartingCardSide(side, playerID);
+        run(() -> gameController.placeStartingCardSide(side, playerID));
     }
 
     /**
-     * @return the two possible choices for a personal objective drawn from the {@link GameController}
+     * @return the ids of the two possible choices for a personal objective drawn from the {@link GameController}
      */
     @Override
-    public ObjectiveCard[] drawPersonalObjectives() throws RemoteException {
-        return gameController.drawPersonalObjectives();
+    public int[] drawPersonalObjectives() throws RemoteException {
+        return call(() -> CardCatalog.idsOf(gameController.drawPersonalObjectives()));
     }
 
     /**
-     * Sends {@link GameServer} the chosen personal objective for player {@param id} and {@param obj} as the choice.
+     * Sends {@link GameServer} the chosen personal objective for player {@param id} and {@param objID} as the id of the choice.
      */
     @Override
-    public void setPersonalObjective(int id, ObjectiveCard obj) throws RemoteException {
-        gameController.setPersonalObjective(id, obj);
-        gameServer.incrementChosenObjectivesCounter();
+    public void setPersonalObjective(int id, int objID) throws RemoteException {
+        run(() -> {
+            if (!gameController.setPersonalObjective(id, objID)) {
+                System.err.println(RED + "[ERROR] Unknown objective card " + objID + " from player " + id);
+                return;
+            }
+            gameServer.incrementChosenObjectivesCounter();
+        });
     }
 
     /**
@@ -340,7 +393,19 @@ public class RMIServer extends UnicastRemoteObject implements RMIServerInterface
      */
     @Override
     public Boolean[] getInHandAvailableSides(int playerID) throws RemoteException {
-        return gameController.getInHandAvailableSides(playerID);
+        return read(() -> gameController.getInHandAvailableSides(playerID));
+    }
+
+    /**
+     * @return from {@link GameController} the placeable sides in {@param playerID}'s hand, together with
+     * all the available placements.
+     */
+    @Override
+    public placeableCardsMsg getPlaceableCards(int playerID) throws RemoteException {
+        long start = System.nanoTime();
+        placeableCardsMsg placeable = read(() -> gameController.getPlaceableCards(playerID));
+        recordHandling(MessageType.PLAY, start);
+        return placeable;
     }
 
     /**
@@ -348,44 +413,102 @@ public class RMIServer extends UnicastRemoteObject implements RMIServerInterface
      */
     @Override
     public availablePlacementsMsg getAvailablePlacements(int playerID, int deployIndex) throws RemoteException {
-        return new availablePlacementsMsg(
+        long start = System.nanoTime();
+        availablePlacementsMsg placements = read(() -> new availablePlacementsMsg(
                 gameController.getAvailablePlacements(playerID, deployIndex),
                 gameController.isResEmpty(),
                 gameController.isGoldEmpty()
-        );
+        ));
+        recordHandling(MessageType.COUPLECARDS, start);
+        return placements;
     }
 
     /**
-     * @return the result from the turn played by {@param playerID} by placing the card at {@param handIndex},
+     * @return the id of the card drawn in the turn played by {@param playerID} by placing the card at {@param handIndex},
      * on corner {@param corner} of the card at {@param deployedIndex}, and drawing the card {@param drawn}.
      */
     @Override
-    public PlayableCard playTurn(int playerID, int handIndex, int deployedIndex, int corner, int drawn) throws RemoteException {
-        return gameController.playTurn(playerID, handIndex, deployedIndex, corner, drawn);
+    public int playTurn(int playerID, int handIndex, int deployedIndex, int corner, int drawn) throws RemoteException {
+        long start = System.nanoTime();
+        int drawnID = call(() -> CardCatalog.idOf(gameController.playTurn(playerID, handIndex, deployedIndex, corner, drawn)));
+        recordHandling(MessageType.PLAYTURN, start);
+        return drawnID;
     }
 
     /**
-     * Sends a heartbeat to the client, with an exception if the closing call is active.
-     */
-    public void sendHeartbeat() throws RemoteException {
-        if (gameServer.rmiHasToClose) {
-            throw new RemoteException("Server is down");
+     * Runs a call of a client on the {@link GameLoop} of the game and waits for its result.
+     *
+     * @param command the command to run on the loop.
+     * @return the result of the command.
+     * @throws RemoteException if the game has been stopped.
+     */
+    private <T> T call(Supplier<T> command) throws RemoteException {
+        try {
+            return gameServer.getLoop().call(command);
+        } catch (RejectedExecutionException e) {
+            throw new RemoteException("Game " + gameServer.getGameID() + " has been stopped");
         }
     }
 
+    /**
+     * Runs a call of a client that only reads the game on the {@link GameLoop} of the game and waits for its result,
+     * without publishing a new snapshot of the game after it.
+     *
+     * @param query the command to run on the loop.
+     * @return the result of the command.
+     * @throws RemoteException if the game has been stopped.
+     */
+    private <T> T read(Supplier<T> query) throws RemoteException {
+        try {
+            return gameServer.getLoop().read(query);
+        } catch (RejectedExecutionException e) {
+            throw new RemoteException("Game " + gameServer.getGameID() + " has been stopped");
+        }
+    }
+
+    /**
+     * Runs a call of a client that returns nothing on the {@link GameLoop} of the game and waits for it.
+     *
+     * @param command the command to run on the loop.
+     * @throws RemoteException if the game has been stopped.
+     */
+    private void run(Runnable command) throws RemoteException {
+        call(() -> {
+            command.run();
+            return null;
+        });
+    }
+
+    /**
+     * Records in the metrics of the server the time taken by a call, under the type of the message it stands for.
+     *
+     * @param type  the type of the message the call stands for.
+     * @param start the time the call started, in nanoseconds.
+     */
+    private void recordHandling(MessageType type, long start) {
+        gameServer.getRegistry().getMetrics().recordHandling(type, System.nanoTime() - start);
+    }
+
     /**
      * Checks, for each {@link RMIClient}, how much time has passed since last heartbeat.
-     * If more than 3 seconds have passed, shut {@link GameServer} and all clients down.
+     * The clients silent for more than 3 seconds are lost: they are forgotten together with their outboxes and unread chat positions,
+     * and the {@link GameServer} decides whether their seats go to bots or the game has to be shut down.
+     * It is called on the loop.
+     *
+     * @return the IDs of the players whose clients have been lost, empty if none
      */
-    public void checkClientHeartbeats() throws RemoteException {
+    public List<Integer> removeLostClients() {
         long currentTime = System.currentTimeMillis();
+        List<Integer> lost = new ArrayList<>();
         for (int pID : clientHeartbeats.keySet()) {
-            long lastHeartbeat = clientHeartbeats.get(pID);
-            if (currentTime - lastHeartbeat > HEARTBEAT_TIMEOUT) {
-                System.err.println(RED + "Client " + pID + " disconnected.\nSystem shut down.");
-                setServerRunning(false);
-                gameServer.stop();
-            }
+            if (currentTime - clientHeartbeats.get(pID) > HEARTBEAT_TIMEOUT) lost.add(pID);
+        }
+        for (int pID : lost) {
+            clientHeartbeats.remove(pID);
+            outboxes.remove(pID);
+            chatPending.remove(pID);
+            gameServer.getChatLog().close(pID);
         }
+        return lost;
     }
-}
+}
\ No newline at end of file
@@ -0,0 +1,465 @@
+package it.polimi.ingsw.am43.Network;
+
+import it.polimi.ingsw.am43.Controller.GameSaver;
+
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.*;
+
+/**
+ * Class that holds the settings of the threads and resources used by the server.
+ * The settings are read from system properties (e.g. {@code -Dcodex.server.virtualThreads=false}),
+ * falling back to the defaults when a property is missing or not valid:
+ * <ul>
+ *     <li>{@code codex.server.virtualThreads}: run connections and game tasks on virtual threads (default true)</li>
+ *     <li>{@code codex.server.maxConnections}: maximum number of open socket connections (default 4096)</li>
+ *     <li>{@code codex.server.gameThreads}: maximum number of platform threads of each game, when virtual threads are off (default 2)</li>
+ *     <li>{@code codex.server.schedulerThreads}: number of threads of the scheduler shared by all the games (default 2)</li>
+ *     <li>{@code codex.server.heartbeatPeriod}: period of the heartbeats sent to socket clients, only when idle for a whole period, in milliseconds (default 200)</li>
+ *     <li>{@code codex.server.transport}: transport of the socket connections, {@code blocking} or {@code nio} (default blocking)</li>
+ *     <li>{@code codex.server.eventLoops}: number of event loops of the {@code nio} transport (default 2)</li>
+ *     <li>{@code codex.server.durability}: how soon the saves of the games reach the disk, {@code sync},
+ *     {@code group_commit} or {@code async} (default group_commit)</li>
+ *     <li>{@code codex.server.botThreads}: number of threads of the fork-join pool that runs the searches of the bots (default the cores)</li>
+ *     <li>{@code codex.server.botBudget}: time a bot spends searching each move, in milliseconds (default 500)</li>
+ *     <li>{@code codex.server.lobbyTimeout}: time after which the seats still free in a lobby are given to bots,
+ *     in seconds, never if missing (default never)</li>
+ *     <li>{@code codex.server.replaceDropped}: give the seat of a player who drops during a match to a bot,
+ *     instead of shutting the game down (default false)</li>
+ *     <li>{@code codex.server.outboundHighWater}: bytes queued for a socket client above which its heartbeats and chat
+ *     messages are dropped (default 262144)</li>
+ *     <li>{@code codex.server.outboundLimit}: bytes queued for a socket client above which it is disconnected as a slow
+ *     consumer, as if it had dropped (default 4194304)</li>
+ * </ul>
+ */
+public class ServerConfig {
+
+    /**
+     * The transports that can serve the socket connections.
+     */
+    public enum Transport {
+        /**
+         * Every connection is read by its own thread, see {@link it.polimi.ingsw.am43.Network.Socket.SocketServer}.
+         */
+        BLOCKING,
+        /**
+         * The connections are served by a few selector loops, see {@link it.polimi.ingsw.am43.Network.Socket.NioSocketServer}.
+         */
+        NIO
+    }
+
+    /**
+     * Prefix of all the system properties read by the configuration.
+     */
+    private static final String PREFIX = "codex.server.";
+
+    /**
+     * Whether connections and game tasks run on virtual threads.
+     */
+    private final boolean virtualThreads;
+
+    /**
+     * The maximum number of open socket connections.
+     */
+    private final int maxConnections;
+
+    /**
+     * The maximum number of platform threads of each game, when virtual threads are off.
+     */
+    private final int gameThreads;
+
+    /**
+     * The number of threads of the scheduler shared by all the games.
+     */
+    private final int schedulerThreads;
+
+    /**
+     * The period of the heartbeats sent to socket clients, in milliseconds.
+     */
+    private final long heartbeatPeriod;
+
+    /**
+     * The transport of the socket connections.
+     */
+    private final Transport transport;
+
+    /**
+     * The number of event loops of the {@link Transport#NIO} transport.
+     */
+    private final int eventLoops;
+
+    /**
+     * The durability policy of the saves of the games.
+     */
+    private final GameSaver.Durability durability;
+
+    /**
+     * The number of threads of the fork-join pool that runs the searches of the bots.
+     */
+    private final int botThreads;
+
+    /**
+     * The time a bot spends searching each move, in milliseconds.
+     */
+    private final long botBudget;
+
+    /**
+     * The time after which the seats still free in a lobby are given to bots, in seconds, 0 to never do it.
+     */
+    private final int lobbyTimeout;
+
+    /**
+     * Whether the seat of a player who drops during a match is given to a bot.
+     */
+    private final boolean replaceDropped;
+
+    /**
+     * The bytes queued for a socket client above which the frames it can do without are dropped.
+     */
+    private final int outboundHighWater;
+
+    /**
+     * The bytes queued for a socket client above which it is disconnected.
+     */
+    private final int outboundLimit;
+
+    /**
+     * Constructor of the configuration, without bots filling lobbies or replacing dropped players.
+     *
+     * @param virtualThreads    whether connections and game tasks run on virtual threads
+     * @param maxConnections    the maximum number of open socket connections
+     * @param gameThreads       the maximum number of platform threads of each game
+     * @param schedulerThreads  the number of threads of the shared scheduler
+     * @param heartbeatPeriod   the period of the heartbeats sent to socket clients, in milliseconds
+     * @param transport         the transport of the socket connections
+     * @param eventLoops        the number of event loops of the {@link Transport#NIO} transport
+     * @param durability        the durability policy of the saves of the games
+     */
+    public ServerConfig(boolean virtualThreads, int maxConnections, int gameThreads, int schedulerThreads, long heartbeatPeriod,
+                        Transport transport, int eventLoops, GameSaver.Durability durability) {
+        this(virtualThreads, maxConnections, gameThreads, schedulerThreads, heartbeatPeriod, transport, eventLoops, durability,
+                Runtime.getRuntime().availableProcessors(), 500, 0, false, 256 * 1024, 4 * 1024 * 1024);
+    }
+
+    /**
+     * Constructor of the configuration.
+     *
+     * @param virtualThreads    whether connections and game tasks run on virtual threads
+     * @param maxConnections    the maximum number of open socket connections
+     * @param gameThreads       the maximum number of platform threads of each game
+     * @param schedulerThreads  the number of threads of the shared scheduler
+     * @param heartbeatPeriod   the period of the heartbeats sent to socket clients, in milliseconds
+     * @param transport         the transport of the socket connections
+     * @param eventLoops        the number of event loops of the {@link Transport#NIO} transport
+     * @param durability        the durability policy of the saves of the games
+     * @param botThreads        the number of threads of the fork-join pool of the bots
+     * @param botBudget         the time a bot spends searching each move, in milliseconds
+     * @param lobbyTimeout      the time after which the free seats of a lobby are given to bots, in seconds, 0 to never do it
+     * @param replaceDropped    whether the seat of a player who drops during a match is given to a bot
+     * @param outboundHighWater the bytes queued for a socket client above which its heartbeats and chat messages are dropped
+     * @param outboundLimit     the bytes queued for a socket client above which it is disconnected, not lower than the high-water mark
+     */
+    public ServerConfig(boolean virtualThreads, int maxConnections, int gameThreads, int schedulerThreads, long heartbeatPeriod,
+                        Transport transport, int eventLoops, GameSaver.Durability durability,
+                        int botThreads, long botBudget, int lobbyTimeout, boolean replaceDropped,
+                        int outboundHighWater, int outboundLimit) {
+        if (maxConnections < 1 || gameThreads < 1 || schedulerThreads < 1 || heartbeatPeriod < 1 || eventLoops < 1
+                || botThreads < 1 || botBudget < 1 || lobbyTimeout < 0 || outboundHighWater < 1) {
+            throw new IllegalArgumentException("Server limits must be positive");
+        }
+        if (outboundLimit < outboundHighWater) {
+            throw new IllegalArgumentException("The outbound limit must not be lower than the high-water mark");
+        }
+        this.outboundHighWater = outboundHighWater;
+        this.outboundLimit = outboundLimit;
+        this.botThreads = botThreads;
+        this.botBudget = botBudget;
+        this.lobbyTimeout = lobbyTimeout;
+        this.replaceDropped = replaceDropped;
+        this.transport = Objects.requireNonNull(transport);
+        this.eventLoops = eventLoops;
+        this.durability = Objects.requireNonNull(durability);
+        this.virtualThreads = virtualThreads;
+        this.maxConnections = maxConnections;
+        this.gameThreads = gameThreads;
+        this.schedulerThreads = schedulerThreads;
+        this.heartbeatPeriod = heartbeatPeriod;
+    }
+
+    /**
+     * Creates the configuration from the system properties.
+     *
+     * @return the configuration
+     */
+    public static ServerConfig fromSystemProperties() {
+        return new ServerConfig(
+                Boolean.parseBoolean(System.getProperty(PREFIX + "virtualThreads", "true")),
+                intProperty("maxConnections", 4096),
+                intProperty("gameThreads", 2),
+                intProperty("schedulerThreads", 2),
+                intProperty("heartbeatPeriod", 200),
+                transportProperty(),
+                intProperty("eventLoops", 2),
+                durabilityProperty(),
+                intProperty("botThreads", Runtime.getRuntime().availableProcessors()),
+                intProperty("botBudget", 500),
+                intProperty("lobbyTimeout", 0),
+                Boolean.parseBoolean(System.getProperty(PREFIX + "replaceDropped", "false")),
+                intProperty("outboundHighWater", 256 * 1024),
+                intProperty("outboundLimit", 4 * 1024 * 1024));
+    }
+
+    /**
+     * Reads the transport system property.
+     *
+     * @return the transport, {@link Transport#BLOCKING} if the property is missing or not valid
+     */
+    private static Transport transportProperty() {
+        String value = System.getProperty(PREFIX + "transport");
+        if (value == null) return Transport.BLOCKING;
+        try {
+            return Transport.valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            System.err.println("[ERROR] Invalid value for " + PREFIX + "transport: " + value);
+            return Transport.BLOCKING;
+        }
+    }
+
+    /**
+     * Reads the durability system property.
+     *
+     * @return the durability policy, {@link GameSaver.Durability#GROUP_COMMIT} if the property is missing or not valid
+     */
+    private static GameSaver.Durability durabilityProperty() {
+        String value = System.getProperty(PREFIX + "durability");
+        if (value == null) return GameSaver.Durability.GROUP_COMMIT;
+        try {
+            return GameSaver.Durability.valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            System.err.println("[ERROR] Invalid value for " + PREFIX + "durability: " + value);
+            return GameSaver.Durability.GROUP_COMMIT;
+        }
+    }
+
+    /**
+     * Reads a positive integer system property.
+     *
+     * @param  name          the name of the property, without prefix
+     * @param  defaultValue  the value used if the property is missing or not valid
+     * @return               the value of the property
+     */
+    private static int intProperty(String name, int defaultValue) {
+        String value = System.getProperty(PREFIX + name);
+        if (value == null) return defaultValue;
+        try {
+            int parsed = Integer.parseInt(value.trim());
+            return parsed > 0 ? parsed : defaultValue;
+        } catch (NumberFormatException e) {
+            System.err.println("[ERROR] Invalid value for " + PREFIX + name + ": " + value);
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Creates the factory of the threads that serve connections, virtual or platform
+     * depending on the configuration.
+     *
+     * @param  name  the prefix of the names of the threads
+     * @return       the thread factory
+     */
+    public ThreadFactory newThreadFactory(String name) {
+        return virtualThreads
+                ? Thread.ofVirtual().name(name, 0).factory()
+                : Thread.ofPlatform().name(name, 0).factory();
+    }
+
+    /**
+     * Creates the executor of the tasks of a game. With virtual threads every task gets its own
+     * thread, otherwise the game uses at most {@link #getGameThreads()} platform threads,
+     * which are released when the game is idle.
+     *
+     * @param  gameID  the ID of the game
+     * @return         the executor of the game
+     */
+    public ExecutorService newGameExecutor(String gameID) {
+        ThreadFactory factory = newThreadFactory("game-" + gameID + "-");
+        if (virtualThreads) return Executors.newThreadPerTaskExecutor(factory);
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(gameThreads, gameThreads,
+                30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), factory);
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Creates the scheduler shared by all the games, used for heartbeats and delayed tasks.
+     * Its tasks must never block: anything that does I/O is handed to the executor of its game.
+     *
+     * @return the scheduler
+     */
+    public ScheduledExecutorService newScheduler() {
+        ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(schedulerThreads,
+                Thread.ofPlatform().name("scheduler-", 0).daemon(true).factory());
+        // Heartbeats of closed connections are cancelled often: do not keep them in the queue
+        scheduler.setRemoveOnCancelPolicy(true);
+        return scheduler;
+    }
+
+    /**
+     * Creates the persistence stage shared by all the games, a single thread that writes their saves
+     * off the path of the turns. A single platform thread is enough, since writing is bound by the disk,
+     * and it keeps file I/O away from the carriers of the virtual threads.
+     *
+     * @return the persistence stage
+     */
+    public ExecutorService newPersistenceStage() {
+        return Executors.newSingleThreadExecutor(Thread.ofPlatform().name("persistence-", 0).daemon(true).factory());
+    }
+
+    /**
+     * Creates the fork-join pool shared by all the games, that runs the searches of the bots.
+     * Its workers are platform threads, since a search never blocks and keeps them busy for its whole budget:
+     * on the carriers of the virtual threads it would delay the connections.
+     *
+     * @return the pool of the bots
+     */
+    public ForkJoinPool newBotPool() {
+        ForkJoinPool.ForkJoinWorkerThreadFactory factory = pool -> {
+            ForkJoinWorkerThread worker = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            worker.setName("bot-" + worker.getPoolIndex());
+            worker.setDaemon(true);
+            return worker;
+        };
+        return new ForkJoinPool(botThreads, factory, null, false);
+    }
+
+    /**
+     * Returns whether connections and game tasks run on virtual threads.
+     *
+     * @return true if virtual threads are used, false otherwise
+     */
+    public boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+
+    /**
+     * Returns the maximum number of open socket connections.
+     *
+     * @return the maximum number of connections
+     */
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    /**
+     * Returns the maximum number of platform threads of each game.
+     *
+     * @return the maximum number of threads of a game
+     */
+    public int getGameThreads() {
+        return gameThreads;
+    }
+
+    /**
+     * Returns the period of the heartbeats sent to socket clients.
+     *
+     * @return the period, in milliseconds
+     */
+    public long getHeartbeatPeriod() {
+        return heartbeatPeriod;
+    }
+
+    /**
+     * Returns the transport of the socket connections.
+     *
+     * @return the transport
+     */
+    public Transport getTransport() {
+        return transport;
+    }
+
+    /**
+     * Returns the number of event loops of the {@link Transport#NIO} transport.
+     *
+     * @return the number of event loops
+     */
+    public int getEventLoops() {
+        return eventLoops;
+    }
+
+    /**
+     * Returns the durability policy of the saves of the games.
+     *
+     * @return the durability policy
+     */
+    public GameSaver.Durability getDurability() {
+        return durability;
+    }
+
+    /**
+     * Returns the number of threads of the fork-join pool of the bots.
+     *
+     * @return the number of threads of the bots
+     */
+    public int getBotThreads() {
+        return botThreads;
+    }
+
+    /**
+     * Returns the time a bot spends searching each move.
+     *
+     * @return the budget of a move, in milliseconds
+     */
+    public long getBotBudget() {
+        return botBudget;
+    }
+
+    /**
+     * Returns the time after which the seats still free in a lobby are given to bots.
+     *
+     * @return the timeout, in seconds, 0 if lobbies are never filled with bots
+     */
+    public int getLobbyTimeout() {
+        return lobbyTimeout;
+    }
+
+    /**
+     * Returns whether the seat of a player who drops during a match is given to a bot.
+     *
+     * @return true if dropped players are replaced by bots, false if the game is shut down
+     */
+    public boolean isReplaceDropped() {
+        return replaceDropped;
+    }
+
+    /**
+     * Returns the bytes queued for a socket client above which the frames it can do without are dropped.
+     *
+     * @return the high-water mark, in bytes
+     */
+    public int getOutboundHighWater() {
+        return outboundHighWater;
+    }
+
+    /**
+     * Returns the bytes queued for a socket client above which it is disconnected as a slow consumer.
+     *
+     * @return the limit, in bytes
+     */
+    public int getOutboundLimit() {
+        return outboundLimit;
+    }
+
+    @Override
+    public String toString() {
+        return transport.name().toLowerCase(Locale.ROOT) + " sockets"
+                + (transport == Transport.NIO ? " on " + eventLoops + " event loops, " : ", ")
+                + (virtualThreads ? "virtual" : "platform") + " threads, max " + maxConnections
+                + " connections, " + gameThreads + " threads per game, " + schedulerThreads
+                + " scheduler threads, heartbeat every " + heartbeatPeriod + "ms, "
+                + durability.name().toLowerCase(Locale.ROOT) + " saves, bots searching " + botBudget
+                + "ms per move on " + botThreads + " threads"
+                + (lobbyTimeout > 0 ? ", filling lobbies after " + lobbyTimeout + "s" : "")
+                + (replaceDropped ? ", replacing dropped players" : "")
+                + ", shedding above " + outboundHighWater + "B and disconnecting above " + outboundLimit + "B queued per client";
+    }
+}
@@ -0,0 +1,260 @@
+package it.polimi.ingsw.am43.Network.Socket;
+
+import it.polimi.ingsw.am43.Network.Message;
+import it.polimi.ingsw.am43.Network.MessageCodec;
+import it.polimi.ingsw.am43.Network.Metrics.ConnectionMetrics;
+
+import java.io.*;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A {@link ClientConnection} over a blocking {@link Socket}, accepted by the {@link SocketServer}.
+ * The connection has two dedicated threads, virtual or platform depending on the
+ * {@link it.polimi.ingsw.am43.Network.ServerConfig}: one reads and decodes the messages of the client and queues them in its {@link InboundQueue},
+ * which hands them to the loop of the game in batches and in order, the other writes the frames queued for it in its {@link OutboundQueue}. The threads of the game only encode and queue,
+ * so that a client that does not read never blocks a broadcast nor the other clients.
+ * The stream is flushed only when no frame is left, so that a burst of frames is written in as few packets as possible.
+ */
+public class BlockingConnection implements ClientConnection {
+
+    /**
+     * The {@link Socket} used to communicate with the {@link SocketClient}.
+     */
+    private final Socket socket;
+
+    /**
+     * The input and output streams of the socket.
+     */
+    private final DataInputStream in;
+    private final DataOutputStream out;
+
+    /**
+     * The output stream of the socket as a channel, to write the shared frames, which are read-only.
+     */
+    private final WritableByteChannel frames;
+
+    /**
+     * The factory of the threads that read and write the messages of the client.
+     */
+    private final ThreadFactory threads;
+
+    /**
+     * The action run once the connection is closed.
+     */
+    private final Runnable onClose;
+
+    /**
+     * The traffic of the connection.
+     */
+    private final ConnectionMetrics traffic;
+
+    /**
+     * The frames waiting to be written to the client.
+     */
+    private final OutboundQueue outbound;
+
+    /**
+     * The messages received from the client and not yet handled by its game.
+     */
+    private final InboundQueue inbound;
+
+    /**
+     * A flag that makes the closing of the connection happen only once.
+     */
+    private final AtomicBoolean closed = new AtomicBoolean(false);
+
+    /**
+     * The thread that reads the messages of the client.
+     */
+    private Thread thread;
+
+    /**
+     * The thread that writes the frames queued for the client.
+     */
+    private final Thread writer;
+
+    /**
+     * Constructor of the connection.
+     *
+     * @param socket     the socket of the client
+     * @param in         the input stream of the socket, already opened
+     * @param out        the output stream of the socket, already opened
+     * @param threads    the factory of the threads that read and write the messages of the client
+     * @param onClose    the action to run once the connection is closed
+     * @param traffic    the {@link ConnectionMetrics} that count the traffic of the connection
+     * @param highWater  the bytes queued above which the frames the client can do without are dropped
+     * @param limit      the bytes queued above which the client is disconnected
+     */
+    public BlockingConnection(Socket socket, DataInputStream in, DataOutputStream out, ThreadFactory threads, Runnable onClose,
+                              ConnectionMetrics traffic, int highWater, int limit) {
+        this.socket = socket;
+        this.in = in;
+        this.out = out;
+        this.frames = Channels.newChannel(out);
+        this.threads = threads;
+        this.onClose = onClose;
+        this.traffic = traffic;
+        this.outbound = new OutboundQueue(highWater, limit, traffic);
+        // A message the game cannot handle: the reading thread notices the disconnection
+        this.inbound = new InboundQueue(traffic, this::abort);
+        // The writer starts at once, since the game may send messages before the client is read
+        this.writer = threads.newThread(this::write);
+        writer.start();
+    }
+
+    @Override
+    public void start(Handler handler) {
+        try {
+            inbound.start(handler.getExecutor(), handler::onMessage);
+        } catch (RejectedExecutionException e) {
+            // The game has been stopped
+            close();
+            return;
+        }
+        thread = threads.newThread(() -> read(handler));
+        thread.start();
+    }
+
+    /**
+     * Reads the messages of the client until the connection is closed, queueing them for the loop of the game.
+     *
+     * @param handler  the {@link Handler} of the client
+     */
+    private void read(Handler handler) {
+        try {
+            while (!closed.get()) {
+                // The frame is read here instead of by the codec, so that its size is known
+                int length = in.readInt();
+                MessageCodec.checkLength(length);
+                byte[] payload = new byte[length];
+                in.readFully(payload);
+                traffic.received(MessageCodec.HEADER_SIZE + length);
+                Message msg = MessageCodec.decode(payload, 0, length);
+                inbound.add(msg);
+            }
+        } catch (IOException e) {
+            if (!closed.get()) notifyDisconnect(handler);
+        } catch (RejectedExecutionException e) {
+            // The game has been stopped
+        } catch (RuntimeException e) {
+            // A message the game cannot handle must not leave the client hanging
+            e.printStackTrace();
+            if (!closed.get()) notifyDisconnect(handler);
+        } finally {
+            close();
+        }
+    }
+
+    /**
+     * Closes the socket, so that the reading thread notices the disconnection and tells the handler.
+     */
+    private void abort() {
+        try {
+            socket.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    /**
+     * Notifies the {@link Handler} of the disconnection of the client, on the loop of the game.
+     *
+     * @param handler  the {@link Handler} of the client
+     */
+    private void notifyDisconnect(Handler handler) {
+        try {
+            handler.getExecutor().execute(handler::onDisconnect);
+        } catch (RejectedExecutionException ignored) {
+            // The game has already been stopped
+        }
+    }
+
+    /**
+     * Writes the queued frames until the connection is closed.
+     */
+    private void write() {
+        try {
+            while (!closed.get()) {
+                ByteBuffer frame = outbound.take();
+                int size = frame.remaining();
+                while (frame.hasRemaining()) frames.write(frame);
+                traffic.sent(size);
+                if (outbound.isEmpty()) out.flush();
+            }
+        } catch (InterruptedException e) {
+            // The connection has been closed
+        } catch (IOException e) {
+            // The reading thread notices the disconnection
+        }
+    }
+
+    @Override
+    public void send(Message msg) {
+        if (closed.get()) return;
+        try {
+            queue(MessageCodec.encodeFrame(msg), false);
+        } catch (IOException e) {
+            System.err.println(SocketServer.RED + "[ERROR] Unable to encode " + msg.getType() + ": " + e + SocketServer.RESET);
+        }
+    }
+
+    @Override
+    public void sendFrame(ByteBuffer frame, boolean droppable) {
+        if (closed.get()) return;
+        // The writer consumes the position of the buffer: it gets its own view of the shared bytes
+        queue(frame.duplicate(), droppable);
+    }
+
+    @Override
+    public void sendHeartbeat() {
+        // Frames still queued already tell the client that the server is alive
+        if (closed.get() || !outbound.isEmpty()) return;
+        queue(MessageCodec.heartbeatFrame(), true);
+    }
+
+    /**
+     * Queues a frame for the writer, disconnecting the client if it is too far behind.
+     *
+     * @param frame      the frame, that the connection now owns
+     * @param droppable  whether the client can do without the frame
+     */
+    private void queue(ByteBuffer frame, boolean droppable) {
+        if (outbound.offer(frame, droppable) != OutboundQueue.Result.OVERFLOW) return;
+        System.err.println(SocketServer.RED + "[ERROR] Client " + getAddress() + " is not reading, " + outbound.getBytes()
+                + " bytes are waiting: disconnecting it" + SocketServer.RESET);
+        // The handler is told as if the client had dropped
+        abort();
+    }
+
+    @Override
+    public void close() {
+        if (closed.compareAndSet(false, true)) {
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+            } finally {
+                if (thread != null) thread.interrupt();
+                writer.interrupt();
+                outbound.clear();
+                inbound.close();
+                traffic.close();
+                onClose.run();
+            }
+        }
+    }
+
+    @Override
+    public boolean isClosed() {
+        return closed.get() || socket.isClosed();
+    }
+
+    @Override
+    public String getAddress() {
+        return socket.getInetAddress().toString().substring(1);
+    }
+}
@@ -0,0 +1,67 @@
+package it.polimi.ingsw.am43.Network.Socket;
+
+import it.polimi.ingsw.am43.Network.Message;
+
+import java.nio.ByteBuffer;
+
+/**
+ * An interface that represents the connection with a {@link SocketClient}, as seen by its {@link Handler}.
+ * The connection exchanges frames encoded by the {@link it.polimi.ingsw.am43.Network.MessageCodec},
+ * so that the {@link Handler} does not depend on the transport used by the server.
+ */
+public interface ClientConnection {
+
+    /**
+     * Starts delivering to the {@link Handler} the messages received from the client.
+     * The messages are delivered one at a time, in the order they were received.
+     * When the client disconnects, {@link Handler#onDisconnect()} is called.
+     *
+     * @param handler  the {@link Handler} of the client
+     */
+    void start(Handler handler);
+
+    /**
+     * Sends a message to the client. The message is encoded and queued, and the call never waits for the socket:
+     * if the client is so far behind that the bytes queued for it exceed the limit of the
+     * {@link it.polimi.ingsw.am43.Network.ServerConfig}, it is disconnected and {@link Handler#onDisconnect()} is called.
+     *
+     * @param msg  the message to send
+     */
+    void send(Message msg);
+
+    /**
+     * Sends to the client a frame encoded by {@link it.polimi.ingsw.am43.Network.MessageCodec#encodeSharedFrame(Message)},
+     * so that a message broadcast to many clients is encoded only once. The frame is shared by all the connections:
+     * each one queues its own view of it, and none modifies it. As for {@link #send(Message)}, the call never waits
+     * for the socket.
+     *
+     * @param frame      the read-only frame, positioned at its beginning
+     * @param droppable  whether the frame is dropped instead of queued when the client is above the high-water mark
+     */
+    void sendFrame(ByteBuffer frame, boolean droppable);
+
+    /**
+     * Sends a heartbeat to the client, as a fixed frame that is never encoded.
+     * The heartbeat is dropped if frames are waiting to be written, since the client receives traffic anyway.
+     */
+    void sendHeartbeat();
+
+    /**
+     * Closes the connection. Only the first call has effect.
+     */
+    void close();
+
+    /**
+     * Checks if the connection is closed.
+     *
+     * @return true if the connection is closed, false otherwise
+     */
+    boolean isClosed();
+
+    /**
+     * Retrieves the address of the client.
+     *
+     * @return the address of the client
+     */
+    String getAddress();
+}
@@ -1,6 +1,7 @@
 package it.polimi.ingsw.am43.Network.Socket;
 
 import it.polimi.ingsw.am43.Controller.GameController;
+import it.polimi.ingsw.am43.Model.CardCatalog;
 import it.polimi.ingsw.am43.Model.Cards.PlayableCard;
 import it.polimi.ingsw.am43.Model.Enum.PawnColor;
 import it.polimi.ingsw.am43.Network.GameServer;
@@ -8,18 +9,19 @@ import it.polimi.ingsw.am43.Network.Message;
 import it.polimi.ingsw.am43.Network.Messages.controllerMessages.*;
 import it.polimi.ingsw.am43.Network.Messages.toClientMessages.*;
 
-import java.io.*;
-import java.net.Socket;
-import java.net.SocketException;
+import java.nio.ByteBuffer;
 import java.util.*;
-import java.util.concurrent.BlockingDeque;
-import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
- * A class that handles the communication between the {@link SocketServer} and
- * a {@link SocketClient}.
+ * A class that handles the communication between the server and a {@link SocketClient}.
+ * The messages are exchanged through a {@link ClientConnection}, whichever transport the server uses,
+ * and are delivered to the handler one at a time, on the {@link it.polimi.ingsw.am43.Network.GameLoop} of the game,
+ * as well as its disconnection. Heartbeats are scheduled on the scheduler shared by all the games
+ * and queued straight on the connection, only when nothing else has been sent to the client for a whole heartbeat period.
  */
-public class Handler extends Thread {
+public class Handler {
 
     /**
      * ANSI color codes for various messages printed from the server
@@ -28,16 +30,9 @@ public class Handler extends Thread {
     static String RED = "\033[0;31m"; // Used for ERROR
 
     /**
-     * A {@link Socket} object to communicate with the {@link SocketClient}
+     * The {@link ClientConnection} with the {@link SocketClient}
      */
-    private final Socket client;
-
-    /**
-     * The input and output streams responsible for reading and writing
-     * messages between the server and the client
-     */
-    private final ObjectInputStream in_obj;
-    private final ObjectOutputStream out_obj;
+    private final ClientConnection connection;
 
     /**
      * The id of the {@link SocketClient} assigned to this handler
@@ -54,47 +49,72 @@ public class Handler extends Thread {
      */
     private final GameServer gameServer;
 
-    private static final BlockingDeque<Message> msgQueue = new LinkedBlockingDeque<>();
+    /**
+     * The heartbeat periodically sent to the {@link SocketClient}.
+     */
+    private ScheduledFuture<?> heartbeat;
+
+    /**
+     * The period of the heartbeats, in nanoseconds.
+     */
+    private long heartbeatPeriod;
 
-    private final Thread heartbeatThread;
+    /**
+     * The time the last message was sent to the {@link SocketClient}, in nanoseconds.
+     */
+    private volatile long lastSent;
+
+    /**
+     * A flag that makes the closing of the handler happen only once.
+     */
+    private final AtomicBoolean closed = new AtomicBoolean(false);
 
     /**
      * Constructor for a {@link Handler} object
      *
-     * @param client   {@link SocketClient}
+     * @param connection      the {@link ClientConnection} with the {@link SocketClient}
+     * @param playerID        the id of the {@link SocketClient}
+     * @param gameController  the {@link GameController} of the game the client was routed to
+     * @param gameServer      the {@link GameServer} of the game the client was routed to
      */
-    public Handler(Socket client, int playerID, GameController gameController, GameServer gameServer) throws IOException {
-        this.client = client;
-        this.in_obj = new ObjectInputStream(client.getInputStream());
-        this.out_obj = new ObjectOutputStream(client.getOutputStream());
+    public Handler(ClientConnection connection, int playerID, GameController gameController, GameServer gameServer) {
+        this.connection = connection;
         this.playerID = playerID;
         this.gameController = gameController;
         this.gameServer = gameServer;
-        heartbeatThread = new Thread(this::heartbeat);
-        heartbeatThread.start();
+    }
+
+    /**
+     * A function that starts receiving the messages of the {@link SocketClient}
+     * and sending it the heartbeats.
+     */
+    public void start() {
+        connection.start(this);
+        long period = gameServer.getRegistry().getConfig().getHeartbeatPeriod();
+        heartbeatPeriod = TimeUnit.MILLISECONDS.toNanos(period);
+        lastSent = System.nanoTime() - heartbeatPeriod;
+        heartbeat = gameServer.getRegistry().getScheduler().scheduleAtFixedRate(this::heartbeat, 0, period, TimeUnit.MILLISECONDS);
     }
 
     /**
      * A function that stops the Handler and closes the
-     * socket connection with the {@link SocketClient}
+     * connection with the {@link SocketClient}
      */
     public void stopHandler() {
-        try{
-            this.client.close();
-            this.interrupt();
-            heartbeatThread.interrupt();
-        } catch (IOException e) {
-            e.printStackTrace();
+        connection.close();
+        if (closed.compareAndSet(false, true)) {
+            if (heartbeat != null) heartbeat.cancel(false);
         }
     }
 
     /**
-     * A function that retrieves the {@link SocketClient}'s socket.
+     * Returns the loop that runs the commands of the game of the {@link SocketClient}, on which the messages
+     * and the disconnection of the client must be delivered.
      *
-     * @return         {@link SocketClient}'s socket
+     * @return the loop of the game
      */
-    public Socket getClient() {
-        return client;
+    Executor getExecutor() {
+        return gameServer.getLoop();
     }
 
     /**
@@ -116,68 +136,62 @@ public class Handler extends Thread {
     }
 
     /**
-     * A function that checks if the {@link SocketClient}'s socket is closed.
+     * A function that checks if the connection with the {@link SocketClient} is closed.
      *
-     * @return         	true if the socket is closed, false otherwise
+     * @return         	true if the connection is closed, false otherwise
      */
     public boolean isClosed() {
-        return this.client.isClosed();
+        return connection.isClosed();
     }
 
     /**
-     * Runs the handler to handle incoming messages, checks for messages starting with "Msg",
-     * and processes them accordingly.
-     */
-    @Override
-    public void run() {
-        while(!Thread.currentThread().isInterrupted()) {
-            try {
-                msgQueue.add((Message) in_obj.readObject());
-                handleMessage(msgQueue.take());
-            } catch (IOException e) {
-                if (!gameServer.isStopping()) {
-                    System.out.println(RED + "Client " + this.getTitle() + " disconnected.\nSystem shut down." + RESET);
-                    stopHandler();
-                    gameServer.stop();
-                    killConnection();
-                }
-                break;
-            } catch (ClassNotFoundException | InterruptedException e) {
-                throw new RuntimeException(e);
-            }
-        }
+     * Handles a message received from the {@link SocketClient}, recording the time taken in the metrics of the server.
+     * It is called by the {@link ClientConnection} on the loop of the game, one message at a time.
+     *
+     * @param  message  the message received
+     */
+    public void onMessage(Message message) {
+        long start = System.nanoTime();
+        handleMessage(message);
+        gameServer.getRegistry().getMetrics().recordHandling(message.getType(), System.nanoTime() - start);
     }
 
     /**
-     * Continuously sends a heartbeat message to the connected client at regular intervals.
+     * Shuts the game down when the {@link SocketClient} disconnects, unless its seat is given to a bot.
+     * It is called by the {@link ClientConnection} on the loop of the game, unless the connection was closed by the server.
      */
-    private void heartbeat() {
-        while(!Thread.currentThread().isInterrupted()) {
-            try {
-                writeMessageToClient(new SCMsgHeartbeat());
-                Thread.sleep(200);
-            } catch (InterruptedException e) {}
+    public void onDisconnect() {
+        if (!gameServer.isStopping()) {
+            if (gameServer.replaceWithBot(playerID)) {
+                System.out.println(RED + "Client " + this.getTitle() + " disconnected.\nA bot takes its seat in game " + gameServer.getGameID() + "." + RESET);
+                stopHandler();
+                return;
+            }
+            System.out.println(RED + "Client " + this.getTitle() + " disconnected.\nGame " + gameServer.getGameID() + " shut down." + RESET);
+            stopHandler();
+            gameServer.stop();
         }
     }
 
     /**
-     * Retrieves the title of the user, if available, or the
-     * client's InetAddress with the first character removed.
-     *
-     * @return          the title of the user or the client's InetAddress
+     * Sends a heartbeat message to the connected client, run at regular intervals by the shared scheduler.
+     * The heartbeat is skipped if a message has been sent during the last period, since the client
+     * has received traffic anyway. The heartbeat touches no state of the game, and the connection queues frames
+     * from any thread, so it is queued from the scheduler without going through the loop of the game.
      */
-    public String getTitle() {
-        return this.client.getInetAddress().toString().substring(1);
+    private void heartbeat() {
+        if (System.nanoTime() - lastSent < heartbeatPeriod) return;
+        connection.sendHeartbeat();
+        lastSent = System.nanoTime();
     }
 
     /**
-     * Flushes the output stream and resets it to allow for the next write operation.
+     * Retrieves the title of the user, that is the address of the client.
      *
-     * @throws IOException if an I/O error occurs while flushing or resetting the stream.
+     * @return          the address of the client
      */
-    private synchronized void completeSend() throws IOException {
-        out_obj.flush();
-        out_obj.reset();
+    public String getTitle() {
+        return connection.getAddress();
     }
 
     /**
@@ -185,7 +199,7 @@ public class Handler extends Thread {
      *
      * @param  message  the message to be handled
      */
-    public synchronized void handleMessage(Message message) throws IOException {
+    public void handleMessage(Message message) {
         switch (message.getType()) {
             case FIRSTPLAYERJOINS -> firstPlayerJoins((SCMsgFirstPlayerJoins) message);
             case GENERALPLAYERJOINS -> generalPlayerJoins((SCMsgGeneralPlayerJoins) message);
@@ -202,19 +216,13 @@ public class Handler extends Thread {
     }
 
     /**
-     * Writes a {@link Message} to the client's output stream.
+     * Sends a {@link Message} to the client through its connection.
      *
      * @param  msg  the {@link Message} to be written
      */
-    private synchronized void writeMessageToClient(Message msg){
-        try {
-            out_obj.writeObject(msg);
-            completeSend();
-        } catch (SocketException e) {
-            //killConnection();
-        } catch (IOException e) {
-            throw new RuntimeException(e);
-        }
+    private void writeMessageToClient(Message msg){
+        connection.send(msg);
+        lastSent = System.nanoTime();
     }
 
     /**
@@ -304,7 +312,8 @@ public class Handler extends Thread {
      * When a {@link SCMsgPlayerRejoins} is received, check first if all the information
      * contained in the message are valid, and then re-add the player to the game.
      * This method also sends to the player who has rejoined all the useful information
-     * needed to proceed with the game, inside a {@link requiredDataMsg}.
+     * needed to proceed with the game: only the turns it has missed, inside a {@link resyncMsg},
+     * if the client knows the match and they are available, or the whole game inside a {@link requiredDataMsg}.
      *
      * @param msg the {@link SCMsgPlayerRejoins} received, containing all the necessary information
      */
@@ -313,18 +322,7 @@ public class Handler extends Thread {
         if(!gameController.getRejoinedPlayers().contains(gameController.getPlayerNames()[msg.getPick()])){
             gameController.rejoinPlayer(msg.getPick());
             setPlayerID(msg.getPick());
-            writeMessageToClient(new requiredDataMsg(gameController.getPlayers()[msg.getPick()].getInHand(),
-                    gameController.getPlayers()[msg.getPick()].getStartingCard(),
-                    gameController.getOnGround(),
-                    gameController.getCommonObjectives(),
-                    gameController.getPlayers()[msg.getPick()].getPersonalObjective(),
-                    gameController.getScores(),
-                    gameController.getAllPlacements(),
-                    gameController.getAllDeployed(),
-                    gameController.getUsersColors(),
-                    gameController.getPlayerNames(),
-                    gameController.getNumPlayers(),
-                    gameController.getFirstPlayer()));
+            writeMessageToClient(gameController.getRejoinData(msg.getPick(), msg.getLastSeq()));
             gameServer.tryRestartingMatch();
         // If the player has chosen a nickname already chosen by somebody else, do not add him/her
         } else {
@@ -340,38 +338,34 @@ public class Handler extends Thread {
     }
 
     /**
-     * Retrieves the game information from the game controller and sends it to the client in a {@link gameInfoMsg}.
-     * If the player ID in the game information message is -1, it also sends an {@link endGameMsg} to the client.
-     */
-    public void gameInfo(gameInfoMsg msg){
-        writeMessageToClient(msg);
-    }
-    public void endGame(endGameMsg msg){
-        writeMessageToClient(msg);
-    }
-
-    /**
-     * Retrieves the initial game information from the game controller and sends it to the client
-     * in a {@link initialGameInfoMsg}.
+     * Sends to the client a frame broadcast to all the clients of the game, such as a {@link gameInfoMsg},
+     * an {@link endGameMsg}, an {@link initialGameInfoMsg} or a {@link publicChatMessageMsg}.
+     * The frame is encoded once by the {@link SocketLobby} and shared by all the handlers.
+     *
+     * @param  frame      the read-only frame, shared with the other handlers
+     * @param  droppable  whether the frame is dropped if the client is too far behind, as for the chat
      */
-    public void initialGameInfo(){
-        writeMessageToClient(gameController.getInitialGameInfo());
+    public void sendFrame(ByteBuffer frame, boolean droppable){
+        connection.sendFrame(frame, droppable);
+        lastSent = System.nanoTime();
     }
 
     private void drawPersonalObjective(SCMsgDrawPersonalObjectives msg) {
         gameController.placeStartingCardSide(msg.getSide(), playerID);
-        personalObjectivesMsg answer = new personalObjectivesMsg(gameController.drawPersonalObjectives());
+        personalObjectivesMsg answer = new personalObjectivesMsg(CardCatalog.idsOf(gameController.drawPersonalObjectives()));
         writeMessageToClient(answer);
     }
 
-    //TODO: possibile miglioramento, non passare la carta obiettivo intera ma magari solo il suo indice
     private void setPersonalObjective(SCMsgPersonalObjective message){
-        gameController.setPersonalObjective(playerID, message.getObj());
+        if (!gameController.setPersonalObjective(playerID, message.getObjID())) {
+            System.err.println(RED + "[ERROR] Unknown objective card " + message.getObjID() + " from player " + playerID + RESET);
+            return;
+        }
         gameServer.incrementChosenObjectivesCounter();
     }
 
     private void getAvailableInHand(){
-        writeMessageToClient(new placeableCardsMsg(gameController.getInHandAvailableSides(playerID)));
+        writeMessageToClient(gameController.getPlaceableCards(playerID));
     }
 
     private void getAvailablePlacements(SCMsgCardCouple msg){
@@ -381,7 +375,7 @@ public class Handler extends Thread {
     //TODO: il deployed index non serve che ritorni da qui, la TUI lo ha già, togliere da newInHand
     private void playTurn(SCMsgPlayTurn msg) {
         PlayableCard drawn = gameController.playTurn(playerID, msg.getHandIndex(), msg.getDeployedIndex(), msg.getCorner(), msg.getDrawn());
-        writeMessageToClient(new newInHandMsg(drawn));
+        writeMessageToClient(new newInHandMsg(CardCatalog.idOf(drawn)));
         gameServer.sendGameInfo();
     }
 
@@ -406,17 +400,6 @@ public class Handler extends Thread {
         gameServer.sendPublicChat(msg.getSender(), playerID, msg.getMessage());
     }
 
-    /**
-     * Sends a chat message to the View.
-     * This method is run by the receiver handler.
-     *
-     * @param  sender    the sender of the message
-     * @param  msg       the content of the message
-     */
-    public void publicChatMessage(String sender, String msg){
-        writeMessageToClient(new publicChatMessageMsg(sender, msg));
-    }
-
     /**
      * When a {@link privateChatMessageMsg} is received, sends the content of the message,
      * together with sender and receiver to the {@link GameServer} which will forward it
@@ -441,12 +424,4 @@ public class Handler extends Thread {
     public void privateChatMessage(String sender, String receiver, String msg) {
         writeMessageToClient(new privateChatMessageMsg(sender, receiver, msg));
     }
-
-    private void killConnection() {
-        System.out.println(RED + "Press enter to exit..." + RESET);
-        Scanner scanner = new Scanner(System.in);
-        scanner.nextLine();
-        scanner.close();
-        System.exit(0);
-    }
 }
\ No newline at end of file
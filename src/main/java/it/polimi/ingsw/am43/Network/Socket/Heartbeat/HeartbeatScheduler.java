@@ -0,0 +1,46 @@
+package it.polimi.ingsw.am43.Network.Socket.Heartbeat;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class holds the scheduler shared by all the clients of the process, socket or RMI,
+ * which runs their heartbeats and connection checks instead of a thread or a timer for each client.
+ * Its tasks must never block: anything that does I/O is handed to a virtual thread.
+ */
+public final class HeartbeatScheduler {
+
+    /**
+     * The scheduler, a single daemon thread, since the tasks only check clocks and hand writes off.
+     */
+    private static final ScheduledExecutorService SCHEDULER = newScheduler();
+
+    private HeartbeatScheduler() {
+    }
+
+    /**
+     * Creates the scheduler.
+     *
+     * @return the scheduler
+     */
+    private static ScheduledExecutorService newScheduler() {
+        ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1,
+                Thread.ofPlatform().name("client-heartbeats").daemon(true).factory());
+        // Tasks of closed connections are cancelled often: do not keep them in the queue
+        scheduler.setRemoveOnCancelPolicy(true);
+        return scheduler;
+    }
+
+    /**
+     * Runs a task at a fixed rate, starting after a whole period.
+     *
+     * @param  task    the task, which must not block
+     * @param  period  the period of the task, in milliseconds
+     * @return         the future used to cancel the task
+     */
+    public static ScheduledFuture<?> scheduleAtFixedRate(Runnable task, long period) {
+        return SCHEDULER.scheduleAtFixedRate(task, period, period, TimeUnit.MILLISECONDS);
+    }
+}
@@ -0,0 +1,163 @@
+package it.polimi.ingsw.am43.Network.Socket;
+
+import it.polimi.ingsw.am43.Network.Message;
+import it.polimi.ingsw.am43.Network.Metrics.ConnectionMetrics;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * The messages decoded from a client and not yet handled by its game. Each connection has its own queue: the thread that
+ * decodes the frames only adds the messages to it, and the queue hands them to the {@link it.polimi.ingsw.am43.Network.GameLoop}
+ * of the game in the order they were received.
+ * A single task at a time runs on the loop for a connection, and it handles all the messages queued meanwhile, up to
+ * {@link #BATCH}: a burst of messages costs one command of the loop instead of one per message, while a client that
+ * floods the server leaves room for the commands of the other clients between its batches.
+ * The messages received before the connection is routed to its game wait in the queue until {@link #start(Executor, Consumer)}.
+ */
+public class InboundQueue {
+
+    /**
+     * The maximum number of messages handled by a single command of the loop.
+     */
+    public static final int BATCH = 32;
+
+    /**
+     * The messages waiting to be handled.
+     */
+    private final Queue<Message> messages = new ConcurrentLinkedQueue<>();
+
+    /**
+     * A flag that indicates if a task that handles the messages is queued or running.
+     */
+    private final AtomicBoolean draining = new AtomicBoolean(false);
+
+    /**
+     * The traffic of the connection, where the depth of the queue and the batches are counted.
+     */
+    private final ConnectionMetrics traffic;
+
+    /**
+     * The action run if a message cannot be handled.
+     */
+    private final Runnable onFailure;
+
+    /**
+     * The loop of the game, null until the connection has been routed.
+     */
+    private volatile Executor loop;
+
+    /**
+     * The action that handles a message, on the loop.
+     */
+    private volatile Consumer<Message> handler;
+
+    /**
+     * A flag that indicates if the connection has been closed, after which no message is handled.
+     */
+    private volatile boolean closed = false;
+
+    /**
+     * Constructor of the queue.
+     *
+     * @param traffic    the {@link ConnectionMetrics} of the connection
+     * @param onFailure  the action to run if a message cannot be handled, on the loop
+     */
+    public InboundQueue(ConnectionMetrics traffic, Runnable onFailure) {
+        this.traffic = traffic;
+        this.onFailure = onFailure;
+    }
+
+    /**
+     * Starts handing the messages to the loop of the game, starting from the ones already received.
+     *
+     * @param  loop     the loop of the game
+     * @param  handler  the action that handles a message, on the loop
+     * @throws RejectedExecutionException if the game has been stopped
+     */
+    public void start(Executor loop, Consumer<Message> handler) {
+        this.handler = handler;
+        this.loop = loop;
+        schedule();
+    }
+
+    /**
+     * Queues a message received from the client, after the ones not handled yet.
+     *
+     * @param  msg  the message
+     * @throws RejectedExecutionException if the game has been stopped
+     */
+    public void add(Message msg) {
+        if (closed) return;
+        messages.add(msg);
+        traffic.queuedInbound();
+        schedule();
+    }
+
+    /**
+     * Returns the number of messages waiting to be handled.
+     *
+     * @return the depth of the queue
+     */
+    public int size() {
+        return traffic.getInboundDepth();
+    }
+
+    /**
+     * Discards the messages not handled yet. The ones received afterwards are ignored.
+     */
+    public void close() {
+        closed = true;
+        int discarded = 0;
+        while (messages.poll() != null) discarded++;
+        traffic.discardedInbound(discarded);
+    }
+
+    /**
+     * Queues a task on the loop, unless the connection has not been routed yet, no message is waiting,
+     * or a task is already queued or running.
+     *
+     * @throws RejectedExecutionException if the game has been stopped
+     */
+    private void schedule() {
+        Executor l = loop;
+        if (l == null || closed || messages.isEmpty() || !draining.compareAndSet(false, true)) return;
+        try {
+            l.execute(this::drain);
+        } catch (RejectedExecutionException e) {
+            draining.set(false);
+            throw e;
+        }
+    }
+
+    /**
+     * Handles a batch of messages, on the loop, then queues another task if some are left.
+     */
+    private void drain() {
+        Consumer<Message> h = handler;
+        int handled = 0;
+        try {
+            Message msg;
+            while (handled < BATCH && !closed && (msg = messages.poll()) != null) {
+                handled++;
+                h.accept(msg);
+            }
+        } catch (RuntimeException | Error e) {
+            // A message the game cannot handle must not leave the client hanging
+            e.printStackTrace();
+            onFailure.run();
+        } finally {
+            traffic.handledInbound(handled);
+            draining.set(false);
+        }
+        try {
+            schedule();
+        } catch (RejectedExecutionException ignored) {
+            // The game has been stopped by the last message
+        }
+    }
+}
@@ -0,0 +1,361 @@
+package it.polimi.ingsw.am43.Network.Socket;
+
+import it.polimi.ingsw.am43.Network.Message;
+import it.polimi.ingsw.am43.Network.MessageCodec;
+import it.polimi.ingsw.am43.Network.Metrics.ConnectionMetrics;
+import it.polimi.ingsw.am43.Network.Messages.controllerMessages.SCMsgJoinGame;
+
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.nio.ByteBuffer;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A {@link ClientConnection} over a non-blocking {@link SocketChannel}, served by a {@link NioEventLoop}.
+ * The bytes read by the loop are accumulated until whole frames are available. The first frame must be the
+ * {@link SCMsgJoinGame} of the client, which is routed by the {@link NioSocketServer}; the following ones are
+ * queued in an {@link InboundQueue}, which delivers them to the {@link Handler} in batches and in order, on the
+ * {@link it.polimi.ingsw.am43.Network.GameLoop} of its game, so that the event loop never runs game logic.
+ * The frames sent to the client are encoded by the calling thread and queued in an {@link OutboundQueue},
+ * then written by the loop as long as the channel accepts them: a client that does not read only makes its queue grow,
+ * until it is disconnected as a slow consumer.
+ */
+public class NioConnection implements ClientConnection {
+
+    /**
+     * The initial size of the buffer that accumulates the bytes received from the client.
+     */
+    private static final int INITIAL_BUFFER_SIZE = 4 * 1024;
+
+    /**
+     * The channel of the client.
+     */
+    private final SocketChannel channel;
+
+    /**
+     * The {@link NioEventLoop} that serves the channel.
+     */
+    private final NioEventLoop loop;
+
+    /**
+     * The {@link NioSocketServer} that routes the connection to its game.
+     */
+    private final NioSocketServer server;
+
+    /**
+     * The action run once the connection is closed.
+     */
+    private final Runnable onClose;
+
+    /**
+     * The address of the client.
+     */
+    private final String address;
+
+    /**
+     * The traffic of the connection.
+     */
+    private final ConnectionMetrics traffic;
+
+    /**
+     * The key of the channel in the selector of the loop, only used by the loop.
+     */
+    private SelectionKey key;
+
+    /**
+     * The bytes received from the client and not yet decoded, only used by the loop.
+     */
+    private ByteBuffer inbound = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+
+    /**
+     * A flag that indicates if the {@link SCMsgJoinGame} of the client has been received.
+     */
+    private volatile boolean joined = false;
+
+    /**
+     * The {@link Handler} of the client, set once the connection has been routed to its game.
+     */
+    private volatile Handler handler;
+
+    /**
+     * The messages received from the client and not yet handled by its game.
+     */
+    private final InboundQueue received;
+
+    /**
+     * The frames to send to the client.
+     */
+    private final OutboundQueue outbound;
+
+    /**
+     * A flag that indicates if the loop has been asked to write the outbound frames.
+     */
+    private final AtomicBoolean writeRequested = new AtomicBoolean(false);
+
+    /**
+     * A flag that makes the closing of the connection happen only once.
+     */
+    private final AtomicBoolean closed = new AtomicBoolean(false);
+
+    /**
+     * A flag that indicates if the client has disconnected, as opposed to being closed by the server.
+     */
+    private volatile boolean lost = false;
+
+    /**
+     * A flag that makes the {@link Handler} be notified of the disconnection only once.
+     */
+    private final AtomicBoolean disconnectNotified = new AtomicBoolean(false);
+
+    /**
+     * Creates a new connection, that has to be registered in its loop.
+     *
+     * @param channel    the channel of the client, in non-blocking mode
+     * @param loop       the {@link NioEventLoop} that serves the channel
+     * @param server     the {@link NioSocketServer} that routes the connection
+     * @param onClose    the action to run once the connection is closed
+     * @param traffic    the {@link ConnectionMetrics} that count the traffic of the connection
+     * @param highWater  the bytes queued above which the frames the client can do without are dropped
+     * @param limit      the bytes queued above which the client is disconnected
+     */
+    public NioConnection(SocketChannel channel, NioEventLoop loop, NioSocketServer server, Runnable onClose, ConnectionMetrics traffic,
+                         int highWater, int limit) {
+        this.outbound = new OutboundQueue(highWater, limit, traffic);
+        this.received = new InboundQueue(traffic, this::lost);
+        this.channel = channel;
+        this.loop = loop;
+        this.server = server;
+        this.onClose = onClose;
+        this.traffic = traffic;
+        this.address = channel.socket().getInetAddress().getHostAddress();
+    }
+
+    /**
+     * Returns the channel of the client.
+     *
+     * @return the channel
+     */
+    SocketChannel getChannel() {
+        return channel;
+    }
+
+    /**
+     * Sets the key of the channel, once it has been registered by the loop.
+     *
+     * @param  key  the key of the channel
+     */
+    void registered(SelectionKey key) {
+        this.key = key;
+        if (!outbound.isEmpty()) flush();
+    }
+
+    /**
+     * Checks if the {@link SCMsgJoinGame} of the client has been received.
+     *
+     * @return true if the client has told which game it wants to join
+     */
+    boolean isJoined() {
+        return joined;
+    }
+
+    /**
+     * Reads the bytes available on the channel and decodes the frames they complete.
+     * It is called by the loop when the channel is readable.
+     *
+     * @param  buffer  the read buffer of the loop
+     * @throws IOException if the channel fails or a frame is not valid
+     */
+    void read(ByteBuffer buffer) throws IOException {
+        buffer.clear();
+        int count = channel.read(buffer);
+        if (count < 0) {
+            lost();
+            return;
+        }
+        traffic.receivedBytes(count);
+        buffer.flip();
+        if (inbound.remaining() < buffer.remaining()) {
+            // Grow the buffer only as much as needed, frames longer than the maximum are rejected while decoding
+            ByteBuffer larger = ByteBuffer.allocate(Math.max(inbound.capacity() * 2, inbound.position() + buffer.remaining()));
+            inbound.flip();
+            larger.put(inbound);
+            inbound = larger;
+        }
+        inbound.put(buffer);
+        inbound.flip();
+        try {
+            while (inbound.remaining() >= MessageCodec.HEADER_SIZE) {
+                int length = inbound.getInt(inbound.position());
+                MessageCodec.checkLength(length);
+                if (inbound.remaining() < MessageCodec.HEADER_SIZE + length) break;
+                Message msg = MessageCodec.decode(inbound.array(), inbound.arrayOffset() + inbound.position() + MessageCodec.HEADER_SIZE, length);
+                inbound.position(inbound.position() + MessageCodec.HEADER_SIZE + length);
+                traffic.receivedFrame();
+                received(msg);
+            }
+        } finally {
+            inbound.compact();
+        }
+        if (inbound.position() == 0 && inbound.capacity() > INITIAL_BUFFER_SIZE) {
+            inbound = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+        }
+    }
+
+    /**
+     * Handles a message decoded by the loop.
+     *
+     * @param  msg  the message received from the client
+     * @throws IOException if the first message is not a {@link SCMsgJoinGame}
+     */
+    private void received(Message msg) throws IOException {
+        if (!joined) {
+            if (!(msg instanceof SCMsgJoinGame join)) {
+                throw new InvalidObjectException("Expected a join message, got " + msg.getType());
+            }
+            joined = true;
+            server.route(this, join);
+            return;
+        }
+        try {
+            received.add(msg);
+        } catch (RejectedExecutionException e) {
+            // The game has been stopped
+            close();
+        }
+    }
+
+    @Override
+    public void start(Handler handler) {
+        this.handler = handler;
+        try {
+            received.start(handler.getExecutor(), handler::onMessage);
+        } catch (RejectedExecutionException e) {
+            // The game has been stopped
+            close();
+        }
+        if (lost) notifyDisconnect();
+    }
+
+    @Override
+    public void send(Message msg) {
+        if (closed.get()) return;
+        try {
+            queue(MessageCodec.encodeFrame(msg), false);
+        } catch (IOException e) {
+            System.err.println(SocketServer.RED + "[ERROR] Unable to encode " + msg.getType() + ": " + e + SocketServer.RESET);
+        }
+    }
+
+    @Override
+    public void sendFrame(ByteBuffer frame, boolean droppable) {
+        if (closed.get()) return;
+        // The loop consumes the position of the buffer it writes: it gets its own view of the shared bytes
+        queue(frame.duplicate(), droppable);
+    }
+
+    @Override
+    public void sendHeartbeat() {
+        // Frames still queued already tell the client that the server is alive
+        if (closed.get() || !outbound.isEmpty()) return;
+        queue(MessageCodec.heartbeatFrame(), true);
+    }
+
+    /**
+     * Queues a frame and asks the loop to write it, disconnecting the client if it is too far behind.
+     *
+     * @param frame      the frame, that the connection now owns
+     * @param droppable  whether the client can do without the frame
+     */
+    private void queue(ByteBuffer frame, boolean droppable) {
+        OutboundQueue.Result result = outbound.offer(frame, droppable);
+        if (result == OutboundQueue.Result.QUEUED) {
+            if (writeRequested.compareAndSet(false, true)) loop.execute(this::flush);
+        } else if (result == OutboundQueue.Result.OVERFLOW) {
+            System.err.println(SocketServer.RED + "[ERROR] Client " + address + " is not reading, " + outbound.getBytes()
+                    + " bytes are waiting: disconnecting it" + SocketServer.RESET);
+            lost();
+        }
+    }
+
+    /**
+     * Writes the outbound frames until the channel cannot accept more bytes.
+     * It is called by the loop, when asked to or when the channel is writable again.
+     */
+    void flush() {
+        if (key == null || !key.isValid()) return;
+        try {
+            ByteBuffer frame;
+            while ((frame = outbound.peek()) != null) {
+                int size = frame.limit();
+                channel.write(frame);
+                if (frame.hasRemaining()) {
+                    // The client is slow: wait until the channel is writable again
+                    key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                    return;
+                }
+                outbound.poll();
+                traffic.sent(size);
+            }
+            key.interestOps(SelectionKey.OP_READ);
+            writeRequested.set(false);
+            // A frame queued after the last check would not be written until the next request
+            if (!outbound.isEmpty() && writeRequested.compareAndSet(false, true)) loop.execute(this::flush);
+        } catch (IOException | CancelledKeyException e) {
+            // The key is cancelled if the connection is closed by another thread while flushing
+            lost();
+        }
+    }
+
+    /**
+     * Closes the connection because the client has disconnected, notifying its {@link Handler}.
+     */
+    void lost() {
+        lost = true;
+        close();
+        notifyDisconnect();
+    }
+
+    /**
+     * Notifies the {@link Handler} of the disconnection of the client, only once and on the loop of its game.
+     */
+    private void notifyDisconnect() {
+        Handler h = handler;
+        if (h == null || !disconnectNotified.compareAndSet(false, true)) return;
+        try {
+            h.getExecutor().execute(h::onDisconnect);
+        } catch (RejectedExecutionException ignored) {
+            // The game has already been stopped
+        }
+    }
+
+    @Override
+    public void close() {
+        if (closed.compareAndSet(false, true)) {
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+            } finally {
+                outbound.clear();
+                received.close();
+                traffic.close();
+                // The loop releases the channel at its next selection
+                loop.wakeup();
+                onClose.run();
+            }
+        }
+    }
+
+    @Override
+    public boolean isClosed() {
+        return closed.get();
+    }
+
+    @Override
+    public String getAddress() {
+        return address;
+    }
+}
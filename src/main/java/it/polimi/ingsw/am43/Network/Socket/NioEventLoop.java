@@ -0,0 +1,147 @@
+package it.polimi.ingsw.am43.Network.Socket;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.*;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * A thread that serves many {@link NioConnection}s through a single {@link Selector}.
+ * The loop reads the bytes received by its connections, using one direct buffer shared by all of them,
+ * and writes the frames they queued when their channels become writable.
+ * Other threads never touch the selector: they hand tasks to the loop, which runs them between two selections.
+ */
+public class NioEventLoop extends Thread {
+
+    /**
+     * The size of the buffer used to read from the channels.
+     */
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * The {@link Selector} of the channels served by the loop.
+     */
+    private final Selector selector;
+
+    /**
+     * The buffer used to read from the channels. It is direct, so that reads do not go through
+     * a temporary copy, and it is emptied by every connection before the next read.
+     */
+    private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
+
+    /**
+     * The tasks handed to the loop by other threads.
+     */
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+
+    /**
+     * A flag that indicates if the loop is still running.
+     */
+    private volatile boolean running = true;
+
+    /**
+     * Creates a new event loop.
+     *
+     * @param name  the name of the thread of the loop
+     * @throws IOException if the selector cannot be opened
+     */
+    public NioEventLoop(String name) throws IOException {
+        super(name);
+        this.selector = Selector.open();
+    }
+
+    /**
+     * Registers a connection in the loop, that starts reading it.
+     *
+     * @param  connection  the connection to register
+     */
+    public void register(NioConnection connection) {
+        execute(() -> {
+            try {
+                connection.registered(connection.getChannel().register(selector, SelectionKey.OP_READ, connection));
+            } catch (ClosedChannelException e) {
+                connection.lost();
+            }
+        });
+    }
+
+    /**
+     * Hands a task to the loop, waking it up if it is waiting for the channels.
+     *
+     * @param  task  the task to run on the loop
+     */
+    public void execute(Runnable task) {
+        tasks.add(task);
+        selector.wakeup();
+    }
+
+    /**
+     * Wakes the loop up, so that the channels closed by other threads are released.
+     */
+    public void wakeup() {
+        selector.wakeup();
+    }
+
+    /**
+     * While the loop is running, waits for the channels to be ready and serves them.
+     */
+    @Override
+    public void run() {
+        while (running) {
+            try {
+                selector.select();
+                runTasks();
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    serve(key);
+                }
+            } catch (IOException | ClosedSelectorException e) {
+                if (running) System.err.println(SocketServer.RED + "[ERROR] Event loop " + getName() + " failed: " + e + SocketServer.RESET);
+                break;
+            }
+        }
+        for (SelectionKey key : selector.keys()) {
+            ((NioConnection) key.attachment()).close();
+        }
+        try {
+            selector.close();
+        } catch (IOException ignored) {}
+    }
+
+    /**
+     * Reads or writes a channel that is ready.
+     *
+     * @param  key  the key of the channel
+     */
+    private void serve(SelectionKey key) {
+        NioConnection connection = (NioConnection) key.attachment();
+        try {
+            if (key.isValid() && key.isReadable()) connection.read(readBuffer);
+            if (key.isValid() && key.isWritable()) connection.flush();
+        } catch (IOException | CancelledKeyException e) {
+            connection.lost();
+        }
+    }
+
+    /**
+     * Runs the tasks handed to the loop.
+     */
+    private void runTasks() {
+        Runnable task;
+        while ((task = tasks.poll()) != null) {
+            task.run();
+        }
+    }
+
+    /**
+     * Stops the loop and closes all its connections.
+     */
+    public void close() {
+        running = false;
+        selector.wakeup();
+    }
+}
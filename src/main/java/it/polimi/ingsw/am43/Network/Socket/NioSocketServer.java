@@ -0,0 +1,143 @@
+package it.polimi.ingsw.am43.Network.Socket;
+
+import it.polimi.ingsw.am43.Network.GameRegistry;
+import it.polimi.ingsw.am43.Network.GameServer;
+import it.polimi.ingsw.am43.Network.Messages.controllerMessages.SCMsgJoinGame;
+import it.polimi.ingsw.am43.Network.ServerConfig;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class represents a server that accepts new connections through non-blocking
+ * socket channels, as an alternative to the {@link SocketServer}. The connections are spread
+ * over a fixed number of {@link NioEventLoop}s, so that the number of threads does not grow
+ * with the number of clients. Every new connection is routed to its game, whose
+ * {@link SocketLobby} then handles it through a dedicated {@link Handler}.
+ * The number of open connections is bounded by the {@link ServerConfig}, as for the {@link SocketServer}.
+ */
+public class NioSocketServer extends Thread implements SocketTransport {
+
+    /**
+     * A {@link ServerSocketChannel} for accepting new connections.
+     */
+    private final ServerSocketChannel serverChannel;
+
+    /**
+     * The loops that serve the connections.
+     */
+    private final NioEventLoop[] loops;
+
+    /**
+     * The index of the loop that serves the next connection.
+     */
+    private int nextLoop = 0;
+
+    /**
+     * A reference to the {@link GameRegistry} that routes the connections to the games.
+     */
+    private final GameRegistry registry;
+
+    /**
+     * The permits of the connections that can still be opened.
+     */
+    private final Semaphore connections;
+
+    /**
+     * The factory of the threads that route the new connections.
+     */
+    private final ThreadFactory routingThreads;
+
+    /**
+     * Creates a new {@link NioSocketServer} with the specified address and port.
+     *
+     * @param address   the address of the server
+     * @param port      the port of the server
+     * @param registry  the {@link GameRegistry} that routes the connections to the games
+     * @param config    the {@link ServerConfig} that bounds the connections and sets the number of loops
+     * @throws IOException if an I/O error occurs when creating the server
+     */
+    public NioSocketServer(String address, int port, GameRegistry registry, ServerConfig config) throws IOException {
+        super("nio-socket-server");
+        this.serverChannel = ServerSocketChannel.open();
+        this.serverChannel.bind(new InetSocketAddress(InetAddress.getByName(address), port));
+        this.registry = registry;
+        this.connections = new Semaphore(config.getMaxConnections());
+        this.routingThreads = config.newThreadFactory("routing-");
+        this.loops = new NioEventLoop[config.getEventLoops()];
+        for (int i = 0; i < loops.length; i++) {
+            loops[i] = new NioEventLoop("nio-loop-" + i);
+        }
+    }
+
+    /**
+     * Starts the loops and, while the server is still up, accepts new connections
+     * and registers each one in a loop, in turns.
+     */
+    @Override
+    public void run() {
+        for (NioEventLoop loop : loops) loop.start();
+        System.out.println(SocketServer.YELLOW + "[SERVER] NIO Socket Server started with " + loops.length + " event loops." + SocketServer.RESET);
+        while (!Thread.currentThread().isInterrupted() && serverChannel.isOpen()) {
+            try {
+                SocketChannel channel = serverChannel.accept();
+                if (!connections.tryAcquire()) {
+                    System.out.println(SocketServer.YELLOW + "[SERVER] Too many connections, refusing " + channel.socket().getInetAddress() + SocketServer.RESET);
+                    channel.close();
+                    continue;
+                }
+                channel.configureBlocking(false);
+                channel.socket().setTcpNoDelay(true);
+                NioEventLoop loop = loops[nextLoop];
+                nextLoop = (nextLoop + 1) % loops.length;
+                NioConnection connection = new NioConnection(channel, loop, this, connections::release,
+                        registry.getMetrics().openConnection(channel.socket().getInetAddress().getHostAddress()),
+                        registry.getConfig().getOutboundHighWater(), registry.getConfig().getOutboundLimit());
+                loop.register(connection);
+                // The client may never tell its game, do not keep its permit forever
+                registry.getScheduler().schedule(() -> {
+                    if (!connection.isJoined()) connection.close();
+                }, SocketServer.JOIN_TIMEOUT, TimeUnit.MILLISECONDS);
+            } catch (IOException e) {
+                if (serverChannel.isOpen()) e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Routes a connection to the game chosen by the {@link GameRegistry}, on a separate thread,
+     * since the game may have to be loaded from its save file. If no game can accept the client,
+     * the connection is closed.
+     *
+     * @param  connection  the connection of the new client
+     * @param  join        the {@link SCMsgJoinGame} sent by the client
+     */
+    void route(NioConnection connection, SCMsgJoinGame join) {
+        routingThreads.newThread(() -> {
+            GameServer game = registry.route(join.getGameID());
+            if (game == null) {
+                System.out.println(SocketServer.YELLOW + "[SERVER] No game available for " + connection.getAddress() + ", connection refused." + SocketServer.RESET);
+                connection.close();
+                return;
+            }
+            game.acceptSocketClient(connection);
+        }).start();
+    }
+
+    @Override
+    public void close() {
+        interrupt();
+        try {
+            serverChannel.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        for (NioEventLoop loop : loops) loop.close();
+    }
+}
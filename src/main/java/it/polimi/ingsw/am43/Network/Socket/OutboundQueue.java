@@ -0,0 +1,161 @@
+package it.polimi.ingsw.am43.Network.Socket;
+
+import it.polimi.ingsw.am43.Network.Metrics.ConnectionMetrics;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The frames waiting to be written to a client, bounded by the bytes they hold, so that a client that does not read
+ * cannot make the server buffer its game without limit. Frames are queued by any thread and never wait for the socket:
+ * the queue only decides what to do with them, according to two marks of the
+ * {@link it.polimi.ingsw.am43.Network.ServerConfig}:
+ * <ul>
+ *     <li>above the high-water mark, the frames that can be dropped, such as the chat, are shed;</li>
+ *     <li>above the limit, no frame is accepted anymore and the client has to be disconnected as a slow consumer.</li>
+ * </ul>
+ * The frames of the game are never dropped nor merged, since each turn is sent as a delta of the previous one.
+ * A frame is always accepted by an empty queue, so that a limit lower than a frame does not disconnect every client.
+ * The bytes are counted when a frame is queued and when it is removed, so the marks are approximate
+ * while many threads queue frames at once.
+ */
+class OutboundQueue {
+
+    /**
+     * The outcomes of {@link #offer(ByteBuffer, boolean)}.
+     */
+    enum Result {
+        /**
+         * The frame has been queued.
+         */
+        QUEUED,
+        /**
+         * The frame could be dropped and the queue is above the high-water mark: it has been discarded.
+         */
+        SHED,
+        /**
+         * The queue is above its limit: the frame has been discarded and the client must be disconnected.
+         */
+        OVERFLOW
+    }
+
+    /**
+     * The frames waiting to be written.
+     */
+    private final BlockingQueue<ByteBuffer> frames = new LinkedBlockingQueue<>();
+
+    /**
+     * The bytes of the frames waiting to be written.
+     */
+    private final AtomicLong bytes = new AtomicLong();
+
+    /**
+     * The bytes above which the frames that can be dropped are shed.
+     */
+    private final long highWater;
+
+    /**
+     * The bytes above which the client is a slow consumer.
+     */
+    private final long limit;
+
+    /**
+     * The traffic of the connection, where the shed frames and the overflows are counted.
+     */
+    private final ConnectionMetrics traffic;
+
+    /**
+     * Constructor of the queue.
+     *
+     * @param highWater the bytes above which the frames that can be dropped are shed
+     * @param limit     the bytes above which the client is a slow consumer
+     * @param traffic   the {@link ConnectionMetrics} of the connection
+     */
+    OutboundQueue(long highWater, long limit, ConnectionMetrics traffic) {
+        this.highWater = highWater;
+        this.limit = limit;
+        this.traffic = traffic;
+    }
+
+    /**
+     * A method that queues a frame, unless the client is too far behind.
+     *
+     * @param  frame      the frame, positioned at its beginning, that the queue now owns
+     * @param  droppable  whether the client can do without the frame
+     * @return            whether the frame has been queued, shed or refused
+     */
+    Result offer(ByteBuffer frame, boolean droppable) {
+        long queued = bytes.get();
+        if (droppable && queued >= highWater) {
+            traffic.shed();
+            return Result.SHED;
+        }
+        if (queued > 0 && queued + frame.limit() > limit) {
+            traffic.overflow();
+            return Result.OVERFLOW;
+        }
+        bytes.addAndGet(frame.limit());
+        frames.add(frame);
+        return Result.QUEUED;
+    }
+
+    /**
+     * A method that retrieves the first frame, without removing it.
+     *
+     * @return the first frame, null if the queue is empty
+     */
+    ByteBuffer peek() {
+        return frames.peek();
+    }
+
+    /**
+     * A method that removes the first frame.
+     *
+     * @return the first frame, null if the queue is empty
+     */
+    ByteBuffer poll() {
+        ByteBuffer frame = frames.poll();
+        if (frame != null) bytes.addAndGet(-frame.limit());
+        return frame;
+    }
+
+    /**
+     * A method that removes the first frame, waiting for one if the queue is empty.
+     *
+     * @return the first frame
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    ByteBuffer take() throws InterruptedException {
+        ByteBuffer frame = frames.take();
+        bytes.addAndGet(-frame.limit());
+        return frame;
+    }
+
+    /**
+     * A method that checks if no frame is waiting to be written.
+     *
+     * @return true if the queue is empty
+     */
+    boolean isEmpty() {
+        return frames.isEmpty();
+    }
+
+    /**
+     * A method that retrieves the bytes waiting to be written.
+     *
+     * @return the number of bytes
+     */
+    long getBytes() {
+        return bytes.get();
+    }
+
+    /**
+     * A method that discards all the frames, once the connection is closed.
+     */
+    void clear() {
+        frames.clear();
+        bytes.set(0);
+    }
+}
@@ -3,7 +3,10 @@ package it.polimi.ingsw.am43.Network.Socket;
 import it.polimi.ingsw.am43.Network.ClientInterface;
 import it.polimi.ingsw.am43.Network.ConnectionType;
 import it.polimi.ingsw.am43.Network.Message;
+import it.polimi.ingsw.am43.Network.MessageCodec;
 import it.polimi.ingsw.am43.Network.Messages.controllerMessages.SCMsgHeartbeat;
+import it.polimi.ingsw.am43.Network.Messages.controllerMessages.SCMsgJoinGame;
+import it.polimi.ingsw.am43.Network.Socket.Heartbeat.HeartbeatScheduler;
 
 import java.io.*;
 import java.net.Socket;
@@ -11,10 +14,15 @@ import java.rmi.RemoteException;
 import java.util.Scanner;
 import java.util.Timer;
 import java.util.TimerTask;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * This class implements the client side of the socket connection.
- * It is used to communicate with the server through the Stream I/O.
+ * It is used to communicate with the server through the Stream I/O,
+ * exchanging the frames encoded by the {@link MessageCodec}.
  */
 public class SocketClient implements ClientInterface {
 
@@ -27,6 +35,11 @@ public class SocketClient implements ClientInterface {
     static String RESET = "\033[0m";
     static String RED = "\033[0;31m"; // Used for ERROR
 
+    /**
+     * The period of the heartbeats sent to the server, in milliseconds.
+     */
+    private static final long HEARTBEAT_PERIOD = 1000;
+
     /**
      * The {@link Socket} used to communicate with the {@link SocketServer}.
      */
@@ -35,21 +48,55 @@ public class SocketClient implements ClientInterface {
     /**
      * The input and output streams.
      */
-    private ObjectInputStream in_obj;
-    private ObjectOutputStream out_obj;
+    private DataInputStream in_obj;
+    private DataOutputStream out_obj;
 
     /**
-     * Constructor of the class.
+     * The lock that serializes the writes of the heartbeats and of the other messages.
+     */
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    /**
+     * The heartbeat, run by the {@link HeartbeatScheduler} shared by all the clients.
+     */
+    private ScheduledFuture<?> heartbeat;
+
+    /**
+     * A flag that avoids starting a heartbeat while the previous one is still being written.
+     */
+    private final AtomicBoolean heartbeatPending = new AtomicBoolean(false);
+
+    /**
+     * The time the last message was sent to the server, in nanoseconds.
+     */
+    private volatile long lastSent;
+
+    /**
+     * Constructor of the class, joining any open lobby of the server.
      *
      * @param address          Is the address of the {@link SocketServer}
      * @param port             Is the port of the {@link SocketServer}
      */
     public SocketClient(String address, int port) {
+        this(address, port, null);
+    }
+
+    /**
+     * Constructor of the class.
+     *
+     * @param address          Is the address of the {@link SocketServer}
+     * @param port             Is the port of the {@link SocketServer}
+     * @param gameID           Is the ID of the game to join, null to join any open lobby
+     */
+    public SocketClient(String address, int port, String gameID) {
         try {
             socket = new Socket(address, port);
-            out_obj = new ObjectOutputStream(socket.getOutputStream());
-            in_obj = new ObjectInputStream(socket.getInputStream());
-            new Thread(this::heartbeat).start();
+            socket.setTcpNoDelay(true);
+            out_obj = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            in_obj = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            // The server routes the connection to a game before anything else is exchanged
+            send(new SCMsgJoinGame(gameID));
+            heartbeat = HeartbeatScheduler.scheduleAtFixedRate(this::heartbeat, HEARTBEAT_PERIOD);
         } catch (IOException e) {
             System.out.println(RED + "Server appears to be down. Please try again later.\nPress enter to exit..." + RESET);
             Scanner scanner = new Scanner(System.in);
@@ -66,12 +113,8 @@ public class SocketClient implements ClientInterface {
      */
     public synchronized Message readNewMessage()  {
         try {
-            if(in_obj.available() >= 0){
-                return (Message) in_obj.readObject();
-            } else {
-                return null;
-            }
-        } catch (IOException | ClassNotFoundException e) {
+            return MessageCodec.readFrame(in_obj);
+        } catch (IOException e) {
 //            try {
 //                killConnection();
 //            } catch (IOException ex) {
@@ -88,8 +131,7 @@ public class SocketClient implements ClientInterface {
      */
     public void writeNewMessage(Message msg){
         try {
-            out_obj.writeObject(msg);
-            completeSend();
+            send(msg);
         } catch (IOException e) {
             try {
                 killConnection();
@@ -102,34 +144,53 @@ public class SocketClient implements ClientInterface {
     /**
      * Closes the Socket definitely.
      */
+    @Override
     public void killConnection() throws IOException {
+        if (heartbeat != null) heartbeat.cancel(false);
         socket.close();
     }
 
     /**
-     * Flushes and resets the {@link ObjectOutputStream} used for sending data.
+     * Writes a message to the output stream as a frame, and flushes it.
      *
-     * @throws IOException if an I/O error occurs while flushing or resetting the stream.
+     * @param msg         The message to be written to the output stream.
+     * @throws IOException if an I/O error occurs while writing the message.
      */
-    private void completeSend() throws IOException {
-        out_obj.flush();
-        //out_obj.reset();
+    private void send(Message msg) throws IOException {
+        writeLock.lock();
+        try {
+            MessageCodec.writeFrame(out_obj, msg);
+            out_obj.flush();
+            lastSent = System.nanoTime();
+        } finally {
+            writeLock.unlock();
+        }
     }
 
     /**
-     * Sends a {@link SCMsgHeartbeat} to the {@link SocketServer} at regular intervals to keep the connection alive.
-     * The function continuously sends a {@link SCMsgHeartbeat} to the server until the {@link ObjectOutputStream}
-     * is closed or an IOException occurs. The function sleeps for 1 second between each heartbeat.
+     * Sends a {@link SCMsgHeartbeat} to the {@link SocketServer} to keep the connection alive,
+     * run at regular intervals by the {@link HeartbeatScheduler}.
+     * The heartbeat is skipped if a message has been sent during the last period, or is being sent,
+     * since the server receives traffic anyway. The write is handed to a virtual thread, so that
+     * a slow server never blocks the scheduler shared by all the clients.
      * If an IOException occurs, the connection to the server is lost and the application is exited.
-     * If an InterruptedException occurs, it is thrown as a RuntimeException.
      */
-    public void heartbeat()  {
-        while(out_obj != null) {
+    private void heartbeat() {
+        if (System.nanoTime() - lastSent < TimeUnit.MILLISECONDS.toNanos(HEARTBEAT_PERIOD)) return;
+        if (!heartbeatPending.compareAndSet(false, true)) return;
+        Thread.ofVirtual().start(() -> {
             try {
-                out_obj.writeObject(new SCMsgHeartbeat());
-                completeSend();
-                Thread.sleep(1000);
+                if (!writeLock.tryLock()) return;
+                try {
+                    MessageCodec.writeHeartbeat(out_obj);
+                    out_obj.flush();
+                    lastSent = System.nanoTime();
+                } finally {
+                    writeLock.unlock();
+                }
             } catch (IOException e) {
+                // A connection killed by the client itself is not lost
+                if (!heartbeat.cancel(false)) return;
                 System.out.println(RED + "Connection to the server lost!\nGame window will close in 10 seconds." + RESET);
                 new Timer().schedule(new TimerTask() {
                     @Override
@@ -137,10 +198,9 @@ public class SocketClient implements ClientInterface {
                         System.exit(1);
                     }
                 }, 10000);
-                break;
-            } catch (InterruptedException e) {
-                throw new RuntimeException(e);
+            } finally {
+                heartbeatPending.set(false);
             }
-        }
+        });
     }
 }
\ No newline at end of file
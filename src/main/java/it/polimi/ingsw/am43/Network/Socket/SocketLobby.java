@@ -0,0 +1,228 @@
+package it.polimi.ingsw.am43.Network.Socket;
+
+
+import it.polimi.ingsw.am43.Controller.GameController;
+import it.polimi.ingsw.am43.Network.GameServer;
+import it.polimi.ingsw.am43.Network.Message;
+import it.polimi.ingsw.am43.Network.MessageCodec;
+import it.polimi.ingsw.am43.Network.Messages.toClientMessages.endGameMsg;
+import it.polimi.ingsw.am43.Network.Messages.toClientMessages.gameInfoMsg;
+import it.polimi.ingsw.am43.Network.Messages.toClientMessages.publicChatMessageMsg;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.rmi.ServerException;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * This class represents the socket side of a single game. The connections are accepted
+ * by the {@link SocketTransport} shared by all the games, which hands to the lobby the ones
+ * routed to its game. The lobby keeps the list of {@link Handler}s that handle the
+ * connections with the {@link SocketClient}s of the game.
+ * The messages sent to all the clients are encoded once, and the same bytes are handed to every connection.
+ */
+public class SocketLobby {
+
+    /**
+     * A list of connected {@link SocketClient}s, each one
+     * handled by a dedicated {@link Handler}.
+     */
+    private final List<Handler> handlers;
+
+    /**
+     * A reference to the {@link GameController} that handles the game.
+     */
+    private final GameController gameController;
+
+    /**
+     * A reference to the {@link GameServer} that handles the game.
+     */
+    private final GameServer gameServer;
+
+    /**
+     * ANSI color codes for various messages printed from the server
+     */
+    static String YELLOW = "\033[0;33m"; // Used for SERVER messages
+    static String RESET = "\033[0m";
+    static String RED = "\033[0;31m"; // Used for ERROR
+
+    /**
+     * Creates the socket side of a game.
+     *
+     * @param game        the {@link GameController} of the game
+     * @param gameServer  the {@link GameServer} of the game
+     */
+    public SocketLobby(GameController game, GameServer gameServer) {
+        // Handlers are added by the accepting threads while the game broadcasts to them
+        this.handlers = new CopyOnWriteArrayList<>();
+        this.gameController = game;
+        this.gameServer = gameServer;
+    }
+
+    /**
+     * Adds a client routed to this game, letting it join or rejoin
+     * depending on whether the game is a new one or a loaded one.
+     * It is called on the {@link it.polimi.ingsw.am43.Network.GameLoop} of the game, which serializes the clients joining it.
+     *
+     * @param  client  the connection with the client
+     */
+    public void addClient(ClientConnection client) {
+        if(!gameController.getLoaded()) {
+            registerClient(client);
+        } else {
+            rejoin(client);
+        }
+    }
+
+    /**
+     * A function that closes all the {@link Handler}s connected to the server.
+     *
+     * @throws IOException   If an I/O error occurs when closing the {@link Handler}.
+     */
+    public void closeClients() throws IOException {
+        System.out.println(YELLOW + "[SERVER] Closing all clients..." + RESET);
+        //Close all clients
+        for (Handler clientHandler: handlers) {
+            if(!clientHandler.isClosed()){
+                clientHandler.stopHandler();
+            }
+        }
+        //Check if clients are closed and clear the list
+        for (Handler clientHandler: handlers) {
+            if (!clientHandler.isClosed()) {
+                throw new ServerException(RED + "[ERROR] A socket client is still alive" + RESET);
+            }
+        }
+        handlers.clear();
+    }
+
+    /**
+     * Adds a new client, connected through a socket connection, to the server.
+     *
+     * @param  client  the connection with the client to register
+     */
+    private void registerClient(ClientConnection client) {
+        if(gameServer.isAcceptingNewClients()){
+            int id = gameServer.addSocketClient(client);
+            // Assign a personal handler to the client
+            Handler handler = new Handler(client, id, gameController, gameServer);
+            handlers.add(handler);
+            handler.start();
+            // Avoid to add more players than requested
+            if(gameServer.getClientsCounter()==gameServer.getNumberOfPlayers()) gameServer.setAccepting(false);
+            // Different messages for first and other players
+            if (gameServer.getClientsCounter() == 1) handler.firstPlayer();
+            else handler.generalPlayer();
+            System.out.println(YELLOW + "[SERVER] New socket client connected to game " + gameServer.getGameID() + ": " + handler.getTitle() + RESET);
+        } else {
+            // The slot reserved when the client was routed is not taken
+            gameServer.releaseSlot();
+            client.close();
+        }
+    }
+
+    /**
+     * Rejoins an existing client, connected through a socket connection, to the server.
+     *
+     * @param  client  the connection with the client to rejoin
+     */
+    private void rejoin(ClientConnection client) {
+        if(gameServer.isAcceptingNewClients() && gameServer.getClientsCounter() < gameServer.getNumberOfPlayers()){
+            int id = gameServer.addSocketClient(client);
+            Handler handler = new Handler(client, id, gameController, gameServer);
+            handlers.add(handler);
+            handler.start();
+            handler.rejoin();
+            System.out.println(YELLOW + "[SERVER] Socket client reconnected to game " + gameServer.getGameID() + ": " + handler.getTitle() + RESET);
+        } else {
+            // The slot reserved when the client was routed is not taken
+            gameServer.releaseSlot();
+            client.close();
+        }
+    }
+
+    /**
+     * Sends the initial situations to all connected handlers.
+     */
+    public void sendInitialSituations(){
+        for (Handler h : handlers){
+            h.initialSituation();
+        }
+    }
+
+    /**
+     * Sends the game information to all connected handlers.
+     *
+     * @param  msg  the game information of the turn
+     */
+    public void sendGameInfo(gameInfoMsg msg){
+        broadcast(msg, -1, false);
+    }
+
+    /**
+     * Sends the results of the match to all connected handlers.
+     *
+     * @param  msg  the results of the match
+     */
+    public void sendEndGameInfo(endGameMsg msg){
+        broadcast(msg, -1, false);
+    }
+
+    /**
+     * Sends the initial game information to all connected handlers.
+     */
+    public void sendInitialGameInfo(){
+        broadcast(gameController.getInitialGameInfo(), -1, false);
+    }
+
+    /**
+     * Encodes a message once and hands the same frame to all the connected handlers but one.
+     * The cost of a broadcast then grows with the bytes written, not with the encoding work times the clients.
+     *
+     * @param  msg        the message to broadcast
+     * @param  skipID     the ID of the player who does not receive the message, -1 to send it to everybody
+     * @param  droppable  whether the message is dropped for the clients above the high-water mark
+     */
+    private void broadcast(Message msg, int skipID, boolean droppable) {
+        if (handlers.isEmpty()) return;
+        ByteBuffer frame;
+        try {
+            frame = MessageCodec.encodeSharedFrame(msg);
+        } catch (IOException e) {
+            System.err.println(RED + "[ERROR] Unable to encode " + msg.getType() + ": " + e + RESET);
+            return;
+        }
+        for (Handler h : handlers) {
+            if (h.getPlayerID() != skipID && !h.isClosed()) h.sendFrame(frame, droppable);
+        }
+    }
+
+    /**
+     * Sends a public chat message from the sender to all connected clients.
+     *
+     * @param  sender   the sender of the message
+     * @param  senderID the ID of the sender
+     * @param  msg      the content of the message
+     */
+    public void sendPublicChat(String sender, int senderID, String msg) {
+        // The chat is the first traffic given up for a client that is too far behind
+        broadcast(new publicChatMessageMsg(sender, msg), senderID, true);
+    }
+
+    /**
+     * Sends a private chat message from the sender to the receiver.
+     *
+     * @param  sender   the sender of the message
+     * @param  receiver the receiver of the message
+     * @param  receiverID the ID of the receiver
+     * @param  msg      the content of the message
+     */
+    public void sendPrivateChat(String sender, String receiver, int receiverID, String msg) {
+        for (Handler h : handlers) {
+            if(h.getPlayerID() == receiverID) {
+                h.privateChatMessage(sender, receiver, msg);
+            }
+        }
+    }
+}
\ No newline at end of file
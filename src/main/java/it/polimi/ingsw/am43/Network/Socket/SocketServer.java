@@ -1,22 +1,26 @@
 package it.polimi.ingsw.am43.Network.Socket;
 
-
-import it.polimi.ingsw.am43.Controller.GameController;
+import it.polimi.ingsw.am43.Network.GameRegistry;
 import it.polimi.ingsw.am43.Network.GameServer;
-import it.polimi.ingsw.am43.Network.Messages.toClientMessages.endGameMsg;
-import it.polimi.ingsw.am43.Network.Messages.toClientMessages.gameInfoMsg;
+import it.polimi.ingsw.am43.Network.MessageCodec;
+import it.polimi.ingsw.am43.Network.Messages.controllerMessages.SCMsgJoinGame;
+import it.polimi.ingsw.am43.Network.ServerConfig;
 
-import java.io.IOException;
+import java.io.*;
 import java.net.*;
-import java.rmi.ServerException;
-import java.util.*;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
 
 /**
- * This class represents a server that accepts new connections through TCP
- * Sockets. The server has an IP address and a port, as well as a list of
- * {@link Handler}s to handle the connections with all the {@link SocketClient}s.
+ * This class represents a server that accepts new connections through blocking TCP
+ * Sockets. The server has an IP address and a port, shared by all the games hosted
+ * by a {@link GameRegistry}: every new connection is routed to its game, whose
+ * {@link SocketLobby} then handles it through a dedicated {@link Handler}.
+ * Each connection is read by its own thread, see {@link BlockingConnection}.
+ * The number of open connections is bounded by the {@link ServerConfig}: connections
+ * beyond the limit are closed as soon as they are accepted.
  */
-public class SocketServer extends Thread /*implements ServerInterface*/ {
+public class SocketServer extends Thread implements SocketTransport {
 
     /**
      * A {@link ServerSocket} for accepting new connections.
@@ -24,30 +28,34 @@ public class SocketServer extends Thread /*implements ServerInterface*/ {
     private ServerSocket serverSocket;
 
     /**
-     * The default port of the server.
+     * The time given to a new client to tell which game it wants to join, in milliseconds.
      */
-    public static final int PORT = 1098;
+    static final int JOIN_TIMEOUT = 10000;
 
     /**
-     * A list of connected {@link SocketClient}s, each one
-     * handled by a dedicated {@link Handler}.
+     * A boolean that indicates if the server is still running.
      */
-    private List<Handler> handlers;
+    public boolean isRunning;
 
     /**
-     * A boolean that indicates if the server is still running.
+     * A reference to the {@link GameRegistry} that routes the connections to the games.
      */
-    public boolean isRunning;
+    private final GameRegistry registry;
+
+    /**
+     * The permits of the connections that can still be opened.
+     */
+    private final Semaphore connections;
 
     /**
-     * A reference to the {@link GameController} that handles the game.
+     * The factory of the threads that route the new connections.
      */
-    private GameController gameController;
+    private final ThreadFactory routingThreads;
 
     /**
-     * A reference to the {@link GameServer} that handles the game.
+     * The factory of the threads that read the messages of the clients.
      */
-    private GameServer gameServer;
+    private final ThreadFactory readerThreads;
 
     /**
      * ANSI color codes for various messages printed from the server
@@ -59,169 +67,88 @@ public class SocketServer extends Thread /*implements ServerInterface*/ {
     /**
      * Creates a new {@link SocketServer} with the specified address and port.
      *
-     * @param address the address of the server
-     * @param port    the port of the server
+     * @param address   the address of the server
+     * @param port      the port of the server
+     * @param registry  the {@link GameRegistry} that routes the connections to the games
+     * @param config    the {@link ServerConfig} that bounds the connections and provides their threads
      * @throws IOException if an I/O error occurs when creating the server
      */
-    public SocketServer(String address, int port, GameController game, GameServer gameServer) throws IOException {
-        try {
-            serverSocket = new ServerSocket(port, 0, InetAddress.getByName(address));
-            handlers = new ArrayList<>();
-            isRunning = true;
-
-            this.gameController = game;
-            this.gameServer = gameServer;
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
+    public SocketServer(String address, int port, GameRegistry registry, ServerConfig config) throws IOException {
+        super("socket-server");
+        this.serverSocket = new ServerSocket(port, 0, InetAddress.getByName(address));
+        this.registry = registry;
+        this.connections = new Semaphore(config.getMaxConnections());
+        this.routingThreads = config.newThreadFactory("routing-");
+        this.readerThreads = config.newThreadFactory("handler-");
+        this.isRunning = true;
     }
 
     /**
-     * While the server is still up, listens for changes in the client number (new ones connecting, old ones disconnecting).
-     * Adds connected {@link SocketClient} to the list and starts it.
+     * While the server is still up, accepts new connections and hands each one
+     * to a separate thread that routes it to its game.
      */
     @Override
     public void run() {
         // While the server is still up
         System.out.println(YELLOW + "[SERVER] Socket Server started." + RESET);
-        while (!Thread.currentThread().isInterrupted() && !serverSocket.isClosed() && gameServer.isAcceptingNewClients()){
-            // Accept new clients only under condition
-            if (gameServer.isAcceptingNewClients()) {
-                try {
-                    Socket client = this.serverSocket.accept();
-                    // Let player join or rejoin, whether the game is loaded or a new one
-                    if(!gameController.getLoaded()) {
-                        registerClient(client);
-                    } else {
-                        rejoin(client);
-                    }
-                } catch (IOException e) {
-                    e.printStackTrace();
+        while (!Thread.currentThread().isInterrupted() && !serverSocket.isClosed()){
+            try {
+                Socket client = this.serverSocket.accept();
+                if (!connections.tryAcquire()) {
+                    System.out.println(YELLOW + "[SERVER] Too many connections, refusing " + client.getInetAddress() + RESET);
+                    client.close();
+                    continue;
                 }
+                // The client may be slow to tell its game, do not block the other connections
+                routingThreads.newThread(() -> route(client)).start();
+            } catch (IOException e) {
+                if (!serverSocket.isClosed()) e.printStackTrace();
             }
         }
+        isRunning = false;
     }
 
-    /**
-     * A function that closes all the {@link Handler}s connected to the server.
-     *
-     * @throws IOException   If an I/O error occurs when closing the {@link Handler}.
-     */
-    public void closeClients() throws IOException {
-        System.out.println(YELLOW + "[SERVER] Closing all clients..." + RESET);
-        //Close all clients
-        for (Handler clientHandler: handlers) {
-            if(!clientHandler.getClient().isClosed()){
-                clientHandler.stopHandler();
-            }
-        }
-        //Check if clients are closed and clear the list
-        for (Handler clientHandler: handlers) {
-            if (!clientHandler.isClosed() || !clientHandler.getClient().isClosed()) {
-                throw new ServerException(RED + "[ERROR] A socket client is still alive" + RESET);
-            }
-        }
-        handlers.clear();
-    }
-
-    /**
-     * Adds a new client, connected through a socket connection, to the server.
-     *
-     * @param  client  the client socket to register
-     * @throws IOException  if an I/O error occurs while adding the socket client
-     */
-    private void registerClient(Socket client) throws IOException {
-        if(gameServer.isAcceptingNewClients()){
-            int id = gameServer.addSocketClient(client);
-            // Assign a personal handler to the client
-            handlers.add(new Handler(client, id, gameController, gameServer));
-            handlers.getLast().start();
-            // Avoid to add more players than requested
-            if(gameServer.getClientsCounter()==gameServer.getNumberOfPlayers()) gameServer.setAccepting(false);
-            // Different messages for first and other players
-            if (gameServer.getClientsCounter() == 1) handlers.getLast().firstPlayer();
-            else handlers.getLast().generalPlayer();
-            System.out.println(YELLOW + "[SERVER] New socket client connected: " + handlers.getLast().getTitle() + RESET);
-        }
-    }
-
-    /**
-     * Rejoins an existing client, connected through a socket connection, to the server.
-     *
-     * @param  client  the client socket to rejoin
-     * @throws IOException  if an I/O error occurs while rejoining the socket client
-     */
-    private void rejoin(Socket client) throws IOException {
-        if(gameServer.isAcceptingNewClients() && gameServer.getClientsCounter() < gameServer.getNumberOfPlayers()){
-            int id = gameServer.addSocketClient(client);
-            handlers.add(new Handler(client, id, gameController, gameServer));
-            handlers.getLast().start();
-            handlers.getLast().rejoin();
-            System.out.println(YELLOW + "[SERVER] Socket client reconnected: " + handlers.getLast().getTitle() + RESET);
-        }
-    }
-
-    /**
-     * Sends the initial situations to all connected handlers.
-     */
-    public void sendInitialSituations(){
-        for (Handler h : handlers){
-            h.initialSituation();
-        }
-    }
-
-    /**
-     * Sends the game information to all connected handlers.
-     */
-    public void sendGameInfo(gameInfoMsg msg){
-        for (Handler h : handlers){
-            h.gameInfo(msg);
-        }
-    }
-
-    public void sendEndGameInfo(endGameMsg msg){
-        for (Handler h : handlers){
-            h.endGame(msg);
-        }
-    }
-
-    /**
-     * Sends the initial game information to all connected handlers.
-     */
-    public void sendInitialGameInfo(){
-        for (Handler h : handlers){
-            h.initialGameInfo();
-        }
-    }
-
-    /**
-     * Sends a public chat message from the sender to all connected clients.
-     *
-     * @param  sender   the sender of the message
-     * @param  senderID the ID of the sender
-     * @param  msg      the content of the message
-     */
-    public void sendPublicChat(String sender, int senderID, String msg) {
-        for (Handler h : handlers) {
-            if(h.getPlayerID() != senderID) {
-                h.publicChatMessage(sender, msg);
-            }
+    @Override
+    public void close() {
+        interrupt();
+        try {
+            serverSocket.close();
+        } catch (IOException e) {
+            e.printStackTrace();
         }
     }
 
     /**
-     * Sends a private chat message from the sender to the receiver.
+     * Reads the {@link SCMsgJoinGame} sent by a new client and hands the
+     * connection to the game chosen by the {@link GameRegistry}.
+     * If no game can accept the client, the connection is closed and its permit released.
      *
-     * @param  sender   the sender of the message
-     * @param  receiver the receiver of the message
-     * @param  receiverID the ID of the receiver
-     * @param  msg      the content of the message
+     * @param  client  the socket of the new client
      */
-    public void sendPrivateChat(String sender, String receiver, int receiverID, String msg) {
-        for (Handler h : handlers) {
-            if(h.getPlayerID() == receiverID) {
-                h.privateChatMessage(sender, receiver, msg);
+    private void route(Socket client) {
+        try {
+            client.setSoTimeout(JOIN_TIMEOUT);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(client.getInputStream()));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(client.getOutputStream()));
+            SCMsgJoinGame join = (SCMsgJoinGame) MessageCodec.readFrame(in);
+            client.setSoTimeout(0);
+
+            GameServer game = registry.route(join.getGameID());
+            if (game == null) {
+                System.out.println(YELLOW + "[SERVER] No game available for " + client.getInetAddress() + ", connection refused." + RESET);
+                client.close();
+                connections.release();
+                return;
             }
+            game.acceptSocketClient(new BlockingConnection(client, in, out, readerThreads, connections::release,
+                    registry.getMetrics().openConnection(client.getInetAddress().getHostAddress()),
+                    registry.getConfig().getOutboundHighWater(), registry.getConfig().getOutboundLimit()));
+        } catch (IOException | ClassCastException e) {
+            System.err.println(RED + "[ERROR] Unable to route socket client " + client.getInetAddress() + ": " + e + RESET);
+            try {
+                client.close();
+            } catch (IOException ignored) {}
+            connections.release();
         }
     }
-}
\ No newline at end of file
+}
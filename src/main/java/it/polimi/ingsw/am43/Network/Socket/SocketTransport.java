@@ -0,0 +1,26 @@
+package it.polimi.ingsw.am43.Network.Socket;
+
+/**
+ * An interface that represents the server side of the socket connections, shared by all the games
+ * hosted by a {@link it.polimi.ingsw.am43.Network.GameRegistry}. The transport accepts the connections,
+ * reads the {@link it.polimi.ingsw.am43.Network.Messages.controllerMessages.SCMsgJoinGame} of each client
+ * and hands a {@link ClientConnection} to the game it is routed to.
+ * The transport is chosen at server start through the {@link it.polimi.ingsw.am43.Network.ServerConfig}.
+ */
+public interface SocketTransport {
+
+    /**
+     * The default port of the server.
+     */
+    int PORT = 1098;
+
+    /**
+     * Starts accepting new connections.
+     */
+    void start();
+
+    /**
+     * Stops accepting new connections.
+     */
+    void close();
+}
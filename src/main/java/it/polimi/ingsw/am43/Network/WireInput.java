@@ -0,0 +1,217 @@
+package it.polimi.ingsw.am43.Network;
+
+import it.polimi.ingsw.am43.Model.SparseBoard;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+
+/**
+ * A class that reads the fields of a {@link Message} written by {@link WireOutput}.
+ * Every length is checked against the bytes left, so that a corrupted payload cannot allocate more than its size.
+ */
+public final class WireInput {
+
+    /**
+     * The payload.
+     */
+    private final byte[] bytes;
+
+    /**
+     * The index of the next byte to read.
+     */
+    private int position;
+
+    /**
+     * The index following the last byte of the payload.
+     */
+    private final int limit;
+
+    /**
+     * Creates an input over a payload.
+     *
+     * @param bytes   the array containing the payload
+     * @param offset  the index of the first byte of the payload
+     * @param length  the length of the payload
+     */
+    public WireInput(byte[] bytes, int offset, int length) {
+        this.bytes = bytes;
+        this.position = offset;
+        this.limit = offset + length;
+    }
+
+    /**
+     * Returns the number of bytes not read yet.
+     *
+     * @return the number of bytes left
+     */
+    public int remaining() {
+        return limit - position;
+    }
+
+    /**
+     * Reads a single byte.
+     *
+     * @return the byte read, as an unsigned value
+     * @throws EOFException if the payload is over
+     */
+    public int readByte() throws EOFException {
+        if (position >= limit) throw new EOFException("Truncated payload");
+        return bytes[position++] & 0xFF;
+    }
+
+    /**
+     * Reads a boolean.
+     *
+     * @return the boolean read
+     * @throws IOException if the payload is over
+     */
+    public boolean readBoolean() throws IOException {
+        return readByte() != 0;
+    }
+
+    /**
+     * Reads an unsigned variable-length number.
+     *
+     * @return the number read
+     * @throws IOException if the payload is over or the number is too long
+     */
+    private int readUnsigned() throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = readByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new StreamCorruptedException("Malformed number");
+    }
+
+    /**
+     * Reads an integer.
+     *
+     * @return the integer read
+     * @throws IOException if the payload is over or the number is malformed
+     */
+    public int readInt() throws IOException {
+        int v = readUnsigned();
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    /**
+     * Reads the length of an array or a string.
+     *
+     * @return the length, -1 for null
+     * @throws IOException if the length is not valid
+     */
+    private int readLength() throws IOException {
+        int length = readUnsigned() - 1;
+        // Every element takes at least one byte
+        if (length < -1 || length > remaining()) throw new StreamCorruptedException("Invalid length: " + length);
+        return length;
+    }
+
+    /**
+     * Reads a string.
+     *
+     * @return the string read, may be null
+     * @throws IOException if the payload is not valid
+     */
+    public String readString() throws IOException {
+        int length = readLength();
+        if (length < 0) return null;
+        String s = new String(bytes, position, length, StandardCharsets.UTF_8);
+        position += length;
+        return s;
+    }
+
+    /**
+     * Reads an array of strings.
+     *
+     * @return the array read, may be null
+     * @throws IOException if the payload is not valid
+     */
+    public String[] readStrings() throws IOException {
+        int length = readLength();
+        if (length < 0) return null;
+        String[] array = new String[length];
+        for (int i = 0; i < length; i++) array[i] = readString();
+        return array;
+    }
+
+    /**
+     * Reads an array of integers.
+     *
+     * @return the array read, may be null
+     * @throws IOException if the payload is not valid
+     */
+    public int[] readInts() throws IOException {
+        int length = readLength();
+        if (length < 0) return null;
+        int[] array = new int[length];
+        for (int i = 0; i < length; i++) array[i] = readInt();
+        return array;
+    }
+
+    /**
+     * Reads a list of integers.
+     *
+     * @return the list read, may be null
+     * @throws IOException if the payload is not valid
+     */
+    public ArrayList<Integer> readIntList() throws IOException {
+        int length = readLength();
+        if (length < 0) return null;
+        ArrayList<Integer> list = new ArrayList<>(length);
+        for (int i = 0; i < length; i++) list.add(readInt());
+        return list;
+    }
+
+    /**
+     * Reads an array of booleans.
+     *
+     * @return the array read, may be null
+     * @throws IOException if the payload is not valid
+     */
+    public boolean[] readBooleans() throws IOException {
+        int length = readLength();
+        if (length < 0) return null;
+        boolean[] array = new boolean[length];
+        for (int i = 0; i < length; i++) array[i] = readBoolean();
+        return array;
+    }
+
+    /**
+     * Reads an array of booleans whose elements may be null.
+     *
+     * @return the array read, may be null
+     * @throws IOException if the payload is not valid
+     */
+    public Boolean[] readBooleanObjects() throws IOException {
+        int length = readLength();
+        if (length < 0) return null;
+        Boolean[] array = new Boolean[length];
+        for (int i = 0; i < length; i++) {
+            int b = readByte();
+            array[i] = b == 2 ? null : b == 1;
+        }
+        return array;
+    }
+
+    /**
+     * Reads a {@link SparseBoard}.
+     *
+     * @return the board read, may be null
+     * @throws IOException if the payload is not valid
+     */
+    public SparseBoard readBoard() throws IOException {
+        int size = readLength();
+        if (size < 0) return null;
+        SparseBoard board = new SparseBoard(size);
+        for (int i = 0; i < size; i++) {
+            board.put(readInt(), readInt(), readInt());
+        }
+        return board;
+    }
+}
@@ -0,0 +1,206 @@
+package it.polimi.ingsw.am43.Network;
+
+import it.polimi.ingsw.am43.Model.SparseBoard;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A class that writes the fields of a {@link Message} in the compact binary format read by {@link WireInput}.
+ * Integers are written as variable-length zig-zag numbers, so that the small values used by the game take a
+ * single byte. Arrays and strings are preceded by their length plus one, 0 meaning null.
+ * Cards are never written as such: the messages reference them by their id.
+ */
+public final class WireOutput {
+
+    /**
+     * The bytes written so far.
+     */
+    private byte[] bytes;
+
+    /**
+     * The number of bytes written so far.
+     */
+    private int size;
+
+    /**
+     * Creates an empty output.
+     *
+     * @param capacity  the initial capacity, in bytes
+     */
+    public WireOutput(int capacity) {
+        this.bytes = new byte[Math.max(capacity, 16)];
+    }
+
+    /**
+     * Makes room for some bytes.
+     *
+     * @param  count  the number of bytes to write
+     */
+    private void ensure(int count) {
+        if (size + count > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + count));
+        }
+    }
+
+    /**
+     * Writes a single byte.
+     *
+     * @param  b  the byte to write
+     */
+    public void writeByte(int b) {
+        ensure(1);
+        bytes[size++] = (byte) b;
+    }
+
+    /**
+     * Writes a boolean as a single byte.
+     *
+     * @param  b  the boolean to write
+     */
+    public void writeBoolean(boolean b) {
+        writeByte(b ? 1 : 0);
+    }
+
+    /**
+     * Writes an unsigned variable-length number, 7 bits per byte.
+     *
+     * @param  value  the number to write, treated as unsigned
+     */
+    private void writeUnsigned(int value) {
+        ensure(5);
+        while ((value & ~0x7F) != 0) {
+            bytes[size++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        bytes[size++] = (byte) value;
+    }
+
+    /**
+     * Writes an integer, using fewer bytes for values close to zero.
+     *
+     * @param  value  the integer to write
+     */
+    public void writeInt(int value) {
+        writeUnsigned((value << 1) ^ (value >> 31));
+    }
+
+    /**
+     * Writes the length of an array or a string, or null.
+     *
+     * @param  length  the length, -1 for null
+     */
+    private void writeLength(int length) {
+        writeUnsigned(length + 1);
+    }
+
+    /**
+     * Writes a string as UTF-8.
+     *
+     * @param  s  the string to write, may be null
+     */
+    public void writeString(String s) {
+        if (s == null) {
+            writeLength(-1);
+            return;
+        }
+        byte[] utf = s.getBytes(StandardCharsets.UTF_8);
+        writeLength(utf.length);
+        ensure(utf.length);
+        System.arraycopy(utf, 0, bytes, size, utf.length);
+        size += utf.length;
+    }
+
+    /**
+     * Writes an array of strings.
+     *
+     * @param  array  the array to write, may be null
+     */
+    public void writeStrings(String[] array) {
+        writeLength(array == null ? -1 : array.length);
+        if (array != null) for (String s : array) writeString(s);
+    }
+
+    /**
+     * Writes an array of integers.
+     *
+     * @param  array  the array to write, may be null
+     */
+    public void writeInts(int[] array) {
+        writeLength(array == null ? -1 : array.length);
+        if (array != null) for (int v : array) writeInt(v);
+    }
+
+    /**
+     * Writes a list of integers.
+     *
+     * @param  list  the list to write, may be null
+     */
+    public void writeIntList(List<Integer> list) {
+        writeLength(list == null ? -1 : list.size());
+        if (list != null) for (Integer v : list) writeInt(v);
+    }
+
+    /**
+     * Writes an array of booleans.
+     *
+     * @param  array  the array to write, may be null
+     */
+    public void writeBooleans(boolean[] array) {
+        writeLength(array == null ? -1 : array.length);
+        if (array != null) for (boolean b : array) writeBoolean(b);
+    }
+
+    /**
+     * Writes an array of booleans whose elements may be null.
+     *
+     * @param  array  the array to write, may be null
+     */
+    public void writeBooleanObjects(Boolean[] array) {
+        writeLength(array == null ? -1 : array.length);
+        if (array != null) for (Boolean b : array) writeByte(b == null ? 2 : b ? 1 : 0);
+    }
+
+    /**
+     * Writes the cells in use of a {@link SparseBoard}.
+     *
+     * @param  board  the board to write, may be null
+     */
+    public void writeBoard(SparseBoard board) {
+        writeLength(board == null ? -1 : board.size());
+        if (board != null) board.forEach((x, y, value) -> {
+            writeInt(x);
+            writeInt(y);
+            writeInt(value);
+        });
+    }
+
+    /**
+     * Returns the number of bytes written so far.
+     *
+     * @return the number of bytes
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the array holding the bytes written so far, from index 0 to {@link #size()}.
+     * The array is not copied.
+     *
+     * @return the array of bytes
+     */
+    public byte[] array() {
+        return bytes;
+    }
+
+    /**
+     * Returns a copy of the bytes written so far.
+     *
+     * @return the bytes written
+     */
+    public byte[] toByteArray() {
+        return Arrays.copyOf(bytes, size);
+    }
+}
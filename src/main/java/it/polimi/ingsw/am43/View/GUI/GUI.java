@@ -5,13 +5,12 @@ import it.polimi.ingsw.am43.Model.Cards.ObjectiveCard;
 import it.polimi.ingsw.am43.Model.Cards.PlayableCard;
 import it.polimi.ingsw.am43.Model.Chat;
 import it.polimi.ingsw.am43.Model.Enum.PawnColor;
-import it.polimi.ingsw.am43.Model.Player;
+import it.polimi.ingsw.am43.Model.SparseBoard;
 import it.polimi.ingsw.am43.Network.ClientInterface;
 import it.polimi.ingsw.am43.Network.Message;
 import it.polimi.ingsw.am43.Network.Messages.toClientMessages.*;
 import it.polimi.ingsw.am43.Network.RMI.RMIClient;
 import it.polimi.ingsw.am43.Network.Messages.MessageType;
-import it.polimi.ingsw.am43.Network.Messages.controllerMessages.SCMsgCardCouple;
 import it.polimi.ingsw.am43.Network.Messages.controllerMessages.SCMsgPlay;
 import it.polimi.ingsw.am43.Network.Messages.controllerMessages.SCMsgPlayTurn;
 import it.polimi.ingsw.am43.Network.Socket.SocketClient;
@@ -101,7 +100,7 @@ public class GUI extends Application implements View {
     /**
      * The placements matrix of the player.
      */
-    private int[][][] placements;
+    private SparseBoard[] placements;
 
     /**
      * The scores of all the players.
@@ -138,6 +137,16 @@ public class GUI extends Application implements View {
      */
     private CardSide resourceDeckTop;
 
+    /**
+     * The index of the first player.
+     */
+    private int firstPlayer;
+
+    /**
+     * The sequence number of the last game info received, 0 if none.
+     */
+    private int lastSeq = 0;
+
     //0 -> inHand choice
     //1 -> deployed choice
     //2 -> corner choice
@@ -146,6 +155,11 @@ public class GUI extends Application implements View {
      */
     private int[] turnChoices = new int[3];
 
+    /**
+     * The message indicating which cards can be placed and on which corners, received at the beginning of the turn.
+     */
+    private placeableCardsMsg placeableCards;
+
     /**
      * The queue containing all the incoming messages.
      */
@@ -209,8 +223,9 @@ public class GUI extends Application implements View {
      * @param inputIP the IP address of the server to connect to
      * @param inputPORT the PORT of the server to connect to
      * @param isSocket a boolean that indicates the type of connection
+     * @param gameID the ID of the game to join, null to join any open lobby
      */
-    public GUI(String inputIP, int inputPORT, boolean isSocket) throws IOException, ClassNotFoundException, NotBoundException {
+    public GUI(String inputIP, int inputPORT, boolean isSocket, String gameID) throws IOException, ClassNotFoundException, NotBoundException {
 
         new Thread(Application::launch).start();
 
@@ -222,9 +237,9 @@ public class GUI extends Application implements View {
         }
 
         if (isSocket){
-            this.client = new SocketClient(inputIP, inputPORT);
+            this.client = new SocketClient(inputIP, inputPORT, gameID);
         } else {
-            this.client = new RMIClient(inputIP, inputPORT);
+            this.client = new RMIClient(inputIP, inputPORT, gameID);
         }
 
         new Thread(this::getTraffic).start();
@@ -300,6 +315,7 @@ public class GUI extends Application implements View {
             case MessageType.REJOIN_PLAYER -> rejoin((rejoinPlayerMsg) message);
             case MessageType.CANNOT_REJOIN -> alreadyPicked((cannotRejoinMsg) message);
             case MessageType.REQUIRED_DATA -> setRequiredData((requiredDataMsg) message);
+            case MessageType.RESYNC -> resync((resyncMsg) message);
             case MessageType.HEARTBEAT -> {}
 
             case MessageType.NICKNAME_ALREADY_USED -> nickOrColorUsed((nickOrColorAlreadyUsedMsg) message);
@@ -366,20 +382,13 @@ public class GUI extends Application implements View {
     @Override
     public void displayGameInfo(gameInfoMsg message) {
         int index = message.getLastOnGroundIndex();
-        this.scores = message.getScores();
-        this.goldenDeckTop = message.getGoldenDeckTop();
-        this.resourceDeckTop = message.getResourceDeckTop();
-        if (index!=-1) {
-            this.onGround[message.getLastOnGroundIndex()] = message.getLastOnGround();
-        }
+        boolean isNew = message.getSeq() > lastSeq;
+        CardSide placedCardSide = applyGameInfo(message);
 
         int lastPlayer = message.getPlayerID();
 
-        CardSide placedCardSide = message.getPlacedCardSide();
-        updatePlayerSituation(lastPlayer, placedCardSide);
-
         Platform.runLater(()->{
-            ((GameSceneController) controller).updateDeployed(lastPlayer, placedCardSide);
+            if (isNew) ((GameSceneController) controller).updateDeployed(lastPlayer, placedCardSide);
             //TODO showDeployed(lastPlayer);  [OPTIONAL]
             ((GameSceneController) controller).updateScoreboard(scores);
         });
@@ -413,6 +422,7 @@ public class GUI extends Application implements View {
      */
     @Override
     public void displayPlaceableInHand(placeableCardsMsg message) {
+        this.placeableCards = message;
 
         Platform.runLater(()->{
             ((GameSceneController) controller).allowPlaceableInHandSelection(message.getPlaceableCards());
@@ -499,14 +509,75 @@ public class GUI extends Application implements View {
         this.usersColors = msg.getColors();
         this.usernames = msg.getUsernames();
         this.numPlayers = msg.getNumPlayers();
+        this.firstPlayer = msg.getFirstPlayer();
+        this.lastSeq = msg.getSeq();
+
+        rebuildGameScene();
+    }
+
+    /**
+     * A method that brings the local data up to date when rejoining
+     * a loaded game that the client already knew, by applying
+     * only the turns played while it was away.
+     *
+     * @param msg the message containing the missed turns
+     */
+    @Override
+    public void resync(resyncMsg msg) {
+        for (gameInfoMsg missed : msg.getMissed()) {
+            applyGameInfo(missed);
+        }
+        this.inHand = msg.getInHand();
+        this.personalObjective = msg.getPersonalObjective();
+
+        rebuildGameScene();
+    }
 
+    /**
+     * A method that builds the game scene of a rejoined game from the local data.
+     */
+    private void rebuildGameScene() {
         Platform.runLater(()->{
             controller = ((RejoinLobbyController) controller).buildGameScene(this);
             ((GameSceneController) controller).rebuildEntireGameScene(inHand, onGround, commonObjectives,
-                    personalObjective, scores, deployed, usersColors, usernames, msg.getFirstPlayer());
+                    personalObjective, scores, deployed, usersColors, usernames, firstPlayer);
         });
     }
 
+    /**
+     * A method that applies the delta of a turn to the local data: the scores,
+     * the tops of the decks, the card on the ground and the card placed by the player.
+     * A game info already applied, as the last one sent again when a loaded game restarts,
+     * does not place its card twice.
+     *
+     * @param message the game info of the turn
+     * @return the placed {@link CardSide}
+     */
+    private CardSide applyGameInfo(gameInfoMsg message) {
+        int index = message.getLastOnGroundIndex();
+        this.scores = message.getScores();
+        this.goldenDeckTop = message.getGoldenDeckTop();
+        this.resourceDeckTop = message.getResourceDeckTop();
+        if (index!=-1) {
+            this.onGround[index] = message.getLastOnGround();
+        }
+        CardSide placedCardSide = message.getPlacedCardSide();
+        if (message.getSeq() > lastSeq) {
+            updatePlayerSituation(message.getPlayerID(), placedCardSide);
+            lastSeq = message.getSeq();
+        }
+        return placedCardSide;
+    }
+
+    /**
+     * A method that returns the sequence number of the last game info received.
+     *
+     * @return the sequence number, 0 if none
+     */
+    public int getLastSeq() {
+        return lastSeq;
+    }
+
     /**
      * A method that sets the local version of player ID.
      *
@@ -599,6 +670,7 @@ public class GUI extends Application implements View {
     public void updateInitialGameInfo(initialGameInfoMsg msg) {
         CardSide[] starting = msg.getStartingSides();
         int first = msg.getFirst();
+        this.firstPlayer = first;
         this.usernames = msg.getUsernames();
         this.usersColors = msg.getColors();
         this.numPlayers = starting.length;
@@ -610,10 +682,11 @@ public class GUI extends Application implements View {
         updateOnGround();
         enableCommands();
 
-        this.placements = new int[numPlayers][81][81];
+        this.placements = new SparseBoard[numPlayers];
 
         for (int i=0; i<numPlayers; i++){
             this.deployed[i] = new ArrayList<CardSide>();
+            this.placements[i] = new SparseBoard();
             updatePlayerSituation(i,starting[i]);
         }
 
@@ -677,9 +750,9 @@ public class GUI extends Application implements View {
     @Override
     public void updatePlayerSituation(int playerID, CardSide placedCardSide){
         this.deployed[playerID].add(placedCardSide);
-        int x = placedCardSide.getRelativeCoordinates()[0] + Player.OFFSET;
-        int y = placedCardSide.getRelativeCoordinates()[1] + Player.OFFSET;
-        this.placements[playerID][x][y] = placedCardSide.getDeployedID();
+        int x = placedCardSide.getRelativeCoordinates()[0];
+        int y = placedCardSide.getRelativeCoordinates()[1];
+        this.placements[playerID].put(x, y, placedCardSide.getDeployedID());
     }
 
     /**
@@ -698,7 +771,8 @@ public class GUI extends Application implements View {
      */
     public void chooseDeployedCard(int index){
         turnChoices[1] = index;
-        client.writeNewMessage(new SCMsgCardCouple(turnChoices[1]));
+        //the available corners were sent together with the placeable cards
+        displayAvailablePlacements(placeableCards.getAvailablePlacements(turnChoices[1]));
     }
 
     /**
@@ -373,7 +373,7 @@ public class GameSceneController extends SceneController{
      * @param choice the choice of the user
      */
     private void choosePersonalObjective(ObjectiveCard choice){
-        gui.writeNewMessage(new SCMsgPersonalObjective(choice));
+        gui.writeNewMessage(new SCMsgPersonalObjective(choice.getId()));
         mainPANE.getChildren().clear();
 
         setPersonalObjective(choice);
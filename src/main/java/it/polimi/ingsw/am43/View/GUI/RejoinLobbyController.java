@@ -75,7 +75,7 @@ public class RejoinLobbyController extends SceneController{
     public void rejoin(){
         playerID = validUsernames.get(user);
         gui.setPlayerID(playerID);
-        gui.writeNewMessage(new SCMsgPlayerRejoins(String.valueOf(playerID)));
+        gui.writeNewMessage(new SCMsgPlayerRejoins(String.valueOf(playerID), gui.getLastSeq()));
         loading.setVisible(true);
     }
 
@@ -4,7 +4,7 @@ import it.polimi.ingsw.am43.Model.Cards.CardSide;
 import it.polimi.ingsw.am43.Model.Cards.Corner;
 import it.polimi.ingsw.am43.Model.Enum.Kingdom;
 import it.polimi.ingsw.am43.Model.Enum.Symbol;
-import it.polimi.ingsw.am43.Model.Player;
+import it.polimi.ingsw.am43.Model.SparseBoard;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -116,18 +116,16 @@ public class DeployedPrinter {
     /**
      * Print the deployed cards
      * @param deployed the list of deployed CardSide
-     * @param placements the placement matrix of the player
+     * @param placements the placement board of the player
      */
-    public static void printDeployedCard(ArrayList<CardSide> deployed, int[][] placements) {
-        int offset = Player.OFFSET;
-
-        int[] maxTopLeft = {100,100};
-        int[] maxBottomRight = {0, 0};
+    public static void printDeployedCard(ArrayList<CardSide> deployed, SparseBoard placements) {
+        int[] maxTopLeft = {Integer.MAX_VALUE, Integer.MAX_VALUE};
+        int[] maxBottomRight = {Integer.MIN_VALUE, Integer.MIN_VALUE};
 
         //find max topLeft and the max bottomRight cells not empty in the placements
         for (CardSide card: deployed){
-            int x = card.getRelativeCoordinates()[1]+offset;
-            int y = card.getRelativeCoordinates()[0]+offset;
+            int x = card.getRelativeCoordinates()[1];
+            int y = card.getRelativeCoordinates()[0];
             if (x<maxTopLeft[1]) maxTopLeft[1] = x;
             if (y<maxTopLeft[0]) maxTopLeft[0] = y;
             if (x>maxBottomRight[1]) maxBottomRight[1] = x;
@@ -151,8 +149,8 @@ public class DeployedPrinter {
         //fill table
         for(CardSide card: deployed){
             String[][] cardStr = toStringCardSide(card);
-            int x = card.getRelativeCoordinates()[1] + offset - maxTopLeft[1];
-            int y = card.getRelativeCoordinates()[0] + offset - maxTopLeft[0];
+            int x = card.getRelativeCoordinates()[1] - maxTopLeft[1];
+            int y = card.getRelativeCoordinates()[0] - maxTopLeft[0];
             int printX = (length-1)*x;
             int printY = (height-1)*y;
             //uncomment to reverse y axes in the deployed print
@@ -5,7 +5,7 @@ import it.polimi.ingsw.am43.Model.Cards.ObjectiveCard;
 import it.polimi.ingsw.am43.Model.Cards.PlayableCard;
 import it.polimi.ingsw.am43.Model.Chat;
 import it.polimi.ingsw.am43.Model.Enum.PawnColor;
-import it.polimi.ingsw.am43.Model.Player;
+import it.polimi.ingsw.am43.Model.SparseBoard;
 import it.polimi.ingsw.am43.Network.ClientInterface;
 import it.polimi.ingsw.am43.Network.Messages.controllerMessages.*;
 import it.polimi.ingsw.am43.Network.Messages.toClientMessages.*;
@@ -81,7 +81,7 @@ public class TUI implements View {
     /**
      * The placements matrix of the player.
      */
-    private int[][][] placements;
+    private SparseBoard[] placements;
 
     /**
      * The scores of all the players.
@@ -140,9 +140,9 @@ public class TUI implements View {
     private String hangingInput;
 
     /**
-     * Array of booleans indicating which cards can be placed.
+     * The message indicating which cards can be placed and on which corners.
      */
-    private Boolean[] tmpPlaceableCards;
+    private placeableCardsMsg tmpPlaceableCards;
 
     //0 -> inHand choice
     //1 -> deployed choice
@@ -157,6 +157,11 @@ public class TUI implements View {
      */
     private int numPlayers;
 
+    /**
+     * The sequence number of the last game info received, 0 if none.
+     */
+    private int lastSeq = 0;
+
     /**
      * The queue containing all the incoming messages.
      */
@@ -168,18 +173,19 @@ public class TUI implements View {
      * @param inputIP the IP of the server
      * @param inputPORT the port of the server
      * @param isSocket boolean indicating if the connection is a socket
+     * @param gameID the ID of the game to join, null to join any open lobby
      * @throws IOException if an I/O error occurs
      * @throws ClassNotFoundException if the class of a serialized object cannot be found
      * @throws NotBoundException if the RMI registry cannot be bound
      */
-    public TUI(String inputIP, int inputPORT, boolean isSocket) throws IOException, ClassNotFoundException, NotBoundException {
+    public TUI(String inputIP, int inputPORT, boolean isSocket, String gameID) throws IOException, ClassNotFoundException, NotBoundException {
         this.in = new BufferedReader(new InputStreamReader(System.in));
         chat = new Chat();
         buildInputThread();
         if (isSocket) {
-            this.client = new SocketClient(inputIP, inputPORT);
+            this.client = new SocketClient(inputIP, inputPORT, gameID);
         } else {
-            this.client = new RMIClient(inputIP, inputPORT);
+            this.client = new RMIClient(inputIP, inputPORT, gameID);
         }
         cls();
         printArt();
@@ -265,6 +271,7 @@ public class TUI implements View {
             case MessageType.ENDGAME -> endGame((endGameMsg) message);
             case MessageType.CANNOT_REJOIN -> alreadyPicked((cannotRejoinMsg) message);
             case MessageType.REQUIRED_DATA -> setRequiredData((requiredDataMsg) message);
+            case MessageType.RESYNC -> resync((resyncMsg) message);
             default -> throw new IllegalStateException("Unexpected value: " + message);
         }
     }
@@ -482,7 +489,7 @@ public class TUI implements View {
 
         usr = msg.getPlayers()[Integer.parseInt(pick)];
         this.playerID = Integer.parseInt(pick);
-        client.writeNewMessage(new SCMsgPlayerRejoins(pick));
+        client.writeNewMessage(new SCMsgPlayerRejoins(pick, lastSeq));
     }
 
     /**
@@ -508,7 +515,7 @@ public class TUI implements View {
         }
         usr = msg.getPlayers()[Integer.parseInt(pick)];
         this.playerID = Integer.parseInt(pick);
-        client.writeNewMessage(new SCMsgPlayerRejoins(pick));
+        client.writeNewMessage(new SCMsgPlayerRejoins(pick, lastSeq));
     }
 
     /**
@@ -532,6 +539,24 @@ public class TUI implements View {
         this.usersColors = msg.getColors();
         this.usernames = msg.getUsernames();
         this.numPlayers = msg.getNumPlayers();
+        this.lastSeq = msg.getSeq();
+        this.hangingInput = "rejoined";
+    }
+
+    /**
+     * A method that brings the local data up to date when rejoining
+     * a loaded game that the client already knew, by applying
+     * only the turns played while it was away.
+     *
+     * @param msg the message containing the missed turns
+     */
+    @Override
+    public void resync(resyncMsg msg) {
+        for (gameInfoMsg missed : msg.getMissed()) {
+            applyGameInfo(missed);
+        }
+        this.inHand = msg.getInHand();
+        this.personalObjective = msg.getPersonalObjective();
         this.hangingInput = "rejoined";
     }
 
@@ -594,7 +619,7 @@ public class TUI implements View {
             choice = in.readLine();
         }
         this.personalObjective = personalObjectives[Integer.parseInt(choice)];
-        client.writeNewMessage(new SCMsgPersonalObjective(personalObjective));
+        client.writeNewMessage(new SCMsgPersonalObjective(personalObjective.getId()));
         System.out.println("Awesome, now just wait for other players to pick their cards!");
     }
 
@@ -637,10 +662,11 @@ public class TUI implements View {
         this.goldenDeckTop = msg.getGoldenDeckTop();
         this.resourceDeckTop = msg.getResourceDeckTop();
 
-        this.placements = new int[numPlayers][81][81];
+        this.placements = new SparseBoard[numPlayers];
 
         for (int i=0; i<numPlayers; i++){
             this.deployed[i] = new ArrayList<>();
+            this.placements[i] = new SparseBoard();
             updatePlayerSituation(i,starting[i]);
         }
         cls();
@@ -673,12 +699,7 @@ public class TUI implements View {
     @Override
     public void displayGameInfo(gameInfoMsg message) {
         int index = message.getLastOnGroundIndex();
-        this.scores = message.getScores();
-        this.goldenDeckTop = message.getGoldenDeckTop();
-        this.resourceDeckTop = message.getResourceDeckTop();
-        if (index!=-1) {
-            this.onGround[message.getLastOnGroundIndex()] = message.getLastOnGround();
-        }
+        CardSide placedCardSide = applyGameInfo(message);
         // Stop the thread waiting for potential user's commands to execute while it was not its turn
         if (this.inputThread != null && hangingInput != null && !hangingInput.equals("rejoined")) {
             this.inputThread.interrupt();
@@ -694,9 +715,6 @@ public class TUI implements View {
 
         int lastPlayer = message.getPlayerID();
 
-        CardSide placedCardSide = message.getPlacedCardSide();
-        updatePlayerSituation(lastPlayer, placedCardSide);
-
         if(lastPlayer == this.playerID){
             cls();
             System.out.println("You placed: ");
@@ -727,6 +745,31 @@ public class TUI implements View {
         }
     }
 
+    /**
+     * A method that applies the delta of a turn to the local data: the scores,
+     * the tops of the decks, the card on the ground and the card placed by the player.
+     * A game info already applied, as the last one sent again when a loaded game restarts,
+     * does not place its card twice.
+     *
+     * @param message the game info of the turn
+     * @return the placed {@link CardSide}
+     */
+    private CardSide applyGameInfo(gameInfoMsg message) {
+        int index = message.getLastOnGroundIndex();
+        this.scores = message.getScores();
+        this.goldenDeckTop = message.getGoldenDeckTop();
+        this.resourceDeckTop = message.getResourceDeckTop();
+        if (index!=-1) {
+            this.onGround[index] = message.getLastOnGround();
+        }
+        CardSide placedCardSide = message.getPlacedCardSide();
+        if (message.getSeq() > lastSeq) {
+            updatePlayerSituation(message.getPlayerID(), placedCardSide);
+            lastSeq = message.getSeq();
+        }
+        return placedCardSide;
+    }
+
     /**
      * A method that updates the local situation of a player
      * when he/she places a card. It also updates the placements
@@ -738,9 +781,9 @@ public class TUI implements View {
     @Override
     public void updatePlayerSituation(int playerID, CardSide placedCardSide){
         this.deployed[playerID].add(placedCardSide);
-        int x = placedCardSide.getRelativeCoordinates()[0] + Player.OFFSET;
-        int y = placedCardSide.getRelativeCoordinates()[1] + Player.OFFSET;
-        this.placements[playerID][x][y] = placedCardSide.getDeployedID();
+        int x = placedCardSide.getRelativeCoordinates()[0];
+        int y = placedCardSide.getRelativeCoordinates()[1];
+        this.placements[playerID].put(x, y, placedCardSide.getDeployedID());
     }
 
     /**
@@ -806,12 +849,12 @@ public class TUI implements View {
         }
 
         //save the current situation for the future playTurn or to choose a new card
-        this.tmpPlaceableCards = placeableCards;
+        this.tmpPlaceableCards = message;
         this.turnChoices[0] = Integer.parseInt(choice);
         this.turnChoices[1] = Integer.parseInt(deployedChoice);
 
-        //send message
-        client.writeNewMessage(new SCMsgCardCouple(Integer.parseInt(deployedChoice)));
+        //the available corners were sent together with the placeable cards
+        displayAvailablePlacements(message.getAvailablePlacements(Integer.parseInt(deployedChoice)));
     }
 
     /**
@@ -856,7 +899,7 @@ public class TUI implements View {
             //choose a new card
             turnChoices[0] = -1;
             turnChoices[1] = -1;
-            displayPlaceableInHand(new placeableCardsMsg(tmpPlaceableCards));
+            displayPlaceableInHand(tmpPlaceableCards);
         } else {
             this.turnChoices[2] = Integer.parseInt(choice);
             displayOnGround();
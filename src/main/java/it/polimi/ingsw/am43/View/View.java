@@ -106,6 +106,15 @@ public interface View {
      */
     void setRequiredData(requiredDataMsg msg);
 
+    /**
+     * A method that brings the local data up to date when rejoining
+     * a loaded game that the client already knew, by applying
+     * only the turns played while it was away.
+     *
+     * @param msg the message containing the missed turns
+     */
+    void resync(resyncMsg msg);
+
     /**
      * A method run when a player has inserted a duplicate username or
      * color chosen from another player.
@@ -5,6 +5,8 @@ module it.polimi.ingsw.am43 {
     requires com.fasterxml.jackson.databind;
     requires java.rmi;
     requires java.desktop;
+    requires java.management;
+    requires java.management.rmi;
 
     exports it.polimi.ingsw.am43.Controller;
     opens it.polimi.ingsw.am43.Controller to javafx.fxml;
@@ -19,6 +21,7 @@ module it.polimi.ingsw.am43 {
     exports it.polimi.ingsw.am43.Network.RMI to java.rmi;
     exports it.polimi.ingsw.am43.Network to java.rmi;
     exports it.polimi.ingsw.am43.Network.Socket.Heartbeat to java.rmi;
+    exports it.polimi.ingsw.am43.Network.Metrics;
 
     exports it.polimi.ingsw.am43.Network.Messages.toClientMessages;
     exports it.polimi.ingsw.am43.Network.Messages.controllerMessages;
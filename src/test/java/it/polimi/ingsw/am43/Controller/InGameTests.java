@@ -6,7 +6,10 @@ import it.polimi.ingsw.am43.Model.Cards.PlayableCard;
 import it.polimi.ingsw.am43.Model.Enum.PawnColor;
 import it.polimi.ingsw.am43.Model.Game;
 import it.polimi.ingsw.am43.Model.Player;
+import it.polimi.ingsw.am43.Model.SparseBoard;
 import it.polimi.ingsw.am43.Network.Messages.toClientMessages.gameInfoMsg;
+import it.polimi.ingsw.am43.Network.Messages.toClientMessages.requiredDataMsg;
+import it.polimi.ingsw.am43.Network.Messages.toClientMessages.resyncMsg;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -168,6 +171,54 @@ class InGameTests {
         // Check that player's score has been updated correctly
         assertTrue(player.getScore() >= initialPlayerScore);
     }
+    @Test
+    void rejoinData() {
+        // Two rounds, every player places the back of its first card on a corner of its starting card
+        for (int round = 0; round < 2; round++) {
+            for (int playerID = 0; playerID < 4; playerID++) {
+                gameController.playTurn(playerID, 1, 0, round, 0);
+            }
+        }
+        assertEquals(8, gameController.getGameInfo().getSeq());
+
+        // A client that missed the last turn only gets that turn
+        resyncMsg resync = (resyncMsg) gameController.getRejoinData(0, 7);
+        assertEquals(1, resync.getMissed().length);
+        assertEquals(8, resync.getMissed()[0].getSeq());
+        assertEquals(3, resync.getMissed()[0].getPlayerID());
+        assertArrayEquals(gameController.getPlayers()[0].getInHand(), resync.getInHand());
+        assertSame(gameController.getPersonalObjective(0), resync.getPersonalObjective());
+        assertEquals(0, ((resyncMsg) gameController.getRejoinData(1, 8)).getMissed().length);
+
+        // Deltas are in order and contiguous
+        gameInfoMsg[] missed = ((resyncMsg) gameController.getRejoinData(2, 4)).getMissed();
+        for (int i = 0; i < missed.length; i++) {
+            assertEquals(5 + i, missed[i].getSeq());
+        }
+
+        // A client that does not know the match, missed most of it or is ahead of the log gets the whole game
+        assertEquals(8, ((requiredDataMsg) gameController.getRejoinData(0, 0)).getSeq());
+        assertInstanceOf(requiredDataMsg.class, gameController.getRejoinData(0, 2));
+        assertInstanceOf(requiredDataMsg.class, gameController.getRejoinData(0, 9));
+    }
+
+    @Test
+    void eventLogIsBounded() {
+        GameEventLog log = new GameEventLog();
+        int turns = 3 * GameEventLog.CAPACITY;
+        for (int seq = 1; seq <= turns; seq++) {
+            log.append(new gameInfoMsg(seq, 0, new int[4], 0, 0, 0, seq, new int[]{seq, 0}, 0, 0));
+        }
+        assertEquals(GameEventLog.CAPACITY, log.size());
+        assertEquals(turns, log.getLastSeq());
+
+        // The deltas still in the log are served, the older ones are not
+        gameInfoMsg[] missed = log.since(turns - GameEventLog.CAPACITY);
+        assertEquals(GameEventLog.CAPACITY, missed.length);
+        assertEquals(turns - GameEventLog.CAPACITY + 1, missed[0].getSeq());
+        assertNull(log.since(turns - GameEventLog.CAPACITY - 1));
+    }
+
     @Test
     public void testBridgeMethods(){
         Game game = gameController.getGame();
@@ -181,16 +232,14 @@ class InGameTests {
 
     @Test
     public void placementTest(){
-        int[][][] placements = new int[4][][];
+        SparseBoard[] placements = new SparseBoard[4];
         for (int i=0; i<4; i++){
             placements[i] = gameController.getGame().getPlayers()[i].getPlacements();
         }
         for(int i=0; i<4; i++){
-            for(int j=0; j<placements[i].length; j++){
-                for(int k=0; k<placements[i][j].length; k++){
-                    assertEquals(placements[i][j][k], gameController.getAllPlacements()[i][j][k]);
-                }
-            }
+            SparseBoard all = gameController.getAllPlacements()[i];
+            assertEquals(placements[i].size(), all.size());
+            placements[i].forEach((x, y, id) -> assertEquals(id, all.get(x, y)));
         }
     }
 
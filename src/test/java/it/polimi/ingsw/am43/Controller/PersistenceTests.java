@@ -0,0 +1,184 @@
+package it.polimi.ingsw.am43.Controller;
+
+import it.polimi.ingsw.am43.Model.CardCatalog;
+import it.polimi.ingsw.am43.Model.Cards.ObjectiveCard;
+import it.polimi.ingsw.am43.Model.Enum.PawnColor;
+import it.polimi.ingsw.am43.Model.Player;
+import it.polimi.ingsw.am43.Network.Messages.toClientMessages.resyncMsg;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PersistenceTests {
+    GameController gameController;
+    String userHome;
+
+    @TempDir
+    Path home;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        // Saves go to the CodexNaturalis directory of the user's home
+        userHome = System.getProperty("user.home");
+        System.setProperty("user.home", home.toString());
+        Files.createDirectory(home.resolve("CodexNaturalis"));
+
+        gameController = new GameController();
+        gameController.initializePlayers(2, "player0", PawnColor.RED);
+        gameController.addPlayer("player1", PawnColor.BLUE);
+        gameController.startPreliminaryPhase();
+        for (int i = 0; i < 2; i++) {
+            ObjectiveCard[] personalObjectives = gameController.drawPersonalObjectives();
+            gameController.setPersonalObjective(i, personalObjectives[0]);
+            gameController.placeStartingCardSide(0, i);
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        System.setProperty("user.home", userHome);
+    }
+
+    /**
+     * Plays and saves turns, every player placing the back of its first card
+     * on a corner of the last card it has placed.
+     */
+    private void playTurns(int turns) throws IOException {
+        for (int i = 0; i < turns; i++) {
+            int playerID = gameController.getGame().getTurn() % 2;
+            int last = gameController.getPlayers()[playerID].getDeployed().size() - 1;
+            gameController.playTurn(playerID, 1, last, 0, 0);
+            gameController.saveGame();
+        }
+    }
+
+    private Path journalPath() {
+        return home.resolve("CodexNaturalis").resolve(gameController.getGameID() + ".journal");
+    }
+
+    private GameController load() throws IOException, ClassNotFoundException {
+        GameController loaded = new GameController();
+        loaded.loadGame(String.valueOf(gameController.getGameID()));
+        return loaded;
+    }
+
+    private void assertSameGame(GameController expected, GameController actual) {
+        assertEquals(expected.getGame().getTurn(), actual.getGame().getTurn());
+        assertArrayEquals(expected.getScores(), actual.getScores());
+        assertArrayEquals(CardCatalog.idsOf(expected.getOnGround()), CardCatalog.idsOf(actual.getOnGround()));
+        assertEquals(expected.getGame().getDeck(4).size(), actual.getGame().getDeck(4).size());
+        assertEquals(expected.getGame().getDeck(5).getTopCard().getId(), actual.getGame().getDeck(5).getTopCard().getId());
+        for (int i = 0; i < 2; i++) {
+            Player p = expected.getPlayers()[i];
+            Player q = actual.getPlayers()[i];
+            assertArrayEquals(CardCatalog.idsOf(p.getInHand()), CardCatalog.idsOf(q.getInHand()));
+            assertEquals(p.getDeployed().size(), q.getDeployed().size());
+            assertArrayEquals(p.getDeployed().getLast().getRelativeCoordinates(), q.getDeployed().getLast().getRelativeCoordinates());
+        }
+        assertEquals(expected.getGameInfo().getSeq(), actual.getGameInfo().getSeq());
+    }
+
+    @Test
+    void journalBetweenSnapshots() throws IOException, ClassNotFoundException {
+        // A snapshot on the first save and after SNAPSHOT_INTERVAL turns, then only the journal grows
+        playTurns(GameJournal.SNAPSHOT_INTERVAL + 3);
+        assertEquals(2L * GameJournal.RECORD_SIZE, Files.size(journalPath()));
+
+        GameController loaded = load();
+        assertSameGame(gameController, loaded);
+        assertTrue(loaded.getLoaded());
+        // Rejoining clients still get only the turns they missed
+        assertInstanceOf(resyncMsg.class, loaded.getRejoinData(0, loaded.getGame().getTurn() - 1));
+    }
+
+    @Test
+    void tornRecordIsDropped() throws IOException, ClassNotFoundException {
+        playTurns(5);
+        gameController.closeSaves();
+        // A snapshot was written on close: nothing to replay
+        assertEquals(0L, Files.size(journalPath()));
+
+        gameController = load();
+        playTurns(2);
+        // A crash in the middle of a record leaves part of it in the journal
+        Files.write(journalPath(), new byte[]{0, 0, 0}, StandardOpenOption.APPEND);
+
+        GameController loaded = load();
+        assertSameGame(gameController, loaded);
+        assertEquals(2L * GameJournal.RECORD_SIZE, Files.size(journalPath()));
+    }
+
+    @Test
+    void failedSaveIsFollowedBySnapshot() throws IOException, ClassNotFoundException {
+        // A directory in place of the temporary file makes the first snapshot fail
+        Path tmpFile = home.resolve("CodexNaturalis").resolve(gameController.getGameID() + ".tmp");
+        Files.createDirectory(tmpFile);
+        assertThrows(IOException.class, () -> playTurns(1));
+        Files.delete(tmpFile);
+
+        // The turn after it is not journaled alone, or the journal would miss the failed one
+        playTurns(1);
+        assertEquals(0L, Files.size(journalPath()));
+        assertSameGame(gameController, load());
+    }
+
+    @Test
+    void failedBackgroundSaveIsFollowedBySnapshot() throws IOException, ClassNotFoundException {
+        List<Runnable> stage = new ArrayList<>();
+        AtomicInteger failures = new AtomicInteger();
+        gameController.setPersistence(stage::add, GameSaver.Durability.GROUP_COMMIT, null, failures::incrementAndGet);
+
+        // The write of the first snapshot and of the turns after it fails on the stage
+        Path tmpFile = home.resolve("CodexNaturalis").resolve(gameController.getGameID() + ".tmp");
+        Files.createDirectory(tmpFile);
+        playTurns(3);
+        stage.removeFirst().run();
+        assertEquals(1, failures.get());
+        Files.delete(tmpFile);
+
+        // The next save is a snapshot, so that the turns lost with the failed write are not missing from the journal
+        playTurns(2);
+        stage.removeFirst().run();
+        assertEquals(GameJournal.RECORD_SIZE, Files.size(journalPath()));
+        assertEquals(0, gameController.getSaver().getDurabilityLag());
+        assertSameGame(gameController, load());
+    }
+
+    @Test
+    void backgroundSavesAreCoalesced() throws IOException, ClassNotFoundException {
+        // A stage that only runs its tasks when asked to
+        List<Runnable> stage = new ArrayList<>();
+        gameController.setPersistence(stage::add, GameSaver.Durability.GROUP_COMMIT, null, null);
+
+        // Two snapshots and the turns between them are queued behind a single task
+        playTurns(GameJournal.SNAPSHOT_INTERVAL + 2);
+        assertEquals(1, stage.size());
+        assertFalse(Files.exists(journalPath()));
+        assertEquals(GameJournal.SNAPSHOT_INTERVAL + 3, gameController.getSaver().getDurabilityLag());
+
+        // Only the last snapshot is written, followed by the turn after it
+        stage.removeFirst().run();
+        assertEquals(GameJournal.RECORD_SIZE, Files.size(journalPath()));
+        assertEquals(0, gameController.getSaver().getDurabilityLag());
+        assertSameGame(gameController, load());
+
+        // Closing writes what is still queued
+        playTurns(2);
+        assertEquals(2, gameController.getSaver().getDurabilityLag());
+        assertTrue(gameController.getSaver().getDurabilityLagMillis() >= 0);
+        gameController.closeSaves();
+        assertEquals(0, gameController.getSaver().getDurabilityLag());
+        assertSameGame(gameController, load());
+    }
+}
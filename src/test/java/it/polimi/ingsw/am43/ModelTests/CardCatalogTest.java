@@ -0,0 +1,60 @@
+package it.polimi.ingsw.am43.ModelTests;
+
+import it.polimi.ingsw.am43.Model.CardCatalog;
+import it.polimi.ingsw.am43.Model.Cards.Card;
+import it.polimi.ingsw.am43.Model.Cards.CardSide;
+import it.polimi.ingsw.am43.Model.Cards.PlayableCard;
+import it.polimi.ingsw.am43.Model.Deck;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+class CardCatalogTest {
+
+    @Test
+    void singletonTest() {
+        Assertions.assertSame(CardCatalog.getInstance(), CardCatalog.getInstance());
+    }
+
+    @Test
+    void deckIdsTest() {
+        Deck deck = new Deck("Resource");
+        Assertions.assertEquals(40, deck.size());
+        Set<Integer> ids = new HashSet<>();
+        while (deck.size() > 0) {
+            Card card = deck.drawPlayableCard();
+            Assertions.assertSame(CardCatalog.getInstance().getCard(card.getId()), card);
+            ids.add(card.getId());
+        }
+        Assertions.assertEquals(40, ids.size());
+        Assertions.assertNull(deck.getTopCard());
+    }
+
+    @Test
+    void decksShareCardsTest() {
+        Set<Card> first = new HashSet<>();
+        Deck deck = new Deck("Gold");
+        while (deck.size() > 0) first.add(deck.drawPlayableCard());
+
+        Deck other = new Deck("Gold");
+        while (other.size() > 0)
+            Assertions.assertTrue(first.contains(other.drawPlayableCard()));
+    }
+
+    @Test
+    void copyDoesNotTouchCatalogTest() {
+        PlayableCard card = new Deck("Resource").drawPlayableCard();
+        CardSide shared = card.getFrontside();
+        CardSide copy = shared.copy();
+
+        copy.setDeployedID(3);
+        copy.setRelativeCoordinates(new int[]{2, -2});
+
+        Assertions.assertNotSame(shared, copy);
+        Assertions.assertNotEquals(3, shared.getDeployedID());
+        Assertions.assertArrayEquals(new int[]{0, 0}, shared.getRelativeCoordinates());
+        Assertions.assertSame(shared.getCorners(), copy.getCorners());
+    }
+}
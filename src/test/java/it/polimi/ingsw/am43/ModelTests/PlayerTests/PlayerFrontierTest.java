@@ -0,0 +1,72 @@
+package it.polimi.ingsw.am43.ModelTests.PlayerTests;
+
+import it.polimi.ingsw.am43.Model.Cards.CardSide;
+import it.polimi.ingsw.am43.Model.Player;
+import it.polimi.ingsw.am43.ModelTests.PointsRulesTests.RandomBoards;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks that the frontier kept by the {@link Player} gives the same available placements
+ * as checking the neighbours of each corner one by one.
+ */
+public class PlayerFrontierTest {
+
+    @Test
+    public void randomBoardsFrontierTest() {
+        Random random = new Random(43);
+        for (int board = 0; board < 200; board++) {
+            Player player = RandomBoards.build(random, 1 + random.nextInt(40));
+            assertSameAvailability(player, board);
+        }
+    }
+
+    @Test
+    public void rebuiltFrontierTest() {
+        Random random = new Random(7);
+        for (int board = 0; board < 50; board++) {
+            Player player = RandomBoards.build(random, 1 + random.nextInt(40));
+            int slots = player.getFrontier().size();
+            // Setting the placements again forces the frontier to be rebuilt from scratch
+            player.setPlacements(player.getPlacements());
+            assertEquals(slots, player.getFrontier().size());
+            assertSameAvailability(player, board);
+        }
+    }
+
+    private void assertSameAvailability(Player player, int board) {
+        boolean[][] all = player.getAllAvailablePlacements();
+        assertEquals(player.getDeployed().size(), all.length);
+        for (int index = 0; index < all.length; index++) {
+            assertArrayEquals(checkNeighbours(player, index), all[index], "Board " + board + ", card " + index);
+        }
+    }
+
+    /**
+     * Checks each corner of a deployed card: the cell must be empty, the corner must exist
+     * and the other cards around the cell must have the corner pointing to it.
+     */
+    private boolean[] checkNeighbours(Player player, int index) {
+        boolean[] result = new boolean[4];
+        CardSide card = player.getDeployed().get(index);
+        int[] coord = card.getRelativeCoordinates();
+        for (int i = 0; i < 4; i++) {
+            int[] v = {(i / 2) * 2 - 1, (i % 2) * 2 - 1};
+            if (player.getPlacements().contains(coord[0] + v[0], coord[1] + v[1])) continue;
+            if (card.getCornersStatus()[i] != 1) continue;
+            CardSide[] neighbours = player.retrieveNeighbours(coord, v);
+            // the corners of the neighbours, along x, along y and diagonally, that point to the cell
+            int[] corners = {i ^ 1, i ^ 2, 3 - i};
+            boolean legal = true;
+            for (int n = 0; n < 3; n++) {
+                if (neighbours[n] != null && neighbours[n].getCornersStatus()[corners[n]] != 1) legal = false;
+            }
+            result[i] = legal;
+        }
+        return result;
+    }
+}
@@ -5,6 +5,7 @@ import it.polimi.ingsw.am43.Model.Cards.Corner;
 import it.polimi.ingsw.am43.Model.Enum.PawnColor;
 import it.polimi.ingsw.am43.Model.Enum.Symbol;
 import it.polimi.ingsw.am43.Model.Player;
+import it.polimi.ingsw.am43.Model.SparseBoard;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -22,7 +23,7 @@ public class PlayerPlacementsTest {
         this.player = new Player("john",PawnColor.RED);
 
         ArrayList<CardSide> deployed = new ArrayList<>();
-        int[][] placements = new int[81][81];
+        SparseBoard placements = new SparseBoard();
 
         Corner[] corners = {new Corner(Symbol.NONE),new Corner(Symbol.NONEXISTING),new Corner(Symbol.FUNGI),new Corner(Symbol.NONE)};
         CardSide back1 = new CardSide(corners,"");
@@ -54,19 +55,14 @@ public class PlayerPlacementsTest {
         back7.setRelativeCoordinates(new int[]{0, 2});
         deployed.add(back7);
 
-        for (int i=0;i<81;i++){
-            for (int j=0; j<81;j++){
-                placements[i][j] = -1;
-            }
-        }
 
-        placements[40][40] = 0;
-        placements[40][42] = 6;
-        placements[41][39] = 1;
-        placements[41][43] = 5;
-        placements[42][40] = 2;
-        placements[42][42] = 4;
-        placements[43][41] = 3;
+        placements.put(0, 0, 0);
+        placements.put(0, 2, 6);
+        placements.put(1, -1, 1);
+        placements.put(1, 3, 5);
+        placements.put(2, 0, 2);
+        placements.put(2, 2, 4);
+        placements.put(3, 1, 3);
 
         this.player.setDeployed(deployed);
         this.player.setPlacements(placements);
@@ -76,7 +72,7 @@ public class PlayerPlacementsTest {
 
     @Test
     public void retrieveNeighboursTest(){
-        int[] coord = {42,40}; //card 2
+        int[] coord = {2,0}; //card 2
         int[] dir = {-1,1}; //corner TR
 
         CardSide[] result = this.player.retrieveNeighbours(coord,dir);
@@ -118,7 +114,7 @@ public class PlayerPlacementsTest {
         assertTrue(result);
         assertEquals(newCard,this.player.getDeployed().getLast());
         assertEquals(expectedDeployedID, newCard.getDeployedID());
-        assertEquals(7, this.player.getPlacements()[43][39]);
+        assertEquals(7, this.player.getPlacements().get(3, -1));
         assertArrayEquals(expectedRelCoord,newCard.getRelativeCoordinates());
 
         assertArrayEquals(expectedResources, this.player.getRes_qty());
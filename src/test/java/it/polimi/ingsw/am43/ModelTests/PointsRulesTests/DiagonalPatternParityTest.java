@@ -0,0 +1,46 @@
+package it.polimi.ingsw.am43.ModelTests.PointsRulesTests;
+
+import it.polimi.ingsw.am43.Model.Enum.Kingdom;
+import it.polimi.ingsw.am43.Model.Player;
+import it.polimi.ingsw.am43.Model.Points.forEachDiagonalPattern;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks that the incremental diagonal scoring gives the same points as the full sweep.
+ */
+public class DiagonalPatternParityTest {
+
+    @Test
+    public void randomBoardsParityTest() {
+        Random random = new Random(43);
+        for (int board = 0; board < 300; board++) {
+            Player player = RandomBoards.build(random, 1 + random.nextInt(40));
+            assertSameScores(player, board);
+        }
+    }
+
+    @Test
+    public void rebuiltIndexParityTest() {
+        Random random = new Random(7);
+        for (int board = 0; board < 50; board++) {
+            Player player = RandomBoards.build(random, 1 + random.nextInt(40));
+            // Setting the placements again forces the index to be rebuilt from scratch
+            player.setPlacements(player.getPlacements());
+            assertSameScores(player, board);
+        }
+    }
+
+    private void assertSameScores(Player player, int board) {
+        for (Kingdom kingdom : Kingdom.values()) {
+            for (boolean isTopLeft : new boolean[]{true, false}) {
+                forEachDiagonalPattern rule = new forEachDiagonalPattern(2, kingdom, isTopLeft);
+                assertEquals(rule.computePointsByScan(player), rule.computePoints(player),
+                        "Board " + board + ", " + kingdom + ", topLeft=" + isTopLeft);
+            }
+        }
+    }
+}
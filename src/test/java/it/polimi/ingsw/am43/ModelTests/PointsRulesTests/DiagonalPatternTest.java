@@ -5,6 +5,7 @@ import it.polimi.ingsw.am43.Model.Enum.Kingdom;
 import it.polimi.ingsw.am43.Model.Enum.PawnColor;
 import it.polimi.ingsw.am43.Model.Enum.Symbol;
 import it.polimi.ingsw.am43.Model.Player;
+import it.polimi.ingsw.am43.Model.SparseBoard;
 import it.polimi.ingsw.am43.Model.Points.forEachDiagonalPattern;
 import org.junit.Before;
 import org.junit.Test;
@@ -23,7 +24,7 @@ public class DiagonalPatternTest {
         this.player = new Player("john",PawnColor.RED);
 
         ArrayList<CardSide> deployed = new ArrayList<>();
-        int[][] placements = new int[81][81];
+        SparseBoard placements = new SparseBoard();
 
         Corner[] corners = {new Corner(Symbol.NONE),new Corner(Symbol.NONEXISTING),new Corner(Symbol.FUNGI),new Corner(Symbol.NONE)};
         CardSide starting = new CardSide(corners, "");
@@ -55,19 +56,14 @@ public class DiagonalPatternTest {
         res6.setRelativeCoordinates(new int[]{0, 2});
         deployed.add(res6);
 
-        for (int i=0;i<81;i++){
-            for (int j=0; j<81;j++){
-                placements[i][j] = -1;
-            }
-        }
-
-        placements[40][40] = 0;
-        placements[40][42] = 6;
-        placements[41][39] = 1;
-        placements[41][43] = 5;
-        placements[42][40] = 2;
-        placements[42][42] = 4;
-        placements[43][41] = 3;
+
+        placements.put(0, 0, 0);
+        placements.put(0, 2, 6);
+        placements.put(1, -1, 1);
+        placements.put(1, 3, 5);
+        placements.put(2, 0, 2);
+        placements.put(2, 2, 4);
+        placements.put(3, 1, 3);
 
         this.player.setDeployed(deployed);
         this.player.setPlacements(placements);
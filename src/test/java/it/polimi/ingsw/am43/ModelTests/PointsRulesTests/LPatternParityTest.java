@@ -0,0 +1,78 @@
+package it.polimi.ingsw.am43.ModelTests.PointsRulesTests;
+
+import it.polimi.ingsw.am43.Model.Cards.CardSide;
+import it.polimi.ingsw.am43.Model.Cards.Corner;
+import it.polimi.ingsw.am43.Model.Cards.ResourceFrontSide;
+import it.polimi.ingsw.am43.Model.Enum.Kingdom;
+import it.polimi.ingsw.am43.Model.Enum.PawnColor;
+import it.polimi.ingsw.am43.Model.Enum.Symbol;
+import it.polimi.ingsw.am43.Model.Player;
+import it.polimi.ingsw.am43.Model.SparseBoard;
+import it.polimi.ingsw.am43.Model.Points.forEachLPattern;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks that the sparse L-pattern scoring gives the same points as the full scan.
+ */
+public class LPatternParityTest {
+
+    private static final Kingdom[] KINGDOMS = {Kingdom.ANIMAL, Kingdom.INSECT, Kingdom.PLANT, Kingdom.FUNGI};
+
+    @Test
+    public void randomBoardsParityTest() {
+        Random random = new Random(43);
+        for (int board = 0; board < 300; board++) {
+            Player player = RandomBoards.build(random, 1 + random.nextInt(40));
+            assertSameScores(player, board);
+        }
+    }
+
+    /**
+     * Fills most of the square covered by the full scan, so that long runs and many overlapping patterns show up.
+     */
+    @Test
+    public void denseMatrixParityTest() {
+        Random random = new Random(11);
+        for (int board = 0; board < 20; board++) {
+            Player player = new Player("dense", PawnColor.RED);
+            ArrayList<CardSide> deployed = new ArrayList<>();
+            SparseBoard placements = new SparseBoard();
+            // the border of the scanned square is left empty, so that no run wraps from a column to the next one
+            for (int x = -38; x <= 38; x++) {
+                for (int y = -39; y <= 39; y++) {
+                    if ((x + y) % 2 == 0 && random.nextInt(10) < 8) {
+                        placements.put(x, y, deployed.size());
+                        deployed.add(new ResourceFrontSide(corners(), KINGDOMS[random.nextInt(2)], null, ""));
+                    }
+                }
+            }
+            player.setDeployed(deployed);
+            player.setPlacements(placements);
+            assertSameScores(player, board);
+        }
+    }
+
+    private void assertSameScores(Player player, int board) {
+        for (int direction = 0; direction < 4; direction++) {
+            for (Kingdom main : KINGDOMS) {
+                for (Kingdom other : KINGDOMS) {
+                    if (main == other) continue;
+                    forEachLPattern rule = new forEachLPattern(3, direction, new Kingdom[]{main, other});
+                    assertEquals(rule.computePointsByScan(player), rule.computePoints(player),
+                            "Board " + board + ", direction " + direction + ", " + main + "/" + other);
+                }
+            }
+        }
+    }
+
+    private static Corner[] corners() {
+        Corner[] corners = new Corner[4];
+        for (int i = 0; i < 4; i++) corners[i] = new Corner(Symbol.NONE);
+        return corners;
+    }
+}
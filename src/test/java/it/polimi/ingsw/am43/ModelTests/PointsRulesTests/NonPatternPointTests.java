@@ -6,6 +6,7 @@ import it.polimi.ingsw.am43.Model.Enum.Kingdom;
 import it.polimi.ingsw.am43.Model.Enum.PawnColor;
 import it.polimi.ingsw.am43.Model.Enum.Symbol;
 import it.polimi.ingsw.am43.Model.Player;
+import it.polimi.ingsw.am43.Model.SparseBoard;
 import it.polimi.ingsw.am43.Model.Points.*;
 import org.junit.Before;
 import org.junit.Test;
@@ -87,15 +88,10 @@ public class NonPatternPointTests {
     @Test
     public void testForEachCoveredCorner() {
         int expected = 4;
-        int[][] testPlacement = new int[81][81];
+        SparseBoard testPlacement = new SparseBoard();
         List<Symbol> reqRes = new ArrayList<>();
         ArrayList<CardSide> testDep = new ArrayList<>();
         PointsRule rule = new forEachCoveredCorner(2);
-        for (int i=0; i<testPlacement.length; i++){
-            for (int j=0; j<testPlacement.length; j++){
-                testPlacement[i][j] = -1;
-            }
-        }
 
         // Set up the deployed list for the player
         testDep.add(startingCard.getFrontside());
@@ -105,10 +101,10 @@ public class NonPatternPointTests {
         testDep.get(3).setRelativeCoordinates(new int[]{-1, -1});
 
         // Set up the placement array for the player
-        testPlacement[40][40] = 1;
-        testPlacement[41][39] = 2;
-        testPlacement[40][38] = 3;
-        testPlacement[39][39] = 4;
+        testPlacement.put(0, 0, 1);
+        testPlacement.put(1, -1, 2);
+        testPlacement.put(0, -2, 3);
+        testPlacement.put(-1, -1, 4);
         player.setPlacements(testPlacement);
         player.setDeployed(testDep);
 
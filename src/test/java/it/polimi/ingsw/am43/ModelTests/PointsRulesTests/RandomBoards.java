@@ -0,0 +1,59 @@
+package it.polimi.ingsw.am43.ModelTests.PointsRulesTests;
+
+import it.polimi.ingsw.am43.Model.Cards.CardSide;
+import it.polimi.ingsw.am43.Model.Cards.Corner;
+import it.polimi.ingsw.am43.Model.Cards.ResourceFrontSide;
+import it.polimi.ingsw.am43.Model.Enum.Kingdom;
+import it.polimi.ingsw.am43.Model.Enum.PawnColor;
+import it.polimi.ingsw.am43.Model.Enum.Symbol;
+import it.polimi.ingsw.am43.Model.Player;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Builds random boards made only of legal placements, used by the parity tests
+ * of the pattern rules and of the frontier of the placements.
+ */
+public class RandomBoards {
+
+    private static final Kingdom[] KINGDOMS = {Kingdom.ANIMAL, Kingdom.INSECT, Kingdom.PLANT, Kingdom.FUNGI};
+
+    /**
+     * Creates a {@link Player} and deploys the starting card plus up to the given number of cards,
+     * each on a random legal corner and with a random {@link Kingdom}.
+     * Few kingdoms are used on each board, so that patterns show up often.
+     */
+    public static Player build(Random random, int cards) {
+        Player player = new Player("random", PawnColor.RED);
+        player.placeCardSide(new CardSide(corners(random, 0), ""), -1, 0);
+
+        Kingdom[] used = {KINGDOMS[random.nextInt(4)], KINGDOMS[random.nextInt(4)], KINGDOMS[random.nextInt(4)]};
+        for (int n = 0; n < cards; n++) {
+            List<int[]> slots = new ArrayList<>();
+            for (int i = 0; i < player.getDeployed().size(); i++) {
+                boolean[] available = player.getAvailablePlacements(i);
+                for (int c = 0; c < 4; c++) {
+                    if (available[c]) slots.add(new int[]{i, c});
+                }
+            }
+            if (slots.isEmpty()) break;
+            int[] slot = slots.get(random.nextInt(slots.size()));
+            Kingdom kingdom = used[random.nextInt(used.length)];
+            player.placeCardSide(new ResourceFrontSide(corners(random, 10), kingdom, null, ""), slot[0], slot[1]);
+        }
+        return player;
+    }
+
+    /**
+     * Creates four corners, each one missing with the given percentage.
+     */
+    private static Corner[] corners(Random random, int missingPercentage) {
+        Corner[] corners = new Corner[4];
+        for (int i = 0; i < 4; i++) {
+            corners[i] = new Corner(random.nextInt(100) < missingPercentage ? Symbol.NONEXISTING : Symbol.NONE);
+        }
+        return corners;
+    }
+}
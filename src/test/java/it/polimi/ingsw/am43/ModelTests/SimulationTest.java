@@ -0,0 +1,80 @@
+package it.polimi.ingsw.am43.ModelTests;
+
+import it.polimi.ingsw.am43.Model.Enum.PawnColor;
+import it.polimi.ingsw.am43.Model.Game;
+import it.polimi.ingsw.am43.Model.Player;
+import it.polimi.ingsw.am43.Model.Simulation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SimulationTest {
+
+    private Game game;
+
+    @BeforeEach
+    public void setUp() {
+        game = new Game();
+        game.initializePlayers(2, "p1", PawnColor.RED);
+        game.addPlayer("p2", PawnColor.BLUE);
+        game.dealStartingCards(game.getPlayers());
+        game.dealHands(game.getPlayers());
+        game.drawCommonObjectives();
+        for (Player player : game.getPlayers()) {
+            player.setPersonalObjective(game.drawPersonalObjectives()[0]);
+            player.placeCardSide(player.getStartingCard().getFrontside().copy(), -1, 0);
+        }
+        game.setFirst_player(0);
+        game.setLastPlayerID(1);
+    }
+
+    @Test
+    public void testCopyIsIndependent() {
+        int cards = game.getDeck(4).size() + game.getDeck(5).size();
+        Simulation simulation = new Simulation(game);
+        Simulation copy = simulation.copy();
+        assertTrue(copy.play(copy.randomMove(new Random(1))));
+
+        assertEquals(1, copy.getTurn());
+        assertEquals(2, copy.getPlayer(0).getDeployed().size());
+        assertEquals(1, simulation.getPlayer(0).getDeployed().size());
+        assertEquals(1, game.getPlayers()[0].getDeployed().size());
+        assertEquals(1, game.getPlayers()[0].getPlacements().size());
+        assertEquals(cards, game.getDeck(4).size() + game.getDeck(5).size());
+    }
+
+    @Test
+    public void testAllMovesAreLegal() {
+        Simulation simulation = new Simulation(game);
+        List<int[]> moves = simulation.getMoves();
+        assertFalse(moves.isEmpty());
+        for (int[] move : moves) {
+            assertTrue(simulation.copy().play(move));
+        }
+    }
+
+    @Test
+    public void testRolloutEndsWithoutTouchingTheGame() {
+        Simulation simulation = new Simulation(game, new Random(7));
+        int[][] ranking = simulation.rollout(new Random(7));
+
+        assertTrue(simulation.isOver());
+        assertEquals(2, ranking.length);
+        assertTrue(ranking[0][1] >= ranking[1][1]);
+        assertEquals(0, game.getTurn());
+        assertEquals(0, game.getPlayers()[0].getScore());
+        assertEquals(1, game.getPlayers()[1].getDeployed().size());
+    }
+
+    @Test
+    public void testRolloutsAreReproducible() {
+        Simulation simulation = new Simulation(game);
+        int[][] first = simulation.copy().rollout(new Random(42));
+        int[][] second = simulation.copy().rollout(new Random(42));
+        assertArrayEquals(first, second);
+    }
+}
@@ -0,0 +1,102 @@
+package it.polimi.ingsw.am43.ModelTests;
+
+import it.polimi.ingsw.am43.Model.Cards.CardSide;
+import it.polimi.ingsw.am43.Model.Cards.Corner;
+import it.polimi.ingsw.am43.Model.Enum.PawnColor;
+import it.polimi.ingsw.am43.Model.Enum.Symbol;
+import it.polimi.ingsw.am43.Model.Player;
+import it.polimi.ingsw.am43.Model.SparseBoard;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.*;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+class SparseBoardTest {
+
+    private SparseBoard board;
+
+    @BeforeEach
+    public void setUp() {
+        board = new SparseBoard();
+    }
+
+    @Test
+    void emptyBoardTest() {
+        Assertions.assertTrue(board.isEmpty());
+        Assertions.assertEquals(SparseBoard.EMPTY, board.get(0, 0));
+        Assertions.assertFalse(board.contains(0, 0));
+    }
+
+    @Test
+    void putGetRemoveTest() {
+        board.put(0, 0, 0);
+        board.put(-1, 1, 1);
+        board.put(1, -1, 2);
+        board.put(1, -1, 3);
+        Assertions.assertEquals(3, board.size());
+        Assertions.assertEquals(1, board.get(-1, 1));
+        Assertions.assertEquals(3, board.get(1, -1));
+        Assertions.assertEquals(1, board.remove(-1, 1));
+        Assertions.assertFalse(board.contains(-1, 1));
+        Assertions.assertEquals(SparseBoard.EMPTY, board.remove(-1, 1));
+        Assertions.assertArrayEquals(new int[]{-1, -1, 1, 1}, board.getBounds());
+    }
+
+    @Test
+    void randomOperationsTest() {
+        Random random = new Random(43);
+        Map<Long, Integer> expected = new HashMap<>();
+        for (int n = 0; n < 20000; n++) {
+            int x = random.nextInt(41) - 20;
+            int y = random.nextInt(41) - 20;
+            if (random.nextInt(3) == 0) {
+                Integer old = expected.remove(SparseBoard.pack(x, y));
+                Assertions.assertEquals(old == null ? SparseBoard.EMPTY : old, board.remove(x, y));
+            } else {
+                expected.put(SparseBoard.pack(x, y), n);
+                board.put(x, y, n);
+            }
+        }
+        Assertions.assertEquals(expected.size(), board.size());
+        board.forEach((x, y, value) -> Assertions.assertEquals(expected.get(SparseBoard.pack(x, y)), value));
+    }
+
+    @Test
+    void serializationTest() throws IOException, ClassNotFoundException {
+        for (int i = 0; i < 40; i++) board.put(i, -i, i);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(board);
+        }
+        // Only the cells in use are written, far less than a full 81x81 matrix
+        Assertions.assertTrue(bytes.size() < 1024);
+
+        SparseBoard read;
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            read = (SparseBoard) in.readObject();
+        }
+        Assertions.assertEquals(40, read.size());
+        for (int i = 0; i < 40; i++) Assertions.assertEquals(i, read.get(i, -i));
+    }
+
+    @Test
+    void unboundedPlacementsTest() {
+        Player player = new Player("player", PawnColor.RED);
+        player.placeCardSide(new CardSide(corners(), ""), -1, 0);
+        // Always place on the bottom-right corner of the last card, well beyond 40 steps
+        for (int i = 0; i < 60; i++) {
+            Assertions.assertTrue(player.placeCardSide(new CardSide(corners(), ""), i, 3));
+        }
+        Assertions.assertEquals(60, player.getPlacements().get(60, 60));
+        Assertions.assertArrayEquals(new int[]{60, 60}, player.getDeployed().getLast().getRelativeCoordinates());
+    }
+
+    private static Corner[] corners() {
+        return new Corner[]{new Corner(Symbol.NONE), new Corner(Symbol.NONE), new Corner(Symbol.NONE), new Corner(Symbol.NONE)};
+    }
+}
@@ -7,6 +7,7 @@ import it.polimi.ingsw.am43.Model.Enum.Kingdom;
 import it.polimi.ingsw.am43.Model.Enum.PawnColor;
 import it.polimi.ingsw.am43.Model.Enum.Symbol;
 import it.polimi.ingsw.am43.Model.Player;
+import it.polimi.ingsw.am43.Model.SparseBoard;
 import it.polimi.ingsw.am43.View.GUI.DeployedController;
 import javafx.application.Application;
 import javafx.application.Platform;
@@ -59,7 +60,7 @@ public class DeployedTests extends Application {
         this.player = new Player("john", PawnColor.RED);
 
         ArrayList<CardSide> deployed = new ArrayList<CardSide>();
-        int[][] placements = new int[81][81];
+        SparseBoard placements = new SparseBoard();
 
         Corner[] corners = {new Corner(Symbol.NONE),new Corner(Symbol.ANIMAL),new Corner(Symbol.FUNGI),new Corner(Symbol.INKWELL)};
         CardSide back1 = new BackSide(corners, Kingdom.ANIMAL, List.of(Symbol.INKWELL, Symbol.QUILL, Symbol.MANUSCRIPT), "");
@@ -92,19 +93,14 @@ public class DeployedTests extends Application {
         deployed.add(back7);
 
 
-        for (int i=0;i<81;i++){
-            for (int j=0; j<81;j++){
-                placements[i][j] = -1;
-            }
-        }
-
-        placements[40][40] = 0;
-        placements[40][42] = 12;
-        placements[41][39] = 1;
-        placements[41][43] = 5;
-        placements[42][40] = 2;
-        placements[42][42] = 4;
-        placements[43][41] = 3;
+
+        placements.put(0, 0, 0);
+        placements.put(0, 2, 12);
+        placements.put(1, -1, 1);
+        placements.put(1, 3, 5);
+        placements.put(2, 0, 2);
+        placements.put(2, 2, 4);
+        placements.put(3, 1, 3);
 
         this.player.setDeployed(deployed);
         this.player.setPlacements(placements);
@@ -0,0 +1,68 @@
+package it.polimi.ingsw.am43.NetworkTests;
+
+import it.polimi.ingsw.am43.Network.ChatLog;
+import it.polimi.ingsw.am43.Network.Message;
+import it.polimi.ingsw.am43.Network.Messages.toClientMessages.privateChatMessageMsg;
+import it.polimi.ingsw.am43.Network.Messages.toClientMessages.publicChatMessageMsg;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChatLogTest {
+
+    private static List<String> texts(List<Message> messages) {
+        return messages.stream().map(m -> m instanceof publicChatMessageMsg pub ? pub.getMessage()
+                : ((privateChatMessageMsg) m).getMessage()).toList();
+    }
+
+    @Test
+    void unreadMessagesAreReadInOrder() {
+        ChatLog log = new ChatLog(16);
+        log.open(0);
+        log.open(1);
+        assertEquals(0, log.append(0, ChatLog.EVERYONE, new publicChatMessageMsg("p0", "a")));
+        assertEquals(1, log.append(1, ChatLog.EVERYONE, new publicChatMessageMsg("p1", "b")));
+        assertEquals(2, log.append(ChatLog.EVERYONE, 1, new privateChatMessageMsg("p0", "p1", "c")));
+        log.append(1, ChatLog.EVERYONE, new publicChatMessageMsg("p1", "d"));
+
+        // The public messages of a player are not sent back to it, the private ones only reach their receiver
+        assertEquals(List.of("b", "d"), texts(log.read(0)));
+        assertEquals(List.of("a", "c"), texts(log.read(1)));
+        assertTrue(log.read(0).isEmpty());
+
+        // A player who joins later only reads what is sent afterwards
+        log.open(2);
+        log.append(0, ChatLog.EVERYONE, new publicChatMessageMsg("p0", "e"));
+        assertEquals(List.of("e"), texts(log.read(2)));
+        assertEquals(List.of("e"), texts(log.read(1)));
+
+        log.close(1);
+        log.append(0, ChatLog.EVERYONE, new publicChatMessageMsg("p0", "f"));
+        assertTrue(log.read(1).isEmpty());
+        assertTrue(log.read(7).isEmpty());
+    }
+
+    @Test
+    void oldestMessagesAreOverwritten() {
+        ChatLog log = new ChatLog(4);
+        log.open(1);
+        for (int i = 0; i < 10; i++) log.append(0, ChatLog.EVERYONE, new publicChatMessageMsg("p0", Integer.toString(i)));
+        assertEquals(6, log.getOldest());
+        assertEquals(10, log.getNext());
+        // A player too far behind only reads what the log still holds
+        assertEquals(List.of("6", "7", "8", "9"), texts(log.read(1)));
+        log.append(0, ChatLog.EVERYONE, new publicChatMessageMsg("p0", "10"));
+        assertEquals(List.of("10"), texts(log.read(1)));
+
+        // A player reads only its own messages, among the private messages of the others
+        log.open(2);
+        log.append(0, 2, new privateChatMessageMsg("p0", "p2", "mine"));
+        for (int i = 0; i < 3; i++) log.append(0, 1, new privateChatMessageMsg("p0", "p1", "other" + i));
+        assertEquals(List.of("mine"), texts(log.read(2)));
+        assertEquals(List.of("other0", "other1", "other2"), texts(log.read(1)));
+
+        assertThrows(IllegalArgumentException.class, () -> new ChatLog(0));
+    }
+}
@@ -0,0 +1,60 @@
+package it.polimi.ingsw.am43.NetworkTests;
+
+import it.polimi.ingsw.am43.Network.GameLoop;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameLoopTest {
+
+    @Test
+    void onlyCommandsThatModifyRunTheHook() {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        AtomicInteger published = new AtomicInteger();
+        GameLoop loop = new GameLoop(executor, published::incrementAndGet);
+
+        assertEquals(1, loop.call(() -> 1));
+        assertEquals(1, published.get());
+        loop.execute(() -> {});
+        loop.call(() -> null);
+        assertEquals(3, published.get());
+
+        // Reads see the game as the last command left it, and publish nothing
+        assertEquals(2, loop.read(() -> 2));
+        loop.executeReadOnly(() -> assertTrue(loop.inLoop()));
+        assertEquals(3, (int) loop.read(published::get));
+        assertEquals(3, published.get());
+
+        // A read that fails reaches its caller like any other command
+        assertThrows(IllegalStateException.class, () -> loop.read(() -> {
+            throw new IllegalStateException("unexpected read");
+        }));
+        assertEquals(3, published.get());
+        executor.shutdown();
+    }
+
+    @Test
+    void errorOfCommandReachesItsCaller() {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        AtomicInteger published = new AtomicInteger();
+        GameLoop loop = new GameLoop(executor, published::incrementAndGet);
+
+        assertThrows(AssertionError.class, () -> loop.call(() -> {
+            throw new AssertionError("broken model");
+        }));
+        assertThrows(StackOverflowError.class, () -> loop.read(() -> {
+            throw new StackOverflowError();
+        }));
+
+        // An error of a command nobody waits for does not strand the commands queued after it
+        loop.execute(() -> {
+            throw new AssertionError("broken model");
+        });
+        assertEquals(4, (int) loop.call(() -> 4));
+        executor.shutdown();
+    }
+}
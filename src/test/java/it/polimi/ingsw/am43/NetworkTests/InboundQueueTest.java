@@ -0,0 +1,144 @@
+package it.polimi.ingsw.am43.NetworkTests;
+
+import it.polimi.ingsw.am43.Controller.GameSaver;
+import it.polimi.ingsw.am43.Network.GameLoop;
+import it.polimi.ingsw.am43.Network.GameRegistry;
+import it.polimi.ingsw.am43.Network.Message;
+import it.polimi.ingsw.am43.Network.Messages.toClientMessages.publicChatMessageMsg;
+import it.polimi.ingsw.am43.Network.Metrics.ConnectionMetrics;
+import it.polimi.ingsw.am43.Network.Metrics.ServerMetrics;
+import it.polimi.ingsw.am43.Network.ServerConfig;
+import it.polimi.ingsw.am43.Network.Socket.InboundQueue;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InboundQueueTest {
+
+    private static ServerMetrics metrics() {
+        return new GameRegistry("localhost", 0,
+                new ServerConfig(true, 8, 1, 1, 200, ServerConfig.Transport.BLOCKING, 1, GameSaver.Durability.SYNC)).getMetrics();
+    }
+
+    private static Message msg(String sender, int index) {
+        return new publicChatMessageMsg(sender, Integer.toString(index));
+    }
+
+    @Test
+    void messagesOfEachClientAreHandledInOrder() throws InterruptedException {
+        ServerMetrics metrics = metrics();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        GameLoop loop = new GameLoop(executor, () -> {});
+        int count = 1000;
+        List<List<Integer>> handled = List.of(new ArrayList<>(), new ArrayList<>());
+        CountDownLatch done = new CountDownLatch(2 * count);
+        List<InboundQueue> queues = new ArrayList<>();
+        for (int client = 0; client < 2; client++) {
+            List<Integer> mine = handled.get(client);
+            InboundQueue queue = new InboundQueue(metrics.openConnection("client" + client), () -> fail("no message fails"));
+            // The messages received before the client is routed wait for the game
+            queue.add(msg("player" + client, 0));
+            assertEquals(1, queue.size());
+            queue.start(loop, m -> {
+                assertTrue(loop.inLoop());
+                mine.add(Integer.parseInt(((publicChatMessageMsg) m).getMessage()));
+                done.countDown();
+            });
+            queues.add(queue);
+        }
+
+        // Two readers at once: the game sees each client in order, however their messages interleave
+        Thread[] readers = new Thread[2];
+        for (int client = 0; client < 2; client++) {
+            InboundQueue queue = queues.get(client);
+            String sender = "player" + client;
+            readers[client] = Thread.ofPlatform().start(() -> {
+                for (int i = 1; i < count; i++) queue.add(msg(sender, i));
+            });
+        }
+        for (Thread reader : readers) reader.join();
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        // The batch still running when the last message is handled has to count it
+        loop.call(() -> null);
+        for (List<Integer> mine : handled) {
+            for (int i = 0; i < count; i++) assertEquals(i, mine.get(i));
+        }
+        for (InboundQueue queue : queues) assertEquals(0, queue.size());
+
+        assertEquals(0, metrics.getInboundQueued());
+        assertTrue(metrics.getInboundPeak() >= 1);
+        assertTrue(metrics.getInboundMessagesPerBatch() >= 1);
+        assertTrue(metrics.getInboundMessagesPerBatch() <= InboundQueue.BATCH);
+        assertTrue(metrics.dump().contains("messages per batch"));
+        executor.shutdown();
+    }
+
+    @Test
+    void burstIsHandledInBatches() throws InterruptedException {
+        ServerMetrics metrics = metrics();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        GameLoop loop = new GameLoop(executor, () -> {});
+        ConnectionMetrics traffic = metrics.openConnection("client");
+        InboundQueue queue = new InboundQueue(traffic, () -> {});
+        List<Message> handled = new ArrayList<>();
+
+        // The burst arrives while the game is busy, so it is all queued before the first batch runs
+        CountDownLatch busy = new CountDownLatch(1);
+        loop.execute(() -> {
+            try {
+                busy.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        queue.start(loop, handled::add);
+        int count = 3 * InboundQueue.BATCH;
+        for (int i = 0; i < count; i++) queue.add(msg("player0", i));
+        assertEquals(count, queue.size());
+        assertEquals(count, metrics.getInboundQueued());
+        assertTrue(metrics.dump().contains(count + " queued"));
+        busy.countDown();
+
+        loop.call(() -> null);
+        while (queue.size() > 0) loop.call(() -> null);
+        assertEquals(count, handled.size());
+        assertEquals(count, metrics.getInboundPeak());
+        assertEquals(InboundQueue.BATCH, metrics.getInboundMessagesPerBatch(), 0.001);
+        executor.shutdown();
+    }
+
+    @Test
+    void failureAndCloseStopTheQueue() {
+        ServerMetrics metrics = metrics();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        GameLoop loop = new GameLoop(executor, () -> {});
+        AtomicBoolean failed = new AtomicBoolean(false);
+        InboundQueue queue = new InboundQueue(metrics.openConnection("client"), () -> failed.set(true));
+        List<Message> handled = new ArrayList<>();
+        queue.start(loop, m -> {
+            if (handled.size() == 1) throw new IllegalStateException("unexpected message");
+            handled.add(m);
+        });
+
+        queue.add(msg("player0", 0));
+        queue.add(msg("player0", 1));
+        loop.call(() -> null);
+        assertTrue(failed.get());
+
+        // Once the connection is closed, the messages left are discarded
+        queue.close();
+        queue.add(msg("player0", 2));
+        loop.call(() -> null);
+        assertEquals(1, handled.size());
+        assertEquals(0, queue.size());
+        executor.shutdown();
+    }
+}
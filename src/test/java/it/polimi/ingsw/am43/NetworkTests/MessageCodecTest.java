@@ -0,0 +1,261 @@
+package it.polimi.ingsw.am43.NetworkTests;
+
+import it.polimi.ingsw.am43.Controller.GameController;
+import it.polimi.ingsw.am43.Model.CardCatalog;
+import it.polimi.ingsw.am43.Model.Cards.CardSide;
+import it.polimi.ingsw.am43.Model.Cards.ObjectiveCard;
+import it.polimi.ingsw.am43.Model.Enum.PawnColor;
+import it.polimi.ingsw.am43.Model.SparseBoard;
+import it.polimi.ingsw.am43.Network.Message;
+import it.polimi.ingsw.am43.Network.MessageCodec;
+import it.polimi.ingsw.am43.Network.Messages.MessageType;
+import it.polimi.ingsw.am43.Network.WireOutput;
+import it.polimi.ingsw.am43.Network.Messages.controllerMessages.*;
+import it.polimi.ingsw.am43.Network.Messages.toClientMessages.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MessageCodecTest {
+    GameController gameController;
+
+    @BeforeEach
+    void setUp() {
+        gameController = new GameController();
+        gameController.initializePlayers(2, "player0", PawnColor.RED);
+        gameController.addPlayer("player1", PawnColor.BLUE);
+        gameController.startPreliminaryPhase();
+        for (int i = 0; i < 2; i++) {
+            ObjectiveCard[] personalObjectives = gameController.drawPersonalObjectives();
+            gameController.setPersonalObjective(i, personalObjectives[0]);
+            gameController.placeStartingCardSide(0, i);
+        }
+        gameController.playTurn(0, 0, 0, 0, 0);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <M extends Message> M roundTrip(M msg) throws IOException {
+        byte[] payload = MessageCodec.encode(msg);
+        Message decoded = MessageCodec.decode(payload, 0, payload.length);
+        assertEquals(msg.getType(), decoded.getType());
+        assertSame(msg.getClass(), decoded.getClass());
+        return (M) decoded;
+    }
+
+    @Test
+    void controllerMessagesTest() throws IOException {
+        assertNull(roundTrip(new SCMsgJoinGame(null)).getGameID());
+        assertEquals("123456", roundTrip(new SCMsgJoinGame("123456")).getGameID());
+
+        SCMsgPlayTurn turn = roundTrip(new SCMsgPlayTurn(2, 17, 3, -1));
+        assertEquals(2, turn.getHandIndex());
+        assertEquals(17, turn.getDeployedIndex());
+        assertEquals(3, turn.getCorner());
+        assertEquals(-1, turn.getDrawn());
+
+        SCMsgFirstPlayerJoins first = roundTrip(new SCMsgFirstPlayerJoins("Ålesund ☘", 3, 4));
+        assertEquals("Ålesund ☘", first.getUsername());
+        assertEquals(3, first.getColor());
+        assertEquals(4, first.getNumPlayers());
+
+        assertEquals(1, roundTrip(new SCMsgPlayerRejoins("1")).getPick());
+        assertEquals(42, roundTrip(new SCMsgPlayerRejoins("1", 42)).getLastSeq());
+        ObjectiveCard objective = gameController.getCommonObjectives()[0];
+        assertEquals(objective.getId(), roundTrip(new SCMsgPersonalObjective(objective.getId())).getObjID());
+
+        privateChatMessageMsg chat = roundTrip(new privateChatMessageMsg("player0", "player1", "hi"));
+        assertEquals("player0", chat.getSender());
+        assertEquals("player1", chat.getReceiver());
+        assertEquals("hi", chat.getMessage());
+    }
+
+    @Test
+    void cardsAreSentAsIdsTest() throws IOException {
+        initialSituation situation = gameController.getInitialSituation(1);
+        initialSituation decoded = roundTrip(situation);
+        assertEquals(situation.getPlayerID(), decoded.getPlayerID());
+        // The decoded cards are the ones shared by the catalog
+        for (int i = 0; i < situation.getInHand().length; i++) {
+            assertSame(CardCatalog.getInstance().getCard(situation.getInHand()[i].getId()), decoded.getInHand()[i]);
+        }
+        assertSame(situation.getStartingCard(), decoded.getStartingCard());
+        assertArrayEquals(situation.getCommonObjectives(), decoded.getCommonObjectives());
+    }
+
+    @Test
+    void deployedSidesTest() throws IOException {
+        gameInfoMsg info = gameController.getGameInfo();
+        gameInfoMsg decodedInfo = roundTrip(info);
+        CardSide placed = info.getPlacedCardSide();
+        CardSide decodedPlaced = decodedInfo.getPlacedCardSide();
+        assertEquals(placed.getCardID(), decodedPlaced.getCardID());
+        assertEquals(placed.isFront(), decodedPlaced.isFront());
+        assertEquals(placed.getDeployedID(), decodedPlaced.getDeployedID());
+        assertArrayEquals(placed.getRelativeCoordinates(), decodedPlaced.getRelativeCoordinates());
+        assertNotSame(CardCatalog.getInstance().findSide(placed), decodedPlaced);
+        assertSame(info.getGoldenDeckTop(), decodedInfo.getGoldenDeckTop());
+        assertArrayEquals(info.getScores(), decodedInfo.getScores());
+
+        requiredDataMsg data = gameController.getRequiredData(0);
+        requiredDataMsg decoded = roundTrip(data);
+        assertArrayEquals(data.getColors(), decoded.getColors());
+        assertArrayEquals(data.getUsernames(), decoded.getUsernames());
+        assertSame(data.getPersonalObjective(), decoded.getPersonalObjective());
+        for (int p = 0; p < data.getNumPlayers(); p++) {
+            ArrayList<CardSide> sent = data.getDeployed()[p];
+            ArrayList<CardSide> received = decoded.getDeployed()[p];
+            assertEquals(sent.size(), received.size());
+            for (int i = 0; i < sent.size(); i++) {
+                assertEquals(sent.get(i).getPngPath(), received.get(i).getPngPath());
+                assertEquals(sent.get(i).getDeployedID(), received.get(i).getDeployedID());
+                assertArrayEquals(sent.get(i).getRelativeCoordinates(), received.get(i).getRelativeCoordinates());
+            }
+            SparseBoard board = data.getPlacements()[p];
+            SparseBoard decodedBoard = decoded.getPlacements()[p];
+            assertEquals(board.size(), decodedBoard.size());
+            board.forEach((x, y, value) -> assertEquals(value, decodedBoard.get(x, y)));
+        }
+    }
+
+    @Test
+    void resyncTest() throws IOException {
+        gameController.playTurn(1, 1, 0, 0, 0);
+        resyncMsg resync = (resyncMsg) gameController.getRejoinData(0, 1);
+        resyncMsg decoded = roundTrip(resync);
+        assertEquals(1, decoded.getMissed().length);
+        assertEquals(2, decoded.getMissed()[0].getSeq());
+        assertEquals(1, decoded.getMissed()[0].getPlayerID());
+        assertArrayEquals(resync.getMissed()[0].getPlacedCoordinates(), decoded.getMissed()[0].getPlacedCoordinates());
+        assertArrayEquals(resync.getInHandIDs(), decoded.getInHandIDs());
+        assertEquals(resync.getPersonalObjectiveID(), decoded.getPersonalObjectiveID());
+        assertEquals(2, roundTrip(gameController.getRequiredData(0)).getSeq());
+    }
+
+    @Test
+    void sideReferencesTest() {
+        CardCatalog catalog = CardCatalog.getInstance();
+        CardSide placed = gameController.getPlayers()[0].getDeployed().getLast();
+        int ref = catalog.getSideRef(placed);
+        assertEquals(placed.isFront() ? placed.getCardID() : -placed.getCardID(), ref);
+        assertSame(catalog.findSide(placed), catalog.getSide(ref));
+        assertNull(catalog.getSide(0));
+        assertEquals(0, catalog.getSideRef(null));
+
+        CardSide copy = catalog.getDeployedSide(ref, placed.getDeployedID(), placed.getRelativeCoordinates());
+        assertNotSame(placed, copy);
+        assertEquals(placed.getDeployedID(), copy.getDeployedID());
+        assertArrayEquals(placed.getRelativeCoordinates(), copy.getRelativeCoordinates());
+    }
+
+    @Test
+    void unknownObjectiveTest() {
+        int startingCard = gameController.getPlayers()[1].getStartingCard().getId();
+        assertFalse(gameController.setPersonalObjective(1, startingCard));
+        assertFalse(gameController.setPersonalObjective(1, 0));
+        ObjectiveCard objective = gameController.getCommonObjectives()[1];
+        assertTrue(gameController.setPersonalObjective(1, objective.getId()));
+        assertSame(objective, gameController.getPersonalObjective(1));
+    }
+
+    @Test
+    void placementsTest() throws IOException {
+        placeableCardsMsg placeable = gameController.getPlaceableCards(1);
+        placeableCardsMsg decoded = roundTrip(placeable);
+        assertArrayEquals(placeable.getPlaceableCards(), decoded.getPlaceableCards());
+        assertEquals(placeable.getAllAvailablePlacements().length, decoded.getAllAvailablePlacements().length);
+        for (int i = 0; i < placeable.getAllAvailablePlacements().length; i++) {
+            assertArrayEquals(placeable.getAvailablePlacements(i).getAvailablePlacements(),
+                    decoded.getAvailablePlacements(i).getAvailablePlacements());
+        }
+
+        endGameMsg end = roundTrip(new endGameMsg(new int[][]{{1, 0}, {22, 18}}));
+        assertTrue(Arrays.deepEquals(new int[][]{{1, 0}, {22, 18}}, end.getRanking()));
+    }
+
+    @Test
+    void smallerThanSerializationTest() throws IOException {
+        for (Message msg : new Message[]{gameController.getRequiredData(0), gameController.getGameInfo(), gameController.getInitialGameInfo(), new SCMsgHeartbeat()}) {
+            ByteArrayOutputStream serialized = new ByteArrayOutputStream();
+            try (ObjectOutputStream out = new ObjectOutputStream(serialized)) {
+                out.writeObject(msg);
+            }
+            int binary = MessageCodec.encode(msg).length;
+            assertTrue(binary * 10 < serialized.size(), msg.getType() + ": " + binary + " vs " + serialized.size() + " bytes");
+        }
+    }
+
+    @Test
+    void framesTest() throws IOException {
+        ByteBuffer frame = MessageCodec.encodeFrame(gameController.getGameInfo());
+        int length = frame.getInt(0);
+        assertEquals(MessageCodec.HEADER_SIZE + length, frame.remaining());
+        assertEquals(gameController.getGameInfo().getType(),
+                MessageCodec.decode(frame.array(), frame.arrayOffset() + MessageCodec.HEADER_SIZE, length).getType());
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        MessageCodec.writeFrame(out, new publicChatMessageMsg("player1", "hello"));
+        MessageCodec.writeFrame(out, new SCMsgHeartbeat());
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        assertEquals("hello", ((publicChatMessageMsg) MessageCodec.readFrame(in)).getMessage());
+        assertInstanceOf(SCMsgHeartbeat.class, MessageCodec.readFrame(in));
+    }
+
+    @Test
+    void sharedFrameTest() throws IOException {
+        // A broadcast is encoded once, and every recipient writes its own view of the same bytes
+        ByteBuffer shared = MessageCodec.encodeSharedFrame(gameController.getGameInfo());
+        assertTrue(shared.isReadOnly());
+        assertEquals(MessageCodec.encodeFrame(gameController.getGameInfo()), shared);
+
+        ByteArrayOutputStream first = new ByteArrayOutputStream();
+        ByteArrayOutputStream second = new ByteArrayOutputStream();
+        Channels.newChannel(first).write(shared.duplicate());
+        Channels.newChannel(second).write(shared.duplicate());
+        assertEquals(0, shared.position());
+        assertArrayEquals(first.toByteArray(), second.toByteArray());
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(first.toByteArray()));
+        assertEquals(MessageType.GAMEINFO, MessageCodec.readFrame(in).getType());
+        assertEquals(0, in.available());
+    }
+
+    @Test
+    void heartbeatFrameTest() throws IOException {
+        // The fixed frame is the one the codec would encode, and writing it does not consume it
+        ByteBuffer encoded = MessageCodec.encodeFrame(new SCMsgHeartbeat());
+        assertEquals(MessageCodec.HEADER_SIZE + 1, encoded.remaining());
+        assertEquals(encoded, MessageCodec.heartbeatFrame());
+        MessageCodec.heartbeatFrame().position(MessageCodec.HEADER_SIZE + 1);
+        assertEquals(encoded, MessageCodec.heartbeatFrame());
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        MessageCodec.writeHeartbeat(out);
+        MessageCodec.writeFrame(out, new publicChatMessageMsg("player1", "hello"));
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        assertEquals(MessageType.HEARTBEAT, MessageCodec.readFrame(in).getType());
+        assertEquals("hello", ((publicChatMessageMsg) MessageCodec.readFrame(in)).getMessage());
+    }
+
+    @Test
+    void corruptedPayloadTest() throws IOException {
+        byte[] payload = MessageCodec.encode(gameController.getRequiredData(1));
+        assertThrows(IOException.class, () -> MessageCodec.decode(payload, 0, payload.length - 1));
+        byte[] unknownType = {(byte) 0xFF};
+        assertThrows(IOException.class, () -> MessageCodec.decode(unknownType, 0, 1));
+        // A huge length must be rejected before allocating anything
+        WireOutput hugeArray = new WireOutput(8);
+        hugeArray.writeByte(MessageType.ENDGAME.ordinal());
+        hugeArray.writeInt(1 << 30);
+        assertThrows(IOException.class, () -> MessageCodec.decode(hugeArray.array(), 0, hugeArray.size()));
+        assertThrows(IOException.class, () -> MessageCodec.checkLength(MessageCodec.MAX_FRAME_SIZE + 1));
+    }
+}
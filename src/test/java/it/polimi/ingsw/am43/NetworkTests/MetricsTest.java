@@ -0,0 +1,97 @@
+package it.polimi.ingsw.am43.NetworkTests;
+
+import it.polimi.ingsw.am43.Controller.GameSaver;
+import it.polimi.ingsw.am43.Network.GameRegistry;
+import it.polimi.ingsw.am43.Network.Messages.MessageType;
+import it.polimi.ingsw.am43.Network.Metrics.ConnectionMetrics;
+import it.polimi.ingsw.am43.Network.Metrics.LatencyHistogram;
+import it.polimi.ingsw.am43.Network.Metrics.ServerMetrics;
+import it.polimi.ingsw.am43.Network.ServerConfig;
+import org.junit.jupiter.api.Test;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MetricsTest {
+
+    @Test
+    void histogramTest() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getValueAtPercentile(99));
+        for (long micros = 1; micros <= 1000; micros++) histogram.record(micros * 1000);
+        assertEquals(1000, histogram.getCount());
+        assertEquals(1_000_000, histogram.getMax());
+        assertEquals(500_500, histogram.getMean(), 1);
+        // Buckets are within about 6% of the values they hold
+        assertEquals(500_000, histogram.getValueAtPercentile(50), 500_000 * 0.07);
+        assertEquals(990_000, histogram.getValueAtPercentile(99), 990_000 * 0.07);
+        assertEquals(1_000_000, histogram.getValueAtPercentile(100));
+
+        // Small values are exact, huge ones are clamped
+        histogram.record(-5);
+        histogram.record(Long.MAX_VALUE);
+        assertEquals(0, histogram.getValueAtPercentile(0));
+        assertEquals(LatencyHistogram.MAX_VALUE, histogram.getMax());
+        assertEquals(LatencyHistogram.MAX_VALUE, histogram.getValueAtPercentile(100));
+    }
+
+    @Test
+    void serverMetricsTest() throws JMException {
+        GameRegistry registry = new GameRegistry("localhost", 0,
+                new ServerConfig(true, 8, 1, 1, 200, ServerConfig.Transport.BLOCKING, 1, GameSaver.Durability.SYNC));
+        ServerMetrics metrics = registry.getMetrics();
+        metrics.recordHandling(MessageType.PLAYTURN, 2_000_000);
+        metrics.recordSave(1_000_000);
+
+        ConnectionMetrics first = metrics.openConnection("10.0.0.1");
+        ConnectionMetrics second = metrics.openConnection("10.0.0.2");
+        first.received(10);
+        first.sent(100);
+        second.receivedBytes(7);
+        second.receivedFrame();
+        second.sent(5);
+        assertEquals(2, metrics.getOpenConnections());
+        assertEquals(17, metrics.getBytesIn());
+        assertEquals(105, metrics.getBytesOut());
+
+        // Closed connections are no longer listed, but their traffic is still counted
+        first.close();
+        first.close();
+        assertEquals(1, metrics.getOpenConnections());
+        assertEquals(17, metrics.getBytesIn());
+        assertEquals(105, metrics.getBytesOut());
+
+        String dump = metrics.dump();
+        assertTrue(dump.contains("PLAYTURN"));
+        assertFalse(dump.contains("COUPLECARDS"));
+        assertTrue(dump.contains("10.0.0.2"));
+        assertFalse(dump.contains("10.0.0.1"));
+        assertEquals(2.0, metrics.getHandlingP99Millis().get("PLAYTURN"), 0.15);
+        assertFalse(dump.contains("bot decision"));
+
+        metrics.recordBotDecision(50_000_000);
+        metrics.recordSearch(200, 40_000_000);
+        metrics.recordSearch(100, 20_000_000);
+        assertEquals(300, metrics.getBotRollouts());
+        assertEquals(5000, metrics.getBotRolloutsPerSecond(), 1);
+        assertEquals(50.0, metrics.getBotDecisionP99Millis(), 50 * 0.07);
+        assertTrue(metrics.dump().contains("bot decision"));
+
+        metrics.register(0);
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName("it.polimi.ingsw.am43:type=ServerMetrics,port=0");
+            assertEquals(1, server.getAttribute(name, "OpenConnections"));
+            assertEquals(0, server.getAttribute(name, "ActiveGames"));
+        } finally {
+            metrics.unregister();
+        }
+        registry.getPersistenceStage().shutdown();
+        registry.getScheduler().shutdown();
+        registry.getBotPool().shutdown();
+    }
+}
@@ -0,0 +1,80 @@
+package it.polimi.ingsw.am43.NetworkTests;
+
+import it.polimi.ingsw.am43.Model.Enum.PawnColor;
+import it.polimi.ingsw.am43.Model.Game;
+import it.polimi.ingsw.am43.Model.Player;
+import it.polimi.ingsw.am43.Model.Simulation;
+import it.polimi.ingsw.am43.Network.Bot.MoveSearch;
+import it.polimi.ingsw.am43.Network.Metrics.ServerMetrics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MoveSearchTest {
+
+    private Game game;
+    private ForkJoinPool pool;
+    private ServerMetrics metrics;
+
+    @BeforeEach
+    void setUp() {
+        game = new Game();
+        game.initializePlayers(3, "p1", PawnColor.RED);
+        game.addPlayer("p2", PawnColor.BLUE);
+        game.addPlayer("p3", PawnColor.GREEN);
+        game.dealStartingCards(game.getPlayers());
+        game.dealHands(game.getPlayers());
+        game.drawCommonObjectives();
+        for (Player player : game.getPlayers()) {
+            player.setPersonalObjective(game.drawPersonalObjectives()[0]);
+            player.placeCardSide(player.getStartingCard().getFrontside().copy(), -1, 0);
+        }
+        game.setFirst_player(0);
+        game.setLastPlayerID(2);
+        pool = new ForkJoinPool(2);
+        metrics = new ServerMetrics(null);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    void searchChoosesLegalMoveWithinBudget() {
+        Simulation root = new Simulation(game, new Random(3));
+        MoveSearch search = new MoveSearch(pool, metrics);
+
+        long start = System.nanoTime();
+        int[] move = search.choose(root, TimeUnit.MILLISECONDS.toNanos(50));
+        long elapsed = System.nanoTime() - start;
+
+        assertNotNull(move);
+        assertTrue(root.copy().play(move));
+        assertTrue(elapsed < TimeUnit.SECONDS.toNanos(2));
+        assertTrue(metrics.getBotRollouts() > 0);
+        assertTrue(metrics.getBotRolloutsPerSecond() > 0);
+        // The search works on copies
+        assertEquals(0, root.getTurn());
+        assertEquals(1, root.getPlayer(0).getDeployed().size());
+    }
+
+    @Test
+    void botsPlayWholeGame() {
+        Simulation simulation = new Simulation(game, new Random(5));
+        MoveSearch search = new MoveSearch(pool, metrics);
+        while (!simulation.isOver()) {
+            int[] move = search.choose(simulation, TimeUnit.MILLISECONDS.toNanos(1));
+            if (move == null) break;
+            assertTrue(simulation.play(move));
+        }
+        assertTrue(simulation.getTurn() > 0);
+        assertEquals(3, simulation.endGame().length);
+    }
+}
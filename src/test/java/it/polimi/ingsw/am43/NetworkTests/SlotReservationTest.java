@@ -0,0 +1,38 @@
+package it.polimi.ingsw.am43.NetworkTests;
+
+import it.polimi.ingsw.am43.Controller.GameSaver;
+import it.polimi.ingsw.am43.Network.GameRegistry;
+import it.polimi.ingsw.am43.Network.GameServer;
+import it.polimi.ingsw.am43.Network.ServerConfig;
+import org.junit.jupiter.api.Test;
+
+import java.rmi.RemoteException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SlotReservationTest {
+
+    @Test
+    void slotsOfClientsWithoutSeatAreReleased() throws RemoteException {
+        GameRegistry registry = new GameRegistry("localhost", 0,
+                new ServerConfig(true, 8, 1, 1, 200, ServerConfig.Transport.BLOCKING, 1, GameSaver.Durability.SYNC));
+        GameServer lobby = registry.route(null);
+        assertNotNull(lobby);
+        for (int i = 1; i < GameServer.MAX_PLAYERS; i++) assertSame(lobby, registry.route(null));
+
+        // The lobby looks full while the slots are reserved, and is open again once a client gives its slot back
+        GameServer other = registry.route(null);
+        assertNotSame(lobby, other);
+        lobby.releaseSlot();
+        assertSame(lobby, registry.route(null));
+
+        // An RMI client takes the slot reserved when it was routed
+        lobby.expectRMIClient();
+        assertEquals(0, lobby.getRMIServer().registerClient());
+        // A client registering without a reservation needs a free slot
+        assertEquals(-1, lobby.getRMIServer().registerClient());
+        lobby.releaseSlot();
+        assertEquals(1, lobby.getRMIServer().registerClient());
+        registry.stop();
+    }
+}
@@ -0,0 +1,60 @@
+package it.polimi.ingsw.am43.NetworkTests;
+
+import it.polimi.ingsw.am43.Controller.GameSaver;
+import it.polimi.ingsw.am43.Network.GameRegistry;
+import it.polimi.ingsw.am43.Network.MessageCodec;
+import it.polimi.ingsw.am43.Network.Messages.toClientMessages.publicChatMessageMsg;
+import it.polimi.ingsw.am43.Network.Metrics.ServerMetrics;
+import it.polimi.ingsw.am43.Network.ServerConfig;
+import it.polimi.ingsw.am43.Network.Socket.BlockingConnection;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SlowConsumerTest {
+
+    @Test
+    void configTest() {
+        ServerConfig config = new ServerConfig(true, 8, 1, 1, 200, ServerConfig.Transport.BLOCKING, 1, GameSaver.Durability.SYNC);
+        assertTrue(config.getOutboundHighWater() <= config.getOutboundLimit());
+        assertThrows(IllegalArgumentException.class, () -> new ServerConfig(true, 8, 1, 1, 200, ServerConfig.Transport.BLOCKING, 1,
+                GameSaver.Durability.SYNC, 1, 500, 0, false, 1024, 512));
+    }
+
+    @Test
+    void clientThatDoesNotReadIsDisconnected() throws Exception {
+        GameRegistry registry = new GameRegistry("localhost", 0,
+                new ServerConfig(true, 8, 1, 1, 200, ServerConfig.Transport.BLOCKING, 1, GameSaver.Durability.SYNC));
+        ServerMetrics metrics = registry.getMetrics();
+        ByteBuffer chat = MessageCodec.encodeSharedFrame(new publicChatMessageMsg("player0", "x".repeat(8 * 1024)));
+
+        try (ServerSocket server = new ServerSocket(0);
+             Socket client = new Socket("localhost", server.getLocalPort());
+             Socket accepted = server.accept()) {
+            BlockingConnection connection = new BlockingConnection(accepted, new DataInputStream(accepted.getInputStream()),
+                    new DataOutputStream(new BufferedOutputStream(accepted.getOutputStream())), Thread.ofVirtual().factory(),
+                    () -> {}, metrics.openConnection("client"), 16 * 1024, 256 * 1024);
+
+            // The client never reads: once the socket is full the frames pile up, but sending never waits for it
+            assertTimeoutPreemptively(Duration.ofSeconds(20), () -> {
+                while (!connection.isClosed()) {
+                    connection.sendFrame(chat, false);
+                    connection.sendFrame(chat, true);
+                    connection.sendHeartbeat();
+                }
+            });
+            assertEquals(1, metrics.getSlowConsumers());
+            assertTrue(metrics.getShedFrames() > 0);
+            assertTrue(metrics.dump().contains("slow consumers disconnected 1"));
+            connection.close();
+        }
+    }
+}